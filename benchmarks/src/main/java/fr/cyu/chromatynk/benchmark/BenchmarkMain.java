@@ -0,0 +1,30 @@
+package fr.cyu.chromatynk.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The entry point of {@code benchmarks.jar}, accepting the same options as the JMH runner.
+ * <p>
+ * Unless a result format is given with {@code -rf}, results are written as JSON to {@code jmh-result.json} so they can
+ * be compared between runs.
+ */
+public final class BenchmarkMain {
+
+    /**
+     * The file the results are written to by default.
+     */
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        if(!arguments.contains("-rf")) {
+            arguments.addAll(List.of("-rf", "json"));
+            if(!arguments.contains("-rff")) arguments.addAll(List.of("-rff", DEFAULT_RESULT_FILE));
+        }
+
+        org.openjdk.jmh.Main.main(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,83 @@
+package fr.cyu.chromatynk.benchmark;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.ast.Program;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.Compiler;
+import fr.cyu.chromatynk.draw.NullSurface;
+import fr.cyu.chromatynk.eval.EvalContext;
+import fr.cyu.chromatynk.eval.EvalException;
+import fr.cyu.chromatynk.eval.ForeverClock;
+import fr.cyu.chromatynk.eval.Interpreter;
+import fr.cyu.chromatynk.parsing.*;
+import fr.cyu.chromatynk.typing.TypingException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of each stage of the pipeline, from the source to the drawn segments.
+ * <p>
+ * Each stage runs on the output of the previous ones, computed once per workload. Execution draws on a
+ * {@link NullSurface} so only the interpreter is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({
+            "RGB lines", "code_romu", "folie", "spin_spiral", "spiral", "square", "star", "virus",
+            "synthetic-10", "synthetic-100", "synthetic-1000",
+            "nested-200", "expressions-1000", "cursors-1000", "mirrors-500"
+    })
+    public String workload;
+
+    private String source;
+    private List<Token> tokens;
+    private Program program;
+    private List<Bytecode> instructions;
+
+    @Setup(Level.Trial)
+    public void setup() throws ParsingException, TypingException {
+        source = Workloads.load(workload);
+        tokens = Chromatynk.lexSource(source);
+        program = parse();
+        Chromatynk.typecheckProgram(program);
+        instructions = Compiler.compileProgram(program);
+    }
+
+    @Benchmark
+    public List<Token> lex() throws ParsingException {
+        return Lexer.TOKENS_PARSER.parse(ParsingIterator.fromString(source)).value();
+    }
+
+    @Benchmark
+    public Program parse() throws ParsingException {
+        //Memoized like Chromatynk#parseSource
+        ParsingIterator<Token> iterator = new RangedParsingIterator<>(tokens);
+        iterator.setMemoTable(new MemoTable());
+        return StatementParser.program().parse(iterator).value();
+    }
+
+    @Benchmark
+    public Program typecheck() throws TypingException {
+        Chromatynk.typecheckProgram(program);
+        return program;
+    }
+
+    @Benchmark
+    public List<Bytecode> compile() {
+        return Compiler.compileProgram(program);
+    }
+
+    @Benchmark
+    public EvalContext evaluate() throws EvalException {
+        EvalContext context = EvalContext.create(instructions, new NullSurface(800, 600));
+        return Interpreter.evaluateAll(context, new ForeverClock());
+    }
+}
@@ -0,0 +1,58 @@
+package fr.cyu.chromatynk.benchmark;
+
+import fr.cyu.chromatynk.util.WorkloadGenerator;
+import fr.cyu.chromatynk.util.WorkloadGenerator.Shape;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The scripts used as benchmark inputs.
+ * <p>
+ * A workload is either the name of an example script, bundled from the {@code examples} directory, or a program
+ * generated by {@link WorkloadGenerator}: {@code synthetic-N} for a {@link Shape#MIXED mixed} program of size
+ * {@code N}, or {@code <shape>-N} for any other shape, like {@code nested-500} or {@code cursors-1000}.
+ */
+public final class Workloads {
+
+    /**
+     * The prefix of the synthetic workloads.
+     */
+    public static final String SYNTHETIC_PREFIX = "synthetic-";
+
+    private Workloads() {}
+
+    /**
+     * Get a synthetic script.
+     *
+     * @param scale the number of copies of {@link WorkloadGenerator#MIXED_UNIT}
+     */
+    public static String synthetic(int scale) {
+        return WorkloadGenerator.generate(Shape.MIXED, scale);
+    }
+
+    /**
+     * Get the source of a workload.
+     *
+     * @param name the name of an example script without extension, {@code synthetic-N} or {@code <shape>-N}
+     * @return the source of the script
+     * @throws IllegalArgumentException if there is no such workload
+     */
+    public static String load(String name) {
+        if(name.startsWith(SYNTHETIC_PREFIX)) return synthetic(Integer.parseInt(name.substring(SYNTHETIC_PREFIX.length())));
+
+        for(Shape shape : Shape.values()) {
+            String prefix = shape.name().toLowerCase() + "-";
+            if(name.startsWith(prefix)) return WorkloadGenerator.generate(shape, Integer.parseInt(name.substring(prefix.length())));
+        }
+
+        try(InputStream in = Workloads.class.getResourceAsStream("/examples/" + name + ".cty")) {
+            if(in == null) throw new IllegalArgumentException("Unknown workload: " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
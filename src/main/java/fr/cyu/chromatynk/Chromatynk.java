@@ -3,20 +3,30 @@ package fr.cyu.chromatynk;
 import fr.cyu.chromatynk.ast.Program;
 import fr.cyu.chromatynk.ast.Statement;
 import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.BytecodeCache;
 import fr.cyu.chromatynk.bytecode.Compiler;
+import fr.cyu.chromatynk.bytecode.ConstantFolder;
 import fr.cyu.chromatynk.eval.Clock;
 import fr.cyu.chromatynk.eval.EvalContext;
 import fr.cyu.chromatynk.eval.EvalException;
 import fr.cyu.chromatynk.eval.Interpreter;
+import fr.cyu.chromatynk.jfr.CompileStageEvent;
 import fr.cyu.chromatynk.parsing.Lexer;
 import fr.cyu.chromatynk.parsing.*;
 import fr.cyu.chromatynk.typing.Typer;
 import fr.cyu.chromatynk.typing.TypingContext;
 import fr.cyu.chromatynk.typing.TypingException;
+import fr.cyu.chromatynk.util.Position;
 import fr.cyu.chromatynk.editor.CodeEditor;
 import javafx.scene.canvas.GraphicsContext;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 public class Chromatynk {
 
@@ -28,7 +38,14 @@ public class Chromatynk {
      * @throws ParsingException
      */
     public static List<Token> lexSource(String source) throws ParsingException {
-        return Lexer.TOKENS_PARSER.parse(ParsingIterator.fromString(source)).value();
+        CompileStageEvent event = new CompileStageEvent(CompileStageEvent.LEX);
+        event.begin();
+        List<Token> tokens = Lexer.TOKENS_PARSER.parse(ParsingIterator.fromString(source)).value();
+        event.sourceLength = source.length();
+        event.tokens = tokens.size();
+        event.commit();
+
+        return tokens;
     }
 
     /**
@@ -39,22 +56,133 @@ public class Chromatynk {
      * @throws ParsingException
      */
     public static Program parseSource(String source) throws ParsingException {
-        return StatementParser
+        List<Token> tokens = lexSource(source);
+
+        CompileStageEvent event = new CompileStageEvent(CompileStageEvent.PARSE);
+        event.begin();
+        ParsingIterator<Token> iterator = new RangedParsingIterator<>(tokens);
+        iterator.setMemoTable(new MemoTable());
+        Program program = StatementParser
                 .program()
-                .parse(new RangedParsingIterator<>(lexSource(source)))
+                .parse(iterator)
                 .value();
+        event.sourceLength = source.length();
+        event.tokens = tokens.size();
+        event.statements = program.statements().size();
+        event.commit();
+
+        return program;
     }
 
     public static void typecheckProgram(Program program) throws TypingException {
+        CompileStageEvent event = new CompileStageEvent(CompileStageEvent.TYPECHECK);
+        event.begin();
         TypingContext typingContext = new TypingContext();
         for(Statement statement : program.statements()) Typer.checkTypes(statement, typingContext);
+        event.statements = program.statements().size();
+        event.commit();
     }
 
-    public static EvalContext compileSource(String source, GraphicsContext graphics) throws ParsingException, TypingException {
+    /**
+     * Parse, typecheck and compile a program from the given source.
+     *
+     * @param source the source code to compile
+     * @return the compiled instructions
+     * @throws ParsingException
+     * @throws TypingException
+     */
+    public static List<Bytecode> compileInstructions(String source) throws ParsingException, TypingException {
         Program program = parseSource(source);
         typecheckProgram(program);
 
+        CompileStageEvent event = new CompileStageEvent(CompileStageEvent.COMPILE);
+        event.begin();
         List<Bytecode> instructions = Compiler.compileProgram(program);
+        event.sourceLength = source.length();
+        event.statements = program.statements().size();
+        event.instructions = instructions.size();
+        event.commit();
+
+        return instructions;
+    }
+
+    /**
+     * Lex, parse, typecheck and compile a program from the given reader, one top-level statement at a time.
+     * <p>
+     * Each statement is compiled as soon as it is parsed, then its source, tokens and syntax tree are discarded, so only
+     * the generated instructions grow with the program. The instructions are the same as the ones of
+     * {@link #compileInstructions(String)} but an error is reported as soon as its statement is reached: a typing error
+     * may be reported before a parsing error located later in the source. A single compile event covers all the stages.
+     *
+     * @param reader the source code to compile. It is not closed by this method
+     * @return the compiled instructions
+     * @throws ParsingException
+     * @throws TypingException
+     * @throws IOException if the source cannot be read
+     */
+    public static List<Bytecode> compileStream(Reader reader) throws ParsingException, TypingException, IOException {
+        CompileStageEvent event = new CompileStageEvent(CompileStageEvent.COMPILE);
+        event.begin();
+        StreamingLexer lexer = new StreamingLexer(reader);
+        StreamingParser parser = new StreamingParser(lexer);
+        TypingContext typingContext = new TypingContext();
+        List<Bytecode> instructions = new ArrayList<>();
+        Position endPosition = new Position(0, 0);
+
+        for(Optional<Statement> next = parser.next(); next.isPresent(); next = parser.next()) {
+            Statement statement = next.get();
+            Typer.checkTypes(statement, typingContext);
+            Compiler.compileStatement(ConstantFolder.foldStatement(statement), instructions, 0);
+            endPosition = statement.range().to();
+        }
+
+        instructions = Compiler.endProgram(instructions, endPosition);
+        event.sourceLength = lexer.getCharactersRead();
+        event.tokens = lexer.getTokens();
+        event.statements = parser.getStatements();
+        event.instructions = instructions.size();
+        event.commit();
+
+        return instructions;
+    }
+
+    /**
+     * Compile a program from the given UTF-8 file without loading it entirely in memory.
+     *
+     * @param path the path of the source file
+     * @return the compiled instructions
+     * @throws ParsingException
+     * @throws TypingException
+     * @throws IOException if the file cannot be read
+     * @see #compileStream(Reader)
+     */
+    public static List<Bytecode> compileFile(Path path) throws ParsingException, TypingException, IOException {
+        try(Reader reader = Files.newBufferedReader(path)) {
+            return compileStream(reader);
+        }
+    }
+
+    public static EvalContext compileSource(String source, GraphicsContext graphics) throws ParsingException, TypingException {
+        return EvalContext.create(compileInstructions(source), graphics);
+    }
+
+    /**
+     * Compile a program from the given source, reusing the cached compilation if the source did not change.
+     *
+     * @param source the source code to compile
+     * @param graphics the graphics context to draw on
+     * @param cache the cache of the compiled programs
+     * @return a new evaluation context running the compiled program
+     * @throws ParsingException
+     * @throws TypingException
+     * @throws IOException if the cache cannot be read or written
+     */
+    public static EvalContext compileSource(String source, GraphicsContext graphics, BytecodeCache cache) throws ParsingException, TypingException, IOException {
+        Optional<List<Bytecode>> cached = cache.load(source);
+        if(cached.isPresent()) return EvalContext.create(cached.get(), graphics);
+
+        List<Bytecode> instructions = compileInstructions(source);
+        cache.store(source, instructions);
         return EvalContext.create(instructions, graphics);
     }
 
@@ -17,7 +17,19 @@ public class ChromatynkException extends Exception {
      * @param message the error message
      */
     public ChromatynkException(Range range, String message, String header) {
-        super(message);
+        this(range, message, header, true);
+    }
+
+    /**
+     * Create a new Chromat'ynk exception, optionally without stack trace.
+     *
+     * @param range the range where the error occurred
+     * @param message the error message
+     * @param writableStackTrace whether the stack trace should be filled in. Exceptions used for control flow should not
+     *                           pay for it
+     */
+    protected ChromatynkException(Range range, String message, String header, boolean writableStackTrace) {
+        super(message, null, true, writableStackTrace);
         this.range = range;
         this.header = header;
     }
@@ -16,6 +16,22 @@ public sealed interface Expr {
      */
     Range range();
 
+    /**
+     * An operator applied to two expressions.
+     */
+    sealed interface Binary extends Expr {
+
+        /**
+         * Get the left member of this operation.
+         */
+        Expr left();
+
+        /**
+         * Get the right member of this operation.
+         */
+        Expr right();
+    }
+
     /**
      * A literal boolean.
      *
@@ -59,6 +75,14 @@ public sealed interface Expr {
      */
     record LiteralColor(Range range, double red, double green, double blue, double opacity) implements Expr {}
 
+    /**
+     * A literal percentage. Not produced by the parser but by constant folding.
+     *
+     * @param range the starting and ending {@link Position} of this expression
+     * @param value the literal value
+     */
+    record LiteralPercent(Range range, double value) implements Expr {}
+
     /**
      * A percentage.
      *
@@ -82,7 +106,7 @@ public sealed interface Expr {
      * @param left  the left member of the addition
      * @param right the right member of the addition
      */
-    record Add(Range range, Expr left, Expr right) implements Expr {}
+    record Add(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A subtraction {@code left-right}.
@@ -91,7 +115,7 @@ public sealed interface Expr {
      * @param left  the left member of the subtraction
      * @param right the right member of the subtraction
      */
-    record Sub(Range range, Expr left, Expr right) implements Expr {}
+    record Sub(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A multiplication {@code left*right}.
@@ -100,7 +124,7 @@ public sealed interface Expr {
      * @param left  the left member of the multiplication
      * @param right the right member of the multiplication
      */
-    record Mul(Range range, Expr left, Expr right) implements Expr {}
+    record Mul(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A division {@code left/right}.
@@ -109,7 +133,7 @@ public sealed interface Expr {
      * @param left  the left member of the division
      * @param right the right member of the division
      */
-    record Div(Range range, Expr left, Expr right) implements Expr {}
+    record Div(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A modulo {@code left%right}.
@@ -118,7 +142,7 @@ public sealed interface Expr {
      * @param left  the left member of the modulo
      * @param right the right member of the modulo
      */
-    record Modulo(Range range, Expr left, Expr right) implements Expr {}
+    record Modulo(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A boolean NOT.
@@ -135,7 +159,7 @@ public sealed interface Expr {
      * @param left  the left member of the OR
      * @param right the right member of the OR
      */
-    record Or(Range range, Expr left, Expr right) implements Expr {}
+    record Or(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A boolean AND.
@@ -144,7 +168,7 @@ public sealed interface Expr {
      * @param left  the left member of the AND
      * @param right the right member of the AND
      */
-    record And(Range range, Expr left, Expr right) implements Expr {}
+    record And(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A comparison {@code left == right}.
@@ -153,7 +177,7 @@ public sealed interface Expr {
      * @param left  the left member of the comparison
      * @param right the right member of the comparison
      */
-    record Equal(Range range, Expr left, Expr right) implements Expr {}
+    record Equal(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A comparison {@code left != right}.
@@ -162,7 +186,7 @@ public sealed interface Expr {
      * @param left  the left member of the comparison
      * @param right the right member of the comparison
      */
-    record NotEqual(Range range, Expr left, Expr right) implements Expr {}
+    record NotEqual(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A comparison {@code left > right}.
@@ -171,7 +195,7 @@ public sealed interface Expr {
      * @param left  the left member of the comparison
      * @param right the right member of the comparison
      */
-    record Greater(Range range, Expr left, Expr right) implements Expr {}
+    record Greater(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A comparison {@code left < right}.
@@ -180,7 +204,7 @@ public sealed interface Expr {
      * @param left  the left member of the comparison
      * @param right the right member of the comparison
      */
-    record Less(Range range, Expr left, Expr right) implements Expr {}
+    record Less(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A comparison {@code left >= right}.
@@ -189,7 +213,7 @@ public sealed interface Expr {
      * @param left  the left member of the comparison
      * @param right the right member of the comparison
      */
-    record GreaterEqual(Range range, Expr left, Expr right) implements Expr {}
+    record GreaterEqual(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * A comparison {@code left <= right}.
@@ -198,7 +222,7 @@ public sealed interface Expr {
      * @param left  the left member of the comparison
      * @param right the right member of the comparison
      */
-    record LessEqual(Range range, Expr left, Expr right) implements Expr {}
+    record LessEqual(Range range, Expr left, Expr right) implements Binary {}
 
     /**
      * Get the value of a variable.
@@ -89,6 +89,24 @@ public sealed interface Bytecode {
      */
     record GoToIfFalse(Range range, int addressFalse) implements Bytecode {}
 
+    /**
+     * Pop the step, the bound and the initial value of a counted loop ({@code FOR}), declare its iterator then jump to
+     * an address if the loop has no iteration.
+     *
+     * @param range the starting and ending {@link Position} of this instruction
+     * @param iterator the name of the declared iterator
+     * @param addressEnd the address to jump to if the loop has no iteration
+     */
+    record ForInit(Range range, String iterator, int addressEnd) implements Effectful {}
+
+    /**
+     * Increment the iterator of the innermost counted loop then jump to an address if the loop has not reached its bound.
+     *
+     * @param range the starting and ending {@link Position} of this instruction
+     * @param addressBody the address of the loop's body to jump to for the next iteration
+     */
+    record ForNext(Range range, int addressBody) implements Effectful {}
+
     /**
      * The end of the scope.
      *
@@ -358,4 +376,56 @@ public sealed interface Bytecode {
      * @param range the starting and ending {@link Position} of this instruction
      */
     record MirrorAxial(Range range) implements Effectful {}
+
+    //Superinstructions, produced by the PeepholeOptimizer
+
+    /**
+     * Move forward on a constant distance. Fusion of {@link Push} and {@link Forward}.
+     *
+     * @param range the starting and ending {@link Position} of the fused {@link Forward}
+     * @param distance the distance to move forward on
+     */
+    record ForwardConst(Range range, Value distance) implements Effectful {}
+
+    /**
+     * Turn of a constant angle. Fusion of {@link Push} and {@link Turn}.
+     *
+     * @param range the starting and ending {@link Position} of the fused {@link Turn}
+     * @param angle the angle to turn of
+     */
+    record TurnConst(Range range, Value angle) implements Effectful {}
+
+    /**
+     * Add a constant to a variable. Fusion of {@link Load}, {@link Push}, {@link Add} and {@link Store} on the same
+     * variable.
+     *
+     * @param range the starting and ending {@link Position} of the fused {@link Store}
+     * @param name the name of the incremented variable
+     * @param amount the value to add to the variable
+     * @param loadRange the starting and ending {@link Position} of the fused {@link Load}
+     * @param addRange the starting and ending {@link Position} of the fused {@link Add}
+     */
+    record Increment(Range range, String name, Value amount, Range loadRange, Range addRange) implements Effectful {}
+
+    /**
+     * Jump to an address if a variable is not strictly less than another. Fusion of two {@link Load}s, {@link Less}
+     * and {@link GoToIfFalse}.
+     *
+     * @param range the starting and ending {@link Position} of the fused {@link GoToIfFalse}
+     * @param left the name of the left variable
+     * @param right the name of the right variable
+     * @param addressFalse the address to jump to if {@code left < right} is {@code false}
+     * @param leftRange the starting and ending {@link Position} of the fused left {@link Load}
+     * @param rightRange the starting and ending {@link Position} of the fused right {@link Load}
+     * @param lessRange the starting and ending {@link Position} of the fused {@link Less}
+     */
+    record GoToIfNotLess(
+            Range range,
+            String left,
+            String right,
+            int addressFalse,
+            Range leftRange,
+            Range rightRange,
+            Range lessRange
+    ) implements Bytecode {}
 }
@@ -0,0 +1,95 @@
+package fr.cyu.chromatynk.bytecode;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A directory of compiled programs, keyed by the hash of their source code.
+ * <p>
+ * Cached programs are stored using the {@link BytecodeSerializer} format and loaded through a memory-mapped file.
+ * Stale, corrupted or outdated entries are ignored so that the program is compiled again and its entry replaced.
+ */
+public class BytecodeCache {
+
+    /**
+     * The extension of the cached programs.
+     */
+    public static final String EXTENSION = ".ctyc";
+
+    private final Path directory;
+
+    /**
+     * Create a new cache.
+     *
+     * @param directory the directory to store the compiled programs into. Created if missing
+     */
+    public BytecodeCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Get the directory of this cache.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the file of the program compiled from the given source.
+     *
+     * @param sourceHash the hash of the source code
+     * @return the path of the cached program, existing or not
+     */
+    public Path getEntry(byte[] sourceHash) {
+        return directory.resolve(HexFormat.of().formatHex(sourceHash) + EXTENSION);
+    }
+
+    /**
+     * Load a previously compiled program.
+     *
+     * @param source the source code of the program
+     * @return the cached instructions of the program or an empty optional if missing, stale or corrupted
+     * @throws IOException if the entry exists but cannot be read
+     */
+    public Optional<List<Bytecode>> load(String source) throws IOException {
+        byte[] sourceHash = BytecodeSerializer.hashSource(source);
+        Path entry = getEntry(sourceHash);
+        if(!Files.isRegularFile(entry)) return Optional.empty();
+
+        try(FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(BytecodeSerializer.deserialize(buffer, sourceHash));
+        } catch (BytecodeFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store a compiled program, replacing the previous entry if any.
+     *
+     * @param source the source code of the program
+     * @param instructions the compiled instructions of the program
+     * @throws IOException if the entry cannot be written
+     */
+    public void store(String source, List<Bytecode> instructions) throws IOException {
+        byte[] sourceHash = BytecodeSerializer.hashSource(source);
+        Files.createDirectories(directory);
+
+        //Write then move so that concurrent readers never see a partially written entry
+        Path temporary = Files.createTempFile(directory, "program", ".tmp");
+        try {
+            Files.write(temporary, BytecodeSerializer.serialize(instructions, sourceHash));
+            Files.move(temporary, getEntry(sourceHash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
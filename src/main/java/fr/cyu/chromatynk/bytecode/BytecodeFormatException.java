@@ -0,0 +1,18 @@
+package fr.cyu.chromatynk.bytecode;
+
+import java.io.IOException;
+
+/**
+ * An exception occurring while reading an invalid serialized program.
+ */
+public class BytecodeFormatException extends IOException {
+
+    /**
+     * Create a new bytecode format exception.
+     *
+     * @param message the error message
+     */
+    public BytecodeFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,443 @@
+package fr.cyu.chromatynk.bytecode;
+
+import fr.cyu.chromatynk.ast.Type;
+import fr.cyu.chromatynk.eval.Value;
+import fr.cyu.chromatynk.util.Position;
+import fr.cyu.chromatynk.util.Range;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The binary format of a compiled program.
+ * <p>
+ * A serialized program is laid out as follows (big endian):
+ * <ul>
+ *     <li>the {@link #MAGIC} number, the format {@link #VERSION} and the {@link Compiler#VERSION version of the
+ *     compiler} which generated the program</li>
+ *     <li>the {@link #HASH_LENGTH} bytes SHA-256 hash of the source the program was compiled from</li>
+ *     <li>the number of instructions followed by the instructions. Each instruction starts with its opcode and its
+ *     range, followed by its operands</li>
+ *     <li>the CRC32 of all the previous bytes</li>
+ * </ul>
+ * {@link #VERSION} must be incremented each time an instruction is added or changed. Programs serialized with another
+ * format or compiler version are rejected.
+ */
+public class BytecodeSerializer {
+
+    /**
+     * The first bytes of each serialized program ({@code CTYB}).
+     */
+    public static final int MAGIC = 0x43545942;
+
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The length of the source hash.
+     */
+    public static final int HASH_LENGTH = 32;
+
+    /**
+     * The offset of the source hash, right after the magic number, the format version and the compiler version.
+     */
+    private static final int HASH_OFFSET = 4 + 4 + 4;
+
+    /**
+     * The offset of the instruction count, right after the header and the source hash.
+     */
+    private static final int COUNT_OFFSET = HASH_OFFSET + HASH_LENGTH;
+
+    /**
+     * Hash the given source code.
+     *
+     * @param source the source code to hash
+     * @return the SHA-256 hash of {@code source}
+     */
+    public static byte[] hashSource(String source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeRange(DataOutputStream out, Range range) throws IOException {
+        out.writeInt(range.from().column());
+        out.writeInt(range.from().row());
+        out.writeInt(range.to().column());
+        out.writeInt(range.to().row());
+    }
+
+    private static void writeType(DataOutputStream out, Type type) throws IOException {
+        out.writeByte(type.ordinal());
+    }
+
+    private static void writeValue(DataOutputStream out, Value value) throws IOException {
+        switch (value) {
+            case Value.Bool(boolean v) -> {
+                out.writeByte(0);
+                out.writeBoolean(v);
+            }
+            case Value.Int(int v) -> {
+                out.writeByte(1);
+                out.writeInt(v);
+            }
+            case Value.Float(double v) -> {
+                out.writeByte(2);
+                out.writeDouble(v);
+            }
+            case Value.Percentage(double v) -> {
+                out.writeByte(3);
+                out.writeDouble(v);
+            }
+            case Value.Str(String v) -> {
+                out.writeByte(4);
+                writeString(out, v);
+            }
+            case Value.Color(double red, double green, double blue, double alpha) -> {
+                out.writeByte(5);
+                out.writeDouble(red);
+                out.writeDouble(green);
+                out.writeDouble(blue);
+                out.writeDouble(alpha);
+            }
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, int opcode, Range range) throws IOException {
+        out.writeByte(opcode);
+        writeRange(out, range);
+    }
+
+    private static void writeInstruction(DataOutputStream out, Bytecode instruction) throws IOException {
+        switch (instruction) {
+            case Bytecode.Push(Range range, Value value) -> {
+                writeHeader(out, 0, range);
+                writeValue(out, value);
+            }
+            case Bytecode.Load(Range range, String name) -> {
+                writeHeader(out, 1, range);
+                writeString(out, name);
+            }
+            case Bytecode.Store(Range range, String name) -> {
+                writeHeader(out, 2, range);
+                writeString(out, name);
+            }
+            case Bytecode.Declare(Range range, Type type, String name) -> {
+                writeHeader(out, 3, range);
+                writeType(out, type);
+                writeString(out, name);
+            }
+            case Bytecode.Delete(Range range, String name) -> {
+                writeHeader(out, 4, range);
+                writeString(out, name);
+            }
+            case Bytecode.GoTo(Range range, int address) -> {
+                writeHeader(out, 5, range);
+                out.writeInt(address);
+            }
+            case Bytecode.GoToIfFalse(Range range, int addressFalse) -> {
+                writeHeader(out, 6, range);
+                out.writeInt(addressFalse);
+            }
+            case Bytecode.ForInit(Range range, String iterator, int addressEnd) -> {
+                writeHeader(out, 7, range);
+                writeString(out, iterator);
+                out.writeInt(addressEnd);
+            }
+            case Bytecode.ForNext(Range range, int addressBody) -> {
+                writeHeader(out, 8, range);
+                out.writeInt(addressBody);
+            }
+            case Bytecode.End(Range range) -> writeHeader(out, 9, range);
+            case Bytecode.NewScope(Range range) -> writeHeader(out, 10, range);
+            case Bytecode.ExitScope(Range range) -> writeHeader(out, 11, range);
+            case Bytecode.Percent(Range range) -> writeHeader(out, 12, range);
+            case Bytecode.Negation(Range range) -> writeHeader(out, 13, range);
+            case Bytecode.Add(Range range) -> writeHeader(out, 14, range);
+            case Bytecode.Sub(Range range) -> writeHeader(out, 15, range);
+            case Bytecode.Mul(Range range) -> writeHeader(out, 16, range);
+            case Bytecode.Div(Range range) -> writeHeader(out, 17, range);
+            case Bytecode.Modulo(Range range) -> writeHeader(out, 18, range);
+            case Bytecode.Not(Range range) -> writeHeader(out, 19, range);
+            case Bytecode.Or(Range range) -> writeHeader(out, 20, range);
+            case Bytecode.And(Range range) -> writeHeader(out, 21, range);
+            case Bytecode.Equal(Range range) -> writeHeader(out, 22, range);
+            case Bytecode.NotEqual(Range range) -> writeHeader(out, 23, range);
+            case Bytecode.Greater(Range range) -> writeHeader(out, 24, range);
+            case Bytecode.Less(Range range) -> writeHeader(out, 25, range);
+            case Bytecode.GreaterEqual(Range range) -> writeHeader(out, 26, range);
+            case Bytecode.LessEqual(Range range) -> writeHeader(out, 27, range);
+            case Bytecode.Forward(Range range) -> writeHeader(out, 28, range);
+            case Bytecode.Backward(Range range) -> writeHeader(out, 29, range);
+            case Bytecode.Turn(Range range) -> writeHeader(out, 30, range);
+            case Bytecode.Pos(Range range) -> writeHeader(out, 31, range);
+            case Bytecode.Move(Range range) -> writeHeader(out, 32, range);
+            case Bytecode.Hide(Range range) -> writeHeader(out, 33, range);
+            case Bytecode.Show(Range range) -> writeHeader(out, 34, range);
+            case Bytecode.Press(Range range) -> writeHeader(out, 35, range);
+            case Bytecode.Color(Range range) -> writeHeader(out, 36, range);
+            case Bytecode.ColorRGB(Range range) -> writeHeader(out, 37, range);
+            case Bytecode.Thick(Range range) -> writeHeader(out, 38, range);
+            case Bytecode.LookAtCursor(Range range) -> writeHeader(out, 39, range);
+            case Bytecode.LookAtPos(Range range) -> writeHeader(out, 40, range);
+            case Bytecode.CreateCursor(Range range) -> writeHeader(out, 41, range);
+            case Bytecode.SelectCursor(Range range) -> writeHeader(out, 42, range);
+            case Bytecode.RemoveCursor(Range range) -> writeHeader(out, 43, range);
+            case Bytecode.Mimic(Range range) -> writeHeader(out, 44, range);
+            case Bytecode.MirrorCentral(Range range) -> writeHeader(out, 45, range);
+            case Bytecode.MirrorAxial(Range range) -> writeHeader(out, 46, range);
+            case Bytecode.ForwardConst(Range range, Value distance) -> {
+                writeHeader(out, 47, range);
+                writeValue(out, distance);
+            }
+            case Bytecode.TurnConst(Range range, Value angle) -> {
+                writeHeader(out, 48, range);
+                writeValue(out, angle);
+            }
+            case Bytecode.Increment(Range range, String name, Value amount, Range loadRange, Range addRange) -> {
+                writeHeader(out, 49, range);
+                writeString(out, name);
+                writeValue(out, amount);
+                writeRange(out, loadRange);
+                writeRange(out, addRange);
+            }
+            case Bytecode.GoToIfNotLess(Range range, String left, String right, int addressFalse, Range leftRange, Range rightRange, Range lessRange) -> {
+                writeHeader(out, 50, range);
+                writeString(out, left);
+                writeString(out, right);
+                out.writeInt(addressFalse);
+                writeRange(out, leftRange);
+                writeRange(out, rightRange);
+                writeRange(out, lessRange);
+            }
+        }
+    }
+
+    /**
+     * Serialize a compiled program.
+     *
+     * @param instructions the instructions of the program
+     * @param sourceHash the hash of the source code the program was compiled from
+     * @return the serialized program
+     */
+    public static byte[] serialize(List<Bytecode> instructions, byte[] sourceHash) {
+        if(sourceHash.length != HASH_LENGTH) throw new IllegalArgumentException("Invalid source hash length: " + sourceHash.length);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(Compiler.VERSION);
+            out.write(sourceHash);
+            out.writeInt(instructions.size());
+            for(Bytecode instruction : instructions) writeInstruction(out, instruction);
+
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes.toByteArray());
+            out.writeInt((int) checksum.getValue());
+        } catch (IOException e) {
+            //Cannot happen with a ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static String readString(ByteBuffer buffer) throws BytecodeFormatException {
+        int length = buffer.getInt();
+        if(length < 0 || length > buffer.remaining()) throw new BytecodeFormatException("Invalid string length: " + length);
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Range readRange(ByteBuffer buffer) {
+        Position from = new Position(buffer.getInt(), buffer.getInt());
+        Position to = new Position(buffer.getInt(), buffer.getInt());
+        return new Range(from, to);
+    }
+
+    private static Type readType(ByteBuffer buffer) throws BytecodeFormatException {
+        int ordinal = buffer.get();
+        Type[] types = Type.values();
+        if(ordinal < 0 || ordinal >= types.length) throw new BytecodeFormatException("Invalid type: " + ordinal);
+        return types[ordinal];
+    }
+
+    private static Value readValue(ByteBuffer buffer) throws BytecodeFormatException {
+        int tag = buffer.get();
+        return switch (tag) {
+            case 0 -> new Value.Bool(buffer.get() != 0);
+            case 1 -> new Value.Int(buffer.getInt());
+            case 2 -> new Value.Float(buffer.getDouble());
+            case 3 -> new Value.Percentage(buffer.getDouble());
+            case 4 -> new Value.Str(readString(buffer));
+            case 5 -> new Value.Color(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            default -> throw new BytecodeFormatException("Invalid value tag: " + tag);
+        };
+    }
+
+    private static Bytecode readInstruction(ByteBuffer buffer) throws BytecodeFormatException {
+        int opcode = buffer.get();
+        Range range = readRange(buffer);
+
+        return switch (opcode) {
+            case 0 -> new Bytecode.Push(range, readValue(buffer));
+            case 1 -> new Bytecode.Load(range, readString(buffer));
+            case 2 -> new Bytecode.Store(range, readString(buffer));
+            case 3 -> new Bytecode.Declare(
+                    range,
+                    readType(buffer),
+                    readString(buffer)
+            );
+            case 4 -> new Bytecode.Delete(range, readString(buffer));
+            case 5 -> new Bytecode.GoTo(range, buffer.getInt());
+            case 6 -> new Bytecode.GoToIfFalse(range, buffer.getInt());
+            case 7 -> new Bytecode.ForInit(
+                    range,
+                    readString(buffer),
+                    buffer.getInt()
+            );
+            case 8 -> new Bytecode.ForNext(range, buffer.getInt());
+            case 9 -> new Bytecode.End(range);
+            case 10 -> new Bytecode.NewScope(range);
+            case 11 -> new Bytecode.ExitScope(range);
+            case 12 -> new Bytecode.Percent(range);
+            case 13 -> new Bytecode.Negation(range);
+            case 14 -> new Bytecode.Add(range);
+            case 15 -> new Bytecode.Sub(range);
+            case 16 -> new Bytecode.Mul(range);
+            case 17 -> new Bytecode.Div(range);
+            case 18 -> new Bytecode.Modulo(range);
+            case 19 -> new Bytecode.Not(range);
+            case 20 -> new Bytecode.Or(range);
+            case 21 -> new Bytecode.And(range);
+            case 22 -> new Bytecode.Equal(range);
+            case 23 -> new Bytecode.NotEqual(range);
+            case 24 -> new Bytecode.Greater(range);
+            case 25 -> new Bytecode.Less(range);
+            case 26 -> new Bytecode.GreaterEqual(range);
+            case 27 -> new Bytecode.LessEqual(range);
+            case 28 -> new Bytecode.Forward(range);
+            case 29 -> new Bytecode.Backward(range);
+            case 30 -> new Bytecode.Turn(range);
+            case 31 -> new Bytecode.Pos(range);
+            case 32 -> new Bytecode.Move(range);
+            case 33 -> new Bytecode.Hide(range);
+            case 34 -> new Bytecode.Show(range);
+            case 35 -> new Bytecode.Press(range);
+            case 36 -> new Bytecode.Color(range);
+            case 37 -> new Bytecode.ColorRGB(range);
+            case 38 -> new Bytecode.Thick(range);
+            case 39 -> new Bytecode.LookAtCursor(range);
+            case 40 -> new Bytecode.LookAtPos(range);
+            case 41 -> new Bytecode.CreateCursor(range);
+            case 42 -> new Bytecode.SelectCursor(range);
+            case 43 -> new Bytecode.RemoveCursor(range);
+            case 44 -> new Bytecode.Mimic(range);
+            case 45 -> new Bytecode.MirrorCentral(range);
+            case 46 -> new Bytecode.MirrorAxial(range);
+            case 47 -> new Bytecode.ForwardConst(range, readValue(buffer));
+            case 48 -> new Bytecode.TurnConst(range, readValue(buffer));
+            case 49 -> new Bytecode.Increment(
+                    range,
+                    readString(buffer),
+                    readValue(buffer),
+                    readRange(buffer),
+                    readRange(buffer)
+            );
+            case 50 -> new Bytecode.GoToIfNotLess(
+                    range,
+                    readString(buffer),
+                    readString(buffer),
+                    buffer.getInt(),
+                    readRange(buffer),
+                    readRange(buffer),
+                    readRange(buffer)
+            );
+            default -> throw new BytecodeFormatException("Invalid opcode: " + opcode);
+        };
+    }
+
+    /**
+     * Read the hash of the source a serialized program was compiled from, without decoding the program.
+     *
+     * @param buffer the serialized program. Its position is left unchanged
+     * @return the hash stored in the header of the program
+     * @throws BytecodeFormatException if the header is invalid
+     */
+    public static byte[] readSourceHash(ByteBuffer buffer) throws BytecodeFormatException {
+        if(buffer.remaining() < COUNT_OFFSET + 8) throw new BytecodeFormatException("Truncated program");
+
+        int start = buffer.position();
+        if(buffer.getInt(start) != MAGIC) throw new BytecodeFormatException("Not a compiled program");
+
+        int version = buffer.getInt(start + 4);
+        if(version != VERSION) throw new BytecodeFormatException("Unsupported version: " + version);
+
+        int compilerVersion = buffer.getInt(start + 8);
+        if(compilerVersion != Compiler.VERSION) throw new BytecodeFormatException("Outdated compiler version: " + compilerVersion);
+
+        byte[] hash = new byte[HASH_LENGTH];
+        buffer.get(start + HASH_OFFSET, hash);
+        return hash;
+    }
+
+    /**
+     * Deserialize a compiled program.
+     *
+     * @param buffer the serialized program, read from its position to its limit
+     * @param sourceHash the expected hash of the source code
+     * @return the instructions of the program
+     * @throws BytecodeFormatException if the program is corrupted, was serialized by another format or compiler version or was compiled
+     * from another source
+     */
+    public static List<Bytecode> deserialize(ByteBuffer buffer, byte[] sourceHash) throws BytecodeFormatException {
+        if(!Arrays.equals(readSourceHash(buffer), sourceHash)) throw new BytecodeFormatException("Stale program");
+
+        int start = buffer.position();
+        int checksumPosition = buffer.limit() - 4;
+
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.slice(start, checksumPosition - start));
+        if((int) checksum.getValue() != buffer.getInt(checksumPosition)) throw new BytecodeFormatException("Invalid checksum");
+
+        ByteBuffer content = buffer.slice(start + COUNT_OFFSET, checksumPosition - start - COUNT_OFFSET);
+
+        try {
+            int count = content.getInt();
+            if(count < 0) throw new BytecodeFormatException("Invalid instruction count: " + count);
+
+            List<Bytecode> instructions = new ArrayList<>(Math.min(count, content.remaining()));
+            for(int i = 0; i < count; i++) instructions.add(readInstruction(content));
+
+            if(content.hasRemaining()) throw new BytecodeFormatException("Trailing bytes after the last instruction");
+            return instructions;
+        } catch (BufferUnderflowException e) {
+            throw new BytecodeFormatException("Truncated program");
+        }
+    }
+}
@@ -8,12 +8,45 @@ import fr.cyu.chromatynk.eval.Value;
 import fr.cyu.chromatynk.util.Position;
 import fr.cyu.chromatynk.util.Range;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 
 public class Compiler {
 
+    /**
+     * The version of the generated code, stored with the {@link BytecodeCache cached} programs. It must be incremented
+     * each time the compiler, the {@link ConstantFolder} or the {@link PeepholeOptimizer} changes the instructions
+     * generated for a program, so that programs compiled by the previous version are compiled again.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Get the instruction applying a binary operator to the two values on top of the stack.
+     *
+     * @param operation the binary operation to compile
+     * @return the instruction of the operator of {@code operation}
+     */
+    private static Bytecode binaryInstruction(Expr.Binary operation) {
+        return switch (operation) {
+            case Expr.Add op -> new Bytecode.Add(op.range());
+            case Expr.Sub op -> new Bytecode.Sub(op.range());
+            case Expr.Mul op -> new Bytecode.Mul(op.range());
+            case Expr.Div op -> new Bytecode.Div(op.range());
+            case Expr.Modulo op -> new Bytecode.Modulo(op.range());
+            case Expr.Or op -> new Bytecode.Or(op.range());
+            case Expr.And op -> new Bytecode.And(op.range());
+            case Expr.Equal op -> new Bytecode.Equal(op.range());
+            case Expr.NotEqual op -> new Bytecode.NotEqual(op.range());
+            case Expr.Greater op -> new Bytecode.Greater(op.range());
+            case Expr.Less op -> new Bytecode.Less(op.range());
+            case Expr.GreaterEqual op -> new Bytecode.GreaterEqual(op.range());
+            case Expr.LessEqual op -> new Bytecode.LessEqual(op.range());
+        };
+    }
+
     public static void compileExpression(Expr expr, List<Bytecode> instructions) {
         switch (expr) {
             case Expr.LiteralBool(Range range, boolean value) ->
@@ -31,6 +64,9 @@ public class Compiler {
             case Expr.LiteralColor(Range range, double red, double green, double blue, double alpha) ->
                     instructions.add(new Bytecode.Push(range, new Value.Color(red, green, blue, alpha)));
 
+            case Expr.LiteralPercent(Range range, double value) ->
+                    instructions.add(new Bytecode.Push(range, new Value.Percentage(value)));
+
             case Expr.Percent(Range range, Expr expr1) -> {
                 compileExpression(expr1, instructions);
                 instructions.add(new Bytecode.Percent(range));
@@ -46,87 +82,60 @@ public class Compiler {
                 instructions.add(new Bytecode.Not(range));
             }
 
-            case Expr.Add(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Add(range));
-            }
-
-            case Expr.Sub(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Sub(range));
-            }
-
-            case Expr.Mul(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Mul(range));
-            }
-
-            case Expr.Div(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Div(range));
-            }
-
-            case Expr.Modulo(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Modulo(range));
-            }
-
-            case Expr.Or(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Or(range));
-            }
-
-            case Expr.And(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.And(range));
-            }
-
-            case Expr.Equal(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Equal(range));
-            }
-
-            case Expr.NotEqual(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.NotEqual(range));
-            }
+            case Expr.Binary binary -> {
+                //Iterate over the left members of long chains like a+b+c+... instead of recursing on them
+                Deque<Expr.Binary> chain = new ArrayDeque<>();
+                Expr leftmost = binary;
+                while(leftmost instanceof Expr.Binary left) {
+                    chain.push(left);
+                    leftmost = left.left();
+                }
 
-            case Expr.Greater(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Greater(range));
+                compileExpression(leftmost, instructions);
+                while(!chain.isEmpty()) {
+                    Expr.Binary operation = chain.pop();
+                    compileExpression(operation.right(), instructions);
+                    instructions.add(binaryInstruction(operation));
+                }
             }
 
-            case Expr.Less(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.Less(range));
-            }
+            case Expr.VarCall(Range range, String name) -> instructions.add(new Bytecode.Load(range, name));
 
-            case Expr.GreaterEqual(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.GreaterEqual(range));
-            }
+        }
+    }
 
-            case Expr.LessEqual(Range range, Expr left, Expr right) -> {
-                compileExpression(left, instructions);
-                compileExpression(right, instructions);
-                instructions.add(new Bytecode.LessEqual(range));
+    /**
+     * Check if a body declares variables or cursors in its own scope.
+     *
+     * @param body the body to check
+     * @return {@code true} if a variable or a cursor is declared directly in {@code body}
+     */
+    public static boolean declaresInScope(Statement.Body body) {
+        for(Statement statement : body.statements()) {
+            switch (statement) {
+                case Statement.DeclareVariable ignored -> { return true; }
+                case Statement.CreateCursor ignored -> { return true; }
+                case Statement.Body nested -> { if(declaresInScope(nested)) return true; }
+                default -> {}
             }
+        }
 
-            case Expr.VarCall(Range range, String name) -> instructions.add(new Bytecode.Load(range, name));
+        return false;
+    }
 
-        }
+    /**
+     * Compile the body of a loop, only wrapping it in a scope if it declares something.
+     *
+     * @param body the body to compile
+     * @param instructions the list to append the instructions to
+     * @param offset the address of the first instruction of {@code instructions}
+     */
+    private static void compileLoopBody(Statement.Body body, List<Bytecode> instructions, int offset) {
+        if(declaresInScope(body)) {
+            instructions.add(new Bytecode.NewScope(body.range()));
+            compileStatement(body, instructions, offset);
+            instructions.add(new Bytecode.ExitScope(body.range()));
+        } else compileStatement(body, instructions, offset);
     }
 
     public static void compileStatement(Statement statement, List<Bytecode> instructions, int offset) {
@@ -149,83 +158,39 @@ public class Compiler {
             FOR i FROM 0 TO 10 STEP 1 {
               FWD 5
             }
+            ...
 
-            INT i = 0
-            WHILE i < 10 {
-              FWD 5
-              i = i + 1
-            }
-
+            NewScope()
             Push(0)
-            Declare(Type.INT, "i")
-            Load("i") //3
             Push(10)
-            Less()
-            GoToIfFalse(14)
-            Push(5)
-            Forward()
-            Load("i")
             Push(1)
-            Add()
-            Store("i")
-            GoTo(3)
-            ... //14
+            ForInit("i", 8) //4
+            Push(5) //5
+            Forward()
+            ForNext(5) //7
+            ExitScope() //8
+            ... //9
              */
             case Statement.For(
                     Range range, String iterator, Optional<Expr> from, Expr to, Optional<Expr> step, Statement.Body body
             ) -> {
                 instructions.add(new Bytecode.NewScope(range));
 
-                compileStatement(new Statement.DeclareVariable(
-                        range,
-                        Type.INT,
-                        iterator,
-                        from
-                ), instructions, offset);
+                compileExpression(from.orElse(new Expr.LiteralInt(range, 0)), instructions);
+                compileExpression(to, instructions);
+                compileExpression(step.orElse(new Expr.LiteralInt(range, 1)), instructions);
 
-                int conditionAddr = instructions.size() + offset;
+                int initIndex = instructions.size();
+                int initAddr = initIndex + offset;
 
-                Expr stepExpr = step.orElse(new Expr.LiteralInt(range, 1));
-
-                compileExpression(new Expr.Or(
-                        range,
-                        new Expr.And(
-                                range,
-                                new Expr.Less(range, stepExpr, new Expr.LiteralInt(range, 0)),
-                                new Expr.Greater(
-                                    range,
-                                    new Expr.VarCall(range, iterator),
-                                    to
-                                )
-                        ),
-                        new Expr.Less(
-                                range,
-                                new Expr.VarCall(range, iterator),
-                                to
-                        )
-                ), instructions);
-
-                int whileAddr = instructions.size() + offset;
-
-                List<Bytecode> bodyInstructions = new LinkedList<>();
-                bodyInstructions.add(new Bytecode.NewScope(body.range()));
-                compileStatement(body, bodyInstructions, whileAddr + 1);
-                bodyInstructions.add(new Bytecode.ExitScope(body.range()));
-                compileStatement(new Statement.AssignVariable(
-                        range,
-                        iterator,
-                        new Expr.Add(
-                                range,
-                                new Expr.VarCall(range, iterator),
-                                stepExpr
-                        )
-                ), bodyInstructions, whileAddr + 1);
-
-                int endAddr = whileAddr + bodyInstructions.size() + 2;
-
-                instructions.add(new Bytecode.GoToIfFalse(range, endAddr));
-                instructions.addAll(bodyInstructions);
-                instructions.add(new Bytecode.GoTo(range, conditionAddr));
+                //Patched once the end of the body is known
+                instructions.add(null);
+                compileLoopBody(body, instructions, offset);
+                instructions.add(new Bytecode.ForNext(range, initAddr + 1));
+
+                int endAddr = instructions.size() + offset;
+
+                instructions.set(initIndex, new Bytecode.ForInit(range, iterator, endAddr));
                 instructions.add(new Bytecode.ExitScope(range));
             }
 
@@ -248,21 +213,22 @@ public class Compiler {
             ... //5
              */
             case Statement.While(Range range, Expr condition, Statement.Body body) -> {
+                //Dead loop
+                if(condition instanceof Expr.LiteralBool(Range ignored, boolean value) && !value) return;
+
                 int conditionAddr = instructions.size() + offset;
                 compileExpression(condition, instructions);
 
-                int whileAddr = instructions.size() + offset;
+                int whileIndex = instructions.size();
 
-                List<Bytecode> bodyInstructions = new LinkedList<>();
-                bodyInstructions.add(new Bytecode.NewScope(body.range()));
-                compileStatement(body, bodyInstructions, whileAddr + 1);
-                bodyInstructions.add(new Bytecode.ExitScope(body.range()));
+                //Patched once the end of the body is known
+                instructions.add(null);
+                compileLoopBody(body, instructions, offset);
+                instructions.add(new Bytecode.GoTo(range, conditionAddr));
 
-                int endAddr = whileAddr + bodyInstructions.size() + 2;
+                int endAddr = instructions.size() + offset;
 
-                instructions.add(new Bytecode.GoToIfFalse(range, endAddr));
-                instructions.addAll(bodyInstructions);
-                instructions.add(new Bytecode.GoTo(range, conditionAddr));
+                instructions.set(whileIndex, new Bytecode.GoToIfFalse(range, endAddr));
             }
 
             case Statement.Pos(Range range, Expr x, Expr y) -> {
@@ -347,30 +313,41 @@ public class Compiler {
             ... //7
              */
             case Statement.If(Range range, Expr condition, Statement.Body ifTrue, Optional<Statement.Body> ifFalse) -> {
+                //Dead branch elimination
+                if(condition instanceof Expr.LiteralBool(Range ignored, boolean value)) {
+                    Optional<Statement.Body> taken = value ? Optional.of(ifTrue) : ifFalse;
+                    taken.ifPresent(body -> {
+                        instructions.add(new Bytecode.NewScope(body.range()));
+                        compileStatement(body, instructions, offset);
+                        instructions.add(new Bytecode.ExitScope(body.range()));
+                    });
+                    return;
+                }
+
                 compileExpression(condition, instructions);
 
-                int ifAddr = instructions.size() + offset;
+                //Both jumps are patched once the end of their branch is known
+                int ifIndex = instructions.size();
+                instructions.add(null);
+                instructions.add(new Bytecode.NewScope(ifTrue.range()));
+                compileStatement(ifTrue, instructions, offset);
+                instructions.add(new Bytecode.ExitScope(ifTrue.range()));
 
-                List<Bytecode> ifTrueInstructions = new LinkedList<>();
-                ifTrueInstructions.add(new Bytecode.NewScope(ifTrue.range()));
-                compileStatement(ifTrue, ifTrueInstructions, ifAddr + 1);
-                ifTrueInstructions.add(new Bytecode.ExitScope(ifTrue.range()));
+                int elseIndex = instructions.size();
+                instructions.add(null);
 
-                int elseAddr = ifAddr + ifTrueInstructions.size() + 2;
+                int elseAddr = instructions.size() + offset;
 
-                List<Bytecode> ifFalseInstructions = new LinkedList<>();
                 ifFalse.ifPresent(ifFalsePresent -> {
-                    ifFalseInstructions.add(new Bytecode.NewScope(ifFalsePresent.range()));
-                    compileStatement(ifFalsePresent, ifFalseInstructions, elseAddr);
-                    ifFalseInstructions.add(new Bytecode.ExitScope(ifFalsePresent.range()));
+                    instructions.add(new Bytecode.NewScope(ifFalsePresent.range()));
+                    compileStatement(ifFalsePresent, instructions, offset);
+                    instructions.add(new Bytecode.ExitScope(ifFalsePresent.range()));
                 });
 
-                int endAddr = elseAddr + ifFalseInstructions.size();
+                int endAddr = instructions.size() + offset;
 
-                instructions.add(new Bytecode.GoToIfFalse(range, elseAddr));
-                instructions.addAll(ifTrueInstructions);
-                instructions.add(new Bytecode.GoTo(range, endAddr));
-                instructions.addAll(ifFalseInstructions);
+                instructions.set(ifIndex, new Bytecode.GoToIfFalse(range, elseAddr));
+                instructions.set(elseIndex, new Bytecode.GoTo(range, endAddr));
             }
 
             case Statement.Mimic(Range range, Expr mimicked, Statement.Body body) -> {
@@ -421,13 +398,25 @@ public class Compiler {
     }
 
     public static List<Bytecode> compileProgram(Program program) {
-        List<Bytecode> instructions = new LinkedList<>();
+        List<Bytecode> instructions = new ArrayList<>();
 
-        for (Statement statement : program.statements()) compileStatement(statement, instructions, 0);
+        for (Statement statement : ConstantFolder.foldProgram(program).statements()) compileStatement(statement, instructions, 0);
 
         Position endPosition = program.statements().isEmpty() ? new Position(0, 0) : program.statements().getLast().range().to();
+
+        return endProgram(instructions, endPosition);
+    }
+
+    /**
+     * Terminate and optimize the instructions of a program whose statements were compiled one by one.
+     *
+     * @param instructions the instructions of the folded statements of the program
+     * @param endPosition the end of the last statement of the program
+     * @return the optimized instructions of the program
+     */
+    public static List<Bytecode> endProgram(List<Bytecode> instructions, Position endPosition) {
         instructions.add(new Bytecode.End(new Range(endPosition, endPosition)));
 
-        return instructions;
+        return PeepholeOptimizer.optimize(instructions);
     }
 }
@@ -0,0 +1,264 @@
+package fr.cyu.chromatynk.bytecode;
+
+import fr.cyu.chromatynk.ast.Expr;
+import fr.cyu.chromatynk.ast.Program;
+import fr.cyu.chromatynk.ast.Statement;
+import fr.cyu.chromatynk.ast.Type;
+import fr.cyu.chromatynk.draw.DrawingSurface;
+import fr.cyu.chromatynk.eval.EvalContext;
+import fr.cyu.chromatynk.eval.EvalException;
+import fr.cyu.chromatynk.eval.ForeverClock;
+import fr.cyu.chromatynk.eval.Interpreter;
+import fr.cyu.chromatynk.eval.Value;
+import fr.cyu.chromatynk.util.Range;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * A compilation pass evaluating constant expressions ahead of time.
+ * <p>
+ * Constant sub-expressions are evaluated using the {@link Interpreter} itself so the folded values are exactly the ones
+ * that would have been computed at runtime. Expressions failing to evaluate (e.g a division by zero) are left untouched
+ * so that the error is still raised at runtime with its original range.
+ */
+public class ConstantFolder {
+
+    /**
+     * Get the value of a literal expression.
+     *
+     * @param expr the expression to extract the value from
+     * @return the value of the given expression if it is a literal
+     */
+    public static Optional<Value> getConstant(Expr expr) {
+        return switch (expr) {
+            case Expr.LiteralBool(Range ignored, boolean value) -> Optional.of(new Value.Bool(value));
+            case Expr.LiteralString(Range ignored, String value) -> Optional.of(new Value.Str(value));
+            case Expr.LiteralInt(Range ignored, int value) -> Optional.of(new Value.Int(value));
+            case Expr.LiteralFloat(Range ignored, double value) -> Optional.of(new Value.Float(value));
+            case Expr.LiteralPercent(Range ignored, double value) -> Optional.of(new Value.Percentage(value));
+            case Expr.LiteralColor(Range ignored, double red, double green, double blue, double alpha) ->
+                    Optional.of(new Value.Color(red, green, blue, alpha));
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * Convert a value to its literal expression.
+     *
+     * @param range the range of the created literal
+     * @param value the value of the literal
+     * @return a literal expression evaluating to {@code value}
+     */
+    public static Expr toLiteral(Range range, Value value) {
+        return switch (value) {
+            case Value.Bool(boolean v) -> new Expr.LiteralBool(range, v);
+            case Value.Str(String v) -> new Expr.LiteralString(range, v);
+            case Value.Int(int v) -> new Expr.LiteralInt(range, v);
+            case Value.Float(double v) -> new Expr.LiteralFloat(range, v);
+            case Value.Percentage(double v) -> new Expr.LiteralPercent(range, v);
+            case Value.Color(double red, double green, double blue, double alpha) ->
+                    new Expr.LiteralColor(range, red, green, blue, alpha);
+        };
+    }
+
+    /**
+     * Evaluate the given expression if all its operands are literals.
+     *
+     * @param expr the expression to evaluate
+     * @param operands the direct operands of {@code expr}
+     * @return the literal result of {@code expr} or {@code expr} itself if it cannot be evaluated ahead of time
+     */
+    private static Expr evaluateIfConstant(Expr expr, Expr... operands) {
+        for(Expr operand : operands) {
+            if(getConstant(operand).isEmpty()) return expr;
+        }
+
+        List<Bytecode> instructions = new ArrayList<>();
+        Compiler.compileExpression(expr, instructions);
+
+        try {
+            EvalContext context = Interpreter.evaluateAll(EvalContext.create(instructions, (DrawingSurface) null), new ForeverClock());
+            return toLiteral(expr.range(), context.popValue());
+        } catch (EvalException e) {
+            return expr;
+        }
+    }
+
+    private static Expr foldUnary(Range range, Expr operand, BiFunction<Range, Expr, Expr> constructor) {
+        Expr folded = foldExpression(operand);
+        return evaluateIfConstant(constructor.apply(range, folded), folded);
+    }
+
+    private static Expr withMembers(Expr.Binary operation, Expr left, Expr right) {
+        return switch (operation) {
+            case Expr.Add op -> new Expr.Add(op.range(), left, right);
+            case Expr.Sub op -> new Expr.Sub(op.range(), left, right);
+            case Expr.Mul op -> new Expr.Mul(op.range(), left, right);
+            case Expr.Div op -> new Expr.Div(op.range(), left, right);
+            case Expr.Modulo op -> new Expr.Modulo(op.range(), left, right);
+            case Expr.Or op -> new Expr.Or(op.range(), left, right);
+            case Expr.And op -> new Expr.And(op.range(), left, right);
+            case Expr.Equal op -> new Expr.Equal(op.range(), left, right);
+            case Expr.NotEqual op -> new Expr.NotEqual(op.range(), left, right);
+            case Expr.Greater op -> new Expr.Greater(op.range(), left, right);
+            case Expr.Less op -> new Expr.Less(op.range(), left, right);
+            case Expr.GreaterEqual op -> new Expr.GreaterEqual(op.range(), left, right);
+            case Expr.LessEqual op -> new Expr.LessEqual(op.range(), left, right);
+        };
+    }
+
+    private static Expr foldBinary(Expr.Binary binary) {
+        //Iterate over the left members of long chains like a+b+c+... instead of recursing on them
+        Deque<Expr.Binary> chain = new ArrayDeque<>();
+        Expr leftmost = binary;
+        while(leftmost instanceof Expr.Binary left) {
+            chain.push(left);
+            leftmost = left.left();
+        }
+
+        Expr folded = foldExpression(leftmost);
+        while(!chain.isEmpty()) {
+            Expr.Binary operation = chain.pop();
+            Expr foldedRight = foldExpression(operation.right());
+            folded = evaluateIfConstant(withMembers(operation, folded, foldedRight), folded, foldedRight);
+        }
+
+        return folded;
+    }
+
+    /**
+     * Fold the constant parts of an expression.
+     *
+     * @param expr the expression to fold
+     * @return an equivalent expression where each constant sub-expression is replaced by its literal value
+     */
+    public static Expr foldExpression(Expr expr) {
+        return switch (expr) {
+            case Expr.LiteralBool ignored -> expr;
+            case Expr.LiteralString ignored -> expr;
+            case Expr.LiteralInt ignored -> expr;
+            case Expr.LiteralFloat ignored -> expr;
+            case Expr.LiteralColor ignored -> expr;
+            case Expr.LiteralPercent ignored -> expr;
+            case Expr.VarCall ignored -> expr;
+
+            case Expr.Percent(Range range, Expr value) -> foldUnary(range, value, Expr.Percent::new);
+            case Expr.Negation(Range range, Expr value) -> foldUnary(range, value, Expr.Negation::new);
+            case Expr.Not(Range range, Expr value) -> foldUnary(range, value, Expr.Not::new);
+
+            case Expr.Binary binary -> foldBinary(binary);
+        };
+    }
+
+    /**
+     * Fold the constant expressions of a body.
+     *
+     * @param body the body to fold
+     * @return an equivalent body where each statement was folded
+     */
+    public static Statement.Body foldBody(Statement.Body body) {
+        List<Statement> statements = new ArrayList<>(body.statements().size());
+        for(Statement statement : body.statements()) statements.add(foldStatement(statement));
+        return new Statement.Body(body.range(), statements);
+    }
+
+    /**
+     * Fold the constant expressions of a statement and of its nested statements.
+     *
+     * @param statement the statement to fold
+     * @return an equivalent statement where each expression was folded
+     */
+    public static Statement foldStatement(Statement statement) {
+        return switch (statement) {
+            case Statement.Body body -> foldBody(body);
+
+            case Statement.Forward(Range range, Expr distance) -> new Statement.Forward(range, foldExpression(distance));
+            case Statement.Backward(Range range, Expr distance) -> new Statement.Backward(range, foldExpression(distance));
+
+            case Statement.For(
+                    Range range, String iterator, Optional<Expr> from, Expr to, Optional<Expr> step, Statement.Body body
+            ) -> new Statement.For(
+                    range,
+                    iterator,
+                    from.map(ConstantFolder::foldExpression),
+                    foldExpression(to),
+                    step.map(ConstantFolder::foldExpression),
+                    foldBody(body)
+            );
+
+            case Statement.Turn(Range range, Expr angle) -> new Statement.Turn(range, foldExpression(angle));
+
+            case Statement.While(Range range, Expr condition, Statement.Body body) ->
+                    new Statement.While(range, foldExpression(condition), foldBody(body));
+
+            case Statement.Pos(Range range, Expr x, Expr y) -> new Statement.Pos(range, foldExpression(x), foldExpression(y));
+
+            case Statement.Move(Range range, Expr distanceX, Expr distanceY) ->
+                    new Statement.Move(range, foldExpression(distanceX), foldExpression(distanceY));
+
+            case Statement.Hide ignored -> statement;
+            case Statement.Show ignored -> statement;
+
+            case Statement.Press(Range range, Expr opacity) -> new Statement.Press(range, foldExpression(opacity));
+            case Statement.Color(Range range, Expr color) -> new Statement.Color(range, foldExpression(color));
+
+            case Statement.ColorRGB(Range range, Expr red, Expr green, Expr blue) ->
+                    new Statement.ColorRGB(range, foldExpression(red), foldExpression(green), foldExpression(blue));
+
+            case Statement.Thick(Range range, Expr thickness) -> new Statement.Thick(range, foldExpression(thickness));
+            case Statement.LookAtCursor(Range range, Expr cursor) -> new Statement.LookAtCursor(range, foldExpression(cursor));
+
+            case Statement.LookAtPos(Range range, Expr targetX, Expr targetY) ->
+                    new Statement.LookAtPos(range, foldExpression(targetX), foldExpression(targetY));
+
+            case Statement.CreateCursor(Range range, Expr id) -> new Statement.CreateCursor(range, foldExpression(id));
+            case Statement.SelectCursor(Range range, Expr id) -> new Statement.SelectCursor(range, foldExpression(id));
+            case Statement.RemoveCursor(Range range, Expr id) -> new Statement.RemoveCursor(range, foldExpression(id));
+
+            case Statement.If(Range range, Expr condition, Statement.Body ifTrue, Optional<Statement.Body> ifFalse) ->
+                    new Statement.If(range, foldExpression(condition), foldBody(ifTrue), ifFalse.map(ConstantFolder::foldBody));
+
+            case Statement.Mimic(Range range, Expr mimicked, Statement.Body body) ->
+                    new Statement.Mimic(range, foldExpression(mimicked), foldBody(body));
+
+            case Statement.MirrorCentral(Range range, Expr centerX, Expr centerY, Statement.Body body) ->
+                    new Statement.MirrorCentral(range, foldExpression(centerX), foldExpression(centerY), foldBody(body));
+
+            case Statement.MirrorAxial(
+                    Range range, Expr axisStartX, Expr axisStartY, Expr axisEndX, Expr axisEndY, Statement.Body body
+            ) -> new Statement.MirrorAxial(
+                    range,
+                    foldExpression(axisStartX),
+                    foldExpression(axisStartY),
+                    foldExpression(axisEndX),
+                    foldExpression(axisEndY),
+                    foldBody(body)
+            );
+
+            case Statement.DeclareVariable(Range range, Type type, String name, Optional<Expr> value) ->
+                    new Statement.DeclareVariable(range, type, name, value.map(ConstantFolder::foldExpression));
+
+            case Statement.AssignVariable(Range range, String name, Expr value) ->
+                    new Statement.AssignVariable(range, name, foldExpression(value));
+
+            case Statement.DeleteVariable ignored -> statement;
+        };
+    }
+
+    /**
+     * Fold the constant expressions of a program.
+     *
+     * @param program the program to fold
+     * @return an equivalent program where each statement was folded
+     */
+    public static Program foldProgram(Program program) {
+        List<Statement> statements = new ArrayList<>(program.statements().size());
+        for(Statement statement : program.statements()) statements.add(foldStatement(statement));
+        return new Program(statements);
+    }
+}
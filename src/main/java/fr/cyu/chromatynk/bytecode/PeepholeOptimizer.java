@@ -0,0 +1,154 @@
+package fr.cyu.chromatynk.bytecode;
+
+import fr.cyu.chromatynk.eval.Value;
+import fr.cyu.chromatynk.util.Range;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compilation pass fusing frequent instruction sequences into superinstructions.
+ * <p>
+ * A sequence is only fused if none of its instructions but the first one is the target of a jump and if its only
+ * {@link Bytecode.Effectful} instruction is the last one, so that step-by-step execution still pauses before the same
+ * effects. The ranges needed for error reporting are kept in the superinstructions and jump addresses are relocated.
+ */
+public class PeepholeOptimizer {
+
+    /**
+     * The lengths of the fusable sequences, longest first.
+     */
+    private static final int[] FUSED_LENGTHS = {4, 2};
+
+    /**
+     * Get the address a jump instruction can jump to.
+     *
+     * @param instruction the instruction to get the target of
+     * @return the target address of {@code instruction} or {@code -1} if it is not a jump
+     */
+    private static int getJumpTarget(Bytecode instruction) {
+        return switch (instruction) {
+            case Bytecode.GoTo(Range ignored, int address) -> address;
+            case Bytecode.GoToIfFalse(Range ignored, int addressFalse) -> addressFalse;
+            case Bytecode.ForInit(Range ignored, String iterator, int addressEnd) -> addressEnd;
+            case Bytecode.ForNext(Range ignored, int addressBody) -> addressBody;
+            case Bytecode.GoToIfNotLess(
+                    Range ignored, String left, String right, int addressFalse, Range leftRange, Range rightRange, Range lessRange
+            ) -> addressFalse;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Replace the target of a jump instruction.
+     *
+     * @param instruction the instruction to relocate
+     * @param relocation the new address of each old address
+     * @return {@code instruction} targeting the relocated address or {@code instruction} itself if it is not a jump
+     */
+    private static Bytecode relocate(Bytecode instruction, int[] relocation) {
+        return switch (instruction) {
+            case Bytecode.GoTo(Range range, int address) -> new Bytecode.GoTo(range, relocation[address]);
+            case Bytecode.GoToIfFalse(Range range, int addressFalse) ->
+                    new Bytecode.GoToIfFalse(range, relocation[addressFalse]);
+            case Bytecode.ForInit(Range range, String iterator, int addressEnd) ->
+                    new Bytecode.ForInit(range, iterator, relocation[addressEnd]);
+            case Bytecode.ForNext(Range range, int addressBody) -> new Bytecode.ForNext(range, relocation[addressBody]);
+            case Bytecode.GoToIfNotLess(
+                    Range range, String left, String right, int addressFalse, Range leftRange, Range rightRange, Range lessRange
+            ) -> new Bytecode.GoToIfNotLess(range, left, right, relocation[addressFalse], leftRange, rightRange, lessRange);
+            default -> instruction;
+        };
+    }
+
+    /**
+     * Try to fuse the instructions starting at the given address.
+     *
+     * @param instructions the instructions to optimize
+     * @param address the address of the first instruction of the sequence
+     * @param length the number of instructions of the sequence
+     * @return the superinstruction equivalent to the sequence or {@code null} if the sequence cannot be fused
+     */
+    private static Bytecode fuse(List<Bytecode> instructions, int address, int length) {
+        return switch (length) {
+            case 2 -> switch (instructions.get(address + 1)) {
+                case Bytecode.Forward(Range range) when instructions.get(address) instanceof Bytecode.Push push ->
+                        new Bytecode.ForwardConst(range, push.value());
+                case Bytecode.Turn(Range range) when instructions.get(address) instanceof Bytecode.Push push ->
+                        new Bytecode.TurnConst(range, push.value());
+                default -> null;
+            };
+
+            case 4 -> {
+                if(instructions.get(address) instanceof Bytecode.Load(Range loadRange, String name)
+                        && instructions.get(address + 1) instanceof Bytecode.Push(Range ignored, Value amount)
+                        && instructions.get(address + 2) instanceof Bytecode.Add(Range addRange)
+                        && instructions.get(address + 3) instanceof Bytecode.Store(Range range, String stored)
+                        && name.equals(stored)) yield new Bytecode.Increment(range, name, amount, loadRange, addRange);
+
+                if(instructions.get(address) instanceof Bytecode.Load(Range leftRange, String left)
+                        && instructions.get(address + 1) instanceof Bytecode.Load(Range rightRange, String right)
+                        && instructions.get(address + 2) instanceof Bytecode.Less(Range lessRange)
+                        && instructions.get(address + 3) instanceof Bytecode.GoToIfFalse(Range range, int addressFalse))
+                    yield new Bytecode.GoToIfNotLess(range, left, right, addressFalse, leftRange, rightRange, lessRange);
+
+                yield null;
+            }
+
+            default -> null;
+        };
+    }
+
+    /**
+     * Fuse the frequent sequences of a program into superinstructions.
+     *
+     * @param instructions the compiled program to optimize
+     * @return an equivalent program using superinstructions
+     */
+    public static List<Bytecode> optimize(List<Bytecode> instructions) {
+        List<Bytecode> source = new ArrayList<>(instructions);
+        int size = source.size();
+
+        boolean[] targets = new boolean[size + 1];
+        for(Bytecode instruction : source) {
+            int target = getJumpTarget(instruction);
+            if(target >= 0 && target <= size) targets[target] = true;
+        }
+
+        List<Bytecode> result = new ArrayList<>(size);
+        int[] relocation = new int[size + 1];
+
+        int address = 0;
+        while(address < size) {
+            Bytecode fused = null;
+            int length = 1;
+            for(int candidate : FUSED_LENGTHS) {
+                if(address + candidate > size || isTargetInside(targets, address, candidate)) continue;
+
+                fused = fuse(source, address, candidate);
+                if(fused != null) {
+                    length = candidate;
+                    break;
+                }
+            }
+
+            for(int i = 0; i < length; i++) relocation[address + i] = result.size();
+            result.add(fused == null ? source.get(address) : fused);
+            address += length;
+        }
+
+        relocation[size] = result.size();
+
+        for(int i = 0; i < result.size(); i++) result.set(i, relocate(result.get(i), relocation));
+
+        return result;
+    }
+
+    private static boolean isTargetInside(boolean[] targets, int address, int length) {
+        for(int i = address + 1; i < address + length; i++) {
+            if(targets[i]) return true;
+        }
+
+        return false;
+    }
+}
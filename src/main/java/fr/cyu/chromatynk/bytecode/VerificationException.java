@@ -0,0 +1,20 @@
+package fr.cyu.chromatynk.bytecode;
+
+import fr.cyu.chromatynk.ChromatynkException;
+import fr.cyu.chromatynk.util.Range;
+
+/**
+ * An exception occurring when compiled bytecode is not well-formed.
+ */
+public class VerificationException extends ChromatynkException {
+
+    /**
+     * Create a new verification exception.
+     *
+     * @param range the range of the invalid instruction
+     * @param message the error message
+     */
+    public VerificationException(Range range, String message) {
+        super(range, message, "Verification error.");
+    }
+}
@@ -0,0 +1,273 @@
+package fr.cyu.chromatynk.bytecode;
+
+import fr.cyu.chromatynk.ast.Type;
+import fr.cyu.chromatynk.eval.Value;
+import fr.cyu.chromatynk.util.Range;
+
+import java.util.*;
+
+/**
+ * A static analysis of compiled bytecode.
+ * <p>
+ * The verifier follows every execution path of a program to check that the operand stack never underflows, that it
+ * has the same depth whichever path reaches an instruction and that each jump targets an existing instruction. It
+ * also infers the type of each stack slot when possible and computes the maximum depth of the stack.
+ */
+public class Verifier {
+
+    /**
+     * The result of a successful verification.
+     *
+     * @param maxStackDepth the maximum number of values on the operand stack at any point of the program
+     * @param stackTypes the inferred types of the stack slots before each instruction, from bottom to top. A slot is
+     *                   {@code null} if its type can vary. The whole entry is {@code null} if the instruction is
+     *                   unreachable
+     */
+    public record Result(int maxStackDepth, List<Type[]> stackTypes) {}
+
+    /**
+     * The stack effect of an instruction.
+     *
+     * @param pops the number of popped values
+     * @param pushes whether a value is pushed
+     * @param pushed the type of the pushed value, {@code null} if unknown
+     */
+    private record Effect(int pops, boolean pushes, Type pushed) {
+
+        private static Effect pop(int count) {
+            return new Effect(count, false, null);
+        }
+
+        private static Effect replace(int count, Type pushed) {
+            return new Effect(count, true, pushed);
+        }
+    }
+
+    private static final Effect NONE = Effect.pop(0);
+
+    /**
+     * Get the type of each variable if all its declarations agree.
+     */
+    private static Map<String, Type> getVariableTypes(List<Bytecode> instructions) {
+        Map<String, Type> types = new HashMap<>();
+        Set<String> ambiguous = new HashSet<>();
+
+        for(Bytecode instruction : instructions) {
+            String name;
+            Type type;
+            switch (instruction) {
+                case Bytecode.Declare declare -> {
+                    name = declare.name();
+                    type = declare.type();
+                }
+                case Bytecode.ForInit forInit -> {
+                    name = forInit.iterator();
+                    type = Type.INT;
+                }
+                default -> {
+                    continue;
+                }
+            }
+
+            Type previous = types.putIfAbsent(name, type);
+            if(previous != null && previous != type) ambiguous.add(name);
+        }
+
+        for(String name : ambiguous) types.remove(name);
+        return types;
+    }
+
+    /**
+     * Get the type of a slot from the top of the stack.
+     *
+     * @return the type of the slot or {@code null} if unknown or missing. Underflows are reported by the caller
+     */
+    private static Type getTop(Type[] stack, int depth) {
+        return depth < stack.length ? stack[stack.length - 1 - depth] : null;
+    }
+
+    private static void expect(Range range, Type[] stack, int depth, Type expected) throws VerificationException {
+        Type actual = getTop(stack, depth);
+        if(actual != null && actual != expected) {
+            throw new VerificationException(range, "Expected " + expected.getName() + " but got " + actual.getName());
+        }
+    }
+
+    /**
+     * Infer the result type of an arithmetic operation.
+     */
+    private static Type getArithmeticType(Type left, Type right, boolean concatenates) {
+        if(left == null || right == null) return null;
+        if(concatenates && (left == Type.STRING || right == Type.STRING)) return Type.STRING;
+        if(left == right) return left;
+        if(left.isNumeric() && right.isNumeric()) return Type.FLOAT;
+        return null;
+    }
+
+    private static Effect getEffect(Bytecode instruction, Type[] stack, Map<String, Type> variableTypes) throws VerificationException {
+        return switch (instruction) {
+            case Bytecode.Push(Range ignored, Value value) -> Effect.replace(0, value.getType());
+            case Bytecode.Load(Range ignored, String name) -> Effect.replace(0, variableTypes.get(name));
+            case Bytecode.Store ignored -> Effect.pop(1);
+            case Bytecode.Declare ignored -> Effect.pop(1);
+            case Bytecode.Delete ignored -> NONE;
+            case Bytecode.GoTo ignored -> NONE;
+            case Bytecode.GoToIfFalse(Range range, int ignored) -> {
+                expect(range, stack, 0, Type.BOOLEAN);
+                yield Effect.pop(1);
+            }
+            case Bytecode.ForInit forInit -> {
+                for(int i = 0; i < 3; i++) expect(forInit.range(), stack, i, Type.INT);
+                yield Effect.pop(3);
+            }
+            case Bytecode.ForNext ignored -> NONE;
+            case Bytecode.End ignored -> NONE;
+            case Bytecode.NewScope ignored -> NONE;
+            case Bytecode.ExitScope ignored -> NONE;
+
+            case Bytecode.Percent ignored -> Effect.replace(1, Type.PERCENTAGE);
+            case Bytecode.Negation ignored -> Effect.replace(1, getTop(stack, 0));
+            case Bytecode.Add ignored -> Effect.replace(2, getArithmeticType(getTop(stack, 1), getTop(stack, 0), true));
+            case Bytecode.Sub ignored -> Effect.replace(2, getArithmeticType(getTop(stack, 1), getTop(stack, 0), false));
+            case Bytecode.Mul ignored -> Effect.replace(2, getArithmeticType(getTop(stack, 1), getTop(stack, 0), false));
+            case Bytecode.Div ignored -> Effect.replace(2, getArithmeticType(getTop(stack, 1), getTop(stack, 0), false));
+            case Bytecode.Modulo ignored -> Effect.replace(2, getArithmeticType(getTop(stack, 1), getTop(stack, 0), false));
+            case Bytecode.Not(Range range) -> {
+                expect(range, stack, 0, Type.BOOLEAN);
+                yield Effect.replace(1, Type.BOOLEAN);
+            }
+            case Bytecode.Or(Range range) -> {
+                expect(range, stack, 0, Type.BOOLEAN);
+                expect(range, stack, 1, Type.BOOLEAN);
+                yield Effect.replace(2, Type.BOOLEAN);
+            }
+            case Bytecode.And(Range range) -> {
+                expect(range, stack, 0, Type.BOOLEAN);
+                expect(range, stack, 1, Type.BOOLEAN);
+                yield Effect.replace(2, Type.BOOLEAN);
+            }
+            case Bytecode.Equal ignored -> Effect.replace(2, Type.BOOLEAN);
+            case Bytecode.NotEqual ignored -> Effect.replace(2, Type.BOOLEAN);
+            case Bytecode.Greater ignored -> Effect.replace(2, Type.BOOLEAN);
+            case Bytecode.Less ignored -> Effect.replace(2, Type.BOOLEAN);
+            case Bytecode.GreaterEqual ignored -> Effect.replace(2, Type.BOOLEAN);
+            case Bytecode.LessEqual ignored -> Effect.replace(2, Type.BOOLEAN);
+
+            case Bytecode.Forward ignored -> Effect.pop(1);
+            case Bytecode.Backward ignored -> Effect.pop(1);
+            case Bytecode.Turn ignored -> Effect.pop(1);
+            case Bytecode.Pos ignored -> Effect.pop(2);
+            case Bytecode.Move ignored -> Effect.pop(2);
+            case Bytecode.Hide ignored -> NONE;
+            case Bytecode.Show ignored -> NONE;
+            case Bytecode.Press ignored -> Effect.pop(1);
+            case Bytecode.Color ignored -> Effect.pop(1);
+            case Bytecode.ColorRGB ignored -> Effect.pop(3);
+            case Bytecode.Thick ignored -> Effect.pop(1);
+            case Bytecode.LookAtCursor ignored -> Effect.pop(1);
+            case Bytecode.LookAtPos ignored -> Effect.pop(2);
+            case Bytecode.CreateCursor ignored -> Effect.pop(1);
+            case Bytecode.SelectCursor ignored -> Effect.pop(1);
+            case Bytecode.RemoveCursor ignored -> Effect.pop(1);
+            case Bytecode.Mimic ignored -> Effect.pop(1);
+            case Bytecode.MirrorCentral ignored -> Effect.pop(2);
+            case Bytecode.MirrorAxial ignored -> Effect.pop(4);
+
+            case Bytecode.ForwardConst ignored -> NONE;
+            case Bytecode.TurnConst ignored -> NONE;
+            case Bytecode.Increment ignored -> NONE;
+            case Bytecode.GoToIfNotLess ignored -> NONE;
+        };
+    }
+
+    /**
+     * Get the addresses execution can continue at after the given instruction.
+     */
+    private static int[] getSuccessors(Bytecode instruction, int address) {
+        return switch (instruction) {
+            case Bytecode.GoTo(Range ignored, int target) -> new int[]{target};
+            case Bytecode.GoToIfFalse(Range ignored, int target) -> new int[]{address + 1, target};
+            case Bytecode.ForInit(Range ignored, String iterator, int target) -> new int[]{address + 1, target};
+            case Bytecode.ForNext(Range ignored, int target) -> new int[]{address + 1, target};
+            case Bytecode.GoToIfNotLess(
+                    Range ignored, String left, String right, int target, Range leftRange, Range rightRange, Range lessRange
+            ) -> new int[]{address + 1, target};
+            default -> new int[]{address + 1};
+        };
+    }
+
+    /**
+     * Merge the stack state reaching an instruction with the already known one.
+     *
+     * @return the merged state or {@code null} if it did not change
+     */
+    private static Type[] merge(Range range, Type[] known, Type[] incoming) throws VerificationException {
+        if(known == null) return incoming;
+        if(known.length != incoming.length) {
+            throw new VerificationException(range, "Inconsistent stack depth: " + known.length + " and " + incoming.length);
+        }
+
+        Type[] merged = null;
+        for(int i = 0; i < known.length; i++) {
+            if(known[i] != null && known[i] != incoming[i]) {
+                if(merged == null) merged = known.clone();
+                merged[i] = null;
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * Verify a compiled program.
+     *
+     * @param instructions the instructions of the program
+     * @return the properties of the program proven by the verification
+     * @throws VerificationException if the program can underflow its stack, jumps outside the program or reaches an
+     * instruction with different stack depths
+     */
+    public static Result verify(List<Bytecode> instructions) throws VerificationException {
+        int size = instructions.size();
+        Type[][] states = new Type[size][];
+        Map<String, Type> variableTypes = getVariableTypes(instructions);
+
+        Deque<Integer> worklist = new ArrayDeque<>();
+        int maxStackDepth = 0;
+
+        if(size > 0) {
+            states[0] = new Type[0];
+            worklist.push(0);
+        }
+
+        while(!worklist.isEmpty()) {
+            int address = worklist.pop();
+            Bytecode instruction = instructions.get(address);
+            Type[] stack = states[address];
+
+            Effect effect = getEffect(instruction, stack, variableTypes);
+            if(stack.length < effect.pops()) {
+                throw new VerificationException(instruction.range(), "Stack underflow at address " + address);
+            }
+
+            int depth = stack.length - effect.pops() + (effect.pushes() ? 1 : 0);
+            Type[] result = Arrays.copyOf(stack, depth);
+            if(effect.pushes()) result[depth - 1] = effect.pushed();
+            maxStackDepth = Math.max(maxStackDepth, Math.max(stack.length, depth));
+
+            for(int successor : getSuccessors(instruction, address)) {
+                if(successor == address + 1 && successor == size) continue; //End of the program
+                if(successor < 0 || successor >= size) {
+                    throw new VerificationException(instruction.range(), "Invalid jump target: " + successor);
+                }
+
+                Type[] merged = merge(instruction.range(), states[successor], result);
+                if(merged != null) {
+                    states[successor] = merged;
+                    worklist.push(successor);
+                }
+            }
+        }
+
+        return new Result(maxStackDepth, Arrays.asList(states));
+    }
+}
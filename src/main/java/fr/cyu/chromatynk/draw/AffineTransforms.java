@@ -0,0 +1,117 @@
+package fr.cyu.chromatynk.draw;
+
+/**
+ * Operations on 2x3 affine matrices packed in {@code double} arrays.
+ * <p>
+ * A matrix {@code [a, b, c, d, e, f]} maps the point {@code (x, y)} to {@code (a*x + b*y + c, d*x + e*y + f)}. A list
+ * of matrices is stored contiguously, {@link #SIZE} values per matrix, so it can be applied in a single loop without
+ * allocation.
+ */
+public final class AffineTransforms {
+
+    /**
+     * The number of values of a packed matrix.
+     */
+    public static final int SIZE = 6;
+
+    private AffineTransforms() {}
+
+    /**
+     * Get the identity matrix.
+     */
+    public static double[] identity() {
+        return new double[]{1, 0, 0, 0, 1, 0};
+    }
+
+    /**
+     * Get a translation matrix.
+     *
+     * @param translateX the X translation
+     * @param translateY the Y translation
+     */
+    public static double[] translation(double translateX, double translateY) {
+        return new double[]{1, 0, translateX, 0, 1, translateY};
+    }
+
+    /**
+     * Get the matrix of a point reflection.
+     *
+     * @param centerX the X coordinate of the symmetry center
+     * @param centerY the Y coordinate of the symmetry center
+     */
+    public static double[] pointReflection(double centerX, double centerY) {
+        return new double[]{-1, 0, 2 * centerX, 0, -1, 2 * centerY};
+    }
+
+    /**
+     * Get the matrix of a reflection across the line going through two points. If both points are the same, the axis
+     * is the vertical line going through them.
+     *
+     * @param lineAX the X coordinate of the first point of the axis
+     * @param lineAY the Y coordinate of the first point of the axis
+     * @param lineBX the X coordinate of the second point of the axis
+     * @param lineBY the Y coordinate of the second point of the axis
+     */
+    public static double[] axialReflection(double lineAX, double lineAY, double lineBX, double lineBY) {
+        double dx = lineBX - lineAX;
+        double dy = lineBY - lineAY;
+        double length = Math.sqrt(dx * dx + dy * dy);
+
+        double unitX = length == 0 ? 0 : dx / length;
+        double unitY = length == 0 ? 1 : dy / length;
+
+        double a = 2 * unitX * unitX - 1;
+        double b = 2 * unitX * unitY;
+        double e = 2 * unitY * unitY - 1;
+
+        return new double[]{
+                a, b, lineAX - (a * lineAX + b * lineAY),
+                b, e, lineAY - (b * lineAX + e * lineAY)
+        };
+    }
+
+    /**
+     * Compose two matrices, applying {@code inner} first.
+     *
+     * @param outer the packed matrices containing the matrix applied last
+     * @param outerOffset the offset of the matrix applied last
+     * @param inner the matrix applied first
+     * @param result the array to write the composed matrix to
+     * @param resultOffset the offset of the composed matrix in {@code result}
+     */
+    public static void compose(double[] outer, int outerOffset, double[] inner, double[] result, int resultOffset) {
+        double a = outer[outerOffset], b = outer[outerOffset + 1], c = outer[outerOffset + 2];
+        double d = outer[outerOffset + 3], e = outer[outerOffset + 4], f = outer[outerOffset + 5];
+
+        result[resultOffset] = a * inner[0] + b * inner[3];
+        result[resultOffset + 1] = a * inner[1] + b * inner[4];
+        result[resultOffset + 2] = a * inner[2] + b * inner[5] + c;
+        result[resultOffset + 3] = d * inner[0] + e * inner[3];
+        result[resultOffset + 4] = d * inner[1] + e * inner[4];
+        result[resultOffset + 5] = d * inner[2] + e * inner[5] + f;
+    }
+
+    /**
+     * Get the X coordinate of a transformed point.
+     *
+     * @param matrices the packed matrices
+     * @param offset the offset of the applied matrix
+     * @param x the X coordinate of the point
+     * @param y the Y coordinate of the point
+     */
+    public static double transformX(double[] matrices, int offset, double x, double y) {
+        return matrices[offset] * x + matrices[offset + 1] * y + matrices[offset + 2];
+    }
+
+    /**
+     * Get the Y coordinate of a transformed point.
+     *
+     * @param matrices the packed matrices
+     * @param offset the offset of the applied matrix
+     * @param x the X coordinate of the point
+     * @param y the Y coordinate of the point
+     */
+    public static double transformY(double[] matrices, int offset, double x, double y) {
+        return matrices[offset + 3] * x + matrices[offset + 4] * y + matrices[offset + 5];
+    }
+}
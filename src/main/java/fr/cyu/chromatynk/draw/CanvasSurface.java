@@ -0,0 +1,56 @@
+package fr.cyu.chromatynk.draw;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+
+/**
+ * A {@link DrawingSurface} drawing on a JavaFX canvas.
+ */
+public class CanvasSurface implements DrawingSurface {
+
+    private final GraphicsContext graphics;
+
+    /**
+     * Create a new canvas surface.
+     *
+     * @param graphics the graphics context of the canvas to draw on
+     */
+    public CanvasSurface(GraphicsContext graphics) {
+        this.graphics = graphics;
+    }
+
+    /**
+     * Get the graphics context of the underlying canvas.
+     */
+    public GraphicsContext getGraphics() {
+        return graphics;
+    }
+
+    @Override
+    public double getWidth() {
+        return graphics.getCanvas().getWidth();
+    }
+
+    @Override
+    public double getHeight() {
+        return graphics.getCanvas().getHeight();
+    }
+
+    @Override
+    public void drawLine(double fromX, double fromY, double toX, double toY, Color color, double opacity, double thickness) {
+        graphics.setStroke(new javafx.scene.paint.Color(color.red(), color.green(), color.blue(), opacity));
+        graphics.setLineWidth(thickness);
+        graphics.strokeLine(fromX, fromY, toX, toY);
+    }
+
+    @Override
+    public void drawRaster(Raster raster) {
+        graphics.getPixelWriter().setPixels(0, 0, raster.getWidth(), raster.getHeight(), PixelFormat.getIntArgbInstance(), raster.getPixels(), 0, raster.getWidth());
+    }
+
+    @Override
+    public void clear() {
+        graphics.setFill(javafx.scene.paint.Color.WHITE);
+        graphics.fillRect(0, 0, getWidth(), getHeight());
+    }
+}
@@ -104,13 +104,13 @@ public interface Cursor {
     /**
      * Draw a line with this cursor.
      *
-     * @param graphics the graphics context to draw on
+     * @param surface the surface to draw on
      * @param x the starting X coordinate of the line
      * @param y the starting Y coordinate of the line
      * @param dx the ending X coordinate of the line
      * @param dy the ending Y coordinate of the line
      */
-    void drawLineAt(GraphicsContext graphics, double x, double y, double dx, double dy);
+    void drawLineAt(DrawingSurface surface, double x, double y, double dx, double dy);
 
     /**
      * Draw this cursor.
@@ -127,12 +127,12 @@ public interface Cursor {
     /**
      * Move this cursor to another position, tracing a line between the starting and ending positions.
      *
-     * @param graphics the graphics context to draw on
+     * @param surface the surface to draw on
      * @param dx the ending relative X coordinate of the line
      * @param dy the ending relative Y coordinate of the line
      */
-    default void move(GraphicsContext graphics, double dx, double dy) {
-        drawLineAt(graphics, getX(), getY(), getX()+dx, getY()+dy);
+    default void move(DrawingSurface surface, double dx, double dy) {
+        drawLineAt(surface, getX(), getY(), getX()+dx, getY()+dy);
         setX(getX()+dx);
         setY(getY()+dy);
     }
@@ -140,11 +140,11 @@ public interface Cursor {
     /**
      * Move this cursor on the given distance, following its current direction and tracing a line between the starting and ending positions.
      *
-     * @param graphics the graphics context to draw on
+     * @param surface the surface to draw on
      * @param distance the distance to travel
      */
-    default void move(GraphicsContext graphics, double distance) {
-        move(graphics, distance*getDirX(), distance*getDirY());
+    default void move(DrawingSurface surface, double distance) {
+        move(surface, distance*getDirX(), distance*getDirY());
     }
 
     /**
@@ -0,0 +1,433 @@
+package fr.cyu.chromatynk.draw;
+
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.Arrays;
+
+/**
+ * Tangible cursors stored as a struct of arrays: each property of the cursors is kept in its own primitive array,
+ * indexed by row.
+ * <p>
+ * The rows are exposed as {@link Row} cursors for the interpreter, but the bulk operations of this table work on a
+ * range of rows directly, scanning the arrays linearly instead of calling the {@link Cursor} methods of each cursor.
+ * Released rows are reused by the next allocations and skipped by the bulk operations.
+ */
+public class CursorTable {
+
+    /**
+     * A cursor stored in a row of a {@link CursorTable}. A row must not be used once released.
+     */
+    public static final class Row implements Cursor {
+
+        private final CursorTable table;
+        private final int index;
+
+        private Row(CursorTable table, int index) {
+            this.table = table;
+            this.index = index;
+        }
+
+        /**
+         * Get the table storing this cursor.
+         */
+        public CursorTable getTable() {
+            return table;
+        }
+
+        /**
+         * Get the index of this row in its table.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public double getX() {
+            return table.x[index];
+        }
+
+        @Override
+        public double getY() {
+            return table.y[index];
+        }
+
+        @Override
+        public void setX(double x) {
+            table.x[index] = x;
+        }
+
+        @Override
+        public void setY(double y) {
+            table.y[index] = y;
+        }
+
+        @Override
+        public double getDirX() {
+            return table.dirX[index];
+        }
+
+        @Override
+        public void setDirX(double dirX) {
+            table.dirX[index] = dirX;
+        }
+
+        @Override
+        public double getDirY() {
+            return table.dirY[index];
+        }
+
+        @Override
+        public void setDirY(double dirY) {
+            table.dirY[index] = dirY;
+        }
+
+        @Override
+        public boolean isVisible() {
+            return table.visible[index];
+        }
+
+        @Override
+        public void setVisible(boolean visible) {
+            table.visible[index] = visible;
+        }
+
+        @Override
+        public Color getColor() {
+            return new Color(table.red[index], table.green[index], table.blue[index]);
+        }
+
+        @Override
+        public void setColor(Color color) {
+            table.red[index] = color.red();
+            table.green[index] = color.green();
+            table.blue[index] = color.blue();
+        }
+
+        @Override
+        public double getOpacity() {
+            return table.opacity[index];
+        }
+
+        @Override
+        public void setOpacity(double opacity) {
+            table.opacity[index] = opacity;
+        }
+
+        @Override
+        public double getThickness() {
+            return table.thickness[index];
+        }
+
+        @Override
+        public void setThickness(double thickness) {
+            table.thickness[index] = thickness;
+        }
+
+        @Override
+        public void drawLineAt(DrawingSurface surface, double x, double y, double dx, double dy) {
+            surface.drawLine(x, y, dx, dy, getColor(), getOpacity(), getThickness());
+        }
+
+        @Override
+        public void drawAt(GraphicsContext graphics, boolean current, double x, double y, double dirX, double dirY) {
+            TangibleCursor.draw(graphics, current, x, y, dirX, dirY, table.red[index], table.green[index], table.blue[index], table.opacity[index], table.thickness[index]);
+        }
+
+        @Override
+        public String toString() {
+            return "Row{" + index + "}";
+        }
+    }
+
+    /**
+     * A copy of the content of a table.
+     */
+    public static final class State {
+
+        private final int rowCount;
+        private final double[][] columns;
+        private final boolean[] visible;
+        private final boolean[] live;
+
+        private State(int rowCount, double[][] columns, boolean[] visible, boolean[] live) {
+            this.rowCount = rowCount;
+            this.columns = columns;
+            this.visible = visible;
+            this.live = live;
+        }
+    }
+
+    private double[] x;
+    private double[] y;
+    private double[] dirX;
+    private double[] dirY;
+    private double[] red;
+    private double[] green;
+    private double[] blue;
+    private double[] opacity;
+    private double[] thickness;
+    private boolean[] visible;
+    private boolean[] live;
+    private int rowCount;
+    private int[] freeRows;
+    private int freeCount;
+    private int size;
+
+    /**
+     * Create a new empty table.
+     *
+     * @param capacity the initial number of rows
+     */
+    public CursorTable(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.dirX = new double[capacity];
+        this.dirY = new double[capacity];
+        this.red = new double[capacity];
+        this.green = new double[capacity];
+        this.blue = new double[capacity];
+        this.opacity = new double[capacity];
+        this.thickness = new double[capacity];
+        this.visible = new boolean[capacity];
+        this.live = new boolean[capacity];
+        this.freeRows = new int[capacity];
+    }
+
+    /**
+     * Create a new empty table.
+     */
+    public CursorTable() {
+        this(64);
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        dirX = Arrays.copyOf(dirX, capacity);
+        dirY = Arrays.copyOf(dirY, capacity);
+        red = Arrays.copyOf(red, capacity);
+        green = Arrays.copyOf(green, capacity);
+        blue = Arrays.copyOf(blue, capacity);
+        opacity = Arrays.copyOf(opacity, capacity);
+        thickness = Arrays.copyOf(thickness, capacity);
+        visible = Arrays.copyOf(visible, capacity);
+        live = Arrays.copyOf(live, capacity);
+    }
+
+    /**
+     * Get the number of rows ever allocated, released ones included. Bulk operations accept row ranges up to this
+     * bound.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Get the number of live rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if a row is allocated.
+     *
+     * @param row the index of the row
+     */
+    public boolean isLive(int row) {
+        return row >= 0 && row < rowCount && live[row];
+    }
+
+    /**
+     * Allocate a row for a new cursor with default values, like {@link TangibleCursor#TangibleCursor(double, double)}.
+     *
+     * @param x the X coordinate of the cursor
+     * @param y the Y coordinate of the cursor
+     * @return the allocated cursor
+     */
+    public Row allocate(double x, double y) {
+        int row;
+        if(freeCount > 0) row = freeRows[--freeCount];
+        else {
+            if(rowCount == this.x.length) grow();
+            row = rowCount++;
+        }
+
+        this.x[row] = x;
+        this.y[row] = y;
+        dirX[row] = 1;
+        dirY[row] = 0;
+        red[row] = 0;
+        green[row] = 0;
+        blue[row] = 0;
+        opacity[row] = 1;
+        thickness[row] = 1;
+        visible[row] = true;
+        live[row] = true;
+        size++;
+
+        return new Row(this, row);
+    }
+
+    /**
+     * Release the row of a cursor so it can be reused.
+     *
+     * @param cursor the cursor to release. Nothing happens if it is not a live row of this table
+     */
+    public void release(Cursor cursor) {
+        if(!(cursor instanceof Row row) || row.table != this || !live[row.index]) return;
+
+        live[row.index] = false;
+        if(freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        freeRows[freeCount++] = row.index;
+        size--;
+    }
+
+    /**
+     * Translate the live cursors of a range of rows.
+     *
+     * @param from the first row, inclusive
+     * @param to the last row, exclusive
+     * @param dx the X translation
+     * @param dy the Y translation
+     */
+    public void translate(int from, int to, double dx, double dy) {
+        for(int i = from; i < to; i++) {
+            if(!live[i]) continue;
+            x[i] += dx;
+            y[i] += dy;
+        }
+    }
+
+    /**
+     * Rotate the live cursors of a range of rows.
+     *
+     * @param from the first row, inclusive
+     * @param to the last row, exclusive
+     * @param degrees the rotation angle in degrees in clock direction
+     */
+    public void turn(int from, int to, double degrees) {
+        double radians = Math.toRadians(degrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+
+        for(int i = from; i < to; i++) {
+            if(!live[i]) continue;
+            double currentX = dirX[i];
+            double currentY = dirY[i];
+            dirX[i] = cos * currentX - sin * currentY;
+            dirY[i] = sin * currentX + cos * currentY;
+        }
+    }
+
+    /**
+     * Apply an affine matrix to the live cursors of a range of rows. Positions are transformed by the whole matrix and
+     * directions by its linear part, then normalized.
+     *
+     * @param from the first row, inclusive
+     * @param to the last row, exclusive
+     * @param matrix the {@link AffineTransforms packed matrix} to apply
+     */
+    public void transform(int from, int to, double[] matrix) {
+        double a = matrix[0], b = matrix[1], c = matrix[2];
+        double d = matrix[3], e = matrix[4], f = matrix[5];
+
+        for(int i = from; i < to; i++) {
+            if(!live[i]) continue;
+            double currentX = x[i];
+            double currentY = y[i];
+            x[i] = a * currentX + b * currentY + c;
+            y[i] = d * currentX + e * currentY + f;
+
+            double newDirX = a * dirX[i] + b * dirY[i];
+            double newDirY = d * dirX[i] + e * dirY[i];
+            double length = Math.sqrt(newDirX * newDirX + newDirY * newDirY);
+            if(length != 0) {
+                dirX[i] = newDirX / length;
+                dirY[i] = newDirY / length;
+            }
+        }
+    }
+
+    /**
+     * Move the live cursors of a range of rows forward, each tracing a line like {@link Cursor#move(DrawingSurface, double)}.
+     *
+     * @param surface the surface to draw on
+     * @param from the first row, inclusive
+     * @param to the last row, exclusive
+     * @param distance the distance to travel
+     */
+    public void forward(DrawingSurface surface, int from, int to, double distance) {
+        for(int i = from; i < to; i++) {
+            if(!live[i]) continue;
+            double toX = x[i] + distance * dirX[i];
+            double toY = y[i] + distance * dirY[i];
+            surface.drawLine(x[i], y[i], toX, toY, new Color(red[i], green[i], blue[i]), opacity[i], thickness[i]);
+            x[i] = toX;
+            y[i] = toY;
+        }
+    }
+
+    /**
+     * Draw the visible live cursors of a range of rows.
+     *
+     * @param graphics the graphics context to draw on
+     * @param from the first row, inclusive
+     * @param to the last row, exclusive
+     * @param selected the rows drawn as selected, indexed by row. Rows past its length are not selected
+     */
+    public void render(GraphicsContext graphics, int from, int to, boolean[] selected) {
+        for(int i = from; i < to; i++) {
+            if(!live[i] || !visible[i]) continue;
+            TangibleCursor.draw(graphics, i < selected.length && selected[i], x[i], y[i], dirX[i], dirY[i], red[i], green[i], blue[i], opacity[i], thickness[i]);
+        }
+    }
+
+    /**
+     * Copy the content of this table.
+     *
+     * @return a state that can be passed to {@link #restore(State)}
+     */
+    public State save() {
+        double[][] columns = {
+                Arrays.copyOf(x, rowCount),
+                Arrays.copyOf(y, rowCount),
+                Arrays.copyOf(dirX, rowCount),
+                Arrays.copyOf(dirY, rowCount),
+                Arrays.copyOf(red, rowCount),
+                Arrays.copyOf(green, rowCount),
+                Arrays.copyOf(blue, rowCount),
+                Arrays.copyOf(opacity, rowCount),
+                Arrays.copyOf(thickness, rowCount)
+        };
+
+        return new State(rowCount, columns, Arrays.copyOf(visible, rowCount), Arrays.copyOf(live, rowCount));
+    }
+
+    /**
+     * Replace the content of this table by a previous state. The rows given before the state was saved refer to the
+     * same cursors again.
+     *
+     * @param state the state to restore, saved from this table
+     */
+    public void restore(State state) {
+        double[][] columns = {x, y, dirX, dirY, red, green, blue, opacity, thickness};
+        for(int i = 0; i < columns.length; i++) System.arraycopy(state.columns[i], 0, columns[i], 0, state.rowCount);
+        System.arraycopy(state.visible, 0, visible, 0, state.rowCount);
+        System.arraycopy(state.live, 0, live, 0, state.rowCount);
+        Arrays.fill(live, state.rowCount, rowCount, false);
+
+        rowCount = state.rowCount;
+        freeCount = 0;
+        size = 0;
+        for(int i = rowCount - 1; i >= 0; i--) {
+            if(live[i]) size++;
+            else {
+                if(freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+                freeRows[freeCount++] = i;
+            }
+        }
+    }
+}
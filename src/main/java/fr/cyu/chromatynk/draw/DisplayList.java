@@ -0,0 +1,200 @@
+package fr.cyu.chromatynk.draw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A {@link DrawingSurface} recording the drawn lines and forwarding them to another surface.
+ * <p>
+ * The recorded lines can be rewound to a previous offset, redrawing the target surface accordingly.
+ * <p>
+ * A display list can retain a bounded number of lines. When it is full, its oldest half is
+ * {@link #getFlattened() flattened} into a {@link #getBackground() background} raster and can no longer be rewound.
+ * Offsets count every recorded line, including the flattened ones.
+ */
+public class DisplayList implements DrawingSurface {
+
+    /**
+     * A recorded line.
+     *
+     * @param fromX the x coordinate of the start of the line
+     * @param fromY the y coordinate of the start of the line
+     * @param toX the x coordinate of the end of the line
+     * @param toY the y coordinate of the end of the line
+     * @param color the color of the line
+     * @param opacity the opacity of the line between 0 and 1
+     * @param thickness the width of the line
+     */
+    public record Line(double fromX, double fromY, double toX, double toY, Color color, double opacity, double thickness) {
+
+        /**
+         * Draw this line on the given surface.
+         *
+         * @param surface the surface to draw on
+         */
+        public void drawOn(DrawingSurface surface) {
+            surface.drawLine(fromX, fromY, toX, toY, color, opacity, thickness);
+        }
+    }
+
+    private static final TileRasterizer RASTERIZER = new TileRasterizer();
+
+    private final DrawingSurface target;
+    private final List<Line> lines;
+    private final int capacity;
+    private Raster background;
+    private int flattened;
+
+    /**
+     * Create a new display list retaining at most the given number of lines.
+     *
+     * @param target the surface to forward the drawn lines to
+     * @param capacity the maximum number of retained lines before the oldest ones are flattened
+     */
+    public DisplayList(DrawingSurface target, int capacity) {
+        if(capacity < 2) throw new IllegalArgumentException("Capacity must be at least 2: " + capacity);
+
+        this.target = target;
+        this.lines = new ArrayList<>();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Create a new display list retaining every line.
+     *
+     * @param target the surface to forward the drawn lines to
+     */
+    public DisplayList(DrawingSurface target) {
+        this(target, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the surface this display list forwards to.
+     */
+    public DrawingSurface getTarget() {
+        return target;
+    }
+
+    /**
+     * Get the retained lines, recorded after the flattened ones.
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Get the maximum number of retained lines.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the number of lines flattened into the background.
+     */
+    public int getFlattened() {
+        return flattened;
+    }
+
+    /**
+     * Get the image of the flattened lines.
+     *
+     * @return the background or nothing if no line was flattened
+     */
+    public Optional<Raster> getBackground() {
+        return Optional.ofNullable(background);
+    }
+
+    /**
+     * Get the number of recorded lines, including the flattened ones.
+     */
+    public int size() {
+        return flattened + lines.size();
+    }
+
+    /**
+     * Remove the lines recorded after the given offset then redraw the target surface.
+     *
+     * @param offset the number of lines to keep
+     * @throws IllegalArgumentException if the lines after the offset were flattened
+     */
+    public void rewind(int offset) {
+        if(offset < flattened) throw new IllegalArgumentException("Cannot rewind to " + offset + ", " + flattened + " lines were flattened");
+        if(offset >= size()) return;
+
+        lines.subList(offset - flattened, lines.size()).clear();
+        replay(target);
+    }
+
+    /**
+     * Clear the given surface and draw the background and the retained lines on it.
+     *
+     * @param surface the surface to draw on
+     */
+    public void replay(DrawingSurface surface) {
+        surface.clear();
+        if(background != null) surface.drawRaster(background);
+        for(Line line : lines) line.drawOn(surface);
+    }
+
+    /**
+     * Flatten the oldest half of the lines if more than the capacity are retained.
+     */
+    private void flattenIfFull() {
+        if(lines.size() <= capacity) return;
+
+        if(background == null) {
+            background = new Raster(Math.max(1, (int) Math.ceil(getWidth())), Math.max(1, (int) Math.ceil(getHeight())));
+        }
+
+        List<Line> oldest = lines.subList(0, lines.size() - capacity / 2);
+        RASTERIZER.draw(oldest, background);
+        flattened += oldest.size();
+        oldest.clear();
+    }
+
+    @Override
+    public double getWidth() {
+        return target.getWidth();
+    }
+
+    @Override
+    public double getHeight() {
+        return target.getHeight();
+    }
+
+    @Override
+    public void drawLine(double fromX, double fromY, double toX, double toY, Color color, double opacity, double thickness) {
+        Line line = new Line(fromX, fromY, toX, toY, color, opacity, thickness);
+        lines.add(line);
+        line.drawOn(target);
+        flattenIfFull();
+    }
+
+    @Override
+    public void drawLines(double fromX, double fromY, double toX, double toY, double[] transforms, Color color, double opacity, double thickness) {
+        for(int i = 0; i < transforms.length; i += AffineTransforms.SIZE) {
+            lines.add(new Line(
+                    AffineTransforms.transformX(transforms, i, fromX, fromY),
+                    AffineTransforms.transformY(transforms, i, fromX, fromY),
+                    AffineTransforms.transformX(transforms, i, toX, toY),
+                    AffineTransforms.transformY(transforms, i, toX, toY),
+                    color,
+                    opacity,
+                    thickness
+            ));
+        }
+
+        target.drawLines(fromX, fromY, toX, toY, transforms, color, opacity, thickness);
+        flattenIfFull();
+    }
+
+    @Override
+    public void clear() {
+        lines.clear();
+        background = null;
+        flattened = 0;
+        target.clear();
+    }
+}
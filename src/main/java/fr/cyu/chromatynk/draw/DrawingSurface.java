@@ -0,0 +1,71 @@
+package fr.cyu.chromatynk.draw;
+
+/**
+ * A surface cursors can draw lines on.
+ */
+public interface DrawingSurface {
+
+    /**
+     * Get the width of this surface.
+     */
+    double getWidth();
+
+    /**
+     * Get the height of this surface.
+     */
+    double getHeight();
+
+    /**
+     * Draw a line.
+     *
+     * @param fromX the x coordinate of the start of the line
+     * @param fromY the y coordinate of the start of the line
+     * @param toX the x coordinate of the end of the line
+     * @param toY the y coordinate of the end of the line
+     * @param color the color of the line
+     * @param opacity the opacity of the line between 0 and 1
+     * @param thickness the width of the line
+     */
+    void drawLine(double fromX, double fromY, double toX, double toY, Color color, double opacity, double thickness);
+
+    /**
+     * Draw a line transformed by each of the given affine matrices, in order.
+     *
+     * @param fromX the x coordinate of the start of the line
+     * @param fromY the y coordinate of the start of the line
+     * @param toX the x coordinate of the end of the line
+     * @param toY the y coordinate of the end of the line
+     * @param transforms the {@link AffineTransforms packed matrices} to apply
+     * @param color the color of the lines
+     * @param opacity the opacity of the lines between 0 and 1
+     * @param thickness the width of the lines
+     */
+    default void drawLines(double fromX, double fromY, double toX, double toY, double[] transforms, Color color, double opacity, double thickness) {
+        for(int i = 0; i < transforms.length; i += AffineTransforms.SIZE) {
+            drawLine(
+                    AffineTransforms.transformX(transforms, i, fromX, fromY),
+                    AffineTransforms.transformY(transforms, i, fromX, fromY),
+                    AffineTransforms.transformX(transforms, i, toX, toY),
+                    AffineTransforms.transformY(transforms, i, toX, toY),
+                    color,
+                    opacity,
+                    thickness
+            );
+        }
+    }
+
+    /**
+     * Draw an image over this surface, its top-left corner at the origin.
+     *
+     * @param raster the image to draw
+     * @throws UnsupportedOperationException if this surface cannot draw images
+     */
+    default void drawRaster(Raster raster) {
+        throw new UnsupportedOperationException("Cannot draw images on " + getClass().getSimpleName());
+    }
+
+    /**
+     * Erase everything drawn on this surface.
+     */
+    void clear();
+}
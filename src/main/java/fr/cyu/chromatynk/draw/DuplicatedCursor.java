@@ -1,19 +1,45 @@
 package fr.cyu.chromatynk.draw;
 
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.Arrays;
+
 /**
  * A duplicated cursor like a mirrored or mimicked one.
+ * <p>
+ * Nested duplications are flattened: a duplicated cursor keeps the innermost cursor and the list of
+ * {@link AffineTransforms affine matrices} mapping a drawn line to each of its copies. Drawing applies all matrices in
+ * a single loop instead of going through each decorator.
  */
 public abstract class DuplicatedCursor implements Cursor {
 
     private final Cursor duplicated;
+    private final Cursor original;
+    private final double[] transforms;
 
     /**
      * Create a new duplicated cursor.
      *
      * @param duplicated the cursor being duplicated
+     * @param transform the affine matrix mapping the duplicated cursor's drawings to the copy
      */
-    public DuplicatedCursor(Cursor duplicated) {
+    public DuplicatedCursor(Cursor duplicated, double[] transform) {
         this.duplicated = duplicated;
+
+        double[] inner;
+        if(duplicated instanceof DuplicatedCursor duplicatedCursor) {
+            this.original = duplicatedCursor.original;
+            inner = duplicatedCursor.transforms;
+        } else {
+            this.original = duplicated;
+            inner = AffineTransforms.identity();
+        }
+
+        //The drawings of the duplicated cursor, then the same drawings transformed
+        this.transforms = Arrays.copyOf(inner, inner.length * 2);
+        for(int i = 0; i < inner.length; i += AffineTransforms.SIZE) {
+            AffineTransforms.compose(inner, i, transform, transforms, inner.length + i);
+        }
     }
 
     /**
@@ -25,6 +51,51 @@ public abstract class DuplicatedCursor implements Cursor {
         return duplicated;
     }
 
+    /**
+     * Get the innermost cursor, which is not a duplicated cursor.
+     */
+    public Cursor getOriginal() {
+        return original;
+    }
+
+    /**
+     * Get the number of copies drawn for each line, i.e. of affine matrices.
+     */
+    public int getCopyCount() {
+        return transforms.length / AffineTransforms.SIZE;
+    }
+
+    /**
+     * Get the packed affine matrices mapping a line to each of its copies, in drawing order.
+     */
+    public double[] getTransforms() {
+        return transforms;
+    }
+
+    @Override
+    public void drawLineAt(DrawingSurface surface, double x, double y, double dx, double dy) {
+        surface.drawLines(x, y, dx, dy, transforms, getColor(), getOpacity(), getThickness());
+    }
+
+    @Override
+    public void drawAt(GraphicsContext graphics, boolean current, double x, double y, double dirX, double dirY) {
+        for(int i = 0; i < transforms.length; i += AffineTransforms.SIZE) {
+            //Directions are only affected by the linear part of the matrix
+            double transformedDirX = transforms[i] * dirX + transforms[i + 1] * dirY;
+            double transformedDirY = transforms[i + 3] * dirX + transforms[i + 4] * dirY;
+            double length = Math.sqrt(transformedDirX * transformedDirX + transformedDirY * transformedDirY);
+
+            original.drawAt(
+                    graphics,
+                    current,
+                    AffineTransforms.transformX(transforms, i, x, y),
+                    AffineTransforms.transformY(transforms, i, x, y),
+                    transformedDirX / length,
+                    transformedDirY / length
+            );
+        }
+    }
+
     @Override
     public double getX() {
         return duplicated.getX();
@@ -1,15 +1,10 @@
 package fr.cyu.chromatynk.draw;
 
-import javafx.scene.canvas.GraphicsContext;
-
 /**
  * A mimicked cursor.
  */
 public class MimickedCursor extends DuplicatedCursor {
 
-    private final double translateX;
-    private final double translateY;
-
     /**
      * Create new mimicked cursor.
      *
@@ -18,21 +13,7 @@ public class MimickedCursor extends DuplicatedCursor {
      * @param translateY the Y translation from the mimicked cursor to the mimic's position
      */
     public MimickedCursor(Cursor mimicked, double translateX, double translateY) {
-        super(mimicked);
-        this.translateX = translateX;
-        this.translateY = translateY;
-    }
-
-    @Override
-    public void drawLineAt(GraphicsContext graphics, double x, double y, double dx, double dy) {
-        getDuplicated().drawLineAt(graphics, x, y, dx, dy);
-        getDuplicated().drawLineAt(graphics, x+translateX, y+translateY, translateX+dx, translateY+dy);
-    }
-
-    @Override
-    public void drawAt(GraphicsContext graphics, boolean current, double x, double y, double dirX, double dirY) {
-        getDuplicated().drawAt(graphics, current, x, y, dirX, dirY);
-        getDuplicated().drawAt(graphics, current, x+translateX, y+translateY, dirX, dirY);
+        super(mimicked, AffineTransforms.translation(translateX, translateY));
     }
 
     /**
@@ -0,0 +1,42 @@
+package fr.cyu.chromatynk.draw;
+
+/**
+ * A {@link DrawingSurface} of a given size discarding everything drawn on it.
+ * <p>
+ * Used as the target of a {@link DisplayList} when rendering without a window.
+ */
+public class NullSurface implements DrawingSurface {
+
+    private final double width;
+    private final double height;
+
+    /**
+     * Create a new null surface.
+     *
+     * @param width the width of the surface
+     * @param height the height of the surface
+     */
+    public NullSurface(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public double getWidth() {
+        return width;
+    }
+
+    @Override
+    public double getHeight() {
+        return height;
+    }
+
+    @Override
+    public void drawLine(double fromX, double fromY, double toX, double toY, Color color, double opacity, double thickness) {}
+
+    @Override
+    public void drawRaster(Raster raster) {}
+
+    @Override
+    public void clear() {}
+}
@@ -0,0 +1,93 @@
+package fr.cyu.chromatynk.draw;
+
+import java.util.Arrays;
+
+/**
+ * An image stored as packed ARGB pixels, row by row.
+ */
+public class Raster {
+
+    /**
+     * The packed value of an opaque white pixel.
+     */
+    public static final int WHITE = 0xFFFFFFFF;
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+
+    /**
+     * Create a new white raster.
+     *
+     * @param width the number of pixels per row
+     * @param height the number of rows
+     */
+    public Raster(int width, int height) {
+        if(width <= 0 || height <= 0) throw new IllegalArgumentException("Invalid raster size: " + width + "x" + height);
+
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        fill(WHITE);
+    }
+
+    /**
+     * Get the number of pixels per row.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the number of rows.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the packed ARGB pixels, row by row.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Get the packed ARGB value of a pixel.
+     *
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     */
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Set every pixel to the given value.
+     *
+     * @param argb the packed ARGB value
+     */
+    public void fill(int argb) {
+        Arrays.fill(pixels, argb);
+    }
+
+    /**
+     * Blend a color over a pixel.
+     *
+     * @param index the index of the pixel in {@link #getPixels()}
+     * @param color the color to blend
+     * @param alpha the opacity of the blended color between 0 and 1
+     */
+    public void blend(int index, Color color, double alpha) {
+        int pixel = pixels[index];
+        int red = blendChannel((pixel >> 16) & 0xFF, color.red(), alpha);
+        int green = blendChannel((pixel >> 8) & 0xFF, color.green(), alpha);
+        int blue = blendChannel(pixel & 0xFF, color.blue(), alpha);
+
+        pixels[index] = 0xFF000000 | red << 16 | green << 8 | blue;
+    }
+
+    private static int blendChannel(int destination, double source, double alpha) {
+        return (int) Math.round(source * 255 * alpha + destination * (1 - alpha));
+    }
+}
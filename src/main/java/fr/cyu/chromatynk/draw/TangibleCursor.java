@@ -129,19 +129,42 @@ public class TangibleCursor implements Cursor {
         this.thickness = thickness;
     }
 
+    /**
+     * Set the state of this cursor to the state of another cursor.
+     *
+     * @param state the cursor to copy the position, direction, visibility and style from
+     */
+    public void copyFrom(Cursor state) {
+        this.x = state.getX();
+        this.y = state.getY();
+        this.dirX = state.getDirX();
+        this.dirY = state.getDirY();
+        this.visible = state.isVisible();
+        this.color = state.getColor();
+        this.opacity = state.getOpacity();
+        this.thickness = state.getThickness();
+    }
+
     @Override
-    public void drawLineAt(GraphicsContext graphics, double x, double y, double dx, double dy) {
-        graphics.setStroke(new javafx.scene.paint.Color(getColor().red(), getColor().green(), getColor().blue(), opacity));
-        graphics.setLineWidth(getThickness());
-        graphics.strokeLine(x, y, dx, dy);
+    public void drawLineAt(DrawingSurface surface, double x, double y, double dx, double dy) {
+        surface.drawLine(x, y, dx, dy, getColor(), opacity, getThickness());
     }
 
     @Override
     public void drawAt(GraphicsContext graphics, boolean current, double x, double y, double dirX, double dirY) {
-        double circleWidth = Math.max(15, getThickness());
+        draw(graphics, current, x, y, dirX, dirY, color.red(), color.green(), color.blue(), opacity, thickness);
+    }
+
+    /**
+     * Draw a cursor from its raw state.
+     *
+     * @see #drawAt(GraphicsContext, boolean, double, double, double, double)
+     */
+    static void draw(GraphicsContext graphics, boolean current, double x, double y, double dirX, double dirY, double red, double green, double blue, double opacity, double thickness) {
+        double circleWidth = Math.max(15, thickness);
         graphics.setStroke(current ? javafx.scene.paint.Color.LIGHTGREEN : javafx.scene.paint.Color.BLACK);
         graphics.setLineWidth(circleWidth/4);
-        graphics.setFill(new javafx.scene.paint.Color(getColor().red(), getColor().green(), getColor().blue(), opacity));
+        graphics.setFill(new javafx.scene.paint.Color(red, green, blue, opacity));
         graphics.fillOval(x-circleWidth/2, y-circleWidth/2, circleWidth, circleWidth);
         graphics.strokeOval(x-circleWidth/2, y-circleWidth/2, circleWidth, circleWidth);
         graphics.strokeLine(x, y, x + dirX * circleWidth, y + dirY * circleWidth);
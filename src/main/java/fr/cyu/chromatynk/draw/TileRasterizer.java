@@ -0,0 +1,233 @@
+package fr.cyu.chromatynk.draw;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A rasterizer drawing recorded lines on a {@link Raster} in parallel.
+ * <p>
+ * The raster is split into square tiles. Each line is first binned into the tiles it can cover, keeping the recording
+ * order, then the tiles are rasterized independently on a {@link ForkJoinPool}. Since a pixel belongs to exactly one
+ * tile and each tile draws its lines in recording order, the result is identical to a sequential rasterization.
+ * <p>
+ * Lines are drawn with round caps and a one pixel wide anti-aliased edge.
+ */
+public class TileRasterizer {
+
+    /**
+     * The default width and height of a tile, in pixels.
+     */
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    private final ForkJoinPool pool;
+    private final int tileSize;
+
+    /**
+     * Create a new tile rasterizer.
+     *
+     * @param pool the pool rasterizing the tiles
+     * @param tileSize the width and height of a tile, in pixels
+     */
+    public TileRasterizer(ForkJoinPool pool, int tileSize) {
+        if(tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+
+        this.pool = pool;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Create a new tile rasterizer using the common pool and the default tile size.
+     */
+    public TileRasterizer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Get the width and height of a tile, in pixels.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * The indices of the lines to draw on each tile, in recording order.
+     */
+    private static class Bins {
+
+        private final int[][] indices;
+        private final int[] sizes;
+
+        private Bins(int count) {
+            this.indices = new int[count][];
+            this.sizes = new int[count];
+        }
+
+        private void add(int tile, int index) {
+            int[] bin = indices[tile];
+            if(bin == null) bin = indices[tile] = new int[8];
+            else if(sizes[tile] == bin.length) bin = indices[tile] = Arrays.copyOf(bin, bin.length * 2);
+
+            bin[sizes[tile]++] = index;
+        }
+    }
+
+    /**
+     * Get the distance beyond the line's axis at which its pixels can still be partially covered.
+     */
+    private static double getExtent(DisplayList.Line line) {
+        return line.thickness() / 2 + 1;
+    }
+
+    /**
+     * Get the squared distance between a point and a line's axis.
+     */
+    private static double distanceSquared(DisplayList.Line line, double x, double y) {
+        double dx = line.toX() - line.fromX();
+        double dy = line.toY() - line.fromY();
+        double lengthSquared = dx * dx + dy * dy;
+
+        double t = lengthSquared == 0 ? 0 : ((x - line.fromX()) * dx + (y - line.fromY()) * dy) / lengthSquared;
+        t = Math.clamp(t, 0, 1);
+
+        double offsetX = x - (line.fromX() + t * dx);
+        double offsetY = y - (line.fromY() + t * dy);
+        return offsetX * offsetX + offsetY * offsetY;
+    }
+
+    private Bins bin(List<DisplayList.Line> lines, int width, int height) {
+        int columns = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        Bins bins = new Bins(columns * rows);
+        double halfDiagonal = tileSize * Math.sqrt(2) / 2;
+
+        for(int i = 0; i < lines.size(); i++) {
+            DisplayList.Line line = lines.get(i);
+            double extent = getExtent(line);
+
+            int minX = (int) Math.floor(Math.min(line.fromX(), line.toX()) - extent);
+            int maxX = (int) Math.ceil(Math.max(line.fromX(), line.toX()) + extent);
+            int minY = (int) Math.floor(Math.min(line.fromY(), line.toY()) - extent);
+            int maxY = (int) Math.ceil(Math.max(line.fromY(), line.toY()) + extent);
+            if(maxX < 0 || maxY < 0 || minX >= width || minY >= height) continue;
+
+            int firstColumn = Math.max(minX, 0) / tileSize;
+            int lastColumn = Math.min(maxX, width - 1) / tileSize;
+            int firstRow = Math.max(minY, 0) / tileSize;
+            int lastRow = Math.min(maxY, height - 1) / tileSize;
+            double reach = extent + halfDiagonal;
+
+            for(int row = firstRow; row <= lastRow; row++) {
+                for(int column = firstColumn; column <= lastColumn; column++) {
+                    //Skip the tiles of the bounding box the line does not cross
+                    double centerX = (column + 0.5) * tileSize;
+                    double centerY = (row + 0.5) * tileSize;
+                    if(distanceSquared(line, centerX, centerY) <= reach * reach) bins.add(row * columns + column, i);
+                }
+            }
+        }
+
+        return bins;
+    }
+
+    private void rasterizeTile(List<DisplayList.Line> lines, Bins bins, int tile, Raster raster) {
+        int[] bin = bins.indices[tile];
+        if(bin == null) return;
+
+        int width = raster.getWidth();
+        int columns = (width + tileSize - 1) / tileSize;
+        int tileX = (tile % columns) * tileSize;
+        int tileY = (tile / columns) * tileSize;
+        int tileEndX = Math.min(tileX + tileSize, width);
+        int tileEndY = Math.min(tileY + tileSize, raster.getHeight());
+
+        for(int i = 0; i < bins.sizes[tile]; i++) {
+            DisplayList.Line line = lines.get(bin[i]);
+            double extent = getExtent(line);
+            double halfThickness = line.thickness() / 2;
+
+            int startX = Math.max(tileX, (int) Math.floor(Math.min(line.fromX(), line.toX()) - extent));
+            int endX = Math.min(tileEndX, (int) Math.ceil(Math.max(line.fromX(), line.toX()) + extent));
+            int startY = Math.max(tileY, (int) Math.floor(Math.min(line.fromY(), line.toY()) - extent));
+            int endY = Math.min(tileEndY, (int) Math.ceil(Math.max(line.fromY(), line.toY()) + extent));
+
+            for(int y = startY; y < endY; y++) {
+                for(int x = startX; x < endX; x++) {
+                    double distance = Math.sqrt(distanceSquared(line, x + 0.5, y + 0.5));
+                    double coverage = Math.clamp(halfThickness + 0.5 - distance, 0, 1);
+                    if(coverage > 0) raster.blend(y * width + x, line.color(), line.opacity() * coverage);
+                }
+            }
+        }
+    }
+
+    /**
+     * A task rasterizing a range of tiles, split in halves until a single tile remains.
+     */
+    private class TileTask extends RecursiveAction {
+
+        private final List<DisplayList.Line> lines;
+        private final Bins bins;
+        private final Raster raster;
+        private final int start;
+        private final int end;
+
+        private TileTask(List<DisplayList.Line> lines, Bins bins, Raster raster, int start, int end) {
+            this.lines = lines;
+            this.bins = bins;
+            this.raster = raster;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if(end - start <= 1) {
+                if(start < end) rasterizeTile(lines, bins, start, raster);
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(
+                        new TileTask(lines, bins, raster, start, middle),
+                        new TileTask(lines, bins, raster, middle, end)
+                );
+            }
+        }
+    }
+
+    /**
+     * Clear the given raster to white then draw the given lines on it.
+     *
+     * @param lines the lines to draw, in drawing order
+     * @param raster the raster to draw on
+     */
+    public void rasterize(List<DisplayList.Line> lines, Raster raster) {
+        raster.fill(Raster.WHITE);
+        draw(lines, raster);
+    }
+
+    /**
+     * Draw the given lines over the current content of the given raster.
+     *
+     * @param lines the lines to draw, in drawing order
+     * @param raster the raster to draw on
+     */
+    public void draw(List<DisplayList.Line> lines, Raster raster) {
+        Bins bins = bin(lines, raster.getWidth(), raster.getHeight());
+        pool.invoke(new TileTask(lines, bins, raster, 0, bins.sizes.length));
+    }
+
+    /**
+     * Draw the given lines on a new white raster.
+     *
+     * @param lines the lines to draw, in drawing order
+     * @param width the number of pixels per row
+     * @param height the number of rows
+     * @return the rasterized image
+     */
+    public Raster rasterize(List<DisplayList.Line> lines, int width, int height) {
+        Raster raster = new Raster(width, height);
+        rasterize(lines, raster);
+        return raster;
+    }
+}
@@ -3,19 +3,24 @@ package fr.cyu.chromatynk.editor;
 import fr.cyu.chromatynk.Chromatynk;
 import fr.cyu.chromatynk.ChromatynkException;
 import fr.cyu.chromatynk.ast.Program;
+import fr.cyu.chromatynk.draw.CanvasSurface;
 import fr.cyu.chromatynk.eval.*;
+import fr.cyu.chromatynk.parsing.MemoTable;
 import fr.cyu.chromatynk.parsing.ParsingException;
 import fr.cyu.chromatynk.parsing.ParsingIterator;
 import fr.cyu.chromatynk.parsing.StatementParser;
 import fr.cyu.chromatynk.parsing.Token;
 import fr.cyu.chromatynk.util.Range;
 import fr.cyu.chromatynk.util.Tuple2;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
@@ -24,6 +29,7 @@ import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -41,6 +47,8 @@ import java.util.*;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -50,6 +58,15 @@ import java.util.regex.Pattern;
  * It includes methods for syntax highlighting, auto-indentation, script execution, and file handling.
  */
 public class CodeEditorController implements Initializable {
+    /**
+     * The period in nanoseconds between two refreshes of the profile of a running script.
+     */
+    private static final long PROFILE_REFRESH_PERIOD = 500_000_000L;
+    /**
+     * The period in nanoseconds between two refreshes of the performance HUD.
+     */
+    private static final long HUD_REFRESH_PERIOD = 500_000_000L;
+
     // The main elements
     @FXML
     private CodeArea codeArea;
@@ -75,6 +92,8 @@ public class CodeEditorController implements Initializable {
     private Label infoLabel;
     @FXML
     private Label statusLabel;
+    @FXML
+    private Label hudLabel;
 
 	// Execution menu
 	@FXML
@@ -89,6 +108,12 @@ public class CodeEditorController implements Initializable {
 	// Speed
 	@FXML
 	private ToggleGroup radioSpeedGroup;
+	// Profiling
+	@FXML
+	private ToggleGroup radioProfilingGroup;
+	// Performance HUD
+	@FXML
+	private CheckMenuItem hudCheckbox;
 
     // Tabs
     @FXML
@@ -97,19 +122,46 @@ public class CodeEditorController implements Initializable {
     private Tab plusTab;
 
     private int tabCounter = 1;
-    private Map<Tab, String> tabContentMap = new HashMap<>(); // Map to store content of each tab
+    private Map<Tab, ExecutionSession> sessions = new HashMap<>(); // Map to store the script and execution of each tab
 
 	// Output area
 	@FXML
 	private TextArea outputArea;
 
+	// Profile
+	@FXML
+	private Label profileLabel;
+	@FXML
+	private TableView<Profiler.LineProfile> profileLinesTable;
+	@FXML
+	private TableColumn<Profiler.LineProfile, Integer> profileLineColumn;
+	@FXML
+	private TableColumn<Profiler.LineProfile, Long> profileLineCountColumn;
+	@FXML
+	private TableColumn<Profiler.LineProfile, Double> profileLineTimeColumn;
+	@FXML
+	private TableColumn<Profiler.LineProfile, Double> profileLineShareColumn;
+	@FXML
+	private TableView<Profiler.KindProfile> profileKindsTable;
+	@FXML
+	private TableColumn<Profiler.KindProfile, String> profileKindColumn;
+	@FXML
+	private TableColumn<Profiler.KindProfile, Long> profileKindCountColumn;
+	@FXML
+	private TableColumn<Profiler.KindProfile, Double> profileKindTimeColumn;
+
     private final Stage primaryStage;
     private FileMenuController fileMenuController;
 	private ImageMenuController imageMenuController;
-    private Clock timeoutClock;
-    private Clock secondaryClock;
-    private StepByStepClock stepByStepClock = new StepByStepClock(false);
-    private ExecutionTimer currentExecution;
+    private CanvasSurface canvasSurface;
+    private AnimationTimer compositor;
+    private ExecutionSession.Status shownStatus;
+    private IntFunction<Node> lineNumbers;
+    private double[] lineHeat = new double[0];
+    private long profileNanos;
+    private long lastProfileRefresh;
+    private final PerformanceHud hud = new PerformanceHud();
+    private long lastHudRefresh;
     private Subscription highlighting;
     private ExecutorService executor;
 
@@ -147,23 +199,53 @@ public class CodeEditorController implements Initializable {
     }
 	
 	/**
-     * Creates and returns a Clock instance that combines timeoutClock and secondaryClock.
+     * Gets the profiling interval selected in the UI.
      *
-     * @return a combined Clock instance
+     * @return the mean number of executions between two timed ones, 0 if profiling is disabled
      */
-    private Clock getClock() {
-        return new AndClock(timeoutClock, secondaryClock);
+    private int getProfilingInterval() {
+        return switch (((RadioMenuItem)radioProfilingGroup.getSelectedToggle()).getId()) {
+            case "profilingSampling" -> Profiler.DEFAULT_SAMPLING_INTERVAL;
+            case "profilingExact" -> 1;
+            default -> 0;
+        };
+    }
+
+	/**
+     * Creates and returns the Clock controlling the execution of a session, based on the step-by-step mode.
+     *
+     * @param session the session to create the clock for
+     * @return the step-by-step clock of the session or a new period clock
+     */
+    private Clock getSessionClock(ExecutionSession session) {
+        return stepByStepCheckbox.isSelected() ? session.getStepByStepClock() : getPeriodClock();
+    }
+
+	/**
+     * Gets the execution session of the visible tab.
+     *
+     * @return the session of the selected tab, created if needed
+     */
+    private ExecutionSession getCurrentSession() {
+        return sessions.computeIfAbsent(tabPane.getSelectionModel().getSelectedItem(), tab -> new ExecutionSession());
     }
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        timeoutClock = TimeoutClock.fps(30); //TODO change
-        secondaryClock = getPeriodClock();
-
         executor = Executors.newSingleThreadExecutor();
 
-        //Line numbers
-        codeArea.setParagraphGraphicFactory(LineNumberFactory.get(codeArea));
+        //Line numbers and profiling heatmap
+        lineNumbers = LineNumberFactory.get(codeArea);
+        codeArea.setParagraphGraphicFactory(this::createGutter);
+
+        //Profile tables
+        bindColumn(profileLineColumn, line -> line.line() + 1);
+        bindColumn(profileLineCountColumn, Profiler.LineProfile::count);
+        bindColumn(profileLineTimeColumn, line -> line.nanos() / 1e6);
+        bindColumn(profileLineShareColumn, line -> profileNanos == 0 ? 0 : 100.0 * line.nanos() / profileNanos);
+        bindColumn(profileKindColumn, Profiler.KindProfile::kind);
+        bindColumn(profileKindCountColumn, Profiler.KindProfile::count);
+        bindColumn(profileKindTimeColumn, kind -> kind.nanos() / 1e6);
 
         //Lexical highlighting
         highlighting = this.codeArea
@@ -192,20 +274,38 @@ public class CodeEditorController implements Initializable {
 		GraphicsContext graphicsContext = canvas.getGraphicsContext2D();
 		graphicsContext.setFill(Color.WHITE);
 		graphicsContext.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		canvasSurface = new CanvasSurface(graphicsContext);
 
         // Only show relevant UI when in step-by-step mode
         stepByStepControls.setVisible(stepByStepCheckbox.isSelected());
         stepByStepCheckbox.selectedProperty().addListener((observable, oldValue, newValue) -> {stepByStepControls.setVisible(newValue);});
 
+        // Only show the performance HUD when enabled, counting the effectful instructions of the visible tab
+        hudLabel.visibleProperty().bind(hudCheckbox.selectedProperty());
+        hudLabel.managedProperty().bind(hudCheckbox.selectedProperty());
+        hudCheckbox.selectedProperty().addListener((observable, oldValue, newValue) -> getCurrentSession().setCountingEffectful(newValue));
+
+        // Stop the execution of the initial tabs when closed
+        for (Tab tab : tabPane.getTabs()) {
+            if (tab != plusTab) tab.setOnClosed(event -> {
+                ExecutionSession session = sessions.remove(tab);
+                if (session != null) session.stop();
+            });
+        }
+
         // Handle tab changes
         tabPane.getSelectionModel().selectedItemProperty().addListener((obs, oldTab, newTab) -> {
-            if (oldTab != null && oldTab != plusTab) {
+            if (oldTab != null && oldTab != plusTab && sessions.containsKey(oldTab)) {
                 // Save content of the previous tab
-                tabContentMap.put(oldTab, codeArea.getText());
+                sessions.get(oldTab).setSource(codeArea.getText());
             }
             if (newTab != null && newTab != plusTab) {
-                // Load content of the new tab
-                codeArea.replaceText(tabContentMap.getOrDefault(newTab, ""));
+                // Load content of the new tab and composite its drawing
+                ExecutionSession session = sessions.computeIfAbsent(newTab, tab -> new ExecutionSession());
+                codeArea.replaceText(session.getSource());
+                session.invalidate();
+                session.setCountingEffectful(hudCheckbox.isSelected());
+                shownStatus = null;
             }
             if (newTab == plusTab) {
                 // Create a new tab
@@ -218,10 +318,10 @@ public class CodeEditorController implements Initializable {
                 tabPane.getTabs().add(plusTabIndex, newTabInstance);
 
                 // Initialize content for the new tab
-                tabContentMap.put(newTabInstance, "");
+                sessions.put(newTabInstance, new ExecutionSession());
 
-                // Add event handler to remove tab content when the tab is closed
-                newTabInstance.setOnClosed(event -> tabContentMap.remove(newTabInstance));
+                // Add event handler to stop the execution and remove tab content when the tab is closed
+                newTabInstance.setOnClosed(event -> sessions.remove(newTabInstance).stop());
 
                 // Select the new tab
                 tabPane.getSelectionModel().select(newTabInstance);
@@ -230,11 +330,74 @@ public class CodeEditorController implements Initializable {
 
         this.fileMenuController = new FileMenuController(primaryStage, codeArea);
 		this.imageMenuController = new ImageMenuController(primaryStage, canvas);
+
+        // Composite the execution of the visible tab on each frame
+        compositor = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onProgress(getCurrentSession());
+            }
+        };
+        compositor.start();
+    }
+
+    private static <S, T> void bindColumn(TableColumn<S, T> column, Function<S, T> getter) {
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(getter.apply(cell.getValue())));
+    }
+
+	/**
+     * Creates the gutter of a line: its profiling heat and its number.
+     *
+     * @param line the index of the line
+     * @return the graphic shown before the line
+     */
+    private Node createGutter(int line) {
+        Region heat = new Region();
+        heat.getStyleClass().add("heat");
+        if(line < lineHeat.length && lineHeat[line] > 0) {
+            heat.setStyle("-fx-background-color: rgba(255, 69, 0, " + lineHeat[line] + ");");
+        }
+
+        return new HBox(heat, lineNumbers.apply(line));
+    }
+
+	/**
+     * Shows the profile of a session in the gutter heatmap and the profile tables.
+     *
+     * @param session the session to show the profile of
+     */
+    private void showProfile(ExecutionSession session) {
+        lastProfileRefresh = System.nanoTime();
+        Optional<Profiler.Report> profile = session.getProfile();
+
+        if(profile.isPresent()) {
+            Profiler.Report report = profile.get();
+            profileNanos = report.nanos();
+            lineHeat = report.getHeat(codeArea.getParagraphs().size());
+            profileLinesTable.getItems().setAll(report.lines());
+            profileKindsTable.getItems().setAll(report.kinds());
+            profileLinesTable.sort();
+            profileKindsTable.sort();
+            profileLabel.setText(String.format("%d instructions, %.3f ms", report.count(), report.nanos() / 1e6));
+        } else if(lineHeat.length > 0 || !profileLinesTable.getItems().isEmpty()) {
+            profileNanos = 0;
+            lineHeat = new double[0];
+            profileLinesTable.getItems().clear();
+            profileKindsTable.getItems().clear();
+            profileLabel.setText("Activez le profilage dans le menu Exécution puis exécutez le script.");
+        } else {
+            return;
+        }
+
+        //Recreate the gutters with the new heat
+        codeArea.setParagraphGraphicFactory(this::createGutter);
     }
 
     public void shutdown() {
         highlighting.unsubscribe();
         executor.shutdown();
+        compositor.stop();
+        for(ExecutionSession session : sessions.values()) session.stop();
     }
 
 	/**
@@ -286,7 +449,9 @@ public class CodeEditorController implements Initializable {
         StyleSpansBuilder<Collection<String>> errorSpansBuilder = new StyleSpansBuilder<>();
 
         try {
-            Program program = StatementParser.program().parse(new ParsingIterator<>(tokens)).value();
+            ParsingIterator<Token> iterator = new ParsingIterator<>(tokens);
+            iterator.setMemoTable(new MemoTable());
+            Program program = StatementParser.program().parse(iterator).value();
             Chromatynk.typecheckProgram(program);
         } catch (ChromatynkException e) {
             Tuple2<Integer, Integer> range1d = e.getRange().toCursorRange(text);
@@ -341,6 +506,7 @@ public class CodeEditorController implements Initializable {
 		GraphicsContext graphicsContext = canvas.getGraphicsContext2D();
 		graphicsContext.setFill(Color.WHITE);
 		graphicsContext.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		canvasSurface = new CanvasSurface(graphicsContext);
 
         clearCursorCanvas();
 
@@ -463,19 +629,48 @@ public class CodeEditorController implements Initializable {
     }
 
 	/**
-     * Handles progress updates during script execution.
+     * Composites the execution of the visible tab and reports its progress.
      *
-     * @param context the evaluation context
+     * @param session the execution session of the visible tab
      */
-    private void onProgress(EvalContext context) {
-        stepLabel.setText("Instruction " + context.getNextAddress()+1);
-        clearCursorCanvas();
-        context.render(cursorCanvas.getGraphicsContext2D());
+    private void onProgress(ExecutionSession session) {
+        session.composite(canvasSurface, cursorCanvas.getGraphicsContext2D());
+
+        long now = System.nanoTime();
+        if(hudCheckbox.isSelected() && now - lastHudRefresh > HUD_REFRESH_PERIOD) {
+            lastHudRefresh = now;
+            hudLabel.setText(hud.refresh(session, now));
+        }
 
-        if(context.hasNext()) {
-            Range range = context.getNextRange();
-            for(int i = 0; i < codeArea.getParagraphs().size(); i++) {
-                codeArea.setParagraphStyle(i, Collections.singleton(i == range.from().row() ? "evaluating" : "default"));
+        ExecutionSession.Status status = session.getStatus();
+        if(status == ExecutionSession.Status.RUNNING) {
+            if(System.nanoTime() - lastProfileRefresh > PROFILE_REFRESH_PERIOD) showProfile(session);
+            stepLabel.setText("Instruction " + (session.getStep() + 1));
+            Optional<Range> range = session.getNextRange();
+            if(range.isPresent()) {
+                for(int i = 0; i < codeArea.getParagraphs().size(); i++) {
+                    codeArea.setParagraphStyle(i, Collections.singleton(i == range.get().from().row() ? "evaluating" : "default"));
+                }
+            }
+        }
+
+        if(status != shownStatus) {
+            shownStatus = status;
+            showProfile(session);
+            switch (status) {
+                case RUNNING -> {
+                    infoLabel.setText("INFO - Dessin en cours");
+                    statusLabel.setText("Les instructions de dessin sont en cours d'exécution.");
+                    stopButton.setDisable(false);
+                }
+                case SUCCEEDED -> onSuccess();
+                case FAILED -> onError(session.getSource(), session.getError().orElseThrow());
+                case STOPPED -> {
+                    infoLabel.setText("WARN - Dessin arrêté");
+                    statusLabel.setText("Le dessin a été manuellement interrompu lors de son exécution.");
+                    postExecution();
+                }
+                case IDLE -> postExecution();
             }
         }
     }
@@ -484,7 +679,9 @@ public class CodeEditorController implements Initializable {
      * Runs the script currently in the code area.
      */
     public void runScript() {
-        stopScript();
+        ExecutionSession session = getCurrentSession();
+        session.stop();
+        session.setSource(codeArea.getText());
 
         stopButton.setDisable(false);
 
@@ -495,25 +692,25 @@ public class CodeEditorController implements Initializable {
 		infoLabel.setText("INFO - Dessin en cours");
 		statusLabel.setText("Les instructions de dessin sont en cours d'exécution.");
 
-        getClock().reset();
+        Clock clock = getSessionClock(session);
+        clock.reset();
+        session.setProfilingInterval(getProfilingInterval());
+        session.setCountingEffectful(hudCheckbox.isSelected());
 
         try {
-            EvalContext context = Chromatynk.compileSource(codeArea.getText(), canvas.getGraphicsContext2D());
-            currentExecution = new ExecutionTimer(context, getClock(), this::onSuccess, e -> onError(codeArea.getText(), e), this::onProgress);
-            currentExecution.start();
+            session.start(canvas.getWidth(), canvas.getHeight(), clock);
         } catch (Throwable t) {
+            shownStatus = session.getStatus();
             onError(codeArea.getText(), t);
         }
     }
 
 	/**
-     * Stops the currently running script early.
+     * Stops the script of the visible tab early.
      */
     public void stopScript() {
-        if(currentExecution != null) {
-            currentExecution.stop();
-            currentExecution = null;
-        }
+        getCurrentSession().stop();
+        shownStatus = ExecutionSession.Status.STOPPED;
 
 		// Mark execution as stopped early
 		infoLabel.setText("WARN - Dessin arrêté");
@@ -526,14 +723,29 @@ public class CodeEditorController implements Initializable {
      * Refreshes the secondary clock based on the step-by-step mode.
      */
     public void refreshSecondaryClock() {
-        secondaryClock = stepByStepCheckbox.isSelected() ? stepByStepClock : getPeriodClock();
-        if(currentExecution != null) currentExecution.setClock(secondaryClock);
+        ExecutionSession session = getCurrentSession();
+        session.setClock(getSessionClock(session));
     }
 
 	/**
      * Executes the next instruction in step-by-step mode.
      */
     public void nextInstruction() {
-        stepByStepClock.resume();
+        getCurrentSession().getStepByStepClock().resume();
+    }
+
+	/**
+     * Goes back to the previous instruction in step-by-step mode.
+     */
+    public void previousInstruction() {
+        ExecutionSession session = getCurrentSession();
+
+        try {
+            // Resumes the execution if it had already completed
+            session.stepBack();
+        } catch (Throwable t) {
+            shownStatus = session.getStatus();
+            onError(session.getSource(), t);
+        }
     }
 }
@@ -0,0 +1,388 @@
+package fr.cyu.chromatynk.editor;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.draw.DisplayList;
+import fr.cyu.chromatynk.draw.DrawingSurface;
+import fr.cyu.chromatynk.draw.NullSurface;
+import fr.cyu.chromatynk.eval.*;
+import fr.cyu.chromatynk.jfr.FrameEvent;
+import fr.cyu.chromatynk.util.Range;
+import javafx.scene.canvas.GraphicsContext;
+import jdk.jfr.EventType;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The execution of the script of an editor tab.
+ * <p>
+ * Each session draws on its own off-screen {@link DisplayList} and runs on its own virtual thread, so the scripts of
+ * several tabs can progress at once. The editor only {@link #composite(DrawingSurface, GraphicsContext) composites}
+ * the session of the visible tab on the screen.
+ * <p>
+ * The state of the execution is guarded by the session's monitor. The script is evaluated in short slices so the
+ * editor can composite between them. The session maintains cumulative {@link Counters} of its slices and compositions,
+ * and each composition is recorded as a {@link FrameEvent} along with the slices evaluated since the previous one.
+ * <p>
+ * Only an execution started in step-by-step mode records a {@link Timeline} and can go back. The display list of a
+ * session retains at most {@link #RETAINED_LINES} lines, older lines being flattened into its background.
+ *
+ * @see Timeline
+ */
+public class ExecutionSession {
+
+    /**
+     * The state of a session's execution.
+     */
+    public enum Status {
+        IDLE, RUNNING, SUCCEEDED, FAILED, STOPPED
+    }
+
+    /**
+     * The cumulative performance counters of a session since its creation.
+     *
+     * @param instructions the number of executed instructions
+     * @param effectfulInstructions the number of executed effectful instructions, only counted while
+     *                              {@link #setCountingEffectful(boolean) enabled} or while {@link FrameEvent}s are
+     *                              recorded
+     * @param interpreterTime the time spent evaluating instructions in nanoseconds
+     * @param frames the number of compositions
+     * @param drawTime the time spent compositing in nanoseconds
+     * @param segments the number of segments drawn on the screen
+     */
+    public record Counters(long instructions, long effectfulInstructions, long interpreterTime, long frames, long drawTime, long segments) {}
+
+    /**
+     * The number of evaluation slices per second, each slice holding the session's monitor.
+     */
+    private static final int SLICES_PER_SECOND = 120;
+
+    /**
+     * The time to wait in milliseconds when the clock did not let any instruction run.
+     */
+    private static final long IDLE_WAIT = 1;
+
+    /**
+     * The maximum number of lines retained by the display list of a session.
+     */
+    public static final int RETAINED_LINES = 1 << 16;
+
+    private static final EventType FRAME_EVENT_TYPE = EventType.getEventType(FrameEvent.class);
+
+    private final StepByStepClock stepByStepClock;
+    private String source;
+    private EvalContext context;
+    private DisplayList displayList;
+    private Timeline timeline;
+    private Profiler profiler;
+    private Clock clock;
+    private int profilingInterval;
+    private Thread thread;
+    private volatile Status status;
+    private Throwable error;
+    private int compositedOffset;
+    private boolean invalidated;
+
+    //Cumulative counters
+    private long instructions;
+    private long effectfulInstructions;
+    private long interpreterTime;
+    private long frames;
+    private long drawTime;
+    private long segments;
+    private volatile boolean countingEffectful;
+
+    //Counters at the last frame
+    private Counters lastFrame = new Counters(0, 0, 0, 0, 0, 0);
+
+    /**
+     * A clock counting the effectful instructions it lets run, only used while needed.
+     */
+    private final Clock countingClock = new Clock() {
+        @Override
+        public boolean tick(boolean isEffectful) {
+            boolean running = clock.tick(isEffectful);
+            if(running && isEffectful) effectfulInstructions++;
+            return running;
+        }
+
+        @Override
+        public void reset() {
+            clock.reset();
+        }
+    };
+
+    /**
+     * Create a new idle session with an empty script.
+     */
+    public ExecutionSession() {
+        this.stepByStepClock = new StepByStepClock(false);
+        this.source = "";
+        this.status = Status.IDLE;
+        this.invalidated = true;
+    }
+
+    /**
+     * Get the script of this session.
+     */
+    public synchronized String getSource() {
+        return source;
+    }
+
+    /**
+     * Set the script of this session. The running execution, if any, is not affected.
+     *
+     * @param source the new script
+     */
+    public synchronized void setSource(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Get the clock pausing this session's execution in step-by-step mode.
+     */
+    public StepByStepClock getStepByStepClock() {
+        return stepByStepClock;
+    }
+
+    /**
+     * Get the state of the execution.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the error which stopped the execution.
+     *
+     * @return the error if the status is {@link Status#FAILED}
+     */
+    public synchronized Optional<Throwable> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    /**
+     * Set the clock controlling the execution.
+     *
+     * @param clock the new clock
+     */
+    public synchronized void setClock(Clock clock) {
+        this.clock = new AndClock(TimeoutClock.fps(SLICES_PER_SECOND), clock);
+    }
+
+    /**
+     * Set how the next executions are profiled. The running execution, if any, is not affected.
+     *
+     * @param profilingInterval the mean number of executions between two timed ones, 1 to time every execution and 0
+     *                          to not profile
+     * @see Profiler
+     */
+    public synchronized void setProfilingInterval(int profilingInterval) {
+        this.profilingInterval = profilingInterval;
+    }
+
+    /**
+     * Get the profile of the current execution.
+     *
+     * @return the aggregated profile or nothing if the execution is not profiled
+     */
+    public synchronized Optional<Profiler.Report> getProfile() {
+        if(profiler == null) return Optional.empty();
+        return Optional.of(profiler.report());
+    }
+
+    /**
+     * Set whether effectful instructions are counted. Counting them wraps the clock of each evaluated instruction.
+     *
+     * @param countingEffectful {@code true} to count effectful instructions even if no {@link FrameEvent} is recorded
+     */
+    public void setCountingEffectful(boolean countingEffectful) {
+        this.countingEffectful = countingEffectful;
+    }
+
+    /**
+     * Get the cumulative performance counters of this session.
+     */
+    public synchronized Counters getCounters() {
+        return new Counters(instructions, effectfulInstructions, interpreterTime, frames, drawTime, segments);
+    }
+
+    /**
+     * Compile this session's script and start executing it, stopping the previous execution.
+     *
+     * @param width the width of the drawing surface
+     * @param height the height of the drawing surface
+     * @param clock the clock controlling the execution. The execution can go back only if it is the
+     *              {@link #getStepByStepClock() step-by-step clock}
+     * @throws Throwable if the script cannot be compiled
+     */
+    public synchronized void start(double width, double height, Clock clock) throws Throwable {
+        stop();
+
+        List<Bytecode> instructions = Chromatynk.compileInstructions(source);
+        this.displayList = new DisplayList(new NullSurface(width, height), RETAINED_LINES);
+        this.context = EvalContext.create(instructions, displayList);
+        this.profiler = profilingInterval > 0 ? new Profiler(instructions, profilingInterval) : null;
+        if(clock == stepByStepClock) {
+            this.timeline = new Timeline(context, displayList, Timeline.DEFAULT_INTERVAL);
+            timeline.setProfiler(profiler);
+        } else {
+            this.timeline = null;
+        }
+
+        this.error = null;
+        this.invalidated = true;
+        setClock(clock);
+        resume();
+    }
+
+    private void resume() {
+        status = Status.RUNNING;
+        thread = Thread.ofVirtual().name("chromatynk-session").start(this::run);
+    }
+
+    private void evaluateAll(Clock clock) throws EvalException {
+        if(timeline != null) timeline.evaluateAll(clock);
+        else Interpreter.evaluateAll(context, clock, profiler);
+    }
+
+    private void run() {
+        try {
+            while(status == Status.RUNNING) {
+                boolean progressed;
+                synchronized(this) {
+                    //Replaced by a newer execution
+                    if(thread != Thread.currentThread() || status != Status.RUNNING) return;
+
+                    long step = context.getStep();
+                    long start = System.nanoTime();
+                    try {
+                        evaluateAll(countingEffectful || FRAME_EVENT_TYPE.isEnabled() ? countingClock : clock);
+                    } finally {
+                        instructions += context.getStep() - step;
+                        interpreterTime += System.nanoTime() - start;
+                    }
+
+                    if(!context.hasNext()) {
+                        status = Status.SUCCEEDED;
+                        return;
+                    }
+
+                    progressed = context.getStep() != step;
+                }
+
+                if(!progressed) Thread.sleep(IDLE_WAIT);
+            }
+        } catch (InterruptedException ignored) {
+            //Stopped
+        } catch (Throwable t) {
+            synchronized(this) {
+                if(thread == Thread.currentThread()) {
+                    error = t;
+                    status = Status.FAILED;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the execution early. The drawing is kept.
+     */
+    public synchronized void stop() {
+        if(status == Status.RUNNING) status = Status.STOPPED;
+        if(thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Go back to the previous effectful instruction, resuming the execution if it had already ended.
+     *
+     * @return {@code true} if the execution went back, {@code false} if it was not started in step-by-step mode or
+     * no earlier effectful instruction is kept
+     * @throws EvalException if an evaluation error occurs while replaying
+     */
+    public synchronized boolean stepBack() throws EvalException {
+        if(timeline == null || !timeline.stepBack()) return false;
+
+        invalidated = true;
+        if(status != Status.RUNNING) {
+            error = null;
+            resume();
+        }
+
+        return true;
+    }
+
+    /**
+     * Redraw the whole drawing on the next composition, e.g. after the screen was cleared or this session became
+     * visible.
+     */
+    public synchronized void invalidate() {
+        invalidated = true;
+    }
+
+    /**
+     * Draw the lines recorded since the last composition and the cursors on the screen.
+     *
+     * @param surface the surface to draw the lines on
+     * @param cursorGraphics the graphics context to draw the cursors on
+     */
+    public synchronized void composite(DrawingSurface surface, GraphicsContext cursorGraphics) {
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        List<DisplayList.Line> lines = displayList == null ? List.of() : displayList.getLines();
+        int flattened = displayList == null ? 0 : displayList.getFlattened();
+        int size = flattened + lines.size();
+
+        //Redraw from the background if lines not composited yet were flattened
+        if(invalidated || compositedOffset > size || compositedOffset < flattened) {
+            surface.clear();
+            if(displayList != null) displayList.getBackground().ifPresent(surface::drawRaster);
+            compositedOffset = flattened;
+            invalidated = false;
+        }
+
+        int drawnSegments = size - compositedOffset;
+        for(int i = compositedOffset - flattened; i < lines.size(); i++) lines.get(i).drawOn(surface);
+        compositedOffset = size;
+
+        cursorGraphics.clearRect(0, 0, cursorGraphics.getCanvas().getWidth(), cursorGraphics.getCanvas().getHeight());
+        if(context != null) context.render(cursorGraphics);
+
+        long frameDrawTime = System.nanoTime() - start;
+        frames++;
+        drawTime += frameDrawTime;
+        segments += drawnSegments;
+
+        event.segments = drawnSegments;
+        event.drawTime = frameDrawTime;
+        event.instructions = instructions - lastFrame.instructions();
+        event.effectfulInstructions = effectfulInstructions - lastFrame.effectfulInstructions();
+        event.interpreterTime = interpreterTime - lastFrame.interpreterTime();
+        event.commit();
+
+        lastFrame = getCounters();
+    }
+
+    /**
+     * Get the number of executed instructions.
+     */
+    public synchronized long getStep() {
+        return context == null ? 0 : context.getStep();
+    }
+
+    /**
+     * Get the range of the next instruction to execute.
+     *
+     * @return the range of the next instruction or nothing if no execution is in progress
+     */
+    public synchronized Optional<Range> getNextRange() {
+        if(context == null || !context.hasNext()) return Optional.empty();
+        return Optional.of(context.getNextRange());
+    }
+}
@@ -1,5 +1,6 @@
 package fr.cyu.chromatynk.editor;
 
+import fr.cyu.chromatynk.jfr.CanvasExportEvent;
 import javafx.scene.image.PixelReader;
 import javafx.scene.image.WritableImage;
 import javafx.stage.FileChooser;
@@ -67,8 +68,19 @@ public class ImageMenuController {
 					filePath += ".png"; // Append .png extension if not provided
 				}
 
+				CanvasExportEvent event = new CanvasExportEvent();
+				event.begin();
+
+				File file = new File(filePath);
 				RenderedImage renderedImage = SwingFXUtils.fromFXImage(writableImage, null);
-				ImageIO.write(renderedImage, "png", new File(filePath));
+				ImageIO.write(renderedImage, "png", file);
+
+				event.format = "png";
+				event.width = renderedImage.getWidth();
+				event.height = renderedImage.getHeight();
+				event.size = file.length();
+				event.destination = filePath;
+				event.commit();
 			} catch (IOException ex) {
 				ex.printStackTrace();
 			}
@@ -0,0 +1,63 @@
+package fr.cyu.chromatynk.editor;
+
+/**
+ * The live performance HUD of the editor.
+ * <p>
+ * The HUD compares the {@link ExecutionSession.Counters counters} of the shown session between two refreshes to get
+ * the rates of the execution and of the composition, and reads the heap in use from the {@link Runtime}.
+ */
+class PerformanceHud {
+
+    private ExecutionSession session;
+    private ExecutionSession.Counters previous;
+    private long previousTime;
+
+    /**
+     * Format a quantity with a metric prefix, e.g. {@code 1.5 M} for 1,500,000.
+     */
+    private static String compact(double value) {
+        if(value >= 1e9) return String.format("%.1f G", value / 1e9);
+        if(value >= 1e6) return String.format("%.1f M", value / 1e6);
+        if(value >= 1e3) return String.format("%.1f k", value / 1e3);
+        return String.format("%.0f ", value);
+    }
+
+    /**
+     * Measure the performance of a session since the previous refresh.
+     *
+     * @param session the shown session
+     * @param now the current time in nanoseconds
+     * @return the text of the HUD
+     */
+    String refresh(ExecutionSession session, long now) {
+        ExecutionSession.Counters counters = session.getCounters();
+        if(session != this.session) {
+            this.session = session;
+            this.previous = counters;
+            this.previousTime = now;
+            return "Mesure en cours...";
+        }
+
+        double seconds = Math.max(now - previousTime, 1) / 1e9;
+        long frames = counters.frames() - previous.frames();
+        double perFrame = frames == 0 ? 0 : 1.0 / frames;
+
+        Runtime runtime = Runtime.getRuntime();
+        long heap = runtime.totalMemory() - runtime.freeMemory();
+
+        String text = String.format(
+                "%sinstr/s | %.0f effectives/image | %.0f segments/image | %.0f img/s | interpréteur %.2f ms, dessin %.2f ms par image | tas %d Mo",
+                compact((counters.instructions() - previous.instructions()) / seconds),
+                (counters.effectfulInstructions() - previous.effectfulInstructions()) * perFrame,
+                (counters.segments() - previous.segments()) * perFrame,
+                frames / seconds,
+                (counters.interpreterTime() - previous.interpreterTime()) * perFrame / 1e6,
+                (counters.drawTime() - previous.drawTime()) * perFrame / 1e6,
+                heap >> 20
+        );
+
+        this.previous = counters;
+        this.previousTime = now;
+        return text;
+    }
+}
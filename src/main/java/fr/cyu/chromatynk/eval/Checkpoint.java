@@ -0,0 +1,91 @@
+package fr.cyu.chromatynk.eval;
+
+import fr.cyu.chromatynk.draw.Cursor;
+import fr.cyu.chromatynk.draw.CursorTable;
+import fr.cyu.chromatynk.draw.TangibleCursor;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of an {@link EvalContext} that can be restored later.
+ * <p>
+ * Variables and tangible cursors are kept by identity along with a copy of their state, so that the objects shared
+ * between scopes, loops and cursor decorators are still shared once restored.
+ */
+public final class Checkpoint {
+
+    /**
+     * The content of a scope.
+     *
+     * @param variables the variables declared in the scope
+     */
+    record ScopeState(Map<String, Variable> variables) {}
+
+    private final long step;
+    private final int displayOffset;
+    final int nextAddress;
+    final List<Value> values;
+    final List<ScopeState> scopes;
+    final CursorRegistry.Snapshot cursors;
+    final List<LoopCounter> loops;
+    final IdentityHashMap<Variable, Value> variableValues;
+    final IdentityHashMap<TangibleCursor, Cursor> cursorStates;
+    final CursorTable.State cursorTable;
+    Profiler.Snapshot profile;
+
+    Checkpoint(
+            long step,
+            int displayOffset,
+            int nextAddress,
+            List<Value> values,
+            List<ScopeState> scopes,
+            CursorRegistry.Snapshot cursors,
+            List<LoopCounter> loops,
+            IdentityHashMap<Variable, Value> variableValues,
+            IdentityHashMap<TangibleCursor, Cursor> cursorStates,
+            CursorTable.State cursorTable
+    ) {
+        this.step = step;
+        this.displayOffset = displayOffset;
+        this.nextAddress = nextAddress;
+        this.values = values;
+        this.scopes = scopes;
+        this.cursors = cursors;
+        this.loops = loops;
+        this.variableValues = variableValues;
+        this.cursorStates = cursorStates;
+        this.cursorTable = cursorTable;
+    }
+
+    /**
+     * Get the number of instructions executed when this checkpoint was taken.
+     */
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * Get the size of the display list when this checkpoint was taken.
+     */
+    public int getDisplayOffset() {
+        return displayOffset;
+    }
+
+    /**
+     * Get the recorded executions of the profiler of the timeline when this checkpoint was taken.
+     *
+     * @return the profiler counters or {@code null} if the execution was not profiled yet
+     */
+    public Profiler.Snapshot getProfile() {
+        return profile;
+    }
+
+    /**
+     * Get the address of the next instruction when this checkpoint was taken.
+     */
+    public int getNextAddress() {
+        return nextAddress;
+    }
+}
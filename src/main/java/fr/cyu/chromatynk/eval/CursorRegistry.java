@@ -0,0 +1,439 @@
+package fr.cyu.chromatynk.eval;
+
+import fr.cyu.chromatynk.draw.Cursor;
+import fr.cyu.chromatynk.draw.CursorId;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The cursors declared in the scopes of an {@link EvalContext} and their selection history.
+ * <p>
+ * Cursors are stored in dense slots reused after deletion. Each slot has a generation counter incremented when it is
+ * freed, so a {@link #getHandle(CursorId) handle} to a deleted cursor is detected as stale instead of resolving to the
+ * slot's next occupant. An index maps each id to the slot of its innermost declaration, which links to the declaration
+ * it shadows.
+ * <p>
+ * The selection history is a doubly linked list threaded through the index entries: selecting, deleting and dropping a
+ * cursor at the end of its scope are all constant time.
+ */
+public class CursorRegistry {
+
+    /**
+     * A declared cursor, as saved in a {@link Snapshot}.
+     *
+     * @param id the id of the cursor
+     * @param cursor the cursor
+     * @param depth the depth of the scope declaring the cursor, 0 being the global scope
+     */
+    public record Binding(CursorId id, Cursor cursor, int depth) {}
+
+    /**
+     * The state of a registry that can be restored later.
+     *
+     * @param bindings the live declarations, in declaration order
+     * @param selectionHistory the selected ids, most recent first
+     * @param depth the depth of the current scope
+     */
+    public record Snapshot(List<Binding> bindings, List<CursorId> selectionHistory, int depth) {}
+
+    /**
+     * The index entry of an id, also being a node of the selection history.
+     */
+    private static final class Entry {
+
+        private final CursorId id;
+        private int slot;
+        private boolean selected;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(CursorId id) {
+            this.id = id;
+            this.slot = -1;
+        }
+    }
+
+    private static final int NO_SLOT = -1;
+
+    private final Map<CursorId, Entry> index;
+    private final Consumer<Cursor> onRemove;
+
+    //Slots
+    private Cursor[] cursors;
+    private CursorId[] ids;
+    private int[] generations;
+    private int[] depths;
+    private int[] shadowed;
+    private int slotCount;
+    private int[] freeSlots;
+    private int freeCount;
+    private int size;
+
+    //Handles of the declarations, grouped by scope
+    private long[] declarations;
+    private int declarationCount;
+    private int[] scopeStarts;
+    private int depth;
+
+    //Selection history
+    private Entry head;
+    private Entry tail;
+
+    /**
+     * Create a new empty registry with only the global scope.
+     *
+     * @param onRemove the action applied to each cursor deleted or dropped at the end of its scope. It is not applied
+     *                 to the cursors discarded by {@link #restore(Snapshot)}
+     */
+    public CursorRegistry(Consumer<Cursor> onRemove) {
+        this.index = new HashMap<>();
+        this.onRemove = onRemove;
+        this.cursors = new Cursor[8];
+        this.ids = new CursorId[8];
+        this.generations = new int[8];
+        this.depths = new int[8];
+        this.shadowed = new int[8];
+        this.freeSlots = new int[8];
+        this.declarations = new long[8];
+        this.scopeStarts = new int[8];
+    }
+
+    /**
+     * Create a new empty registry with only the global scope.
+     */
+    public CursorRegistry() {
+        this(cursor -> {});
+    }
+
+    private static long toHandle(int generation, int slot) {
+        return (long) generation << 32 | slot;
+    }
+
+    private static int getSlot(long handle) {
+        return (int) handle;
+    }
+
+    private static int getGeneration(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    private boolean isLive(long handle) {
+        int slot = getSlot(handle);
+        return slot >= 0 && slot < slotCount && generations[slot] == getGeneration(handle) && cursors[slot] != null;
+    }
+
+    private int allocateSlot() {
+        if(freeCount > 0) return freeSlots[--freeCount];
+
+        if(slotCount == cursors.length) {
+            int capacity = slotCount * 2;
+            cursors = Arrays.copyOf(cursors, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+            shadowed = Arrays.copyOf(shadowed, capacity);
+        }
+
+        return slotCount++;
+    }
+
+    private void freeSlot(int slot) {
+        cursors[slot] = null;
+        ids[slot] = null;
+        generations[slot]++;
+
+        if(freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    private void unlink(Entry entry) {
+        if(!entry.selected) return;
+
+        if(entry.previous == null) head = entry.next;
+        else entry.previous.next = entry.next;
+        if(entry.next == null) tail = entry.previous;
+        else entry.next.previous = entry.previous;
+
+        entry.previous = null;
+        entry.next = null;
+        entry.selected = false;
+    }
+
+    private void linkFirst(Entry entry) {
+        entry.next = head;
+        if(head == null) tail = entry;
+        else head.previous = entry;
+
+        head = entry;
+        entry.selected = true;
+    }
+
+    private void linkLast(Entry entry) {
+        entry.previous = tail;
+        if(tail == null) head = entry;
+        else tail.next = entry;
+
+        tail = entry;
+        entry.selected = true;
+    }
+
+    /**
+     * Remove the innermost declaration of an entry's id.
+     *
+     * @return {@code true} if the id has no declaration left
+     */
+    private boolean removeBinding(Entry entry) {
+        int slot = entry.slot;
+        entry.slot = shadowed[slot];
+        onRemove.accept(cursors[slot]);
+        freeSlot(slot);
+
+        if(entry.slot != NO_SLOT) return false;
+
+        unlink(entry);
+        index.remove(entry.id);
+        return true;
+    }
+
+    /**
+     * Get the depth of the current scope, 0 being the global scope.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the number of live cursors, shadowed ones included.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Enter a new scope.
+     */
+    public void enterScope() {
+        if(depth == scopeStarts.length) scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+        scopeStarts[depth++] = declarationCount;
+    }
+
+    /**
+     * Exit the current scope, deleting the cursors it declares. Ids without any declaration left are removed from the
+     * selection history.
+     */
+    public void exitScope() {
+        int start = scopeStarts[--depth];
+
+        for(int i = declarationCount - 1; i >= start; i--) {
+            long handle = declarations[i];
+            //Skip the cursors deleted explicitly
+            if(isLive(handle)) removeBinding(index.get(ids[getSlot(handle)]));
+        }
+
+        declarationCount = start;
+    }
+
+    /**
+     * Get the cursor currently bound to an id.
+     *
+     * @param id the id of the cursor
+     * @return the cursor of the innermost declaration of {@code id}, {@code null} if there is none
+     */
+    public Cursor get(CursorId id) {
+        Entry entry = index.get(id);
+        return entry == null || entry.slot == NO_SLOT ? null : cursors[entry.slot];
+    }
+
+    /**
+     * Check if a cursor is bound to the given id.
+     *
+     * @param id the id to check for
+     */
+    public boolean contains(CursorId id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Check if the current scope declares a cursor with the given id.
+     *
+     * @param id the id to check for
+     */
+    public boolean containsInCurrentScope(CursorId id) {
+        Entry entry = index.get(id);
+        return entry != null && entry.slot != NO_SLOT && depths[entry.slot] == depth;
+    }
+
+    /**
+     * Get a handle to the cursor currently bound to an id, which stays valid until this cursor is deleted.
+     *
+     * @param id the id of the cursor
+     * @return the handle of the cursor or {@code -1} if no cursor is bound to {@code id}
+     */
+    public long getHandle(CursorId id) {
+        Entry entry = index.get(id);
+        return entry == null || entry.slot == NO_SLOT ? -1 : toHandle(generations[entry.slot], entry.slot);
+    }
+
+    /**
+     * Get the cursor referenced by a handle.
+     *
+     * @param handle the handle of the cursor
+     * @return the cursor or {@code null} if it was deleted
+     */
+    public Cursor get(long handle) {
+        return isLive(handle) ? cursors[getSlot(handle)] : null;
+    }
+
+    /**
+     * Declare a cursor in the current scope, shadowing the declarations of the same id in the outer scopes.
+     *
+     * @param id the id of the cursor
+     * @param cursor the cursor
+     * @return the handle of the declared cursor
+     * @throws IllegalStateException if the current scope already declares a cursor with the given id
+     */
+    public long declare(CursorId id, Cursor cursor) {
+        if(containsInCurrentScope(id)) throw new IllegalStateException("Cursor already declared in this scope: " + id);
+
+        Entry entry = index.computeIfAbsent(id, Entry::new);
+        int slot = allocateSlot();
+        cursors[slot] = cursor;
+        ids[slot] = id;
+        depths[slot] = depth;
+        shadowed[slot] = entry.slot;
+        entry.slot = slot;
+        size++;
+
+        long handle = toHandle(generations[slot], slot);
+        if(declarationCount == declarations.length) declarations = Arrays.copyOf(declarations, declarationCount * 2);
+        declarations[declarationCount++] = handle;
+        return handle;
+    }
+
+    /**
+     * Delete the innermost declaration of an id and remove it from the selection history.
+     *
+     * @param id the id of the cursor
+     * @return {@code true} if a cursor was deleted
+     */
+    public boolean delete(CursorId id) {
+        Entry entry = index.get(id);
+        if(entry == null || entry.slot == NO_SLOT) return false;
+
+        unlink(entry);
+        removeBinding(entry);
+        return true;
+    }
+
+    /**
+     * Select a cursor, moving it to the front of the selection history.
+     *
+     * @param id the id of the selected cursor
+     * @return {@code true} if a cursor is bound to the id
+     */
+    public boolean select(CursorId id) {
+        Entry entry = index.get(id);
+        if(entry == null || entry.slot == NO_SLOT) return false;
+
+        unlink(entry);
+        linkFirst(entry);
+        return true;
+    }
+
+    /**
+     * Get the id of the selected cursor.
+     *
+     * @return the most recently selected id still bound to a cursor, {@code null} if there is none
+     */
+    public CursorId getSelectedId() {
+        return head == null ? null : head.id;
+    }
+
+    /**
+     * Get the selected cursor.
+     *
+     * @return the cursor bound to {@link #getSelectedId()}, {@code null} if there is none
+     */
+    public Cursor getSelected() {
+        return head == null ? null : cursors[head.slot];
+    }
+
+    /**
+     * Get the selected ids, most recent first.
+     */
+    public List<CursorId> getSelectionHistory() {
+        List<CursorId> history = new ArrayList<>();
+        for(Entry entry = head; entry != null; entry = entry.next) history.add(entry.id);
+        return history;
+    }
+
+    /**
+     * Apply an action to each live cursor, shadowed ones included, in declaration order.
+     *
+     * @param action the action to apply
+     */
+    public void forEach(BiConsumer<CursorId, Cursor> action) {
+        for(int i = 0; i < declarationCount; i++) {
+            long handle = declarations[i];
+            if(isLive(handle)) action.accept(ids[getSlot(handle)], cursors[getSlot(handle)]);
+        }
+    }
+
+    /**
+     * Take a snapshot of this registry. The cursors themselves are shared, not copied.
+     */
+    public Snapshot snapshot() {
+        List<Binding> bindings = new ArrayList<>(size);
+        for(int i = 0; i < declarationCount; i++) {
+            long handle = declarations[i];
+            int slot = getSlot(handle);
+            if(isLive(handle)) bindings.add(new Binding(ids[slot], cursors[slot], depths[slot]));
+        }
+
+        return new Snapshot(bindings, getSelectionHistory(), depth);
+    }
+
+    /**
+     * Replace the content of this registry with a snapshot.
+     *
+     * @param snapshot the snapshot to restore
+     */
+    public void restore(Snapshot snapshot) {
+        index.clear();
+        Arrays.fill(cursors, 0, slotCount, null);
+        Arrays.fill(ids, 0, slotCount, null);
+        //Generations are kept so the handles given before the restoration are stale
+        for(int i = 0; i < slotCount; i++) generations[i]++;
+        freeCount = 0;
+        for(int i = slotCount - 1; i >= 0; i--) {
+            if(freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            freeSlots[freeCount++] = i;
+        }
+
+        size = 0;
+        declarationCount = 0;
+        depth = 0;
+        head = null;
+        tail = null;
+
+        //Declarations are sorted by depth since inner scopes are exited before declaring in outer ones
+        for(Binding binding : snapshot.bindings()) {
+            while(depth < binding.depth()) enterScope();
+            declare(binding.id(), binding.cursor());
+        }
+
+        while(depth < snapshot.depth()) enterScope();
+
+        for(CursorId id : snapshot.selectionHistory()) linkLast(index.get(id));
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "CursorRegistry{", "}");
+        forEach((id, cursor) -> joiner.add(id.getStringId() + "=" + cursor));
+        return joiner + ", selectionHistory=" + getSelectionHistory();
+    }
+}
@@ -2,8 +2,14 @@ package fr.cyu.chromatynk.eval;
 
 import fr.cyu.chromatynk.ast.Type;
 import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.VerificationException;
+import fr.cyu.chromatynk.bytecode.Verifier;
+import fr.cyu.chromatynk.draw.CanvasSurface;
 import fr.cyu.chromatynk.draw.Cursor;
 import fr.cyu.chromatynk.draw.CursorId;
+import fr.cyu.chromatynk.draw.CursorTable;
+import fr.cyu.chromatynk.draw.DrawingSurface;
+import fr.cyu.chromatynk.draw.DuplicatedCursor;
 import fr.cyu.chromatynk.draw.TangibleCursor;
 import fr.cyu.chromatynk.util.Range;
 import javafx.scene.canvas.GraphicsContext;
@@ -18,28 +24,44 @@ public class EvalContext {
 
     private final List<Bytecode> instructions;
     private int nextAddress;
-    private final Stack<Value> values;
+    private long step;
+    private Value[] values;
+    private int valueCount;
+    private final boolean verified;
     private final Deque<Scope> scopes;
-    private final Deque<CursorId> selectionHistory;
-    private final GraphicsContext graphics;
+    private final CursorRegistry cursors;
+    private final CursorTable cursorTable;
+    private final DrawingSurface surface;
+    private final Deque<Scope> scopePool;
+    private LoopCounter[] loops;
+    private int loopCount;
 
     /**
      * Create a new evaluation context.
      *
      * @param instructions the instruction set to execute
      * @param nextAddress the address of the next instruction to execute
-     * @param values the stack of the manipulated values
      * @param scopes the execution/scopes stack
-     * @param selectionHistory the cursor selection history
-     * @param graphics the graphics context to draw on
+     * @param cursors the declared cursors and their selection history, with as many scopes as {@code scopes}
+     * @param cursorTable the table storing the created cursors, {@code null} to create {@link TangibleCursor}s
+     * @param surface the surface to draw on
+     * @param stackCapacity the initial capacity of the stack of the manipulated values
+     * @param verified whether the instructions passed the {@link Verifier}. The stack of a verified context never grows
+     *                 and neither stack underflows nor jump targets are checked
      */
-    public EvalContext(List<Bytecode> instructions, int nextAddress, Stack<Value> values, Deque<Scope> scopes, Deque<CursorId> selectionHistory, GraphicsContext graphics) {
+    public EvalContext(List<Bytecode> instructions, int nextAddress, Deque<Scope> scopes, CursorRegistry cursors, CursorTable cursorTable, DrawingSurface surface, int stackCapacity, boolean verified) {
         this.instructions = instructions;
         this.nextAddress = nextAddress;
-        this.values = values;
+        this.values = new Value[stackCapacity];
+        this.valueCount = 0;
+        this.verified = verified;
         this.scopes = scopes;
-        this.selectionHistory = selectionHistory;
-        this.graphics = graphics;
+        this.cursors = cursors;
+        this.cursorTable = cursorTable;
+        this.surface = surface;
+        this.scopePool = new ArrayDeque<>();
+        this.loops = new LoopCounter[4];
+        this.loopCount = 0;
     }
 
     /**
@@ -49,13 +71,27 @@ public class EvalContext {
         return nextAddress;
     }
 
+    /**
+     * Check if the instructions of this context were verified, disabling the runtime checks proven unnecessary.
+     */
+    public boolean isVerified() {
+        return verified;
+    }
+
+    /**
+     * Get the number of instructions executed so far.
+     */
+    public long getStep() {
+        return step;
+    }
+
     /**
      * Set the address of the next instruction.
      *
      * @param nextAddress the address of the next instruction to read
      */
     public void setNextAddress(int nextAddress) throws EvalException {
-        if(nextAddress < 0 || nextAddress >= instructions.size()) throw new InvalidAddressException(getCurrentRange(), nextAddress);
+        if(!verified && (nextAddress < 0 || nextAddress >= instructions.size())) throw new InvalidAddressException(getCurrentRange(), nextAddress);
         this.nextAddress = nextAddress;
     }
 
@@ -73,6 +109,7 @@ public class EvalContext {
     public Bytecode next() {
         Bytecode bytecode = peek();
         nextAddress++;
+        step++;
         return bytecode;
     }
 
@@ -90,17 +127,17 @@ public class EvalContext {
      * @return the ID of the cursor currently selected
      */
     public CursorId getCurrentCursorId() {
-        return selectionHistory.peekFirst();
+        return cursors.getSelectedId();
     }
 
     /**
      * Set the current cursor's id.
      *
      * @param currentCursorId the ID of the cursor to use
+     * @throws MissingCursorException if no cursor with the given id exists
      */
-    public void selectCursorId(CursorId currentCursorId) {
-        this.selectionHistory.removeFirstOccurrence(currentCursorId);
-        this.selectionHistory.push(currentCursorId);
+    public void selectCursorId(CursorId currentCursorId) throws MissingCursorException {
+        if(!cursors.select(currentCursorId)) throw new MissingCursorException(getCurrentRange(), currentCursorId);
     }
 
     /**
@@ -109,33 +146,59 @@ public class EvalContext {
      * @return the cursor in scope associated with the currently selected ID.
      */
     public Cursor getCurrentCursor() {
-        return getCursor(getCurrentCursorId()).get();
+        return cursors.getSelected();
+    }
+
+    /**
+     * Create a tangible cursor with default values. It is not declared.
+     *
+     * @param x the X coordinate of the cursor
+     * @param y the Y coordinate of the cursor
+     * @return a row of the cursor table of this context if it has one, a new {@link TangibleCursor} otherwise
+     */
+    public Cursor createCursor(double x, double y) {
+        return cursorTable == null ? new TangibleCursor(x, y) : cursorTable.allocate(x, y);
+    }
+
+    /**
+     * Get the table storing the cursors of this context.
+     *
+     * @return the cursor table or {@code null} if cursors are stored as {@link TangibleCursor}s
+     */
+    public CursorTable getCursorTable() {
+        return cursorTable;
     }
 
-    private void removeDeletedCursorsFromHistory() throws EvalException {
-        this.selectionHistory.removeIf(c -> !containsCursor(c));
-        if(selectionHistory.isEmpty()) throw new EvalException(getCurrentRange(), "No selected cursor left");
+    /**
+     * Get the declared cursors and their selection history.
+     */
+    public CursorRegistry getCursors() {
+        return cursors;
+    }
+
+    private void checkSelection() throws EvalException {
+        if(cursors.getSelectedId() == null) throw new EvalException(getCurrentRange(), "No selected cursor left");
     }
 
     /**
-     * Get the graphics context to draw on.
+     * Get the surface to draw on.
      */
-    public GraphicsContext getGraphics() {
-        return graphics;
+    public DrawingSurface getSurface() {
+        return surface;
     }
 
     /**
      * Get canvas' width.
      */
     public double getWidth() {
-        return graphics.getCanvas().getWidth();
+        return surface.getWidth();
     }
 
     /**
      * Get canvas' height.
      */
     public double getHeight() {
-        return graphics.getCanvas().getHeight();
+        return surface.getHeight();
     }
 
     /**
@@ -151,7 +214,8 @@ public class EvalContext {
      * @param value the value to put on the top of the stack
      */
     public void pushValue(Value value) {
-        values.push(value);
+        if(!verified && valueCount == values.length) values = Arrays.copyOf(values, Math.max(8, valueCount * 2));
+        values[valueCount++] = value;
     }
 
     /**
@@ -160,7 +224,18 @@ public class EvalContext {
      * @return the popped value
      */
     public Value popValue() {
-        return values.pop();
+        if(!verified && valueCount == 0) throw new EmptyStackException();
+        return values[--valueCount];
+    }
+
+    /**
+     * Get the value on the top of the stack without popping it.
+     *
+     * @return the value on the top of the stack
+     */
+    public Value peekValue() {
+        if(!verified && valueCount == 0) throw new EmptyStackException();
+        return values[valueCount - 1];
     }
 
     /**
@@ -185,15 +260,47 @@ public class EvalContext {
      * Create a new scope and enter it.
      */
     public void createScope() {
-        scopes.push(new Scope(new HashMap<>(), new HashMap<>()));
+        Scope scope = scopePool.poll();
+        scopes.push(scope == null ? new Scope(new HashMap<>()) : scope);
+        cursors.enterScope();
     }
 
     /**
-     * Exit the current scope.
+     * Exit the current scope. The exited scope is cleared and kept for reuse by {@link #createScope()}.
      */
     public void exitScope() throws EvalException {
-        scopes.pop();
-        removeDeletedCursorsFromHistory();
+        Scope scope = scopes.pop();
+        scope.clear();
+        scopePool.push(scope);
+
+        cursors.exitScope();
+        checkSelection();
+    }
+
+    /**
+     * Enter a counted loop.
+     *
+     * @param counter the state of the entered loop
+     */
+    public void pushLoop(LoopCounter counter) {
+        if(loopCount == loops.length) loops = Arrays.copyOf(loops, loopCount * 2);
+        loops[loopCount++] = counter;
+    }
+
+    /**
+     * Get the innermost running counted loop.
+     *
+     * @return the state of the innermost loop
+     */
+    public LoopCounter peekLoop() {
+        return loops[loopCount-1];
+    }
+
+    /**
+     * Exit the innermost counted loop.
+     */
+    public void popLoop() {
+        loops[--loopCount] = null;
     }
 
     /**
@@ -301,11 +408,7 @@ public class EvalContext {
      * @return the cursor corresponding to the given name if present
      */
     public Optional<Cursor> getCursor(CursorId id) {
-        for(Scope scope : scopes) {
-            if(scope.containsCursor(id)) return scope.getCursor(id);
-        }
-
-        return Optional.empty();
+        return Optional.ofNullable(cursors.get(id));
     }
 
     /**
@@ -315,7 +418,7 @@ public class EvalContext {
      * @return {@code true} if a cursor with the given id is found
      */
     public boolean containsCursor(CursorId id) {
-        return getCursor(id).isPresent();
+        return cursors.contains(id);
     }
 
     /**
@@ -326,8 +429,8 @@ public class EvalContext {
      * @throws CursorAlreadyExistsException if a cursor with the given id already exists
      */
     public void declareCursor(CursorId id, Cursor cursor) throws CursorAlreadyExistsException {
-        if(getCurrentScope().containsCursor(id)) throw new CursorAlreadyExistsException(getCurrentRange(), id);
-        else getCurrentScope().declareCursor(id, cursor);
+        if(cursors.containsInCurrentScope(id)) throw new CursorAlreadyExistsException(getCurrentRange(), id);
+        else cursors.declare(id, cursor);
     }
 
     /**
@@ -336,27 +439,37 @@ public class EvalContext {
      * @param id the id of the cursor
      */
     public void deleteCursor(CursorId id) throws EvalException {
-        for (Scope scope : scopes) {
-            if(scope.containsCursor(id)) {
-                scope.deleteCursor(id);
-                selectionHistory.removeFirstOccurrence(id);
-                if(selectionHistory.isEmpty()) throw new EvalException(getCurrentRange(), "No selected cursor left");
-                return;
-            }
-        }
+        if(!cursors.delete(id)) throw new MissingCursorException(getCurrentRange(), id);
+        checkSelection();
+    }
+
+    /**
+     * Get the number of live variables across all scopes.
+     */
+    public int getVariableCount() {
+        int count = 0;
+        for(Scope scope : scopes) count += scope.getVariables().size();
+        return count;
+    }
 
-        throw new MissingCursorException(getCurrentRange(), id);
+    /**
+     * Get the number of live cursors across all scopes.
+     */
+    public int getCursorCount() {
+        return cursors.size();
     }
 
     public void render(GraphicsContext cursorGraphics) {
-        for(Scope scope : scopes) {
-            for(Map.Entry<CursorId, Cursor> entry : scope.getCursors()) {
-                CursorId id = entry.getKey();
-                Cursor cursor = entry.getValue();
+        CursorId current = getCurrentCursorId();
+        boolean[] selectedRows = cursorTable == null ? null : new boolean[cursorTable.getRowCount()];
 
-                if(cursor.isVisible()) cursor.drawAt(cursorGraphics, getCurrentCursorId().equals(id), cursor.getX(), cursor.getY(), cursor.getDirX(), cursor.getDirY());
-            }
-        }
+        cursors.forEach((id, cursor) -> {
+            if(cursor instanceof CursorTable.Row row && row.getTable() == cursorTable) selectedRows[row.getIndex()] = current.equals(id);
+            else if(cursor.isVisible()) cursor.drawAt(cursorGraphics, current.equals(id), cursor.getX(), cursor.getY(), cursor.getDirX(), cursor.getDirY());
+        });
+
+        //Rows are drawn in a single scan of the table
+        if(cursorTable != null) cursorTable.render(cursorGraphics, 0, cursorTable.getRowCount(), selectedRows);
     }
 
     @Override
@@ -364,23 +477,123 @@ public class EvalContext {
         return "EvalContext{" +
                 "\ninstructions=" + instructions +
                 ",\nnextAddress=" + nextAddress +
-                ",\nvalues=" + values +
+                ",\nvalues=" + Arrays.toString(Arrays.copyOf(values, valueCount)) +
                 ",\nscopes=" + scopes +
-                ",\nselectionHistory=" + selectionHistory +
+                ",\ncursors=" + cursors +
+                ",\nloops=" + Arrays.toString(Arrays.copyOf(loops, loopCount)) +
                 "\n}";
     }
 
-    public static EvalContext create(List<Bytecode> instructions, GraphicsContext graphics) {
+    private static void collectTangibleCursors(Cursor cursor, IdentityHashMap<TangibleCursor, Cursor> states) {
+        switch (cursor) {
+            case TangibleCursor tangible -> states.computeIfAbsent(tangible, Cursor::copyTangible);
+            //Saved with the whole table
+            case CursorTable.Row ignored -> {}
+            case DuplicatedCursor duplicated -> collectTangibleCursors(duplicated.getDuplicated(), states);
+            default -> throw new IllegalStateException("Unknown cursor kind: " + cursor.getClass());
+        }
+    }
+
+    /**
+     * Take a snapshot of the current state of this context.
+     *
+     * @param displayOffset the size of the display list to restore along with the snapshot
+     * @return a checkpoint that can be passed to {@link #restore(Checkpoint)}
+     */
+    public Checkpoint checkpoint(int displayOffset) {
+        List<Checkpoint.ScopeState> scopeStates = new ArrayList<>(scopes.size());
+        IdentityHashMap<Variable, Value> variableValues = new IdentityHashMap<>();
+        IdentityHashMap<TangibleCursor, Cursor> cursorStates = new IdentityHashMap<>();
+
+        for(Scope scope : scopes) {
+            Map<String, Variable> scopeVariables = new HashMap<>();
+            for(Map.Entry<String, Variable> entry : scope.getVariables()) {
+                scopeVariables.put(entry.getKey(), entry.getValue());
+                variableValues.put(entry.getValue(), entry.getValue().getValue());
+            }
+
+            scopeStates.add(new Checkpoint.ScopeState(scopeVariables));
+        }
+
+        CursorRegistry.Snapshot cursorSnapshot = cursors.snapshot();
+        for(CursorRegistry.Binding binding : cursorSnapshot.bindings()) collectTangibleCursors(binding.cursor(), cursorStates);
+
+        List<LoopCounter> loopStates = List.of(Arrays.copyOf(loops, loopCount));
+        for(LoopCounter loop : loopStates) variableValues.put(loop.getIterator(), loop.getIterator().getValue());
+
+        return new Checkpoint(
+                step,
+                displayOffset,
+                nextAddress,
+                Arrays.asList(Arrays.copyOf(values, valueCount)),
+                scopeStates,
+                cursorSnapshot,
+                loopStates,
+                variableValues,
+                cursorStates,
+                cursorTable == null ? null : cursorTable.save()
+        );
+    }
+
+    /**
+     * Restore a previous state of this context. The drawing surface is left untouched.
+     *
+     * @param checkpoint the snapshot to restore, taken from this context
+     */
+    public void restore(Checkpoint checkpoint) {
+        this.step = checkpoint.getStep();
+        this.nextAddress = checkpoint.nextAddress;
+
+        if(values.length < checkpoint.values.size()) values = new Value[checkpoint.values.size()];
+        valueCount = 0;
+        for(Value value : checkpoint.values) values[valueCount++] = value;
+
+        scopes.clear();
+        for(Checkpoint.ScopeState state : checkpoint.scopes) {
+            scopes.addLast(new Scope(new HashMap<>(state.variables())));
+        }
+
+        cursors.restore(checkpoint.cursors);
+        checkpoint.variableValues.forEach(Variable::setValue);
+        checkpoint.cursorStates.forEach(TangibleCursor::copyFrom);
+        if(cursorTable != null) cursorTable.restore(checkpoint.cursorTable);
+
+        Arrays.fill(loops, 0, loopCount, null);
+        loopCount = 0;
+        for(LoopCounter loop : checkpoint.loops) pushLoop(loop);
+    }
+
+    /**
+     * Create a context ready to execute a program.
+     *
+     * @param instructions the program to execute
+     * @param surface the surface to draw on
+     * @param cursorTable the table storing the cursors, {@code null} to create {@link TangibleCursor}s. A table suits
+     *                    programs with many cursors
+     */
+    public static EvalContext create(List<Bytecode> instructions, DrawingSurface surface, CursorTable cursorTable) {
         CursorId id = new CursorId.Int(0);
-        Cursor cursor = new TangibleCursor(0, 0);
-        Scope scope = new Scope(new HashMap<>(), new HashMap<>());
-        scope.declareCursor(id, cursor);
+        CursorRegistry cursors = cursorTable == null ? new CursorRegistry() : new CursorRegistry(cursorTable::release);
+        cursors.declare(id, cursorTable == null ? new TangibleCursor(0, 0) : cursorTable.allocate(0, 0));
+        cursors.select(id);
 
         Deque<Scope> scopes = new ArrayDeque<>();
-        Deque<CursorId> selectionHistory = new ArrayDeque<>();
-        scopes.push(scope);
-        selectionHistory.push(id);
+        scopes.push(new Scope(new HashMap<>()));
+
+        try {
+            Verifier.Result verification = Verifier.verify(instructions);
+            return new EvalContext(instructions, 0, scopes, cursors, cursorTable, surface, verification.maxStackDepth(), true);
+        } catch (VerificationException e) {
+            //Malformed programs still run, failing at runtime like before verification
+            return new EvalContext(instructions, 0, scopes, cursors, cursorTable, surface, 8, false);
+        }
+    }
 
-        return new EvalContext(instructions, 0, new Stack<>(), scopes, selectionHistory, graphics);
+    public static EvalContext create(List<Bytecode> instructions, DrawingSurface surface) {
+        return create(instructions, surface, null);
+    }
+
+    public static EvalContext create(List<Bytecode> instructions, GraphicsContext graphics) {
+        return create(instructions, graphics == null ? null : new CanvasSurface(graphics));
     }
 }
@@ -0,0 +1,308 @@
+package fr.cyu.chromatynk.eval;
+
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.draw.AffineTransforms;
+import fr.cyu.chromatynk.draw.Color;
+import fr.cyu.chromatynk.draw.Cursor;
+import fr.cyu.chromatynk.draw.CursorTable;
+import fr.cyu.chromatynk.draw.DrawingSurface;
+import fr.cyu.chromatynk.draw.DuplicatedCursor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A manager running many compiled programs side by side, each on its own virtual thread.
+ * <p>
+ * Each run is limited by a {@link Quota}. A run exceeding its quota fails with a {@link QuotaExceededException}.
+ * Segments are counted as they are drawn and duplications are checked before they are made, so a single instruction
+ * cannot exceed these quotas by much.
+ * Runs store their cursors in a {@link CursorTable} since headless scripts may create many of them.
+ * <p>
+ * Runs are cancelled cooperatively: the interpreter loop checks the cancellation flag before each instruction. Since
+ * virtual threads are not preempted, a run also yields every {@link #YIELD_INTERVAL} instructions so a busy loop does
+ * not starve the other runs. A yielded virtual thread may be resumed before the tasks submitted from outside the
+ * scheduler, like the handlers of a server, so a run also parks briefly every {@link #PARK_INTERVAL}.
+ */
+public class ExecutionManager implements AutoCloseable {
+
+    /**
+     * The number of executed instructions between two yields of a run. The wall time quota is also checked at this
+     * interval.
+     */
+    public static final int YIELD_INTERVAL = 4096;
+
+    /**
+     * The running time after which a run parks instead of yielding.
+     */
+    public static final Duration PARK_INTERVAL = Duration.ofMillis(1);
+
+    /**
+     * Thrown by a {@link CountingSurface} when its segment quota is exceeded, before the segments are drawn.
+     */
+    private static class SegmentQuotaException extends RuntimeException {
+
+        private SegmentQuotaException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A {@link DrawingSurface} counting the drawn segments before forwarding them, refusing to draw more than a quota.
+     */
+    private static class CountingSurface implements DrawingSurface {
+
+        private final DrawingSurface target;
+        private final long maxSegments;
+        private long count;
+
+        private CountingSurface(DrawingSurface target, long maxSegments) {
+            this.target = target;
+            this.maxSegments = maxSegments;
+        }
+
+        private void count(long segments) {
+            if(segments > maxSegments - count) throw new SegmentQuotaException();
+            count += segments;
+        }
+
+        @Override
+        public double getWidth() {
+            return target.getWidth();
+        }
+
+        @Override
+        public double getHeight() {
+            return target.getHeight();
+        }
+
+        @Override
+        public void drawLine(double fromX, double fromY, double toX, double toY, Color color, double opacity, double thickness) {
+            count(1);
+            target.drawLine(fromX, fromY, toX, toY, color, opacity, thickness);
+        }
+
+        @Override
+        public void drawLines(double fromX, double fromY, double toX, double toY, double[] transforms, Color color, double opacity, double thickness) {
+            count(transforms.length / AffineTransforms.SIZE);
+            target.drawLines(fromX, fromY, toX, toY, transforms, color, opacity, thickness);
+        }
+
+        @Override
+        public void clear() {
+            target.clear();
+        }
+    }
+
+    /**
+     * A run of a program.
+     */
+    public static final class Execution {
+
+        private final EvalContext context;
+        private final CountingSurface surface;
+        private final Quota quota;
+        private final CompletableFuture<EvalContext> completion;
+        private volatile boolean cancelled;
+        private volatile long instructionCount;
+
+        private Execution(List<Bytecode> instructions, DrawingSurface surface, Quota quota) {
+            this.surface = new CountingSurface(surface, quota.maxSegments());
+            this.context = EvalContext.create(instructions, this.surface, new CursorTable());
+            this.quota = quota;
+            this.completion = new CompletableFuture<>();
+        }
+
+        /**
+         * Get the executed context. It must not be accessed before the run completes.
+         */
+        public EvalContext getContext() {
+            return context;
+        }
+
+        /**
+         * Get the quota of this run.
+         */
+        public Quota getQuota() {
+            return quota;
+        }
+
+        /**
+         * Get the future completed with the context when the run ends. It completes exceptionally with the
+         * {@link EvalException} stopping the run or a {@link CancellationException} if the run was cancelled.
+         */
+        public CompletableFuture<EvalContext> getCompletion() {
+            return completion;
+        }
+
+        /**
+         * Get the number of instructions executed so far.
+         */
+        public long getInstructionCount() {
+            return instructionCount;
+        }
+
+        /**
+         * Ask the run to stop before its next instruction.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Check if the run was asked to stop.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void checkQuota(Bytecode instruction) throws QuotaExceededException {
+            switch (instruction) {
+                case Bytecode.Declare declare -> {
+                    if(context.getVariableCount() > quota.maxVariables()) throw new QuotaExceededException(declare.range(), "variables", quota.maxVariables());
+                }
+                case Bytecode.ForInit forInit -> {
+                    if(context.getVariableCount() > quota.maxVariables()) throw new QuotaExceededException(forInit.range(), "variables", quota.maxVariables());
+                }
+                case Bytecode.CreateCursor ignored -> checkCursors(instruction);
+                case Bytecode.Mimic ignored -> checkCursors(instruction);
+                case Bytecode.MirrorCentral ignored -> checkCursors(instruction);
+                case Bytecode.MirrorAxial ignored -> checkCursors(instruction);
+                default -> {}
+            }
+        }
+
+        /**
+         * Check that a duplication does not exceed the copy quota before it allocates the matrices of its copies.
+         */
+        private void checkCopies(Bytecode instruction) throws QuotaExceededException, TypeMismatchException {
+            Cursor duplicated = switch (instruction) {
+                case Bytecode.Mimic mimic -> context.getCursor(Interpreter.asCursorId(mimic.range(), context.peekValue())).orElse(null);
+                case Bytecode.MirrorCentral ignored -> context.getCurrentCursor();
+                case Bytecode.MirrorAxial ignored -> context.getCurrentCursor();
+                default -> null;
+            };
+            if(duplicated == null) return;
+
+            long copies = 2L * (duplicated instanceof DuplicatedCursor cursor ? cursor.getCopyCount() : 1);
+            if(copies > quota.maxCopies()) throw new QuotaExceededException(instruction.range(), "copies of a cursor", quota.maxCopies());
+        }
+
+        private void checkCursors(Bytecode instruction) throws QuotaExceededException {
+            if(context.getCursorCount() > quota.maxCursors()) throw new QuotaExceededException(instruction.range(), "cursors", quota.maxCursors());
+        }
+
+        private EvalContext run() throws EvalException {
+            long start = System.nanoTime();
+            long maxNanos = quota.maxDuration().toNanos();
+            long lastPark = start;
+            long count = 0;
+
+            try {
+                while(context.hasNext()) {
+                    if(cancelled || Thread.currentThread().isInterrupted()) {
+                        cancelled = true;
+                        throw new CancellationException("Execution cancelled");
+                    }
+
+                    if(count >= quota.maxInstructions()) throw new QuotaExceededException(context.getNextRange(), "instructions", quota.maxInstructions());
+
+                    checkCopies(context.peek());
+                    Bytecode instruction = context.next();
+                    try {
+                        Interpreter.evaluate(context, instruction);
+                    } catch (SegmentQuotaException e) {
+                        throw new QuotaExceededException(instruction.range(), "segments", quota.maxSegments());
+                    }
+                    checkQuota(instruction);
+                    count++;
+
+                    if(count % YIELD_INTERVAL == 0) {
+                        instructionCount = count;
+                        long now = System.nanoTime();
+                        if(now - start > maxNanos) throw new QuotaExceededException(instruction.range(), "milliseconds of wall time", quota.maxDuration().toMillis());
+
+                        if(now - lastPark > PARK_INTERVAL.toNanos()) {
+                            LockSupport.parkNanos(1);
+                            lastPark = now;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                }
+
+                return context;
+            } finally {
+                instructionCount = count;
+            }
+        }
+    }
+
+    private final ExecutorService executor;
+    private final Set<Execution> running;
+
+    /**
+     * Create a new manager running each program on its own virtual thread.
+     */
+    public ExecutionManager() {
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.running = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Start running a program.
+     *
+     * @param instructions the compiled program
+     * @param surface the surface to draw on. It is only used by this run's thread
+     * @param quota the resources the run is allowed to use
+     * @return the started run
+     */
+    public Execution submit(List<Bytecode> instructions, DrawingSurface surface, Quota quota) {
+        Execution execution = new Execution(instructions, surface, quota);
+        running.add(execution);
+
+        try {
+            executor.execute(() -> {
+                try {
+                    EvalContext context = execution.run();
+                    running.remove(execution);
+                    execution.completion.complete(context);
+                } catch (Throwable t) {
+                    running.remove(execution);
+                    execution.completion.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(execution);
+            execution.completion.completeExceptionally(e);
+        }
+
+        return execution;
+    }
+
+    /**
+     * Get the number of runs not completed yet.
+     */
+    public int getRunningCount() {
+        return running.size();
+    }
+
+    /**
+     * Cancel all runs not completed yet.
+     */
+    public void cancelAll() {
+        for(Execution execution : running) execution.cancel();
+    }
+
+    /**
+     * Cancel all runs and wait for them to stop.
+     */
+    @Override
+    public void close() {
+        cancelAll();
+        executor.close();
+    }
+}
@@ -24,6 +24,14 @@ public class Interpreter {
         };
     }
 
+    private static int asInt(Range range, Value value) throws TypeMismatchException {
+        return switch (value) {
+            case Value.Int(int v) -> v;
+            case Value actual ->
+                    throw new TypeMismatchException(range, Set.of(Type.INT), actual.getType());
+        };
+    }
+
     private static boolean isNumeric(Value value) {
         return value.getType() == Type.INT || value.getType() == Type.FLOAT;
     }
@@ -65,7 +73,7 @@ public class Interpreter {
         };
     }
 
-    private static CursorId asCursorId(Range range, Value value) throws TypeMismatchException {
+    static CursorId asCursorId(Range range, Value value) throws TypeMismatchException {
         return switch (value) {
             case Value.Int(int id) -> new CursorId.Int(id);
             case Value.Str(String id) -> new CursorId.Str(id);
@@ -74,6 +82,108 @@ public class Interpreter {
         };
     }
 
+    /**
+     * Add two values.
+     *
+     * @param range the range of the operation, used for error reporting
+     * @param leftValue the left operand
+     * @param rightValue the right operand
+     * @return the result of the operation
+     * @throws TypeMismatchException if the operands are not compatible
+     */
+    private static Value add(Range range, Value leftValue, Value rightValue) throws TypeMismatchException {
+        return switch (rightValue) {
+            case Value.Bool(boolean right) -> switch (leftValue) {
+                //Due to a JDK 21 bug (yes) we cannot deconstruct the left member's fields.
+                case Value.Str left -> new Value.Str(left.value() + right);
+                case Value value ->
+                        throw new TypeMismatchException(range, Set.of(Type.STRING), value.getType());
+            };
+
+            case Value.Int(int right) -> switch (leftValue) {
+                case Value.Int left -> new Value.Int(left.value() + right);
+                case Value.Float left -> new Value.Float(left.value() + right);
+                case Value.Str left -> new Value.Str(left.value() + right);
+                case Value actual ->
+                        throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT, Type.STRING), actual.getType());
+            };
+
+            case Value.Float(double right) -> switch (leftValue) {
+                case Value.Int left -> new Value.Float(left.value() + right);
+                case Value.Float left -> new Value.Float(left.value() + right);
+                case Value.Str left -> new Value.Str(left.value() + right);
+                case Value actual ->
+                        throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT, Type.STRING), actual.getType());
+            };
+
+            case Value.Str(String right) -> switch (leftValue) {
+                case Value.Bool left -> new Value.Str(left.value() + right);
+                case Value.Int left -> new Value.Str(left.value() + right);
+                case Value.Float left -> new Value.Str(left.value() + right);
+                case Value.Str left -> new Value.Str(left.value() + right);
+                case Value.Color left -> new Value.Str(left + right);
+                case Value.Percentage left -> new Value.Str(left.value() + right);
+            };
+
+            case Value.Color right -> switch (leftValue) {
+                case Value.Str left -> new Value.Str(left.value() + right);
+                case Value.Color left -> {
+                    double red = Math.min(1, left.red() + right.red());
+                    double green = Math.min(1, left.green() + right.green());
+                    double blue = Math.min(1, left.blue() + right.blue());
+                    double alpha = Math.min(1, left.alpha() + right.alpha());
+
+                    yield new Value.Color(red, green, blue, alpha);
+                }
+                case Value actual ->
+                        throw new TypeMismatchException(range, Set.of(Type.STRING, Type.COLOR), actual.getType());
+            };
+
+            case Value.Percentage(double right) -> switch (leftValue) {
+                case Value.Str left -> new Value.Str(left.value() + right);
+                case Value.Percentage left -> new Value.Percentage(left.value() + right);
+                case Value actual ->
+                        throw new TypeMismatchException(range, Set.of(Type.STRING, Type.PERCENTAGE), actual.getType());
+            };
+        };
+    }
+
+    /**
+     * Check if a value is strictly less than another.
+     *
+     * @param range the range of the operation, used for error reporting
+     * @param leftValue the left operand
+     * @param rightValue the right operand
+     * @return the result of the operation
+     * @throws TypeMismatchException if the operands are not compatible
+     */
+    private static Value less(Range range, Value leftValue, Value rightValue) throws TypeMismatchException {
+        return switch (rightValue) {
+            case Value.Int(int right) -> switch (leftValue) {
+                case Value.Int left -> new Value.Bool(left.value() < right);
+                case Value.Float left -> new Value.Bool(left.value() < right);
+                case Value actual ->
+                        throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT), actual.getType());
+            };
+
+            case Value.Float(double right) -> switch (leftValue) {
+                case Value.Int left -> new Value.Bool(left.value() < right);
+                case Value.Float left -> new Value.Bool(left.value() < right);
+                case Value actual ->
+                        throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT), actual.getType());
+            };
+
+            case Value.Percentage(double right) -> switch (leftValue) {
+                case Value.Percentage left -> new Value.Bool(left.value() < right);
+                case Value actual ->
+                        throw new TypeMismatchException(range, Set.of(Type.PERCENTAGE), actual.getType());
+            };
+
+            case Value actual ->
+                    throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT, Type.PERCENTAGE), actual.getType());
+        };
+    }
+
     /**
      * Evaluates the given bytecode in the provided evaluation context.
      *
@@ -106,6 +216,22 @@ public class Interpreter {
             case Bytecode.GoToIfFalse(Range range, int addressFalse) -> {
                 if(!asBoolean(range, context.popValue())) context.setNextAddress(addressFalse);
             }
+            case Bytecode.ForInit(Range range, String iterator, int addressEnd) -> {
+                int step = asInt(range, context.popValue());
+                int bound = asInt(range, context.popValue());
+                Variable variable = new Variable(Type.INT, context.popValue());
+                context.declareVariable(iterator, variable);
+
+                LoopCounter counter = new LoopCounter(variable, bound, step);
+                if(counter.hasNext()) context.pushLoop(counter);
+                else context.setNextAddress(addressEnd);
+            }
+            case Bytecode.ForNext(Range ignored, int addressBody) -> {
+                LoopCounter counter = context.peekLoop();
+                counter.increment();
+                if(counter.hasNext()) context.setNextAddress(addressBody);
+                else context.popLoop();
+            }
             case Bytecode.NewScope ignored -> context.createScope();
             case Bytecode.ExitScope ignored -> context.exitScope();
             case Bytecode.Percent(Range range) -> context.pushValue(
@@ -127,62 +253,11 @@ public class Interpreter {
                     }
             );
 
-            case Bytecode.Add(Range range) -> context.pushValue(
-                    switch (context.popValue()) {
-                        case Value.Bool(boolean right) -> switch (context.popValue()) {
-                            //Due to a JDK 21 bug (yes) we cannot deconstruct the left member's fields.
-                            case Value.Str left -> new Value.Str(left.value() + right);
-                            case Value value ->
-                                    throw new TypeMismatchException(range, Set.of(Type.STRING), value.getType());
-                        };
-
-                        case Value.Int(int right) -> switch (context.popValue()) {
-                            case Value.Int left -> new Value.Int(left.value() + right);
-                            case Value.Float left -> new Value.Float(left.value() + right);
-                            case Value.Str left -> new Value.Str(left.value() + right);
-                            case Value actual ->
-                                    throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT, Type.STRING), actual.getType());
-                        };
-
-                        case Value.Float(double right) -> switch (context.popValue()) {
-                            case Value.Int left -> new Value.Float(left.value() + right);
-                            case Value.Float left -> new Value.Float(left.value() + right);
-                            case Value.Str left -> new Value.Str(left.value() + right);
-                            case Value actual ->
-                                    throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT, Type.STRING), actual.getType());
-                        };
-
-                        case Value.Str(String right) -> switch (context.popValue()) {
-                            case Value.Bool left -> new Value.Str(left.value() + right);
-                            case Value.Int left -> new Value.Str(left.value() + right);
-                            case Value.Float left -> new Value.Str(left.value() + right);
-                            case Value.Str left -> new Value.Str(left.value() + right);
-                            case Value.Color left -> new Value.Str(left + right);
-                            case Value.Percentage left -> new Value.Str(left.value() + right);
-                        };
-
-                        case Value.Color right -> switch (context.popValue()) {
-                            case Value.Str left -> new Value.Str(left.value() + right);
-                            case Value.Color left -> {
-                                double red = Math.min(1, left.red() + right.red());
-                                double green = Math.min(1, left.green() + right.green());
-                                double blue = Math.min(1, left.blue() + right.blue());
-                                double alpha = Math.min(1, left.alpha() + right.alpha());
-
-                                yield new Value.Color(red, green, blue, alpha);
-                            }
-                            case Value actual ->
-                                    throw new TypeMismatchException(range, Set.of(Type.STRING, Type.COLOR), actual.getType());
-                        };
-
-                        case Value.Percentage(double right) -> switch (context.popValue()) {
-                            case Value.Str left -> new Value.Str(left.value() + right);
-                            case Value.Percentage left -> new Value.Percentage(left.value() + right);
-                            case Value actual ->
-                                    throw new TypeMismatchException(range, Set.of(Type.STRING, Type.PERCENTAGE), actual.getType());
-                        };
-                    }
-            );
+            case Bytecode.Add(Range range) -> {
+                Value right = context.popValue();
+                Value left = context.popValue();
+                context.pushValue(add(range, left, right));
+            }
 
             case Bytecode.Sub(Range range) -> context.pushValue(
                     switch (context.popValue()) {
@@ -506,32 +581,11 @@ public class Interpreter {
                     }
             );
 
-            case Bytecode.Less(Range range) -> context.pushValue(
-                    switch (context.popValue()) {
-                        case Value.Int(int right) -> switch (context.popValue()) {
-                            case Value.Int left -> new Value.Bool(left.value() < right);
-                            case Value.Float left -> new Value.Bool(left.value() < right);
-                            case Value actual ->
-                                    throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT), actual.getType());
-                        };
-
-                        case Value.Float(double right) -> switch (context.popValue()) {
-                            case Value.Int left -> new Value.Bool(left.value() < right);
-                            case Value.Float left -> new Value.Bool(left.value() < right);
-                            case Value actual ->
-                                    throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT), actual.getType());
-                        };
-
-                        case Value.Percentage(double right) -> switch (context.popValue()) {
-                            case Value.Percentage left -> new Value.Bool(left.value() < right);
-                            case Value actual ->
-                                    throw new TypeMismatchException(range, Set.of(Type.PERCENTAGE), actual.getType());
-                        };
-
-                        case Value actual ->
-                                throw new TypeMismatchException(range, Set.of(Type.INT, Type.FLOAT, Type.PERCENTAGE), actual.getType());
-                    }
-            );
+            case Bytecode.Less(Range range) -> {
+                Value right = context.popValue();
+                Value left = context.popValue();
+                context.pushValue(less(range, left, right));
+            }
 
             case Bytecode.GreaterEqual(Range range) -> context.pushValue(
                     switch (context.popValue()) {
@@ -587,11 +641,11 @@ public class Interpreter {
 
             case Bytecode.Forward(Range range) -> context
                     .getCurrentCursor()
-                    .move(context.getGraphics(), asNumericOrPercentage(range, context.popValue(), context.getLargestDimension()));
+                    .move(context.getSurface(), asNumericOrPercentage(range, context.popValue(), context.getLargestDimension()));
 
             case Bytecode.Backward(Range range) -> context
                     .getCurrentCursor()
-                    .move(context.getGraphics(), asNumericOrPercentage(range, context.popValue(), -context.getLargestDimension()));
+                    .move(context.getSurface(), asNumericOrPercentage(range, context.popValue(), -context.getLargestDimension()));
 
             case Bytecode.Turn(Range range) -> context.getCurrentCursor().turn(asNumeric(range, context.popValue()));
 
@@ -603,7 +657,7 @@ public class Interpreter {
             case Bytecode.Move(Range range) -> {
                 double dy = asNumericOrPercentage(range, context.popValue(), context.getHeight());
                 double dx = asNumericOrPercentage(range, context.popValue(), context.getWidth());
-                context.getCurrentCursor().move(context.getGraphics(), dx, dy);
+                context.getCurrentCursor().move(context.getSurface(), dx, dy);
             }
 
             case Bytecode.Hide ignored -> context.getCurrentCursor().setVisible(false);
@@ -705,7 +759,7 @@ public class Interpreter {
             }
 
             case Bytecode.CreateCursor(Range range) ->
-                    context.declareCursor(asCursorId(range, context.popValue()), new TangibleCursor(
+                    context.declareCursor(asCursorId(range, context.popValue()), context.createCursor(
                             context.getWidth()/2,
                             context.getHeight()/2
                     ));
@@ -749,6 +803,25 @@ public class Interpreter {
                 );
             }
 
+            case Bytecode.ForwardConst(Range range, Value distance) -> context
+                    .getCurrentCursor()
+                    .move(context.getSurface(), asNumericOrPercentage(range, distance, context.getLargestDimension()));
+
+            case Bytecode.TurnConst(Range range, Value angle) -> context.getCurrentCursor().turn(asNumeric(range, angle));
+
+            case Bytecode.Increment(Range range, String name, Value amount, Range loadRange, Range addRange) -> {
+                Value value = context.getValue(name).orElseThrow(() -> new MissingVariableException(loadRange, name));
+                context.setValue(name, add(addRange, value, amount));
+            }
+
+            case Bytecode.GoToIfNotLess(
+                    Range range, String left, String right, int addressFalse, Range leftRange, Range rightRange, Range lessRange
+            ) -> {
+                Value leftValue = context.getValue(left).orElseThrow(() -> new MissingVariableException(leftRange, left));
+                Value rightValue = context.getValue(right).orElseThrow(() -> new MissingVariableException(rightRange, right));
+                if(!asBoolean(range, less(lessRange, leftValue, rightValue))) context.setNextAddress(addressFalse);
+            }
+
             case Bytecode.End(Range range) -> {}
         }
     }
@@ -759,4 +832,22 @@ public class Interpreter {
         }
         return context;
     }
+
+    /**
+     * Evaluate the instructions while the clock allows it, recording each execution.
+     *
+     * @param context the context to execute
+     * @param clock the clock controlling the execution
+     * @param profiler the profiler of the context's instructions, {@code null} to not profile
+     * @return the executed context
+     * @throws EvalException if an evaluation error occurs
+     */
+    public static EvalContext evaluateAll(EvalContext context, Clock clock, Profiler profiler) throws EvalException {
+        if(profiler == null) return evaluateAll(context, clock);
+
+        while (context.hasNext() && clock.tick(context.peek().isEffectful())){
+            profiler.evaluateNext(context);
+        }
+        return context;
+    }
 }
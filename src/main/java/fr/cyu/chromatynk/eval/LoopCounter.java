@@ -0,0 +1,75 @@
+package fr.cyu.chromatynk.eval;
+
+/**
+ * The state of a running counted loop ({@code FOR}).
+ * The bound and the step are evaluated once when entering the loop.
+ */
+public final class LoopCounter {
+
+    private final Variable iterator;
+    private final int bound;
+    private final int step;
+
+    /**
+     * Create a new loop counter.
+     *
+     * @param iterator the variable holding the current value of the loop, visible from the loop's body
+     * @param bound the exclusive bound of the loop
+     * @param step the increment applied to the iterator after each iteration
+     */
+    public LoopCounter(Variable iterator, int bound, int step) {
+        this.iterator = iterator;
+        this.bound = bound;
+        this.step = step;
+    }
+
+    /**
+     * Get the iterator of this loop.
+     */
+    public Variable getIterator() {
+        return iterator;
+    }
+
+    /**
+     * Get the exclusive bound of this loop.
+     */
+    public int getBound() {
+        return bound;
+    }
+
+    /**
+     * Get the increment of this loop.
+     */
+    public int getStep() {
+        return step;
+    }
+
+    private int getCurrent() {
+        return ((Value.Int) iterator.getValue()).value();
+    }
+
+    /**
+     * Check if the loop should run another iteration.
+     *
+     * @return {@code true} if the iterator did not reach the bound yet according to the loop direction
+     */
+    public boolean hasNext() {
+        return step < 0 ? getCurrent() > bound : getCurrent() < bound;
+    }
+
+    /**
+     * Increment the iterator of this loop by its step.
+     */
+    public void increment() {
+        iterator.setValue(new Value.Int(getCurrent() + step));
+    }
+
+    @Override
+    public String toString() {
+        return "LoopCounter{" +
+                "iterator=" + iterator +
+                ", bound=" + bound +
+                ", step=" + step +
+                '}';
+    }
+}
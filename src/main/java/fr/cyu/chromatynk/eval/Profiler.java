@@ -0,0 +1,262 @@
+package fr.cyu.chromatynk.eval;
+
+import fr.cyu.chromatynk.bytecode.Bytecode;
+
+import java.util.*;
+
+/**
+ * A profiler recording the executions of each instruction of a program.
+ * <p>
+ * Executions are counted and timed per bytecode address in primitive arrays. In sampling mode, only some executions
+ * are timed and the time of each instruction is extrapolated from its samples, which lowers the overhead of
+ * {@link System#nanoTime()}. The interval between two samples is jittered so it does not line up with the period of a
+ * loop.
+ * <p>
+ * The results are aggregated by source line, using the {@link Bytecode#range() range} of each instruction, and by kind
+ * of instruction.
+ */
+public class Profiler {
+
+    /**
+     * The default mean number of executions between two timed ones in sampling mode.
+     */
+    public static final int DEFAULT_SAMPLING_INTERVAL = 64;
+
+    /**
+     * The profile of a source line.
+     *
+     * @param line the index of the line, starting at 0
+     * @param count the number of executed instructions of the line
+     * @param nanos the estimated time spent in the instructions of the line in nanoseconds
+     */
+    public record LineProfile(int line, long count, long nanos) {}
+
+    /**
+     * The profile of a kind of instruction.
+     *
+     * @param kind the name of the instruction kind
+     * @param count the number of executions of the instructions of this kind
+     * @param nanos the estimated time spent in the instructions of this kind in nanoseconds
+     */
+    public record KindProfile(String kind, long count, long nanos) {}
+
+    /**
+     * The aggregated results of a profiler.
+     *
+     * @param lines the profile of each executed line, slowest first
+     * @param kinds the profile of each executed kind of instruction, slowest first
+     * @param count the total number of executed instructions
+     * @param nanos the total estimated evaluation time in nanoseconds
+     */
+    public record Report(List<LineProfile> lines, List<KindProfile> kinds, long count, long nanos) {
+
+        /**
+         * Get the time spent in each line relative to the slowest line. The slowest line has a heat of 1 and the
+         * heats do not sum to 1.
+         *
+         * @param lineCount the number of lines of the source
+         * @return the time of each line divided by the time of the slowest line, between 0 and 1. Lines that were not
+         * executed have a heat of 0
+         */
+        public double[] getHeat(int lineCount) {
+            double[] heat = new double[lineCount];
+            long max = lines.isEmpty() ? 0 : lines.getFirst().nanos();
+            if(max == 0) return heat;
+
+            for(LineProfile line : lines) {
+                if(line.line() < lineCount) heat[line.line()] = (double) line.nanos() / max;
+            }
+
+            return heat;
+        }
+    }
+
+    /**
+     * A copy of the recorded executions of a profiler, restored when an execution goes back in time.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long[] samples;
+        private final long[] sampledNanos;
+
+        private Snapshot(long[] counts, long[] samples, long[] sampledNanos) {
+            this.counts = counts;
+            this.samples = samples;
+            this.sampledNanos = sampledNanos;
+        }
+    }
+
+    private final List<Bytecode> instructions;
+    private final int samplingInterval;
+    private final long[] counts;
+    private final long[] samples;
+    private final long[] sampledNanos;
+    private int countdown;
+    private int seed;
+
+    /**
+     * Create a new profiler.
+     *
+     * @param instructions the profiled program
+     * @param samplingInterval the mean number of executions between two timed ones. 1 times every execution
+     */
+    public Profiler(List<Bytecode> instructions, int samplingInterval) {
+        if(samplingInterval <= 0) throw new IllegalArgumentException("Sampling interval must be positive: " + samplingInterval);
+
+        this.instructions = instructions;
+        this.samplingInterval = samplingInterval;
+        this.counts = new long[instructions.size()];
+        this.samples = new long[instructions.size()];
+        this.sampledNanos = new long[instructions.size()];
+        this.countdown = 1;
+        this.seed = 0x9E3779B9;
+    }
+
+    /**
+     * Create a profiler timing every execution.
+     *
+     * @param instructions the profiled program
+     */
+    public static Profiler exact(List<Bytecode> instructions) {
+        return new Profiler(instructions, 1);
+    }
+
+    /**
+     * Create a profiler timing a sample of the executions.
+     *
+     * @param instructions the profiled program
+     */
+    public static Profiler sampling(List<Bytecode> instructions) {
+        return new Profiler(instructions, DEFAULT_SAMPLING_INTERVAL);
+    }
+
+    /**
+     * Check if this profiler only times a sample of the executions.
+     */
+    public boolean isSampling() {
+        return samplingInterval > 1;
+    }
+
+    private int nextCountdown() {
+        if(samplingInterval == 1) return 1;
+
+        //Xorshift, uniform between interval/2 and 3*interval/2
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return samplingInterval / 2 + 1 + Integer.remainderUnsigned(seed, samplingInterval);
+    }
+
+    /**
+     * Evaluate the next instruction of a context and record its execution.
+     *
+     * @param context the profiled context, executing the instructions of this profiler
+     * @throws EvalException if an evaluation error occurs
+     */
+    public void evaluateNext(EvalContext context) throws EvalException {
+        int address = context.getNextAddress();
+        Bytecode bytecode = context.next();
+        counts[address]++;
+
+        if(--countdown > 0) {
+            Interpreter.evaluate(context, bytecode);
+            return;
+        }
+
+        countdown = nextCountdown();
+        long start = System.nanoTime();
+        try {
+            Interpreter.evaluate(context, bytecode);
+        } finally {
+            sampledNanos[address] += System.nanoTime() - start;
+            samples[address]++;
+        }
+    }
+
+    /**
+     * Get the number of executions of an instruction.
+     *
+     * @param address the address of the instruction
+     */
+    public long getCount(int address) {
+        return counts[address];
+    }
+
+    /**
+     * Get the estimated time spent in an instruction.
+     *
+     * @param address the address of the instruction
+     * @return the measured time if every execution was timed, the time extrapolated from the samples otherwise
+     */
+    public long getNanos(int address) {
+        if(samples[address] == 0) return 0;
+        if(samples[address] == counts[address]) return sampledNanos[address];
+        return (long) ((double) sampledNanos[address] * counts[address] / samples[address]);
+    }
+
+    /**
+     * Copy the recorded executions.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(counts.clone(), samples.clone(), sampledNanos.clone());
+    }
+
+    /**
+     * Replace the recorded executions by a copy taken earlier from this profiler.
+     *
+     * @param snapshot the executions to restore
+     */
+    public void restore(Snapshot snapshot) {
+        System.arraycopy(snapshot.counts, 0, counts, 0, counts.length);
+        System.arraycopy(snapshot.samples, 0, samples, 0, samples.length);
+        System.arraycopy(snapshot.sampledNanos, 0, sampledNanos, 0, sampledNanos.length);
+    }
+
+    /**
+     * Reset the recorded executions.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(samples, 0);
+        Arrays.fill(sampledNanos, 0);
+        countdown = 1;
+    }
+
+    /**
+     * Aggregate the recorded executions by line and kind of instruction.
+     */
+    public Report report() {
+        Map<Integer, long[]> lines = new HashMap<>();
+        Map<String, long[]> kinds = new HashMap<>();
+        long count = 0;
+        long nanos = 0;
+
+        for(int address = 0; address < counts.length; address++) {
+            if(counts[address] == 0) continue;
+
+            Bytecode bytecode = instructions.get(address);
+            long addressNanos = getNanos(address);
+            count += counts[address];
+            nanos += addressNanos;
+
+            long[] line = lines.computeIfAbsent(bytecode.range().from().row(), l -> new long[2]);
+            line[0] += counts[address];
+            line[1] += addressNanos;
+
+            long[] kind = kinds.computeIfAbsent(bytecode.getClass().getSimpleName(), k -> new long[2]);
+            kind[0] += counts[address];
+            kind[1] += addressNanos;
+        }
+
+        List<LineProfile> lineProfiles = new ArrayList<>(lines.size());
+        lines.forEach((line, totals) -> lineProfiles.add(new LineProfile(line, totals[0], totals[1])));
+        lineProfiles.sort(Comparator.comparingLong(LineProfile::nanos).reversed().thenComparingInt(LineProfile::line));
+
+        List<KindProfile> kindProfiles = new ArrayList<>(kinds.size());
+        kinds.forEach((kind, totals) -> kindProfiles.add(new KindProfile(kind, totals[0], totals[1])));
+        kindProfiles.sort(Comparator.comparingLong(KindProfile::nanos).reversed().thenComparing(KindProfile::kind));
+
+        return new Report(lineProfiles, kindProfiles, count, nanos);
+    }
+}
@@ -0,0 +1,70 @@
+package fr.cyu.chromatynk.eval;
+
+import java.time.Duration;
+
+/**
+ * The resources a single run of {@link ExecutionManager} is allowed to use.
+ *
+ * @param maxInstructions the maximum number of executed instructions
+ * @param maxDuration the maximum wall time of the run
+ * @param maxCursors the maximum number of live cursors at any time
+ * @param maxVariables the maximum number of live variables at any time
+ * @param maxSegments the maximum number of drawn segments
+ * @param maxCopies the maximum number of copies drawn by a mimicked or mirrored cursor. Each nested duplication doubles
+ *                  them
+ */
+public record Quota(long maxInstructions, Duration maxDuration, int maxCursors, int maxVariables, long maxSegments, int maxCopies) {
+
+    /**
+     * A quota putting no limit on the run.
+     */
+    public static final Quota UNLIMITED = new Quota(Long.MAX_VALUE, Duration.ofNanos(Long.MAX_VALUE), Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    public Quota {
+        if(maxInstructions < 0 || maxCursors < 0 || maxVariables < 0 || maxSegments < 0 || maxCopies < 0 || maxDuration.isNegative()) {
+            throw new IllegalArgumentException("Quota limits must not be negative");
+        }
+    }
+
+    /**
+     * Get a copy of this quota with another maximum number of instructions.
+     */
+    public Quota withMaxInstructions(long maxInstructions) {
+        return new Quota(maxInstructions, maxDuration, maxCursors, maxVariables, maxSegments, maxCopies);
+    }
+
+    /**
+     * Get a copy of this quota with another maximum wall time.
+     */
+    public Quota withMaxDuration(Duration maxDuration) {
+        return new Quota(maxInstructions, maxDuration, maxCursors, maxVariables, maxSegments, maxCopies);
+    }
+
+    /**
+     * Get a copy of this quota with another maximum number of cursors.
+     */
+    public Quota withMaxCursors(int maxCursors) {
+        return new Quota(maxInstructions, maxDuration, maxCursors, maxVariables, maxSegments, maxCopies);
+    }
+
+    /**
+     * Get a copy of this quota with another maximum number of variables.
+     */
+    public Quota withMaxVariables(int maxVariables) {
+        return new Quota(maxInstructions, maxDuration, maxCursors, maxVariables, maxSegments, maxCopies);
+    }
+
+    /**
+     * Get a copy of this quota with another maximum number of segments.
+     */
+    public Quota withMaxSegments(long maxSegments) {
+        return new Quota(maxInstructions, maxDuration, maxCursors, maxVariables, maxSegments, maxCopies);
+    }
+
+    /**
+     * Get a copy of this quota with another maximum number of copies of a duplicated cursor.
+     */
+    public Quota withMaxCopies(int maxCopies) {
+        return new Quota(maxInstructions, maxDuration, maxCursors, maxVariables, maxSegments, maxCopies);
+    }
+}
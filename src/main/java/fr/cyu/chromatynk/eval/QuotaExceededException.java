@@ -0,0 +1,39 @@
+package fr.cyu.chromatynk.eval;
+
+import fr.cyu.chromatynk.util.Range;
+
+/**
+ * An exception occurring when a run uses more resources than its {@link Quota} allows.
+ */
+public class QuotaExceededException extends EvalException {
+
+    private final String resource;
+    private final long limit;
+
+    /**
+     * Create a new quota exception.
+     *
+     * @param range the range of the instruction exceeding the quota
+     * @param resource the name of the exhausted resource
+     * @param limit the allowed amount of the resource
+     */
+    public QuotaExceededException(Range range, String resource, long limit) {
+        super(range, "Quota exceeded: at most " + limit + " " + resource + " allowed");
+        this.resource = resource;
+        this.limit = limit;
+    }
+
+    /**
+     * Get the name of the exhausted resource.
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * Get the allowed amount of the resource.
+     */
+    public long getLimit() {
+        return limit;
+    }
+}
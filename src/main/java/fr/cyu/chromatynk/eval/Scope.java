@@ -1,9 +1,5 @@
 package fr.cyu.chromatynk.eval;
 
-import fr.cyu.chromatynk.draw.Cursor;
-import fr.cyu.chromatynk.draw.CursorId;
-
-import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -14,17 +10,14 @@ import java.util.Set;
 public class Scope {
 
     private final Map<String, Variable> variables;
-    private final Map<CursorId, Cursor> cursors;
 
     /**
-     * Create a new scope.
+     * Create a new scope. Its cursors are kept by the {@link CursorRegistry} of the context.
      *
      * @param variables the variables declared in this scope
-     * @param cursors the cursors declared in this scope
      */
-    public Scope(Map<String, Variable> variables, Map<CursorId, Cursor> cursors) {
+    public Scope(Map<String, Variable> variables) {
         this.variables = variables;
-        this.cursors = cursors;
     }
 
     /**
@@ -37,16 +30,6 @@ public class Scope {
         return Optional.ofNullable(variables.get(name));
     }
 
-    /**
-     * Get a cursor declared in this scope.
-     *
-     * @param id the id of the cursor
-     * @return the local cursor corresponding to the given name if present
-     */
-    public Optional<Cursor> getCursor(CursorId id) {
-        return Optional.ofNullable(cursors.get(id));
-    }
-
     /**
      * Locally declare a variable.
      *
@@ -57,16 +40,6 @@ public class Scope {
         variables.put(name, variable);
     }
 
-    /**
-     * Locally declare a cursor.
-     *
-     * @param id the id of the cursor
-     * @param cursor the cursor variable
-     */
-    public void declareCursor(CursorId id, Cursor cursor) {
-        cursors.put(id, cursor);
-    }
-
     /**
      * Delete a variable.
      *
@@ -76,15 +49,6 @@ public class Scope {
         variables.remove(name);
     }
 
-    /**
-     * Delete a cursor.
-     *
-     * @param id the id of the cursor
-     */
-    public void deleteCursor(CursorId id) {
-        cursors.remove(id);
-    }
-
     /**
      * Check if a variable exists.
      *
@@ -96,24 +60,20 @@ public class Scope {
     }
 
     /**
-     * Check if a cursor exists.
-     *
-     * @param id the id to check for
-     * @return {@code true} if a cursor with the given id is found
+     * Remove all variables of this scope so it can be reused.
      */
-    public boolean containsCursor(CursorId id) {
-        return cursors.containsKey(id);
+    public void clear() {
+        variables.clear();
     }
 
-    public Set<Map.Entry<CursorId, Cursor>> getCursors() {
-        return cursors.entrySet();
+    public Set<Map.Entry<String, Variable>> getVariables() {
+        return variables.entrySet();
     }
 
     @Override
     public String toString() {
         return "Scope{" +
                 "directVariables=" + variables +
-                ", directCursors=" + cursors +
                 '}';
     }
 }
\ No newline at end of file
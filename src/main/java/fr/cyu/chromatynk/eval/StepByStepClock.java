@@ -2,7 +2,7 @@ package fr.cyu.chromatynk.eval;
 
 public class StepByStepClock implements Clock{
 
-    private boolean resumed;
+    private volatile boolean resumed;
 
     public StepByStepClock(boolean resumed) {
         this.resumed = resumed;
@@ -0,0 +1,254 @@
+package fr.cyu.chromatynk.eval;
+
+import fr.cyu.chromatynk.draw.DisplayList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An execution that can go back in time.
+ * <p>
+ * A {@link Checkpoint} of the context is taken every {@link #getInterval() interval} executed instructions. Going back
+ * to a previous step restores the nearest checkpoint before it then replays the instructions in between. A smaller
+ * interval makes seeking faster but uses more memory.
+ * <p>
+ * The history is bounded: when {@link #getMaxCheckpoints() too many} checkpoints are taken, every other one is dropped
+ * and the interval doubles. Checkpoints whose lines were flattened by the {@link DisplayList} are dropped too, so the
+ * execution can only go back to the oldest remaining checkpoint.
+ */
+public class Timeline {
+
+    /**
+     * The default number of executed instructions between two checkpoints.
+     */
+    public static final int DEFAULT_INTERVAL = 1024;
+
+    /**
+     * The default maximum number of kept checkpoints.
+     */
+    public static final int DEFAULT_MAX_CHECKPOINTS = 256;
+
+    private final EvalContext context;
+    private final DisplayList displayList;
+    private final List<Checkpoint> checkpoints;
+    private final int maxCheckpoints;
+    private int interval;
+    private Profiler profiler;
+
+    /**
+     * Create a new timeline starting at the current state of the given context.
+     *
+     * @param context the context to execute
+     * @param displayList the display list the context draws on
+     * @param interval the initial number of executed instructions between two checkpoints
+     * @param maxCheckpoints the maximum number of kept checkpoints
+     */
+    public Timeline(EvalContext context, DisplayList displayList, int interval, int maxCheckpoints) {
+        if(interval <= 0) throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+        if(maxCheckpoints < 2) throw new IllegalArgumentException("At least 2 checkpoints must be kept: " + maxCheckpoints);
+
+        this.context = context;
+        this.displayList = displayList;
+        this.checkpoints = new ArrayList<>();
+        this.maxCheckpoints = maxCheckpoints;
+        this.interval = interval;
+        this.checkpoints.add(takeCheckpoint());
+    }
+
+    /**
+     * Create a new timeline starting at the current state of the given context, keeping at most
+     * {@link #DEFAULT_MAX_CHECKPOINTS} checkpoints.
+     *
+     * @param context the context to execute
+     * @param displayList the display list the context draws on
+     * @param interval the initial number of executed instructions between two checkpoints
+     */
+    public Timeline(EvalContext context, DisplayList displayList, int interval) {
+        this(context, displayList, interval, DEFAULT_MAX_CHECKPOINTS);
+    }
+
+    /**
+     * Get the executed context.
+     */
+    public EvalContext getContext() {
+        return context;
+    }
+
+    /**
+     * Get the display list the context draws on.
+     */
+    public DisplayList getDisplayList() {
+        return displayList;
+    }
+
+    /**
+     * Get the taken checkpoints, ordered by step.
+     */
+    public List<Checkpoint> getCheckpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * Get the maximum number of kept checkpoints.
+     */
+    public int getMaxCheckpoints() {
+        return maxCheckpoints;
+    }
+
+    /**
+     * Get the number of executed instructions between two checkpoints.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Set the number of executed instructions between two checkpoints. Already taken checkpoints are kept.
+     *
+     * @param interval the new interval
+     */
+    public void setInterval(int interval) {
+        if(interval <= 0) throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+        this.interval = interval;
+    }
+
+    /**
+     * Get the profiler recording the executions.
+     *
+     * @return the profiler or {@code null} if the execution is not profiled
+     */
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Set the profiler recording the executions. Each checkpoint keeps a {@link Profiler.Snapshot snapshot} of the
+     * profiler which is restored along with it, so the profile covers the instructions executed to reach the current
+     * step. Going back to a checkpoint taken before the profiler was set resets it.
+     *
+     * @param profiler the profiler of the context's instructions, {@code null} to not profile
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Evaluate the next instruction, recording it in the profiler if any.
+     */
+    private void evaluateNext() throws EvalException {
+        if(profiler == null) Interpreter.evaluate(context, context.next());
+        else profiler.evaluateNext(context);
+
+        dropFlattened();
+        checkpointIfNeeded();
+    }
+
+    private Checkpoint takeCheckpoint() {
+        Checkpoint checkpoint = context.checkpoint(displayList.size());
+        if(profiler != null) checkpoint.profile = profiler.snapshot();
+        return checkpoint;
+    }
+
+    /**
+     * Drop the checkpoints which can no longer be restored because their lines were flattened.
+     */
+    private void dropFlattened() {
+        int flattened = displayList.getFlattened();
+        if(checkpoints.getFirst().getDisplayOffset() >= flattened) return;
+
+        checkpoints.removeIf(checkpoint -> checkpoint.getDisplayOffset() < flattened);
+        if(checkpoints.isEmpty()) checkpoints.add(takeCheckpoint());
+    }
+
+    private void checkpointIfNeeded() {
+        long step = context.getStep();
+        if(step % interval == 0 && step > checkpoints.getLast().getStep()) {
+            checkpoints.add(takeCheckpoint());
+            if(checkpoints.size() > maxCheckpoints) thin();
+        }
+    }
+
+    /**
+     * Drop every other checkpoint, keeping the oldest one, and double the interval.
+     */
+    private void thin() {
+        for(int i = 1; i < checkpoints.size(); i++) checkpoints.remove(i);
+        if(interval <= Integer.MAX_VALUE / 2) interval *= 2;
+    }
+
+    /**
+     * Evaluate the instructions while the clock allows it, taking checkpoints along the way.
+     *
+     * @param clock the clock controlling the execution
+     * @return the executed context
+     * @throws EvalException if an evaluation error occurs
+     */
+    public EvalContext evaluateAll(Clock clock) throws EvalException {
+        while (context.hasNext() && clock.tick(context.peek().isEffectful())) evaluateNext();
+
+        return context;
+    }
+
+    /**
+     * Get the index of the latest checkpoint taken at or before the given step.
+     */
+    private int getCheckpointIndex(long step) {
+        int low = 0;
+        int high = checkpoints.size() - 1;
+        while(low < high) {
+            int middle = (low + high + 1) / 2;
+            if(checkpoints.get(middle).getStep() <= step) low = middle;
+            else high = middle - 1;
+        }
+
+        return low;
+    }
+
+    private void restore(Checkpoint checkpoint) {
+        context.restore(checkpoint);
+        displayList.rewind(checkpoint.getDisplayOffset());
+
+        if(profiler == null) return;
+        if(checkpoint.profile == null) profiler.reset();
+        else profiler.restore(checkpoint.profile);
+    }
+
+    /**
+     * Go to the state of the execution after the given number of instructions.
+     *
+     * @param step the number of executed instructions to seek to. Stops at the end of the program if it is reached first
+     * @throws EvalException if an evaluation error occurs while replaying
+     */
+    public void seek(long step) throws EvalException {
+        if(step < context.getStep()) restore(checkpoints.get(getCheckpointIndex(step)));
+        while(context.getStep() < step && context.hasNext()) evaluateNext();
+    }
+
+    /**
+     * Go back to the previous effectful instruction, where a step-by-step execution paused.
+     *
+     * @return {@code true} if the execution went back, {@code false} if no effectful instruction was executed yet
+     * @throws EvalException if an evaluation error occurs while replaying
+     */
+    public boolean stepBack() throws EvalException {
+        long current = context.getStep();
+        if(current == 0) return false;
+
+        for(int i = getCheckpointIndex(current - 1); i >= 0; i--) {
+            restore(checkpoints.get(i));
+
+            long previous = -1;
+            while(context.getStep() < current && context.hasNext()) {
+                if(context.peek().isEffectful()) previous = context.getStep();
+                evaluateNext();
+            }
+
+            if(previous >= 0) {
+                seek(previous);
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package fr.cyu.chromatynk.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The export of a drawing to an image, from the editor or the render server.
+ */
+@Name("fr.cyu.chromatynk.CanvasExport")
+@Label("Canvas Export")
+@Category({"Chromat'ynk", "Rendering"})
+@Description("The export of a drawing to an image")
+public class CanvasExportEvent extends Event {
+
+    @Label("Format")
+    public String format;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Destination")
+    @Description("The written file or the service the image was sent to")
+    public String destination;
+}
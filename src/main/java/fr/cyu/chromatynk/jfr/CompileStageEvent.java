@@ -0,0 +1,47 @@
+package fr.cyu.chromatynk.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A stage of the compilation of a script: lexing, parsing, typechecking or bytecode generation.
+ * <p>
+ * Counts not produced by the stage are left to -1.
+ */
+@Name("fr.cyu.chromatynk.CompileStage")
+@Label("Compile Stage")
+@Category({"Chromat'ynk", "Compilation"})
+@Description("A stage of the compilation of a script")
+public class CompileStageEvent extends Event {
+
+    public static final String LEX = "lex";
+    public static final String PARSE = "parse";
+    public static final String TYPECHECK = "typecheck";
+    public static final String COMPILE = "compile";
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Source Length")
+    @Description("The number of characters of the source, if known")
+    public int sourceLength = -1;
+
+    @Label("Tokens")
+    public int tokens = -1;
+
+    @Label("Statements")
+    @Description("The number of top-level statements")
+    public int statements = -1;
+
+    @Label("Instructions")
+    @Description("The number of generated bytecode instructions")
+    public int instructions = -1;
+
+    /**
+     * Create a new event for the given stage.
+     *
+     * @param stage the name of the stage
+     */
+    public CompileStageEvent(String stage) {
+        this.stage = stage;
+    }
+}
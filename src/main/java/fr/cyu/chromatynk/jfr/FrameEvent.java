@@ -0,0 +1,38 @@
+package fr.cyu.chromatynk.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A frame of the editor, compositing the progress of the visible script on the screen.
+ * <p>
+ * The event duration covers the composition. The evaluation counters cover the slices executed since the previous
+ * frame of the same session.
+ */
+@Name("fr.cyu.chromatynk.Frame")
+@Label("Editor Frame")
+@Category({"Chromat'ynk", "Execution"})
+@Description("The composition of a script's drawing and the evaluation since the previous frame")
+public class FrameEvent extends Event {
+
+    @Label("Instructions")
+    @Description("The number of instructions executed since the previous frame")
+    public long instructions;
+
+    @Label("Effectful Instructions")
+    @Description("The number of effectful instructions executed since the previous frame")
+    public long effectfulInstructions;
+
+    @Label("Interpreter Time")
+    @Description("The time spent evaluating since the previous frame")
+    @Timespan(Timespan.NANOSECONDS)
+    public long interpreterTime;
+
+    @Label("Drawn Segments")
+    @Description("The number of segments composited on the screen")
+    public long segments;
+
+    @Label("Draw Time")
+    @Description("The time spent compositing the segments and cursors")
+    @Timespan(Timespan.NANOSECONDS)
+    public long drawTime;
+}
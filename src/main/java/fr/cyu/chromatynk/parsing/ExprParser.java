@@ -1,6 +1,7 @@
 package fr.cyu.chromatynk.parsing;
 
 import fr.cyu.chromatynk.ast.Expr;
+import fr.cyu.chromatynk.util.Position;
 import fr.cyu.chromatynk.util.Range;
 import fr.cyu.chromatynk.util.TriFunction;
 
@@ -12,6 +13,13 @@ import static fr.cyu.chromatynk.parsing.CommonParser.tokenOf;
 
 /**
  * The expression parser of Chromat'ynk. Transforms tokens into AST expressions.
+ * <p>
+ * Binary operators are parsed by a single Pratt parser driven by a binding-power table. Each precedence level is an
+ * entry point of this parser, only reading the operators binding at least as tight as the level.
+ * <p>
+ * The parsers are built once, when this class is initialized, and hold no state: parses of different inputs can share
+ * them, including from different threads. A parser must be declared after the ones it uses, recursive references going
+ * through {@link Parser#lazy(java.util.function.Supplier)}.
  */
 public class ExprParser {
 
@@ -57,44 +65,52 @@ public class ExprParser {
         };
     }
 
+    private static final Parser<Token, Expr> LITERAL = anyToken().map(token -> switch (token) {
+        case Token.LiteralBool(Range range, boolean value) -> new Expr.LiteralBool(range, value);
+        case Token.LiteralString(Range range, String value) -> new Expr.LiteralString(range, value);
+        case Token.LiteralInt(Range range, int value) -> new Expr.LiteralInt(range, value);
+        case Token.LiteralFloat(Range range, double value) -> new Expr.LiteralFloat(range, value);
+        case Token.LiteralColor(Range range, String hex) -> parseHexColor(range, hex.substring(1));
+        default -> throw new UnexpectedInputException(token.range(), "Literal value", token.toPrettyString());
+    });
+
     /**
      * Literal parser.
      */
     public static Parser<Token, Expr> literal() {
-        return anyToken().map(token -> switch (token) {
-            case Token.LiteralBool(Range range, boolean value) -> new Expr.LiteralBool(range, value);
-            case Token.LiteralString(Range range, String value) -> new Expr.LiteralString(range, value);
-            case Token.LiteralInt(Range range, int value) -> new Expr.LiteralInt(range, value);
-            case Token.LiteralFloat(Range range, double value) -> new Expr.LiteralFloat(range, value);
-            case Token.LiteralColor(Range range, String hex) -> parseHexColor(range, hex.substring(1));
-            default -> throw new UnexpectedInputException(token.range(), "Literal value", token.toPrettyString());
-        });
+        return LITERAL;
     }
 
+    private static final Parser<Token, Expr> VAR_CALL = tokenOf(Token.Identifier.class).map(id -> new Expr.VarCall(id.range(), id.name()));
+
     /**
      * Variable call parser.
      */
     public static Parser<Token, Expr> varCall() {
-        return tokenOf(Token.Identifier.class).map(id -> new Expr.VarCall(id.range(), id.name()));
+        return VAR_CALL;
     }
 
+    private static final Parser<Token, Expr> PARENTHESIZED = tokenOf(Token.ParenthesisOpen.class, "(")
+            .zip(Parser.lazy(ExprParser::anyExpr))
+            .zip(tokenOf(Token.ParenthesisClosed.class, ")"))
+            .map(result -> result.a().b());
+
     /**
      * Parenthesized expression parser.
      */
     public static Parser<Token, Expr> parenthesized() {
-        return tokenOf(Token.ParenthesisOpen.class, "(")
-                .zip(Parser.lazy(ExprParser::anyExpr))
-                .zip(tokenOf(Token.ParenthesisClosed.class, ")"))
-                .map(result -> result.a().b());
+        return PARENTHESIZED;
     }
 
+    private static final Parser<Token, Expr> INVOKABLE = Parser
+            .firstSucceeding(literal(), varCall(), parenthesized())
+            .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal invokable expression"));
+
     /**
      * Invokable expression parser. Either a literal, variable call or parenthesized expression.
      */
     public static Parser<Token, Expr> invokable() {
-        return Parser
-                .firstSucceeding(literal(), varCall(), parenthesized())
-                .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal invokable expression"));
+        return INVOKABLE;
     }
 
     private static final Map<Class<? extends Token.Operator>, BiFunction<Range, Expr, Expr>> PREFIX_OPS = Map.ofEntries(
@@ -107,29 +123,51 @@ public class ExprParser {
             Map.entry(Token.Percent.class, Expr.Percent::new)
     );
 
-    private static final Map<Class<? extends Token.Operator>, TriFunction<Range, Expr, Expr, Expr>> BOOLEAN_OPS = Map.ofEntries(
-            Map.entry(Token.And.class, Expr.And::new),
-            Map.entry(Token.Or.class, Expr.Or::new)
-    );
+    /**
+     * The binding power of boolean operators, the lowest.
+     */
+    private static final int BOOLEAN_POWER = 1;
 
-    private static final Map<Class<? extends Token.Operator>, TriFunction<Range, Expr, Expr, Expr>> COMPARISON_OPS = Map.ofEntries(
-            Map.entry(Token.Equal.class, Expr.Equal::new),
-            Map.entry(Token.NotEqual.class, Expr.NotEqual::new),
-            Map.entry(Token.Greater.class, Expr.Greater::new),
-            Map.entry(Token.Less.class, Expr.Less::new),
-            Map.entry(Token.GreaterEqual.class, Expr.GreaterEqual::new),
-            Map.entry(Token.LessEqual.class, Expr.LessEqual::new)
-    );
+    /**
+     * The binding power of comparison operators.
+     */
+    private static final int COMPARISON_POWER = 2;
 
-    private static final Map<Class<? extends Token.Operator>, TriFunction<Range, Expr, Expr, Expr>> ARITHMETIC_OPS = Map.ofEntries(
-            Map.entry(Token.Plus.class, Expr.Add::new),
-            Map.entry(Token.Minus.class, Expr.Sub::new)
-    );
+    /**
+     * The binding power of addition and subtraction.
+     */
+    private static final int ARITHMETIC_POWER = 3;
+
+    /**
+     * The binding power of multiplication, division and modulo, the highest.
+     */
+    private static final int MULTIPLICATION_POWER = 4;
+
+    /**
+     * A left-associative binary operator.
+     *
+     * @param power the binding power of the operator, higher binding tighter
+     * @param constructor the constructor of the expression from its range and operands
+     */
+    private record InfixOperator(int power, TriFunction<Range, Expr, Expr, Expr> constructor) {}
 
-    private static final Map<Class<? extends Token.Operator>, TriFunction<Range, Expr, Expr, Expr>> MULTIPLICATION_OPS = Map.ofEntries(
-            Map.entry(Token.Mul.class, Expr.Mul::new),
-            Map.entry(Token.Div.class, Expr.Div::new),
-            Map.entry(Token.Mod.class, Expr.Modulo::new)
+    /**
+     * The binding-power table of binary operators.
+     */
+    private static final Map<Class<? extends Token.Operator>, InfixOperator> INFIX_OPS = Map.ofEntries(
+            Map.entry(Token.And.class, new InfixOperator(BOOLEAN_POWER, Expr.And::new)),
+            Map.entry(Token.Or.class, new InfixOperator(BOOLEAN_POWER, Expr.Or::new)),
+            Map.entry(Token.Equal.class, new InfixOperator(COMPARISON_POWER, Expr.Equal::new)),
+            Map.entry(Token.NotEqual.class, new InfixOperator(COMPARISON_POWER, Expr.NotEqual::new)),
+            Map.entry(Token.Greater.class, new InfixOperator(COMPARISON_POWER, Expr.Greater::new)),
+            Map.entry(Token.Less.class, new InfixOperator(COMPARISON_POWER, Expr.Less::new)),
+            Map.entry(Token.GreaterEqual.class, new InfixOperator(COMPARISON_POWER, Expr.GreaterEqual::new)),
+            Map.entry(Token.LessEqual.class, new InfixOperator(COMPARISON_POWER, Expr.LessEqual::new)),
+            Map.entry(Token.Plus.class, new InfixOperator(ARITHMETIC_POWER, Expr.Add::new)),
+            Map.entry(Token.Minus.class, new InfixOperator(ARITHMETIC_POWER, Expr.Sub::new)),
+            Map.entry(Token.Mul.class, new InfixOperator(MULTIPLICATION_POWER, Expr.Mul::new)),
+            Map.entry(Token.Div.class, new InfixOperator(MULTIPLICATION_POWER, Expr.Div::new)),
+            Map.entry(Token.Mod.class, new InfixOperator(MULTIPLICATION_POWER, Expr.Modulo::new))
     );
 
     private static Expr parseUnaryOperator(Token.Operator opToken, Expr expr, String opType, Map<Class<? extends Token.Operator>, BiFunction<Range, Expr, Expr>> operators) throws ParsingException {
@@ -139,74 +177,172 @@ public class ExprParser {
             throw new UnexpectedInputException(opToken.range(), opType + " operator", "Operator \"" + opToken.toPrettyString() + "\"");
     }
 
+    private static final Parser<Token, Expr> PREFIX_OPERATOR = tokenOf(Token.Operator.class)
+            .zip(invokable())
+            .map(tpl -> parseUnaryOperator(tpl.a(), tpl.b(), "Prefix", PREFIX_OPS));
+
     /**
      * Prefix operator parser.
      */
     public static Parser<Token, Expr> prefixOperator() {
-        return tokenOf(Token.Operator.class)
-                .zip(invokable())
-                .map(tpl -> parseUnaryOperator(tpl.a(), tpl.b(), "Prefix", PREFIX_OPS));
+        return PREFIX_OPERATOR;
     }
 
+    private static final Parser<Token, Expr> SUFFIX_OPERATOR = invokable()
+            .zip(tokenOf(Token.Operator.class))
+            .map(tpl -> parseUnaryOperator(tpl.b(), tpl.a(), "Suffix", SUFFIX_OPS));
+
     /**
      * Suffix operator parser.
      */
     public static Parser<Token, Expr> suffixOperator() {
-        return invokable()
-                .zip(tokenOf(Token.Operator.class))
-                .map(tpl -> parseUnaryOperator(tpl.b(), tpl.a(), "Suffix", SUFFIX_OPS));
+        return SUFFIX_OPERATOR;
     }
 
+    private static final Parser<Token, Expr> UNARY_OPERATOR = Parser
+            .firstSucceeding(prefixOperator(), suffixOperator(), invokable())
+            .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal prefixed/suffixed invokable expression"));
+
     /**
      * Unary (prefix or suffix) operator parser. Can parse an invocable without suffix/prefix operator.
      */
     public static Parser<Token, Expr> unaryOperator() {
-        return Parser
-                .firstSucceeding(prefixOperator(), suffixOperator(), invokable())
-                .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal prefixed/suffixed invokable expression"));
+        return UNARY_OPERATOR;
     }
 
-    private static Parser<Token, Expr> binaryOperatorParser(Parser<Token, Expr> operand, String opType, Map<Class<? extends Token.Operator>, TriFunction<Range, Expr, Expr, Expr>> operators) {
-        return operand.repeatReduce(tokenOf(Token.Operator.class).map(opToken -> {
-            if (operators.containsKey(opToken.getClass()))
-                return (left, right) -> operators.get(opToken.getClass()).apply(left.range().merge(right.range()), left, right);
-            else
-                throw new UnexpectedInputException(opToken.range(), opType + " operator", "Operator \"" + opToken.toPrettyString() + "\"");
-        }));
+    /**
+     * A Pratt parser of binary operators, reading an expression and its operators in a single pass.
+     * <p>
+     * Operands are unary expressions. Like a chain of {@link Parser#repeatReduce(Parser)} layers, an operator not
+     * followed by a valid operand is left unconsumed and ends the whole expression.
+     */
+    private static final class PrattParser {
+
+        private final ParsingIterator<? extends Token> iterator;
+        private boolean ended;
+
+        private PrattParser(ParsingIterator<? extends Token> iterator) {
+            this.iterator = iterator;
+        }
+
+        /**
+         * Parse a prefixed, suffixed or bare invokable, like {@link #unaryOperator()} without backtracking.
+         */
+        private Expr parseUnary() throws ParsingException {
+            Position start = iterator.getPosition();
+
+            try {
+                if(iterator.hasNext() && iterator.peek() instanceof Token.Operator operator) {
+                    BiFunction<Range, Expr, Expr> prefix = PREFIX_OPS.get(operator.getClass());
+                    if(prefix != null) {
+                        iterator.next();
+                        Expr expr = INVOKABLE.parse(iterator).value();
+                        return prefix.apply(operator.range().merge(expr.range()), expr);
+                    }
+                } else {
+                    Expr expr = INVOKABLE.parse(iterator).value();
+                    if(iterator.hasNext() && iterator.peek() instanceof Token.Operator operator) {
+                        BiFunction<Range, Expr, Expr> suffix = SUFFIX_OPS.get(operator.getClass());
+                        if(suffix != null) {
+                            iterator.next();
+                            return suffix.apply(operator.range().merge(expr.range()), expr);
+                        }
+                    }
+
+                    return expr;
+                }
+            } catch (ParsingException.NonFatal ignored) {}
+
+            throw new ParsingException.NonFatal(new Range(start, start), "Illegal prefixed/suffixed invokable expression");
+        }
+
+        /**
+         * Parse an expression whose operators bind at least as tight as the given power.
+         */
+        private Expr parse(int minPower) throws ParsingException {
+            Expr left = parseUnary();
+
+            while (!ended && iterator.hasNext() && iterator.peek() instanceof Token.Operator token) {
+                InfixOperator operator = INFIX_OPS.get(token.getClass());
+                if(operator == null || operator.power() < minPower) break;
+
+                int cursor = iterator.getCursor();
+                Position position = iterator.getPosition();
+                iterator.next();
+
+                Expr right;
+                try {
+                    right = parse(operator.power() + 1);
+                } catch (ParsingException.NonFatal e) {
+                    iterator.setCursor(cursor);
+                    iterator.setPosition(position);
+                    ended = true;
+                    break;
+                }
+
+                left = operator.constructor().apply(left.range().merge(right.range()), left, right);
+            }
+
+            return left;
+        }
+    }
+
+    private static Parser<Token, Expr> binaryOperatorParser(int minPower) {
+        return iterator -> {
+            Position from = iterator.getPosition();
+            Expr expr = new PrattParser(iterator).parse(minPower);
+            return new Parser.Result<>(new Range(from, iterator.getPosition()), expr);
+        };
     }
 
+    private static final Parser<Token, Expr> MULTIPLICATION_OPERATOR = binaryOperatorParser(MULTIPLICATION_POWER);
+
     /**
      * Multiplication/Division parser. Has higher precedence than arithmetic operators.
      */
     public static Parser<Token, Expr> multiplicationOperator() {
-        return binaryOperatorParser(unaryOperator(), "* or /", MULTIPLICATION_OPS);
+        return MULTIPLICATION_OPERATOR;
     }
 
+    private static final Parser<Token, Expr> ARITHMETIC_OPERATOR = binaryOperatorParser(ARITHMETIC_POWER);
+
     /**
      * Addition/Subtraction parser. Has higher precedence than comparison operators.
      */
     public static Parser<Token, Expr> arithmeticOperator() {
-        return binaryOperatorParser(multiplicationOperator(), "+ or -", ARITHMETIC_OPS);
+        return ARITHMETIC_OPERATOR;
     }
 
+    private static final Parser<Token, Expr> COMPARISON_OPERATOR = binaryOperatorParser(COMPARISON_POWER);
+
     /**
      * Comparison operator parser. Has higher precedence than boolean operators.
      */
     public static Parser<Token, Expr> comparisonOperator() {
-        return binaryOperatorParser(arithmeticOperator(), "Comparison", COMPARISON_OPS);
+        return COMPARISON_OPERATOR;
     }
 
+    private static final Parser<Token, Expr> BOOLEAN_OPERATOR = binaryOperatorParser(BOOLEAN_POWER);
+
     /**
      * And/Or parser ({@code Not} is a prefix operator). Lowest precedence.
      */
     public static Parser<Token, Expr> booleanOperator() {
-        return binaryOperatorParser(comparisonOperator(), "Boolean", BOOLEAN_OPS);
+        return BOOLEAN_OPERATOR;
     }
 
+    /*
+     * Whole expressions are parsed again by each alternative of the instruction parser. They are memoized and built
+     * once so their identity is stable.
+     */
+    private static final Parser<Token, Expr> ANY_EXPR = booleanOperator()
+            .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal start of expression"))
+            .memoized();
+
     /**
      * Any expression parser.
      */
     public static Parser<Token, Expr> anyExpr() {
-        return booleanOperator().mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal start of expression"));
+        return ANY_EXPR;
     }
 }
@@ -142,9 +142,9 @@ public class Lexer {
 
 
     /**
-     * The full parser converting a Character sequence input to a sequence of {@link Token}.
+     * Parser for any single {@link Token}.
      */
-    public static final Parser<Character, List<Token>> TOKENS_PARSER = firstSucceeding(
+    public static final Parser<Character, Token> TOKEN_PARSER = firstSucceeding(
             LITERAL_BOOL_PARSER,
             LITERAL_STRING_PARSER,
             LITERAL_FLOAT_PARSER,
@@ -153,7 +153,14 @@ public class Lexer {
             SYMBOL_PARSER,
             KEYWORD_PARSER,
             IDENTIFIER_PARSER
-    ).repeat().mapWithRange((r, list) -> {
+    );
+
+    /**
+     * The full parser converting a Character sequence input to a sequence of {@link Token}.
+     *
+     * @see StreamingLexer
+     */
+    public static final Parser<Character, List<Token>> TOKENS_PARSER = TOKEN_PARSER.repeat().mapWithRange((r, list) -> {
         list.add(new EndOfFile(r.to()));
         return list;
     });
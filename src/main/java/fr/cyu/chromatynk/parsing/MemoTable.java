@@ -0,0 +1,121 @@
+package fr.cyu.chromatynk.parsing;
+
+import fr.cyu.chromatynk.util.Position;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The results of the {@link Parser#memoized() memoized} parsers during a single parse, shared by every copy of the
+ * {@link ParsingIterator} it is attached to.
+ * <p>
+ * Results and non-fatal failures are keyed by the identity of the memoized parser and the cursor it started at, so an
+ * alternative backtracking over an already parsed input reuses its result instead of parsing it again. The table holds
+ * at most a fixed number of entries and evicts the oldest ones first: parsing mostly moves forward so they are the least
+ * likely to be hit again.
+ */
+public final class MemoTable {
+
+    /**
+     * The default maximum number of entries of a table.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final AtomicInteger NEXT_PARSER_ID = new AtomicInteger();
+
+    /**
+     * A memoized outcome of a parser.
+     *
+     * @param result the parsed result or {@code null} if the parser failed
+     * @param error the thrown error or {@code null} if the parser succeeded
+     * @param cursor the cursor of the iterator after the parser succeeded
+     * @param position the position of the iterator after the parser succeeded
+     */
+    record Entry(Parser.Result<?> result, ParsingException.NonFatal error, int cursor, Position position) {}
+
+    private final Map<Long, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * Create a new empty table.
+     *
+     * @param capacity the maximum number of entries of this table
+     */
+    public MemoTable(int capacity) {
+        if(capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Create a new empty table of {@link #DEFAULT_CAPACITY default capacity}.
+     */
+    public MemoTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Get a new identifier for a memoized parser.
+     */
+    static int newParserId() {
+        return NEXT_PARSER_ID.getAndIncrement();
+    }
+
+    private static long key(int parserId, int cursor) {
+        return (long) parserId << 32 | cursor & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Get the memoized outcome of a parser.
+     *
+     * @param parserId the identifier of the parser
+     * @param cursor the cursor the parser started at
+     * @return the outcome of the parser or {@code null} if it was not memoized
+     */
+    Entry get(int parserId, int cursor) {
+        Entry entry = entries.get(key(parserId, cursor));
+        if(entry == null) misses++;
+        else hits++;
+
+        return entry;
+    }
+
+    /**
+     * Memoize the outcome of a parser.
+     *
+     * @param parserId the identifier of the parser
+     * @param cursor the cursor the parser started at
+     * @param entry the outcome of the parser
+     */
+    void put(int parserId, int cursor, Entry entry) {
+        entries.put(key(parserId, cursor), entry);
+    }
+
+    /**
+     * Get the number of memoized outcomes.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of lookups which reused a memoized outcome.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups which had to run their parser.
+     */
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -108,6 +108,44 @@ public interface Parser<I, O> {
         };
     }
 
+    /**
+     * Memoize this parser in the {@link MemoTable} of the parsed iterator, if any.
+     * <p>
+     * Each call creates a parser of a new identity: the outcome of this parser at a given cursor, either its result or
+     * its non-fatal failure, is only reused by the returned instance. Memoized parsers must then be created once and
+     * shared by the alternatives backtracking over them. This parser must only depend on the input after the cursor.
+     *
+     * @return a parser reusing the outcome of this one when parsing again from the same cursor
+     */
+    @SuppressWarnings("unchecked")
+    default Parser<I, O> memoized() {
+        int id = MemoTable.newParserId();
+        return iterator -> {
+            MemoTable table = iterator.getMemoTable();
+            if(table == null) return this.parse(iterator);
+
+            int start = iterator.getCursor();
+            MemoTable.Entry entry = table.get(id, start);
+            if(entry != null) {
+                if(entry.error() != null) throw entry.error();
+
+                iterator.setCursor(entry.cursor());
+                iterator.setPosition(entry.position());
+                //Cast safe since the entry was stored by this parser.
+                return (Result<O>) entry.result();
+            }
+
+            try {
+                Result<O> result = this.parse(iterator);
+                table.put(id, start, new MemoTable.Entry(result, null, iterator.getCursor(), iterator.getPosition()));
+                return result;
+            } catch (ParsingException.NonFatal e) {
+                table.put(id, start, new MemoTable.Entry(null, e, start, null));
+                throw e;
+            }
+        };
+    }
+
     /**
      * Repeat this parser until the first failure.
      *
@@ -116,7 +154,7 @@ public interface Parser<I, O> {
     default Parser<I, List<O>> repeat() {
         return iterator -> {
             ParsingIterator<? extends I> lastLeftover = iterator.copy();
-            List<O> values = new LinkedList<>();
+            List<O> values = new ArrayList<>();
 
             Position from = iterator.getPosition();
             Position to = from;
@@ -377,11 +415,10 @@ public interface Parser<I, O> {
     static Parser<Character, String> matching(String regex) {
         Pattern pattern = Pattern.compile(regex);
         return iterator -> {
-            StringBuilder remainingInput = new StringBuilder();
-            iterator.copy().forEachRemainingKeepWhitespaces(remainingInput::append);
+            CharSequence remainingInput = remainingCharacters(iterator);
 
-            Matcher matcher = pattern.matcher(remainingInput.toString());
-            if(matcher.find() && matcher.start() == 0) {
+            Matcher matcher = pattern.matcher(remainingInput);
+            if(matcher.lookingAt()) {
                 int matcherEnd = iterator.getCursor()+matcher.end();
                 Position from = iterator.getPosition();
                 while (iterator.getCursor() < matcherEnd) iterator.nextKeepWhitespaces();
@@ -389,15 +426,60 @@ public interface Parser<I, O> {
 
                 iterator.handleWhitespaces();
 
-                return new Result<>(new Range(from, to), remainingInput.substring(matcher.start(), matcher.end()));
+                return new Result<>(new Range(from, to), remainingInput.subSequence(0, matcher.end()).toString());
             } else throw new UnexpectedInputException(
                     new Range(iterator.getPosition(), iterator.getPosition()),
                     "String matching regex: " + regex.replace("\\", "\\\\").translateEscapes(),
-                    remainingInput.toString()
+                    remainingWord(remainingInput)
             );
         };
     }
 
+    /**
+     * A view of the remaining characters of an iterator, without copying them.
+     *
+     * @param iterator the iterator to read from
+     * @return the characters from the cursor of {@code iterator} to the end of its input
+     */
+    private static CharSequence remainingCharacters(ParsingIterator<? extends Character> iterator) {
+        List<? extends Character> input = iterator.getInput();
+        int cursor = iterator.getCursor();
+
+        return new CharSequence() {
+            @Override
+            public int length() {
+                return input.size() - cursor;
+            }
+
+            @Override
+            public char charAt(int index) {
+                return input.get(cursor + index);
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                StringBuilder builder = new StringBuilder(end - start);
+                for(int i = start; i < end; i++) builder.append(charAt(i));
+                return builder;
+            }
+
+            @Override
+            public String toString() {
+                return subSequence(0, length()).toString();
+            }
+        };
+    }
+
+    /**
+     * Get the remaining input up to the next whitespace, used to report a failure without copying the rest of the input.
+     * Alternatives are tried and fail on almost every token so the reported input is also capped in length.
+     */
+    private static String remainingWord(CharSequence remainingInput) {
+        int end = 0;
+        while (end < remainingInput.length() && end < 32 && !Character.isWhitespace(remainingInput.charAt(end))) end++;
+        return remainingInput.subSequence(0, end).toString();
+    }
+
     /**
      * An alphabetic keyword parser.
      * For keyword "keyword":
@@ -5,6 +5,9 @@ import fr.cyu.chromatynk.util.Range;
 
 /**
  * An exception occurring while parsing a wrong input.
+ * <p>
+ * Parsers throw and catch non-fatal exceptions to backtrack, often several times per token, so parsing exceptions do
+ * not record their stack trace.
  */
 public sealed class ParsingException extends ChromatynkException {
 
@@ -15,7 +18,7 @@ public sealed class ParsingException extends ChromatynkException {
      * @param message the error message
      */
     private ParsingException(Range range, String message) {
-        super(range, message, "Parsing error.");
+        super(range, message, "Parsing error.", false);
     }
 
     /**
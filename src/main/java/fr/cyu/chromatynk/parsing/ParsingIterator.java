@@ -21,6 +21,7 @@ public class ParsingIterator<T> implements Iterator<T> {
     private Position position;
     private final Predicate<T> whitespace;
     private final Predicate<T> lineSeparator;
+    private MemoTable memoTable;
 
     /**
      * Create a new {@link ParsingIterator}.
@@ -101,6 +102,24 @@ public class ParsingIterator<T> implements Iterator<T> {
         return input;
     }
 
+    /**
+     * Get the table of the {@link Parser#memoized() memoized} parsers, shared with the copies of this iterator.
+     *
+     * @return the memo table or {@code null} if memoization is disabled
+     */
+    public MemoTable getMemoTable() {
+        return memoTable;
+    }
+
+    /**
+     * Set the table of the {@link Parser#memoized() memoized} parsers. It is shared with the copies of this iterator.
+     *
+     * @param memoTable the memo table or {@code null} to disable memoization
+     */
+    public void setMemoTable(MemoTable memoTable) {
+        this.memoTable = memoTable;
+    }
+
     /**
      * Iterate over remaining elements without skipping whitespaces.
      *
@@ -130,16 +149,12 @@ public class ParsingIterator<T> implements Iterator<T> {
      * Iterate over whitespaces and line breaks until the next character is not a whitespace nor a line break.
      */
     public void handleWhitespaces() {
-        if (!hasNext()) return;
+        while (hasNext()) {
+            if (lineSeparator.test(peek())) position = position.nextRow();
+            else if (whitespace.test(peek())) position = position.nextColumn();
+            else return;
 
-        if (lineSeparator.test(peek())) {
-            position = position.nextRow();
-            cursor++;
-            handleWhitespaces();
-        } else if (whitespace.test(peek())) {
-            position = position.nextColumn();
             cursor++;
-            handleWhitespaces();
         }
     }
 
@@ -170,7 +185,9 @@ public class ParsingIterator<T> implements Iterator<T> {
      * @return a new instance of {@link ParsingIterator} with the same state as this one
      */
     public ParsingIterator<T> copy() {
-        return new ParsingIterator<>(input, cursor, position, whitespace, lineSeparator);
+        ParsingIterator<T> copy = new ParsingIterator<>(input, cursor, position, whitespace, lineSeparator);
+        copy.setMemoTable(memoTable);
+        return copy;
     }
 
     /**
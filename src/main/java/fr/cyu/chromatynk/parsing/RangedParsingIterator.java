@@ -34,6 +34,8 @@ public class RangedParsingIterator<T extends Ranged> extends ParsingIterator<T>
 
     @Override
     public ParsingIterator<T> copy() {
-        return new RangedParsingIterator<>(getInput(), getCursor(), getPosition(), getWhitespacePredicate(), getLineSeparatorPredicate());
+        ParsingIterator<T> copy = new RangedParsingIterator<>(getInput(), getCursor(), getPosition(), getWhitespacePredicate(), getLineSeparatorPredicate());
+        copy.setMemoTable(getMemoTable());
+        return copy;
     }
 }
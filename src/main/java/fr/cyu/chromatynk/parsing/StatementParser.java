@@ -21,6 +21,8 @@ import static fr.cyu.chromatynk.parsing.CommonParser.tokenOf;
 
 /**
  * The statement parser of Chromat'ynk. Transforms tokens into AST statements.
+ * <p>
+ * Like {@link ExprParser}, the parsers are built once and can be shared by concurrent parses.
  */
 public class StatementParser {
 
@@ -52,285 +54,325 @@ public class StatementParser {
             Map.entry(Token.Color.class, Statement.ColorRGB::new)
     );
 
+    private static final Parser<Token, Statement> ZERO_ARG = anyToken().map(token -> {
+        if (ZERO_ARG_STATEMENTS.containsKey(token.getClass()))
+            return ZERO_ARG_STATEMENTS.get(token.getClass()).apply(token.range());
+        else
+            throw new ParsingException.Fatal(new UnexpectedInputException(token.range(), "0/1-arg statement", token.toPrettyString()));
+    });
+
     /**
      * Zero-argument instruction parser.
      */
     public static Parser<Token, Statement> zeroArg() {
-        return anyToken().map(token -> {
-            if (ZERO_ARG_STATEMENTS.containsKey(token.getClass()))
-                return ZERO_ARG_STATEMENTS.get(token.getClass()).apply(token.range());
-            else
-                throw new ParsingException.Fatal(new UnexpectedInputException(token.range(), "0/1-arg statement", token.toPrettyString()));
-        });
+        return ZERO_ARG;
     }
 
+    private static final Parser<Token, Statement> ONE_ARG = anyToken().zip(ExprParser.anyExpr()).map(tpl -> {
+        Token token = tpl.a();
+        Expr expr = tpl.b();
+        Range range = token.range().merge(expr.range());
+        if (ONE_ARG_STATEMENTS.containsKey(token.getClass()))
+            return ONE_ARG_STATEMENTS.get(token.getClass()).apply(range, expr);
+        else
+            throw new UnexpectedInputException(token.range(), "1-arg statement", token.toPrettyString());
+    });
+
     /**
      * One-argument instruction parser.
      */
     public static Parser<Token, Statement> oneArg() {
-        return anyToken().zip(ExprParser.anyExpr()).map(tpl -> {
-            Token token = tpl.a();
-            Expr expr = tpl.b();
-            Range range = token.range().merge(expr.range());
-            if (ONE_ARG_STATEMENTS.containsKey(token.getClass()))
-                return ONE_ARG_STATEMENTS.get(token.getClass()).apply(range, expr);
-            else
-                throw new UnexpectedInputException(token.range(), "1-arg statement", token.toPrettyString());
-        });
+        return ONE_ARG;
     }
 
+    private static final Parser<Token, Statement> TWO_ARGS = anyToken()
+            .zip(ExprParser.anyExpr())
+            .suffixed(tokenOf(Token.Comma.class))
+            .zip(ExprParser.anyExpr().fatal())
+            .map(tpl -> {
+                Token token = tpl.a().a();
+                Expr first = tpl.a().b();
+                Expr second = tpl.b();
+                Range range = token.range().merge(first.range()).merge(second.range());
+                if (TWO_ARG_STATEMENTS.containsKey(token.getClass()))
+                    return TWO_ARG_STATEMENTS.get(token.getClass()).apply(range, first, second);
+                else
+                    throw new ParsingException.Fatal(new UnexpectedInputException(token.range(), "2-args statement", token.toPrettyString()));
+            });
+
     /**
      * Two-arguments instruction parser.
      */
     public static Parser<Token, Statement> twoArgs() {
-        return anyToken()
-                .zip(ExprParser.anyExpr())
-                .suffixed(tokenOf(Token.Comma.class))
-                .zip(ExprParser.anyExpr().fatal())
-                .map(tpl -> {
-                    Token token = tpl.a().a();
-                    Expr first = tpl.a().b();
-                    Expr second = tpl.b();
-                    Range range = token.range().merge(first.range()).merge(second.range());
-                    if (TWO_ARG_STATEMENTS.containsKey(token.getClass()))
-                        return TWO_ARG_STATEMENTS.get(token.getClass()).apply(range, first, second);
-                    else
-                        throw new ParsingException.Fatal(new UnexpectedInputException(token.range(), "2-args statement", token.toPrettyString()));
-                });
+        return TWO_ARGS;
     }
 
+    private static final Parser<Token, Statement> THREE_ARGS = anyToken()
+            .zip(ExprParser.anyExpr())
+            .suffixed(tokenOf(Token.Comma.class))
+            .zip(ExprParser.anyExpr().fatal())
+            .suffixed(tokenOf(Token.Comma.class))
+            .zip(ExprParser.anyExpr().fatal())
+            .map(tpl -> {
+                Token token = tpl.a().a().a();
+                Expr first = tpl.a().a().b();
+                Expr second = tpl.a().b();
+                Expr third = tpl.b();
+                Range range = token.range().merge(first.range()).merge(second.range());
+                if (THREE_ARG_STATEMENTS.containsKey(token.getClass()))
+                    return THREE_ARG_STATEMENTS.get(token.getClass()).apply(range, first, second, third);
+                else
+                    throw new ParsingException.Fatal(new UnexpectedInputException(token.range(), "3-args statement", token.toPrettyString()));
+            });
+
     /**
      * Three-argument instruction parser.
      */
     public static Parser<Token, Statement> threeArgs() {
-        return anyToken()
-                .zip(ExprParser.anyExpr())
-                .suffixed(tokenOf(Token.Comma.class))
-                .zip(ExprParser.anyExpr().fatal())
-                .suffixed(tokenOf(Token.Comma.class))
-                .zip(ExprParser.anyExpr().fatal())
-                .map(tpl -> {
-                    Token token = tpl.a().a().a();
-                    Expr first = tpl.a().a().b();
-                    Expr second = tpl.a().b();
-                    Expr third = tpl.b();
-                    Range range = token.range().merge(first.range()).merge(second.range());
-                    if (THREE_ARG_STATEMENTS.containsKey(token.getClass()))
-                        return THREE_ARG_STATEMENTS.get(token.getClass()).apply(range, first, second, third);
-                    else
-                        throw new ParsingException.Fatal(new UnexpectedInputException(token.range(), "3-args statement", token.toPrettyString()));
-                });
+        return THREE_ARGS;
     }
 
+    private static final Parser<Token, Statement> DELETE_VARIABLE = tokenOf(Token.Del.class)
+            .zip(tokenOf(Token.Identifier.class))
+            .map(tpl -> new Statement.DeleteVariable(tpl.a().range().merge(tpl.b().range()), tpl.b().name()));
+
     /**
      * Variable deletion parser.
      */
     public static Parser<Token, Statement> deleteVariable() {
-        return tokenOf(Token.Del.class)
-                .zip(tokenOf(Token.Identifier.class))
-                .map(tpl -> new Statement.DeleteVariable(tpl.a().range().merge(tpl.b().range()), tpl.b().name()));
+        return DELETE_VARIABLE;
     }
 
+    private static final Parser<Token, Tuple2<Range, Type>> TYPE = tokenOf(Token.Identifier.class)
+            .map(id -> Type
+                    .fromName(id.name())
+                    .map(tpe -> new Tuple2<>(id.range(), tpe))
+                    .orElseThrow(() -> new UnexpectedInputException(id.range(), "Existing type", id.toPrettyString()))
+            );
+
+    /**
+     * Type (BOOL, NUM...) parser.
+     */
+    public static Parser<Token, Tuple2<Range, Type>> type() {
+        return TYPE;
+    }
+
+    private static final Parser<Token, Statement> VARIABLE_DECLARATION = type()
+            .zip(tokenOf(Token.Identifier.class).fatal())
+            .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Assign.class)).optional())
+            .map(tpl -> switch (tpl) {
+                case Tuple2(
+                        Tuple2(Tuple2(Range typeRange, Type type), Token.Identifier identifier),
+                        Optional<Expr> initialExpr
+                ) -> {
+                    Range endingRange = initialExpr.map(Expr::range).orElse(identifier.range());
+                    yield new Statement.DeclareVariable(typeRange.merge(endingRange), type, identifier.name(), initialExpr);
+                }
+            });
+
     /**
      * Variable declaration (and optional assignment) parser.
      */
     public static Parser<Token, Statement> variableDeclaration() {
-        return type()
-                .zip(tokenOf(Token.Identifier.class).fatal())
-                .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Assign.class)).optional())
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(
-                            Tuple2(Tuple2(Range typeRange, Type type), Token.Identifier identifier),
-                            Optional<Expr> initialExpr
-                    ) -> {
-                        Range endingRange = initialExpr.map(Expr::range).orElse(identifier.range());
-                        yield new Statement.DeclareVariable(typeRange.merge(endingRange), type, identifier.name(), initialExpr);
-                    }
-                });
+        return VARIABLE_DECLARATION;
     }
 
+    private static final Parser<Token, Statement> VARIABLE_ASSIGNMENT = tokenOf(Token.Identifier.class)
+            .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Assign.class)))
+            .map(tpl -> switch (tpl) {
+                case Tuple2(Token.Identifier id, Expr value) ->
+                        new Statement.AssignVariable(id.range().merge(value.range()), id.name(), value);
+            });
+
     /**
      * Variable assignment parser.
      */
     public static Parser<Token, Statement> variableAssignment() {
-        return tokenOf(Token.Identifier.class)
-                .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Assign.class)))
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(Token.Identifier id, Expr value) ->
-                            new Statement.AssignVariable(id.range().merge(value.range()), id.name(), value);
-                });
+        return VARIABLE_ASSIGNMENT;
     }
 
+    private static final Parser<Token, Statement> INSTRUCTION = Parser
+            .firstSucceeding(deleteVariable(), variableDeclaration(), variableAssignment(), threeArgs(), twoArgs(), oneArg(), zeroArg())
+            .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal instruction"));
+
     /**
      * Parser of any instruction.
      */
     public static Parser<Token, Statement> instruction() {
-        return Parser
-                .firstSucceeding(deleteVariable(), variableDeclaration(), variableAssignment(), threeArgs(), twoArgs(), oneArg(), zeroArg())
-                .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal instruction"));
+        return INSTRUCTION;
     }
 
+    private static final Parser<Token, Statement.Body> ONE_LINE_BODY = tokenOf(Token.Arrow.class)
+            .zip(Parser.lazy(StatementParser::anyStatement).fatal())
+            .map(tpl -> new Statement.Body(tpl.a().range().merge(tpl.b().range()), List.of(tpl.b())));
+
     /**
      * Body {@code -> ...} parser.
      */
     public static Parser<Token, Statement.Body> oneLineBody() {
-        return tokenOf(Token.Arrow.class)
-                .zip(Parser.lazy(StatementParser::anyStatement).fatal())
-                .map(tpl -> new Statement.Body(tpl.a().range().merge(tpl.b().range()), List.of(tpl.b())));
+        return ONE_LINE_BODY;
     }
 
+    private static final Parser<Token, Statement.Body> MULTI_LINE_BODY = tokenOf(Token.BraceOpen.class, "{")
+            .zip(Parser
+                    .lazy(StatementParser::anyStatement)
+                    .fatal()
+                    .repeatUntil(Parser.firstSucceeding(tokenOf(Token.EndOfFile.class, "EOF"), tokenOf(Token.BraceClosed.class, "}")))
+            )
+            .zip(tokenOf(Token.BraceClosed.class).mapError(e -> new ParsingException.Fatal(e.getRange(), "Missing closing brace `}`")))
+            .map(tpl -> switch (tpl) {
+                case Tuple2(Tuple2(Token.BraceOpen open, List<Statement> statements), Token.BraceClosed closed) ->
+                        new Statement.Body(open.range().merge(closed.range()), statements);
+            });
+
     /**
      * Body {@code {...}} parser.
      */
     public static Parser<Token, Statement.Body> multiLineBody() {
-        return tokenOf(Token.BraceOpen.class, "{")
-                .zip(Parser.lazy(
-                        () -> anyStatement()
-                                .fatal()
-                                .repeatUntil(Parser.firstSucceeding(tokenOf(Token.EndOfFile.class, "EOF"), tokenOf(Token.BraceClosed.class, "}")))
-                ))
-                .zip(tokenOf(Token.BraceClosed.class).mapError(e -> new ParsingException.Fatal(e.getRange(), "Missing closing brace `}`")))
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(Tuple2(Token.BraceOpen open, List<Statement> statements), Token.BraceClosed closed) ->
-                            new Statement.Body(open.range().merge(closed.range()), statements);
-                });
+        return MULTI_LINE_BODY;
     }
 
-    public static Parser<Token, Statement.Body> body(){
-        return Parser.firstSucceeding(oneLineBody(), multiLineBody())
-                .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Invalid body"));
+    private static final Parser<Token, Statement.Body> BODY = Parser.firstSucceeding(oneLineBody(), multiLineBody())
+            .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Invalid body"));
+
+    public static Parser<Token, Statement.Body> body() {
+        return BODY;
     }
 
+    private static final Parser<Token, Statement> WHILE_LOOP = tokenOf(Token.While.class)
+            .zip(ExprParser.anyExpr().fatal())
+            .zip(body().fatal())
+            .map(tpl -> switch (tpl) {
+                case Tuple2(Tuple2(Token.While whileToken, Expr condition), Statement.Body body) ->
+                        new Statement.While(whileToken.range().merge(body.range()), condition, body);
+            });
+
     /**
      * WHILE loop parser.
      */
     public static Parser<Token, Statement> whileLoop() {
-        return tokenOf(Token.While.class)
-                .zip(ExprParser.anyExpr().fatal())
-                .zip(body().fatal())
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(Tuple2(Token.While whileToken, Expr condition), Statement.Body body) ->
-                            new Statement.While(whileToken.range().merge(body.range()), condition, body);
-                });
+        return WHILE_LOOP;
     }
 
+    private static final Parser<Token, Statement> FOR_LOOP = tokenOf(Token.For.class)
+            .zip(tokenOf(Token.Identifier.class).fatal())
+            .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.From.class)).optional())
+            .zip(ExprParser.anyExpr().prefixed(tokenOf(Token.To.class)).fatal())
+            .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Step.class)).optional())
+            .zip(body().fatal())
+            .map(tpl -> switch (tpl) {
+                case Tuple2(
+                        Tuple2(
+                                Tuple2(
+                                        Tuple2(Tuple2(Token forToken, Token.Identifier iterator), Optional<Expr> start),
+                                        Expr to
+                                ), Optional<Expr> step
+                        ), Statement.Body body
+                ) ->
+                        new Statement.For(forToken.range().merge(body.range()), iterator.name(), start, to, step, body);
+            });
+
     /**
      * FOR loop parser.
      */
     public static Parser<Token, Statement> forLoop() {
-        return tokenOf(Token.For.class)
-                .zip(tokenOf(Token.Identifier.class).fatal())
-                .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.From.class)).optional())
-                .zip(ExprParser.anyExpr().prefixed(tokenOf(Token.To.class)).fatal())
-                .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Step.class)).optional())
-                .zip(body().fatal())
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(
-                            Tuple2(
-                                    Tuple2(
-                                            Tuple2(Tuple2(Token forToken, Token.Identifier iterator), Optional<Expr> start),
-                                            Expr to
-                                    ), Optional<Expr> step
-                            ), Statement.Body body
-                    ) ->
-                            new Statement.For(forToken.range().merge(body.range()), iterator.name(), start, to, step, body);
-                });
+        return FOR_LOOP;
     }
 
+    private static final Parser<Token, Statement> IF_CONDITION = tokenOf(Token.If.class)
+            .zip(ExprParser.anyExpr().fatal())
+            .zip(body().fatal())
+            .zip(tokenOf(Token.Else.class).zip(body().fatal()).optional())
+            .map(tpl -> switch (tpl) {
+                case Tuple2(
+                        Tuple2(Tuple2(Token ifToken, Expr condition), Statement.Body ifTrue),
+                        Optional<Tuple2<Token.Else, Statement.Body>> elseBody
+                ) -> {
+                    Optional<Statement.Body> ifFalse = elseBody.map(Tuple2::b);
+                    yield new Statement.If(ifToken.range().merge(ifFalse.orElse(ifTrue).range()), condition, ifTrue, ifFalse);
+                }
+            });
+
     /**
      * IF conditional parser.
      */
     public static Parser<Token, Statement> ifCondition() {
-        return tokenOf(Token.If.class)
-                .zip(ExprParser.anyExpr().fatal())
-                .zip(body().fatal())
-                .zip(tokenOf(Token.Else.class).zip(body().fatal()).optional())
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(
-                            Tuple2(Tuple2(Token ifToken, Expr condition), Statement.Body ifTrue),
-                            Optional<Tuple2<Token.Else, Statement.Body>> elseBody
-                    ) -> {
-                        Optional<Statement.Body> ifFalse = elseBody.map(Tuple2::b);
-                        yield new Statement.If(ifToken.range().merge(ifFalse.orElse(ifTrue).range()), condition, ifTrue, ifFalse);
-                    }
-                });
+        return IF_CONDITION;
     }
 
+    private static final Parser<Token, Statement> MIMIC = tokenOf(Token.Mimic.class)
+            .zip(ExprParser.anyExpr().fatal())
+            .zip(body().fatal())
+            .map(tpl -> switch (tpl) {
+                case Tuple2(Tuple2(Token mimicToken, Expr mimicked), Statement.Body body) ->
+                        new Statement.Mimic(mimicToken.range().merge(body.range()), mimicked, body);
+            });
+
     /**
      * MIMIC cursor {...} parser
      */
     public static Parser<Token, Statement> mimic() {
-        return tokenOf(Token.Mimic.class)
-                .zip(ExprParser.anyExpr().fatal())
-                .zip(body().fatal())
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(Tuple2(Token mimicToken, Expr mimicked), Statement.Body body) ->
-                            new Statement.Mimic(mimicToken.range().merge(body.range()), mimicked, body);
-                });
+        return MIMIC;
     }
 
+    private static final Parser<Token, Statement> MIRROR_CENTRAL = tokenOf(Token.Mirror.class)
+            .zip(ExprParser.anyExpr().fatal())
+            .zip(ExprParser.anyExpr().prefixed(tokenOf(Token.Comma.class)).fatal())
+            .zip(body().fatal())
+            .map(tpl -> switch (tpl) {
+                case Tuple2(Tuple2(Tuple2(Token mirrorToken, Expr centerX), Expr centerY), Statement.Body body) ->
+                        new Statement.MirrorCentral(mirrorToken.range().merge(body.range()), centerX, centerY, body);
+            });
+
     /**
      * MIRROR centerX, centerY {...} parser
      */
     public static Parser<Token, Statement> mirrorCentral() {
-        return tokenOf(Token.Mirror.class)
-                .zip(ExprParser.anyExpr().fatal())
-                .zip(ExprParser.anyExpr().prefixed(tokenOf(Token.Comma.class)).fatal())
-                .zip(body().fatal())
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(Tuple2(Tuple2(Token mirrorToken, Expr centerX), Expr centerY), Statement.Body body) ->
-                            new Statement.MirrorCentral(mirrorToken.range().merge(body.range()), centerX, centerY, body);
-                });
+        return MIRROR_CENTRAL;
     }
 
+    private static final Parser<Token, Statement> MIRROR_AXIAL = tokenOf(Token.Mirror.class)
+            .zip(ExprParser.anyExpr().fatal())
+            .zip(ExprParser.anyExpr().prefixed(tokenOf(Token.Comma.class)).fatal())
+            .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Comma.class)))
+            .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Comma.class)))
+            .zip(body().fatal())
+            .map(tpl -> switch (tpl) {
+                case Tuple2(
+                        Tuple2(
+                                Tuple2(
+                                        Tuple2(Tuple2(Token mirrorToken, Expr axisStartX), Expr axisStartY),
+                                        Expr axisEndX
+                                ), Expr axisEndY
+                        ), Statement.Body body
+                ) ->
+                        new Statement.MirrorAxial(mirrorToken.range().merge(body.range()), axisStartX, axisStartY, axisEndX, axisEndY, body);
+            });
+
     /**
      * MIRROR axisStartX, axisStartY, axisEndX, axisEndY {...} parser
      */
     public static Parser<Token, Statement> mirrorAxial() {
-        return tokenOf(Token.Mirror.class)
-                .zip(ExprParser.anyExpr().fatal())
-                .zip(ExprParser.anyExpr().prefixed(tokenOf(Token.Comma.class)).fatal())
-                .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Comma.class)))
-                .zip(ExprParser.anyExpr().fatal().prefixed(tokenOf(Token.Comma.class)))
-                .zip(body().fatal())
-                .map(tpl -> switch (tpl) {
-                    case Tuple2(
-                            Tuple2(
-                                    Tuple2(
-                                            Tuple2(Tuple2(Token mirrorToken, Expr axisStartX), Expr axisStartY),
-                                            Expr axisEndX
-                                    ), Expr axisEndY
-                            ), Statement.Body body
-                    ) ->
-                            new Statement.MirrorAxial(mirrorToken.range().merge(body.range()), axisStartX, axisStartY, axisEndX, axisEndY, body);
-                });
+        return MIRROR_AXIAL;
     }
 
-    /**
-     * Type (BOOL, NUM...) parser.
-     */
-    public static Parser<Token, Tuple2<Range, Type>> type() {
-        return tokenOf(Token.Identifier.class)
-                .map(id -> Type
-                        .fromName(id.name())
-                        .map(tpe -> new Tuple2<>(id.range(), tpe))
-                        .orElseThrow(() -> new UnexpectedInputException(id.range(), "Existing type", id.toPrettyString()))
-                );
-    }
+    private static final Parser<Token, Statement> ANY_STATEMENT = Parser
+            .firstSucceeding(whileLoop(), forLoop(), ifCondition(), mimic(), mirrorAxial(), mirrorCentral(), instruction())
+            .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal statement"));
 
     /**
      * Any statement parser.
      */
     public static Parser<Token, Statement> anyStatement() {
-        return Parser
-                .firstSucceeding(whileLoop(), forLoop(), ifCondition(), mimic(), mirrorAxial(), mirrorCentral(), instruction())
-                .mapError(e -> new ParsingException.NonFatal(e.getRange(), "Illegal statement"));
+        return ANY_STATEMENT;
     }
 
+    private static final Parser<Token, Program> PROGRAM = anyStatement().fatal().repeatUntil(tokenOf(Token.EndOfFile.class)).map(Program::new);
+
     /**
      * Parser of a full program.
      */
     public static Parser<Token, Program> program() {
-        return anyStatement().fatal().repeatUntil(tokenOf(Token.EndOfFile.class)).map(Program::new);
+        return PROGRAM;
     }
 }
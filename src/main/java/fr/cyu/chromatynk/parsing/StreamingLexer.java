@@ -0,0 +1,165 @@
+package fr.cyu.chromatynk.parsing;
+
+import fr.cyu.chromatynk.util.Position;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.AbstractList;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * A lexer reading its tokens lazily from a {@link Reader}, one token at a time.
+ * <p>
+ * The characters are read in a sliding window holding the current token and some lookahead, and the characters of
+ * already lexed tokens are discarded, so the memory used does not depend on the length of the source. A token whose
+ * parsing reached the end of the window may be truncated: it is lexed again with a larger window unless the source is
+ * exhausted. The lexed tokens are the same as the ones of {@link Lexer#TOKENS_PARSER}, including the final
+ * {@link Token.EndOfFile}, and lexing also stops at the first invalid token.
+ * <p>
+ * Cursors are indices in the whole source, which is thus limited to {@link Integer#MAX_VALUE} characters.
+ */
+public final class StreamingLexer {
+
+    /**
+     * The minimum number of characters read ahead of the current token.
+     */
+    private static final int LOOKAHEAD = 8192;
+
+    /**
+     * The characters of the source from the current token to the end of the read lookahead.
+     * Elements are accessed by their index in the whole source.
+     */
+    private static final class CharWindow extends AbstractList<Character> {
+
+        private char[] buffer = new char[2 * LOOKAHEAD];
+        private int start;
+        private int end;
+        private int maxAccessed = -1;
+
+        @Override
+        public Character get(int index) {
+            if(index < start || index >= end) throw new IndexOutOfBoundsException("Index " + index + " out of window [" + start + ", " + end + ")");
+            if(index > maxAccessed) maxAccessed = index;
+            return buffer[index - start];
+        }
+
+        @Override
+        public int size() {
+            return end;
+        }
+    }
+
+    private final Reader reader;
+    private final CharWindow window = new CharWindow();
+    private final ParsingIterator<Character> iterator = new ParsingIterator<>(
+            window,
+            0,
+            new Position(0, 0),
+            Character::isWhitespace, Predicate.isEqual('\n')
+    );
+    private boolean exhausted;
+    private boolean ended;
+    private Position lastTokenEnd = new Position(0, 0);
+    private int tokens;
+
+    /**
+     * Create a new {@link StreamingLexer}.
+     *
+     * @param reader the source to lex. It is not closed by this lexer
+     */
+    public StreamingLexer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the source until at least {@code lookahead} characters are available after the cursor or the source is
+     * exhausted. The characters before the cursor are discarded.
+     */
+    private void fill(int lookahead) throws IOException {
+        int cursor = iterator.getCursor();
+        if(exhausted || window.end - cursor >= lookahead) return;
+
+        int remaining = window.end - cursor;
+        char[] buffer = window.buffer.length < 2 * lookahead ? new char[2 * lookahead] : window.buffer;
+        System.arraycopy(window.buffer, cursor - window.start, buffer, 0, remaining);
+        window.buffer = buffer;
+        window.start = cursor;
+
+        while(remaining < lookahead) {
+            int read = reader.read(buffer, remaining, buffer.length - remaining);
+            if(read == -1) {
+                exhausted = true;
+                break;
+            }
+
+            remaining += read;
+        }
+
+        window.end = cursor + remaining;
+    }
+
+    /**
+     * Check if the last parsing attempt may have needed characters after the end of the window.
+     */
+    private boolean reachedEnd() {
+        return !exhausted && window.maxAccessed >= window.end - 1;
+    }
+
+    /**
+     * Check if this lexer has tokens left, the last one being an {@link Token.EndOfFile}.
+     */
+    public boolean hasNext() {
+        return !ended;
+    }
+
+    /**
+     * Lex the next token of the source.
+     *
+     * @return the next token or {@link Token.EndOfFile} if there is no valid token left
+     * @throws ParsingException if a token failed fatally
+     * @throws IOException if the source cannot be read
+     */
+    public Token next() throws ParsingException, IOException {
+        if(ended) throw new NoSuchElementException(ParsingIterator.EOF);
+
+        for(int lookahead = LOOKAHEAD; ; lookahead *= 2) {
+            fill(lookahead);
+            window.maxAccessed = -1;
+            ParsingIterator<Character> copy = iterator.copy();
+
+            try {
+                Parser.Result<Token> result = Lexer.TOKEN_PARSER.parse(copy);
+                if(reachedEnd()) continue;
+
+                iterator.setCursor(copy.getCursor());
+                iterator.setPosition(copy.getPosition());
+                lastTokenEnd = result.range().to();
+                tokens++;
+
+                return result.value();
+            } catch (ParsingException.NonFatal e) {
+                if(reachedEnd()) continue;
+
+                ended = true;
+                tokens++;
+
+                return new Token.EndOfFile(lastTokenEnd);
+            }
+        }
+    }
+
+    /**
+     * Get the number of characters read from the source.
+     */
+    public int getCharactersRead() {
+        return window.end;
+    }
+
+    /**
+     * Get the number of lexed tokens, including the final {@link Token.EndOfFile}.
+     */
+    public int getTokens() {
+        return tokens;
+    }
+}
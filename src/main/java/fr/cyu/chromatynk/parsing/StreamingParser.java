@@ -0,0 +1,131 @@
+package fr.cyu.chromatynk.parsing;
+
+import fr.cyu.chromatynk.ast.Statement;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A parser reading the top-level statements of a program one at a time from a {@link StreamingLexer}.
+ * <p>
+ * Tokens are lexed in a sliding window holding the current statement and some lookahead, and the tokens of already
+ * parsed statements are discarded, so that a program can be parsed and compiled in memory bounded by the size of its
+ * largest statement. Like in {@link StreamingLexer}, a statement whose parsing reached the end of the window is parsed
+ * again with a larger window unless the last token was lexed. The parsed statements and errors are the same as the
+ * ones of {@link StatementParser#program()}.
+ */
+public final class StreamingParser {
+
+    /**
+     * The minimum number of tokens lexed ahead of the current statement.
+     */
+    private static final int LOOKAHEAD = 256;
+
+    private static final Parser<Token, Statement> STATEMENT = StatementParser.anyStatement().fatal();
+
+    /**
+     * The tokens of the source from the one preceding the current statement to the end of the lexed lookahead.
+     * Elements are accessed by their index in the whole token sequence.
+     */
+    private static final class TokenWindow extends AbstractList<Token> {
+
+        private final List<Token> tokens = new ArrayList<>();
+        private int start;
+        private int maxAccessed = -1;
+
+        @Override
+        public Token get(int index) {
+            if(index < start || index >= size()) throw new IndexOutOfBoundsException("Index " + index + " out of window [" + start + ", " + size() + ")");
+            if(index > maxAccessed) maxAccessed = index;
+            return tokens.get(index - start);
+        }
+
+        @Override
+        public int size() {
+            return start + tokens.size();
+        }
+
+        /**
+         * Discard the tokens before the given index.
+         */
+        private void discardBefore(int index) {
+            if(index <= start) return;
+
+            tokens.subList(0, index - start).clear();
+            start = index;
+        }
+    }
+
+    private final StreamingLexer lexer;
+    private final TokenWindow window = new TokenWindow();
+    private final ParsingIterator<Token> iterator = new RangedParsingIterator<>(window);
+    private int statements;
+
+    /**
+     * Create a new {@link StreamingParser}.
+     *
+     * @param lexer the lexer of the source to parse
+     */
+    public StreamingParser(StreamingLexer lexer) {
+        this.lexer = lexer;
+    }
+
+    /**
+     * Lex tokens until at least {@code lookahead} tokens are available after the cursor or the last token was lexed.
+     * The tokens before the one preceding the cursor, needed for its position, are discarded.
+     */
+    private void fill(int lookahead) throws ParsingException, IOException {
+        int cursor = iterator.getCursor();
+        window.discardBefore(cursor - 1);
+        while(lexer.hasNext() && window.size() - cursor < lookahead) window.tokens.add(lexer.next());
+    }
+
+    /**
+     * Check if the last parsing attempt may have needed tokens after the end of the window.
+     */
+    private boolean reachedEnd() {
+        return lexer.hasNext() && window.maxAccessed >= window.size() - 1;
+    }
+
+    /**
+     * Parse the next top-level statement of the program.
+     *
+     * @return the next statement or an empty optional if the end of the program was reached
+     * @throws ParsingException if the next statement is invalid
+     * @throws IOException if the source cannot be read
+     */
+    public Optional<Statement> next() throws ParsingException, IOException {
+        for(int lookahead = LOOKAHEAD; ; lookahead *= 2) {
+            fill(lookahead);
+            if(window.get(iterator.getCursor()) instanceof Token.EndOfFile) return Optional.empty();
+
+            window.maxAccessed = -1;
+            ParsingIterator<Token> copy = iterator.copy();
+            copy.setMemoTable(new MemoTable());
+
+            try {
+                Statement statement = STATEMENT.parse(copy).value();
+                if(reachedEnd()) continue;
+
+                iterator.setCursor(copy.getCursor());
+                statements++;
+
+                return Optional.of(statement);
+            } catch (ParsingException e) {
+                if(reachedEnd()) continue;
+
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Get the number of parsed statements.
+     */
+    public int getStatements() {
+        return statements;
+    }
+}
@@ -0,0 +1,95 @@
+package fr.cyu.chromatynk.server;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.BytecodeSerializer;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
+
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-memory cache of compiled programs, keyed by the hash of their source.
+ * <p>
+ * The least recently used program is evicted when the cache is full. Compiled programs are immutable and can be shared
+ * between concurrent runs.
+ */
+public class ProgramCache {
+
+    private final int capacity;
+    private final Map<String, List<Bytecode>> programs;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Create a new program cache.
+     *
+     * @param capacity the maximum number of cached programs
+     */
+    public ProgramCache(int capacity) {
+        if(capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+        this.capacity = capacity;
+        this.programs = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Get the compiled program of the given source, compiling it on a miss.
+     *
+     * @param source the source code of the program
+     * @return the compiled instructions
+     * @throws ParsingException if the source cannot be parsed
+     * @throws TypingException if the source is ill-typed
+     */
+    public List<Bytecode> getOrCompile(String source) throws ParsingException, TypingException {
+        String key = HexFormat.of().formatHex(BytecodeSerializer.hashSource(source));
+
+        synchronized(programs) {
+            List<Bytecode> cached = programs.get(key);
+            if(cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        //Compiled outside the lock so slow compilations do not block the other requests
+        misses.increment();
+        List<Bytecode> instructions = List.copyOf(Chromatynk.compileInstructions(source));
+
+        synchronized(programs) {
+            programs.put(key, instructions);
+            if(programs.size() > capacity) programs.remove(programs.keySet().iterator().next());
+        }
+
+        return instructions;
+    }
+
+    /**
+     * Get the number of lookups served from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups which compiled the program.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of cached programs.
+     */
+    public int size() {
+        synchronized(programs) {
+            return programs.size();
+        }
+    }
+}
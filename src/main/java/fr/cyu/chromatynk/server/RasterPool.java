@@ -0,0 +1,94 @@
+package fr.cyu.chromatynk.server;
+
+import fr.cyu.chromatynk.draw.Raster;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A pool of reusable {@link Raster} buffers, grouped by size.
+ * <p>
+ * Large renders allocate buffers of tens of megabytes. Reusing them avoids pressuring the garbage collector when many
+ * requests of the same size are served. The idle rasters hold at most a given number of pixels in total: when a release
+ * exceeds it, the rasters of the least recently used sizes are dropped.
+ */
+public class RasterPool {
+
+    private record Size(int width, int height) {}
+
+    private final int maxPerSize;
+    private final long maxPixels;
+    private final LinkedHashMap<Size, ArrayDeque<Raster>> rasters;
+    private long pooledPixels;
+
+    /**
+     * Create a new raster pool.
+     *
+     * @param maxPerSize the maximum number of idle rasters kept for each size
+     * @param maxPixels the maximum number of pixels of all idle rasters
+     */
+    public RasterPool(int maxPerSize, long maxPixels) {
+        this.maxPerSize = maxPerSize;
+        this.maxPixels = maxPixels;
+        this.rasters = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    private static long getPixelCount(Raster raster) {
+        return (long) raster.getWidth() * raster.getHeight();
+    }
+
+    /**
+     * Take a raster of the given size from the pool, allocating a new one if none is idle. Its content is undefined.
+     *
+     * @param width the number of pixels per row
+     * @param height the number of rows
+     * @return a raster only used by the caller until it is {@link #release(Raster) released}
+     */
+    public Raster acquire(int width, int height) {
+        synchronized(this) {
+            Size size = new Size(width, height);
+            ArrayDeque<Raster> idle = rasters.get(size);
+            if(idle != null) {
+                Raster raster = idle.poll();
+                if(idle.isEmpty()) rasters.remove(size);
+                pooledPixels -= getPixelCount(raster);
+                return raster;
+            }
+        }
+
+        return new Raster(width, height);
+    }
+
+    /**
+     * Give a raster back to the pool. It must not be used by the caller anymore.
+     *
+     * @param raster the raster to release
+     */
+    public synchronized void release(Raster raster) {
+        long pixels = getPixelCount(raster);
+        if(pixels > maxPixels || maxPerSize == 0) return;
+
+        ArrayDeque<Raster> idle = rasters.computeIfAbsent(new Size(raster.getWidth(), raster.getHeight()), s -> new ArrayDeque<>());
+        if(idle.size() >= maxPerSize) return;
+
+        idle.push(raster);
+        pooledPixels += pixels;
+
+        //Drop the least recently used sizes first
+        Iterator<Map.Entry<Size, ArrayDeque<Raster>>> entries = rasters.entrySet().iterator();
+        while(pooledPixels > maxPixels) {
+            ArrayDeque<Raster> eldest = entries.next().getValue();
+            while(!eldest.isEmpty() && pooledPixels > maxPixels) pooledPixels -= getPixelCount(eldest.removeLast());
+            if(eldest.isEmpty()) entries.remove();
+        }
+    }
+
+    /**
+     * Get the number of pixels of all idle rasters.
+     */
+    public synchronized long getPooledPixels() {
+        return pooledPixels;
+    }
+}
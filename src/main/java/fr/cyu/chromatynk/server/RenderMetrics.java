@@ -0,0 +1,115 @@
+package fr.cyu.chromatynk.server;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of a {@link RenderServer}.
+ * <p>
+ * Latency percentiles are computed over the last {@link #LATENCY_WINDOW} requests.
+ */
+public class RenderMetrics {
+
+    /**
+     * The number of most recent request latencies kept to compute the percentiles.
+     */
+    public static final int LATENCY_WINDOW = 1024;
+
+    private final LongAdder requests;
+    private final LongAdder failures;
+    private final LongAdder instructions;
+    private final LongAdder executionNanos;
+    private final long[] latencies;
+    private int latencyCount;
+
+    /**
+     * Create new empty metrics.
+     */
+    public RenderMetrics() {
+        this.requests = new LongAdder();
+        this.failures = new LongAdder();
+        this.instructions = new LongAdder();
+        this.executionNanos = new LongAdder();
+        this.latencies = new long[LATENCY_WINDOW];
+    }
+
+    /**
+     * Record a served request.
+     *
+     * @param latencyNanos the time taken to serve the request, in nanoseconds
+     * @param failed whether the request failed
+     */
+    public void recordRequest(long latencyNanos, boolean failed) {
+        requests.increment();
+        if(failed) failures.increment();
+
+        synchronized(latencies) {
+            latencies[latencyCount++ % LATENCY_WINDOW] = latencyNanos;
+        }
+    }
+
+    /**
+     * Record the execution of a program.
+     *
+     * @param instructionCount the number of executed instructions
+     * @param nanos the time taken by the execution, in nanoseconds
+     */
+    public void recordExecution(long instructionCount, long nanos) {
+        instructions.add(instructionCount);
+        executionNanos.add(nanos);
+    }
+
+    /**
+     * Get a latency percentile over the recent requests.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the latency in nanoseconds, 0 if no request was served
+     */
+    public long getLatencyPercentile(double percentile) {
+        long[] sorted;
+        synchronized(latencies) {
+            sorted = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_WINDOW));
+        }
+
+        if(sorted.length == 0) return 0;
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)];
+    }
+
+    /**
+     * Get the number of executed instructions per second of execution time.
+     */
+    public double getInstructionsPerSecond() {
+        long nanos = executionNanos.sum();
+        return nanos == 0 ? 0 : instructions.sum() * 1e9 / nanos;
+    }
+
+    /**
+     * Format these metrics as one {@code name value} pair per line.
+     *
+     * @param cache the program cache of the server
+     * @return the formatted metrics
+     */
+    public String format(ProgramCache cache) {
+        long hits = cache.getHits();
+        long lookups = hits + cache.getMisses();
+
+        return "requests_total " + requests.sum() + "\n" +
+                "requests_failed " + failures.sum() + "\n" +
+                "latency_p50_ms " + toMillis(getLatencyPercentile(50)) + "\n" +
+                "latency_p90_ms " + toMillis(getLatencyPercentile(90)) + "\n" +
+                "latency_p99_ms " + toMillis(getLatencyPercentile(99)) + "\n" +
+                "program_cache_size " + cache.size() + "\n" +
+                "program_cache_hits " + hits + "\n" +
+                "program_cache_misses " + cache.getMisses() + "\n" +
+                "program_cache_hit_rate " + (lookups == 0 ? 0 : (double) hits / lookups) + "\n" +
+                "instructions_total " + instructions.sum() + "\n" +
+                "instructions_per_second " + getInstructionsPerSecond() + "\n";
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,350 @@
+package fr.cyu.chromatynk.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.cyu.chromatynk.ChromatynkException;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.draw.DisplayList;
+import fr.cyu.chromatynk.draw.NullSurface;
+import fr.cyu.chromatynk.draw.Raster;
+import fr.cyu.chromatynk.draw.TileRasterizer;
+import fr.cyu.chromatynk.eval.EvalException;
+import fr.cyu.chromatynk.eval.ExecutionManager;
+import fr.cyu.chromatynk.eval.Quota;
+import fr.cyu.chromatynk.jfr.CanvasExportEvent;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An embedded HTTP server rendering Chromat'ynk scripts, meant to be used by local tools.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>{@code POST /render?format=png|svg&width=W&height=H}: render the script sent as the request body</li>
+ *     <li>{@code GET /metrics}: report request latencies, cache hit rates and interpreter throughput</li>
+ * </ul>
+ * Each request is handled on its own virtual thread. Compiled programs are cached by source hash and raster buffers
+ * are pooled between requests. Scripts are limited by a {@link Quota}, request bodies by {@link #MAX_BODY_SIZE} and
+ * renders by {@link #MAX_PIXELS}. Renders beyond the maximum number of concurrent ones are rejected with a
+ * {@code 503} status instead of being queued.
+ */
+public class RenderServer implements AutoCloseable {
+
+    /**
+     * The default port of the server.
+     */
+    public static final int DEFAULT_PORT = 8787;
+
+    /**
+     * The largest accepted width or height of a render.
+     */
+    public static final int MAX_DIMENSION = 4096;
+
+    /**
+     * The largest accepted number of pixels of a render, i.e. a 32 MB raster.
+     */
+    public static final int MAX_PIXELS = 1 << 23;
+
+    /**
+     * The largest accepted script, in bytes.
+     */
+    public static final int MAX_BODY_SIZE = 1 << 20;
+
+    /**
+     * The default resources each script is allowed to use.
+     */
+    public static final Quota DEFAULT_QUOTA = new Quota(100_000_000L, Duration.ofSeconds(10), 10_000, 100_000, 500_000, 4096);
+
+    private static final int DEFAULT_WIDTH = 800;
+    private static final int DEFAULT_HEIGHT = 600;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ExecutionManager manager;
+    private final ProgramCache programCache;
+    private final RasterPool rasterPool;
+    private final TileRasterizer rasterizer;
+    private final RenderMetrics metrics;
+    private final Quota quota;
+    private final int maxConcurrentRenders;
+    private final Semaphore renders;
+
+    /**
+     * Create a new render server bound to the loopback interface. It is not started yet.
+     *
+     * @param port the port to listen to, 0 to pick a free one
+     * @param quota the resources each script is allowed to use
+     * @param maxConcurrentRenders the maximum number of renders in progress at once
+     * @throws IOException if the server cannot be bound
+     */
+    public RenderServer(int port, Quota quota, int maxConcurrentRenders) throws IOException {
+        if(maxConcurrentRenders <= 0) throw new IllegalArgumentException("Maximum concurrent renders must be positive: " + maxConcurrentRenders);
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.manager = new ExecutionManager();
+        this.programCache = new ProgramCache(256);
+        this.rasterPool = new RasterPool(4, 2L * MAX_PIXELS);
+        this.rasterizer = new TileRasterizer();
+        this.metrics = new RenderMetrics();
+        this.quota = quota;
+        this.maxConcurrentRenders = maxConcurrentRenders;
+        this.renders = new Semaphore(maxConcurrentRenders);
+
+        server.setExecutor(executor);
+        server.createContext("/render", this::handleRender);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Create a new render server bound to the loopback interface, running at most one render per processor at once.
+     * It is not started yet.
+     *
+     * @param port the port to listen to, 0 to pick a free one
+     * @param quota the resources each script is allowed to use
+     * @throws IOException if the server cannot be bound
+     */
+    public RenderServer(int port, Quota quota) throws IOException {
+        this(port, quota, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Get the port this server listens to.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Get the metrics of this server.
+     */
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the number of renders in progress.
+     */
+    public int getActiveRenders() {
+        return maxConcurrentRenders - renders.availablePermits();
+    }
+
+    /**
+     * Get the cache of the compiled programs.
+     */
+    public ProgramCache getProgramCache() {
+        return programCache;
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop the server, cancelling the running scripts.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        manager.close();
+        executor.close();
+    }
+
+    /**
+     * An invalid request, answered with the given status.
+     */
+    private static class RequestException extends Exception {
+
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if(query == null) return parameters;
+
+        for(String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if(separator < 0) parameters.put(URLDecoder.decode(pair, StandardCharsets.UTF_8), "");
+            else parameters.put(
+                    URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8)
+            );
+        }
+
+        return parameters;
+    }
+
+    private static int parseDimension(Map<String, String> parameters, String name, int defaultValue) throws RequestException {
+        String value = parameters.get(name);
+        if(value == null) return defaultValue;
+
+        try {
+            int dimension = Integer.parseInt(value);
+            if(dimension <= 0 || dimension > MAX_DIMENSION) throw new RequestException(400, "Invalid " + name + ": " + value);
+            return dimension;
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "Invalid " + name + ": " + value);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try(OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        send(exchange, status, "text/plain; charset=utf-8", text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get an opaque image sharing the pixels of the given raster, the alpha channel being ignored.
+     */
+    private static BufferedImage asImage(Raster raster) {
+        DirectColorModel model = new DirectColorModel(24, 0xFF0000, 0x00FF00, 0x0000FF);
+        DataBufferInt buffer = new DataBufferInt(raster.getPixels(), raster.getPixels().length);
+        WritableRaster pixels = java.awt.image.Raster.createPackedRaster(buffer, raster.getWidth(), raster.getHeight(), raster.getWidth(), model.getMasks(), null);
+        return new BufferedImage(model, pixels, false, null);
+    }
+
+    private byte[] encodePng(List<DisplayList.Line> lines, int width, int height) throws IOException {
+        Raster raster = rasterPool.acquire(width, height);
+        try {
+            rasterizer.rasterize(lines, raster);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(asImage(raster), "png", out);
+            return out.toByteArray();
+        } finally {
+            rasterPool.release(raster);
+        }
+    }
+
+    private static String readSource(HttpExchange exchange) throws IOException, RequestException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_SIZE + 1);
+        if(body.length > MAX_BODY_SIZE) throw new RequestException(413, "Script larger than " + MAX_BODY_SIZE + " bytes");
+
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private DisplayList execute(List<Bytecode> instructions, int width, int height) throws EvalException {
+        DisplayList displayList = new DisplayList(new NullSurface(width, height));
+        long start = System.nanoTime();
+        ExecutionManager.Execution execution = manager.submit(instructions, displayList, quota);
+
+        try {
+            execution.getCompletion().join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof EvalException cause) throw cause;
+            throw e;
+        } finally {
+            metrics.recordExecution(execution.getInstructionCount(), System.nanoTime() - start);
+        }
+
+        return displayList;
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        String source = "";
+
+        try {
+            if(!exchange.getRequestMethod().equals("POST")) throw new RequestException(405, "Expected a POST request");
+
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            String format = parameters.getOrDefault("format", "png");
+            if(!format.equals("png") && !format.equals("svg")) throw new RequestException(400, "Unknown format: " + format);
+            int width = parseDimension(parameters, "width", DEFAULT_WIDTH);
+            int height = parseDimension(parameters, "height", DEFAULT_HEIGHT);
+            if((long) width * height > MAX_PIXELS) throw new RequestException(400, "Render larger than " + MAX_PIXELS + " pixels: " + width + "x" + height);
+
+            source = readSource(exchange);
+            if(!renders.tryAcquire()) throw new RequestException(503, "Too many renders in progress");
+
+            CanvasExportEvent event = new CanvasExportEvent();
+            byte[] image;
+            try {
+                DisplayList displayList = execute(programCache.getOrCompile(source), width, height);
+
+                event.begin();
+                image = format.equals("png")
+                        ? encodePng(displayList.getLines(), width, height)
+                        : SvgWriter.write(displayList.getLines(), width, height).getBytes(StandardCharsets.UTF_8);
+            } finally {
+                renders.release();
+            }
+
+            event.format = format;
+            event.width = width;
+            event.height = height;
+            event.size = image.length;
+            event.destination = "http";
+            event.commit();
+
+            send(exchange, 200, format.equals("png") ? "image/png" : "image/svg+xml", image);
+
+            failed = false;
+        } catch (RequestException e) {
+            sendText(exchange, e.status, e.getMessage());
+        } catch (EvalException e) {
+            sendText(exchange, 422, e.getFullMessage(source));
+        } catch (ChromatynkException e) {
+            sendText(exchange, 400, e.getFullMessage(source));
+        } catch (RuntimeException e) {
+            sendText(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+            metrics.recordRequest(System.nanoTime() - start, failed);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try(exchange) {
+            if(!exchange.getRequestMethod().equals("GET")) sendText(exchange, 405, "Expected a GET request");
+            else sendText(exchange, 200, metrics.format(programCache));
+        }
+    }
+
+    /**
+     * Start a render server with the default quota.
+     *
+     * @param args the port to listen to, {@link #DEFAULT_PORT} if missing
+     * @throws IOException if the server cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        RenderServer server = new RenderServer(port, DEFAULT_QUOTA);
+        server.start();
+        System.out.println("Render server listening on http://localhost:" + server.getPort());
+    }
+}
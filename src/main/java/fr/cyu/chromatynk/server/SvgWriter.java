@@ -0,0 +1,49 @@
+package fr.cyu.chromatynk.server;
+
+import fr.cyu.chromatynk.draw.Color;
+import fr.cyu.chromatynk.draw.DisplayList;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A writer of recorded lines as an SVG document.
+ */
+public class SvgWriter {
+
+    private static String toHex(Color color) {
+        return String.format(
+                "#%02x%02x%02x",
+                Math.round(color.red() * 255),
+                Math.round(color.green() * 255),
+                Math.round(color.blue() * 255)
+        );
+    }
+
+    /**
+     * Write the given lines as an SVG document on a white background.
+     *
+     * @param lines the lines to write, in drawing order
+     * @param width the width of the document
+     * @param height the height of the document
+     * @return the SVG document
+     */
+    public static String write(List<DisplayList.Line> lines, int width, int height) {
+        StringBuilder result = new StringBuilder()
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(width)
+                .append("\" height=\"").append(height)
+                .append("\" viewBox=\"0 0 ").append(width).append(' ').append(height).append("\">\n")
+                .append("<rect width=\"100%\" height=\"100%\" fill=\"#ffffff\"/>\n")
+                .append("<g stroke-linecap=\"round\">\n");
+
+        for(DisplayList.Line line : lines) {
+            result.append(String.format(
+                    Locale.ROOT,
+                    "<line x1=\"%.2f\" y1=\"%.2f\" x2=\"%.2f\" y2=\"%.2f\" stroke=\"%s\" stroke-opacity=\"%.3f\" stroke-width=\"%.2f\"/>\n",
+                    line.fromX(), line.fromY(), line.toX(), line.toY(), toHex(line.color()), line.opacity(), line.thickness()
+            ));
+        }
+
+        return result.append("</g>\n</svg>\n").toString();
+    }
+}
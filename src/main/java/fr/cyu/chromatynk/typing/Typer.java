@@ -28,6 +28,7 @@ public class Typer {
             case LiteralInt ignored -> Type.INT;
             case LiteralFloat ignored -> Type.FLOAT;
             case LiteralColor ignored -> Type.COLOR;
+            case LiteralPercent ignored -> Type.PERCENTAGE;
 
             case Percent(Range range, Expr value) -> switch (getType(value, context)) {
                 case INT, FLOAT -> Type.PERCENTAGE;
@@ -43,9 +44,45 @@ public class Typer {
                         throw new TypeMismatchException(range.merge(value.range()), Set.of(Type.INT, Type.FLOAT, Type.PERCENTAGE), actual);
             };
 
-            case Add(Range ignored, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Not(Range range, Expr value) -> switch (getType(value, context)) {
+                case BOOLEAN -> Type.BOOLEAN;
+                case Type actual ->
+                        throw new TypeMismatchException(range.merge(value.range()), Set.of(Type.BOOLEAN), actual);
+            };
+
+            case Binary binary -> {
+                //Iterate over the left members of long chains like a+b+c+... instead of recursing on them
+                Deque<Binary> chain = new ArrayDeque<>();
+                Expr leftmost = binary;
+                while(leftmost instanceof Binary left) {
+                    chain.push(left);
+                    leftmost = left.left();
+                }
+
+                Type type = getType(leftmost, context);
+                while(!chain.isEmpty()) type = getBinaryType(chain.pop(), type, context);
+
+                yield type;
+            }
+
+            case VarCall(Range range, String name) -> context
+                    .getType(name)
+                    .orElseThrow(() -> new MissingVariableException(range, name));
+        };
+    }
 
-                case BOOLEAN -> switch (getType(left, context)) {
+    /**
+     * Get the type of a binary operation from the type of its left member.
+     *
+     * @param expr the binary operation
+     * @param leftType the type of the left member of {@code expr}
+     * @param context the context needed for the right member
+     */
+    private static Type getBinaryType(Binary expr, Type leftType, TypingContext context) throws TypingException {
+        return switch (expr) {
+            case Add(Range ignored, Expr left, Expr right) -> switch (leftType) {
+
+                case BOOLEAN -> switch (leftType) {
                     case STRING -> Type.STRING;
                     case Type actual -> throw new TypeMismatchException(right.range(), Set.of(Type.STRING), actual);
                 };
@@ -83,7 +120,7 @@ public class Typer {
                 };
             };
 
-            case Sub(Range ignored, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Sub(Range ignored, Expr left, Expr right) -> switch (leftType) {
 
                 case INT -> switch (getType(right, context)) {
                     case INT -> Type.INT;
@@ -115,7 +152,7 @@ public class Typer {
                         throw new TypeMismatchException(right.range(), Set.of(Type.INT, Type.FLOAT, Type.COLOR, Type.PERCENTAGE), actual);
             };
 
-            case Mul(Range ignored, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Mul(Range ignored, Expr left, Expr right) -> switch (leftType) {
                 case INT -> switch (getType(right, context)) {
                     case INT -> Type.INT;
                     case FLOAT -> Type.FLOAT;
@@ -147,7 +184,7 @@ public class Typer {
                         throw new TypeMismatchException(right.range(), Set.of(Type.INT, Type.FLOAT, Type.COLOR, Type.PERCENTAGE), actual);
             };
 
-            case Div(Range ignored, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Div(Range ignored, Expr left, Expr right) -> switch (leftType) {
 
                 case INT -> switch (getType(right, context)) {
                     case INT -> Type.INT;
@@ -178,7 +215,7 @@ public class Typer {
                         throw new TypeMismatchException(right.range(), Set.of(Type.INT, Type.FLOAT, Type.COLOR, Type.PERCENTAGE), actual);
             };
 
-            case Modulo(Range ignored, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Modulo(Range ignored, Expr left, Expr right) -> switch (leftType) {
                 case INT -> switch (getType(right, context)) {
                     case INT -> Type.INT;
                     case FLOAT -> Type.FLOAT;
@@ -210,13 +247,7 @@ public class Typer {
                         throw new TypeMismatchException(right.range(), Set.of(Type.INT, Type.FLOAT, Type.COLOR, Type.PERCENTAGE), actual);
             };
 
-            case Not(Range range, Expr value) -> switch (getType(value, context)) {
-                case BOOLEAN -> Type.BOOLEAN;
-                case Type actual ->
-                        throw new TypeMismatchException(range.merge(value.range()), Set.of(Type.BOOLEAN), actual);
-            };
-
-            case Or(Range range, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Or(Range range, Expr left, Expr right) -> switch (leftType) {
                 case BOOLEAN -> switch (getType(right, context)) {
                     case BOOLEAN -> Type.BOOLEAN;
                     case Type actual ->
@@ -227,7 +258,7 @@ public class Typer {
                         throw new TypeMismatchException(range.merge(right.range()), Set.of(Type.BOOLEAN), actual);
             };
 
-            case And(Range range, Expr left, Expr right) -> switch (getType(left, context)) {
+            case And(Range range, Expr left, Expr right) -> switch (leftType) {
                 case BOOLEAN -> switch (getType(right, context)) {
                     case BOOLEAN -> Type.BOOLEAN;
                     case Type actual ->
@@ -238,35 +269,35 @@ public class Typer {
                         throw new TypeMismatchException(range.merge(right.range()), Set.of(Type.BOOLEAN), actual);
             };
 
-            case Equal(Range range, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Equal(Range range, Expr left, Expr right) -> switch (leftType) {
                 case INT, FLOAT -> switch (getType(right, context)) {
                     case INT, FLOAT -> Type.BOOLEAN;
                     case Type actual ->
                             throw new TypeMismatchException(range.merge(right.range()), Set.of(Type.INT, Type.FLOAT), actual);
                 };
 
-                case Type leftType -> switch (getType(right, context)) {
+                default -> switch (getType(right, context)) {
                     case Type rightType when rightType == leftType -> Type.BOOLEAN;
                     case Type actual ->
                             throw new TypeMismatchException(range.merge(right.range()), Set.of(leftType), actual);
                 };
             };
 
-            case NotEqual(Range range, Expr left, Expr right) -> switch (getType(left, context)) {
+            case NotEqual(Range range, Expr left, Expr right) -> switch (leftType) {
                 case INT, FLOAT -> switch (getType(right, context)) {
                     case INT, FLOAT -> Type.BOOLEAN;
                     case Type actual ->
                             throw new TypeMismatchException(range.merge(right.range()), Set.of(Type.INT, Type.FLOAT), actual);
                 };
 
-                case Type leftType -> switch (getType(right, context)) {
+                default -> switch (getType(right, context)) {
                     case Type rightType when rightType == leftType -> Type.BOOLEAN;
                     case Type actual ->
                             throw new TypeMismatchException(range.merge(right.range()), Set.of(leftType), actual);
                 };
             };
 
-            case Greater(Range range, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Greater(Range range, Expr left, Expr right) -> switch (leftType) {
                 case INT, FLOAT -> switch (getType(right, context)) {
                     case INT, FLOAT -> Type.BOOLEAN;
                     case Type actual ->
@@ -283,7 +314,7 @@ public class Typer {
                         throw new TypeMismatchException(range.merge(right.range()), Set.of(Type.INT, Type.FLOAT, Type.PERCENTAGE), actual);
             };
 
-            case Less(Range range, Expr left, Expr right) -> switch (getType(left, context)) {
+            case Less(Range range, Expr left, Expr right) -> switch (leftType) {
                 case INT, FLOAT -> switch (getType(right, context)) {
                     case INT, FLOAT -> Type.BOOLEAN;
                     case Type actual ->
@@ -300,7 +331,7 @@ public class Typer {
                         throw new TypeMismatchException(range.merge(right.range()), Set.of(Type.INT, Type.FLOAT, Type.PERCENTAGE), actual);
             };
 
-            case GreaterEqual(Range range, Expr left, Expr right) -> switch (getType(left, context)) {
+            case GreaterEqual(Range range, Expr left, Expr right) -> switch (leftType) {
                 case INT, FLOAT -> switch (getType(right, context)) {
                     case INT, FLOAT -> Type.BOOLEAN;
                     case Type actual ->
@@ -317,7 +348,7 @@ public class Typer {
                         throw new TypeMismatchException(range.merge(right.range()), Set.of(Type.INT, Type.FLOAT, Type.PERCENTAGE), actual);
             };
 
-            case LessEqual(Range range, Expr left, Expr right) -> switch (getType(left, context)) {
+            case LessEqual(Range range, Expr left, Expr right) -> switch (leftType) {
                 case INT, FLOAT -> switch (getType(right, context)) {
                     case INT, FLOAT -> Type.BOOLEAN;
                     case Type actual ->
@@ -333,10 +364,6 @@ public class Typer {
                 case Type actual ->
                         throw new TypeMismatchException(range.merge(right.range()), Set.of(Type.INT, Type.FLOAT, Type.PERCENTAGE), actual);
             };
-
-            case VarCall(Range range, String name) -> context
-                    .getType(name)
-                    .orElseThrow(() -> new MissingVariableException(range, name));
         };
     }
 
@@ -361,15 +388,14 @@ public class Typer {
                     Range range, String iterator, Optional<Expr> from, Expr to, Optional<Expr> step, Statement.Body body
             ) -> {
 
+                //The bounds and the step are evaluated once before the iterator is declared
                 if(from.isPresent()) assertTypeMatch(from.get().range(), Set.of(Type.INT), getType(from.get(), context));
                 assertTypeMatch(to.range(), Set.of(Type.INT), getType(to, context));
+                if(step.isPresent()) assertTypeMatch(step.get().range(), Set.of(Type.INT), getType(step.get(), context));
 
                 TypingContext forContext = new TypingContext(context, new HashMap<>());
                 forContext.declareVariable(iterator, Type.INT, range);
 
-                if (step.isPresent())
-                    assertTypeMatch(step.get().range(), Set.of(Type.INT), getType(step.get(), forContext));
-
                 checkTypes(body, forContext);
             }
             case Statement.While(Range ignored, Expr condition, Statement.Body body) -> {
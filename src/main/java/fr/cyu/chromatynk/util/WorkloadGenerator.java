@@ -0,0 +1,239 @@
+package fr.cyu.chromatynk.util;
+
+import java.util.Random;
+
+/**
+ * A generator of valid Chromat'ynk programs of configurable size and shape, used to exercise each stage of the
+ * pipeline at scale.
+ * <p>
+ * The work done by each stage, including the execution, grows linearly with the size of the generated program:
+ * loops run a single iteration per nesting level and duplicated cursors are never nested more than
+ * {@link #MAX_DUPLICATION_DEPTH} times.
+ */
+public final class WorkloadGenerator {
+
+    /**
+     * The maximum nesting of {@code MIMIC} and {@code MIRROR} blocks, each level duplicating the drawing cursors.
+     */
+    public static final int MAX_DUPLICATION_DEPTH = 4;
+
+    /**
+     * The maximum indentation level. Deeper blocks are not indented further so the length of the source stays linear
+     * in its size.
+     */
+    public static final int MAX_INDENTATION = 8;
+
+    /**
+     * The shape of a generated program.
+     */
+    public enum Shape {
+
+        /**
+         * Nested {@code FOR} and {@code IF}/{@code ELSE} blocks, one level per unit.
+         */
+        NESTED,
+
+        /**
+         * Long arithmetic and boolean expression chains, one operand per unit.
+         */
+        EXPRESSIONS,
+
+        /**
+         * Cursor declarations, one cursor created, selected and moved per unit.
+         */
+        CURSORS,
+
+        /**
+         * Nested {@code MIMIC} and {@code MIRROR} blocks, one block of up to {@link #MAX_DUPLICATION_DEPTH} levels per
+         * unit.
+         */
+        MIRRORS,
+
+        /**
+         * A mix of declarations, loops, conditions, styles, drawing and cursor duplication, one scope per unit.
+         */
+        MIXED
+    }
+
+    /**
+     * The repeated unit of {@link Shape#MIXED} programs.
+     */
+    public static final String MIXED_UNIT = """
+            IF true {
+              NUM length = 2.5
+              FOR i FROM 0 TO 12 {
+                COLOR (i * 20) MOD 255, 100, 200
+                IF i MOD 3 == 0 {
+                  THICK 2
+                } ELSE {
+                  THICK 1
+                }
+                FWD length * i
+                TURN 30
+                length = length + 0.5
+              }
+              MIMIC 0 {
+                FWD 10
+              }
+              POS 50%, 50%
+            }
+            """;
+
+    private final Random random;
+    private final StringBuilder source;
+    private int indentation;
+
+    private WorkloadGenerator(long seed) {
+        this.random = new Random(seed);
+        this.source = new StringBuilder();
+    }
+
+    /**
+     * Generate a program.
+     *
+     * @param shape the shape of the program
+     * @param size the number of units of the program, at least 0
+     * @param seed the seed of the literals and operators picked by the generator
+     * @return the source of a valid program
+     */
+    public static String generate(Shape shape, int size, long seed) {
+        if(size < 0) throw new IllegalArgumentException("Size must be positive: " + size);
+
+        WorkloadGenerator generator = new WorkloadGenerator(seed);
+        generator.line("POS 50%, 50%");
+        switch (shape) {
+            case NESTED -> generator.nested(size);
+            case EXPRESSIONS -> generator.expressions(size);
+            case CURSORS -> generator.cursors(size);
+            case MIRRORS -> generator.mirrors(size);
+            case MIXED -> generator.source.append(MIXED_UNIT.repeat(size));
+        }
+
+        return generator.source.toString();
+    }
+
+    /**
+     * Generate a program with a default seed.
+     *
+     * @param shape the shape of the program
+     * @param size the number of units of the program, at least 0
+     * @return the source of a valid program
+     * @see #generate(Shape, int, long)
+     */
+    public static String generate(Shape shape, int size) {
+        return generate(shape, size, 0);
+    }
+
+    /**
+     * Generate a program of at least the given length.
+     *
+     * @param shape the shape of the program
+     * @param length the minimum number of characters of the program
+     * @return the source of the smallest program of the given shape not shorter than {@code length}
+     */
+    public static String generateOfLength(Shape shape, int length) {
+        int unitLength = Math.max(1, generate(shape, 1).length() - generate(shape, 0).length());
+        int size = Math.max(1, length / unitLength);
+
+        String source = generate(shape, size);
+        while (source.length() < length) source = generate(shape, ++size);
+
+        return source;
+    }
+
+    private void line(String line) {
+        source.repeat("  ", Math.min(indentation, MAX_INDENTATION)).append(line).append('\n');
+    }
+
+    private void open(String header) {
+        line(header + " {");
+        indentation++;
+    }
+
+    private void close() {
+        indentation--;
+        line("}");
+    }
+
+    private int literal() {
+        return random.nextInt(1, 10);
+    }
+
+    private void nested(int size) {
+        for(int i = 0; i < size; i++) {
+            if(i % 2 == 0) open("FOR i" + i + " FROM 0 TO 1");
+            else open("IF i" + (i - 1) + " MOD " + literal() + " == 0");
+
+            line("NUM n" + i + " = " + literal() + ".5");
+            line("FWD n" + i + " * 2");
+            line("TURN " + literal());
+        }
+
+        for(int i = size - 1; i >= 0; i--) {
+            close();
+            if(i % 2 == 1) {
+                open("ELSE");
+                line("BWD " + literal());
+                close();
+            }
+        }
+    }
+
+    private void expressions(int size) {
+        line("NUM x = 1.5");
+
+        StringBuilder arithmetic = new StringBuilder("FWD x");
+        StringBuilder condition = new StringBuilder("BOOL b = x > 0");
+        for(int i = 0; i < size; i++) {
+            switch (random.nextInt(4)) {
+                case 0 -> arithmetic.append(" + ").append(literal()).append(" * x");
+                case 1 -> arithmetic.append(" - (x MOD ").append(literal()).append(')');
+                case 2 -> arithmetic.append(" + x / ").append(literal());
+                default -> arithmetic.append(" - 0.").append(literal());
+            }
+
+            condition.append(random.nextBoolean() ? " && " : " || ");
+            if(random.nextBoolean()) condition.append("x < ").append(literal()).append(".5");
+            else condition.append("!(x >= ").append(literal()).append(".5)");
+        }
+
+        line(arithmetic.toString());
+        line(condition.toString());
+        open("IF b");
+        line("TURN 10");
+        close();
+    }
+
+    private void cursors(int size) {
+        for(int i = 1; i <= size; i++) {
+            line("CURSOR " + i);
+            line("SELECT " + i);
+            line("COLOR " + literal() * 25 + ", 100, 200");
+            line("FWD " + literal());
+            line("TURN " + literal() * 10);
+        }
+
+        line("SELECT 0");
+        line("FWD 10");
+    }
+
+    private void mirrors(int size) {
+        line("CURSOR 1");
+        line("SELECT 1");
+
+        for(int i = 0; i < size; i++) {
+            int depth = i % MAX_DUPLICATION_DEPTH + 1;
+            for(int level = 0; level < depth; level++) {
+                switch (level % 3) {
+                    case 0 -> open("MIMIC 0");
+                    case 1 -> open("MIRROR 50%, 50%");
+                    default -> open("MIRROR 0, 0, " + literal() * 10 + ", 100");
+                }
+                line("FWD " + literal());
+            }
+
+            line("TURN " + literal() * 10);
+            for(int level = 0; level < depth; level++) close();
+        }
+    }
+}
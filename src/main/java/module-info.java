@@ -4,13 +4,17 @@ module fr.cyu {
 	requires javafx.swing;
     requires org.fxmisc.richtext;
     requires reactfx;
+    requires jdk.httpserver;
+    requires jdk.jfr;
 
     exports fr.cyu.chromatynk;
     exports fr.cyu.chromatynk.ast;
     exports fr.cyu.chromatynk.bytecode;
     exports fr.cyu.chromatynk.editor;
     exports fr.cyu.chromatynk.eval;
+    exports fr.cyu.chromatynk.jfr;
     exports fr.cyu.chromatynk.parsing;
+    exports fr.cyu.chromatynk.server;
     exports fr.cyu.chromatynk.typing;
     exports fr.cyu.chromatynk.util;
 	exports fr.cyu.chromatynk.draw;
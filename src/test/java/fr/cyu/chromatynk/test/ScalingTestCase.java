@@ -0,0 +1,163 @@
+package fr.cyu.chromatynk.test;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.ast.Program;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.Compiler;
+import fr.cyu.chromatynk.draw.NullSurface;
+import fr.cyu.chromatynk.eval.EvalContext;
+import fr.cyu.chromatynk.eval.ForeverClock;
+import fr.cyu.chromatynk.eval.Interpreter;
+import fr.cyu.chromatynk.parsing.MemoTable;
+import fr.cyu.chromatynk.parsing.ParsingIterator;
+import fr.cyu.chromatynk.parsing.RangedParsingIterator;
+import fr.cyu.chromatynk.parsing.StatementParser;
+import fr.cyu.chromatynk.parsing.Token;
+import fr.cyu.chromatynk.util.WorkloadGenerator;
+import fr.cyu.chromatynk.util.WorkloadGenerator.Shape;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Check that the time of each stage of the pipeline grows linearly with the size of generated programs.
+ * <p>
+ * Each stage is timed on programs of size {@code n} and {@code GROWTH * n}, keeping the best of a few runs. A linear
+ * stage is {@code GROWTH} times slower on the larger program and a quadratic one {@code GROWTH²} times, so the bound
+ * leaves room for noise while still catching accidental quadratic behavior.
+ * <p>
+ * Timings depend on the load of the machine, so these tests are excluded from the default test run. Run them with
+ * {@code -Pperformance}.
+ */
+@Tag("performance")
+public class ScalingTestCase {
+
+    private static final int GROWTH = 4;
+    private static final double TOLERANCE = 2.5;
+    private static final int REPETITIONS = 3;
+
+    /**
+     * Timings below this duration, in nanoseconds, are considered noise.
+     */
+    private static final long NOISE_FLOOR = 5_000_000;
+
+    /**
+     * Nested blocks are parsed, checked and compiled recursively, unlike long expression chains.
+     */
+    private static final long STACK_SIZE = 256L << 20;
+
+    private static final String[] STAGES = {"lex", "parse", "compile", "execute"};
+
+    private static <T> T onLargeStack(Callable<T> task) throws Throwable {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(task.call());
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        }, "scaling", STACK_SIZE);
+
+        thread.start();
+        thread.join();
+        if(error.get() != null) throw error.get();
+        return result.get();
+    }
+
+    private static long[] time(String source) throws Exception {
+        long[] timings = new long[STAGES.length];
+
+        long start = System.nanoTime();
+        List<Token> tokens = Chromatynk.lexSource(source);
+        long lexed = System.nanoTime();
+        ParsingIterator<Token> iterator = new RangedParsingIterator<>(tokens);
+        iterator.setMemoTable(new MemoTable());
+        Program program = StatementParser.program().parse(iterator).value();
+        long parsed = System.nanoTime();
+        Chromatynk.typecheckProgram(program);
+        List<Bytecode> instructions = Compiler.compileProgram(program);
+        long compiled = System.nanoTime();
+        EvalContext context = Interpreter.evaluateAll(EvalContext.create(instructions, new NullSurface(800, 600)), new ForeverClock());
+        long executed = System.nanoTime();
+
+        assertFalse(context.hasNext());
+
+        timings[0] = lexed - start;
+        timings[1] = parsed - lexed;
+        timings[2] = compiled - parsed;
+        timings[3] = executed - compiled;
+        return timings;
+    }
+
+    private static long[] bestTime(String source) throws Exception {
+        long[] best = time(source);
+        for(int i = 1; i < REPETITIONS; i++) {
+            long[] timings = time(source);
+            for(int stage = 0; stage < STAGES.length; stage++) best[stage] = Math.min(best[stage], timings[stage]);
+        }
+
+        return best;
+    }
+
+    private static void assertLinear(Shape shape, int size) throws Throwable {
+        String small = WorkloadGenerator.generate(shape, size);
+        String large = WorkloadGenerator.generate(shape, size * GROWTH);
+
+        Callable<long[][]> measure = () -> {
+            //Warm up
+            time(small);
+            return new long[][]{bestTime(small), bestTime(large)};
+        };
+        long[][] timings = shape == Shape.NESTED || shape == Shape.MIRRORS ? onLargeStack(measure) : measure.call();
+
+        for(int stage = 0; stage < STAGES.length; stage++) {
+            long smallTime = Math.max(timings[0][stage], NOISE_FLOOR);
+            double ratio = (double) timings[1][stage] / smallTime;
+            assertTrue(
+                    ratio <= GROWTH * TOLERANCE,
+                    shape + " " + STAGES[stage] + " grew " + ratio + " times for a " + GROWTH + " times larger program ("
+                            + timings[0][stage] / 1_000_000 + "ms -> " + timings[1][stage] / 1_000_000 + "ms)"
+            );
+        }
+    }
+
+    @Test
+    public void nested() throws Throwable {
+        assertLinear(Shape.NESTED, 100);
+    }
+
+    @Test
+    public void expressions() throws Throwable {
+        assertLinear(Shape.EXPRESSIONS, 200);
+    }
+
+    @Test
+    public void cursors() throws Throwable {
+        assertLinear(Shape.CURSORS, 200);
+    }
+
+    @Test
+    public void mirrors() throws Throwable {
+        assertLinear(Shape.MIRRORS, 100);
+    }
+
+    @Test
+    public void mixed() throws Throwable {
+        assertLinear(Shape.MIXED, 50);
+    }
+
+    @Test
+    public void largeFile() throws Throwable {
+        String source = WorkloadGenerator.generateOfLength(Shape.MIXED, 1 << 20);
+        assertTrue(source.length() >= 1 << 20);
+
+        List<Bytecode> instructions = Chromatynk.compileInstructions(source);
+        assertFalse(instructions.isEmpty());
+    }
+}
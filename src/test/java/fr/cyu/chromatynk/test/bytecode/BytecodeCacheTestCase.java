@@ -0,0 +1,117 @@
+package fr.cyu.chromatynk.test.bytecode;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.BytecodeCache;
+import fr.cyu.chromatynk.bytecode.BytecodeFormatException;
+import fr.cyu.chromatynk.bytecode.BytecodeSerializer;
+import fr.cyu.chromatynk.bytecode.Compiler;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BytecodeCacheTestCase {
+
+    private static final String SOURCE = """
+            COLOR #FF0000
+            INT count = 0
+            FOR i FROM 0 TO 10 STEP 2 {
+              count = count + 1
+              STR name = "step" + i
+              FWD 10%
+              TURN 36.5
+            }
+            WHILE count < 20 {
+              count = count + 1
+            }""";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void roundTrip() throws ParsingException, TypingException, BytecodeFormatException {
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        byte[] hash = BytecodeSerializer.hashSource(SOURCE);
+
+        ByteBuffer buffer = ByteBuffer.wrap(BytecodeSerializer.serialize(instructions, hash));
+        assertEquals(instructions, BytecodeSerializer.deserialize(buffer, hash));
+    }
+
+    @Test
+    public void storeAndLoad() throws ParsingException, TypingException, IOException {
+        BytecodeCache cache = new BytecodeCache(directory);
+        assertEquals(Optional.empty(), cache.load(SOURCE));
+
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        cache.store(SOURCE, instructions);
+
+        assertEquals(Optional.of(instructions), cache.load(SOURCE));
+        assertEquals(Optional.empty(), cache.load(SOURCE + "\nFWD 1"));
+    }
+
+    @Test
+    public void staleEntry() throws ParsingException, TypingException, IOException {
+        BytecodeCache cache = new BytecodeCache(directory);
+        String otherSource = "FWD 5";
+
+        //An entry whose content was compiled from another source
+        Files.createDirectories(directory);
+        Files.write(
+                cache.getEntry(BytecodeSerializer.hashSource(SOURCE)),
+                BytecodeSerializer.serialize(Chromatynk.compileInstructions(otherSource), BytecodeSerializer.hashSource(otherSource))
+        );
+
+        assertEquals(Optional.empty(), cache.load(SOURCE));
+    }
+
+    @Test
+    public void outdatedCompiler() throws ParsingException, TypingException, IOException {
+        BytecodeCache cache = new BytecodeCache(directory);
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        cache.store(SOURCE, instructions);
+
+        //An entry generated by a previous version of the compiler, stored after the magic number and the format version
+        Path entry = cache.getEntry(BytecodeSerializer.hashSource(SOURCE));
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(entry));
+        bytes.putInt(8, Compiler.VERSION - 1);
+        Files.write(entry, bytes.array());
+
+        assertEquals(Optional.empty(), cache.load(SOURCE));
+
+        //The outdated entry is replaced
+        Chromatynk.compileSource(SOURCE, null, cache);
+        assertEquals(Optional.of(instructions), cache.load(SOURCE));
+    }
+
+    @Test
+    public void corruptedEntry() throws ParsingException, TypingException, IOException {
+        BytecodeCache cache = new BytecodeCache(directory);
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        cache.store(SOURCE, instructions);
+
+        Path entry = cache.getEntry(BytecodeSerializer.hashSource(SOURCE));
+        byte[] bytes = Files.readAllBytes(entry);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(entry, bytes);
+
+        assertEquals(Optional.empty(), cache.load(SOURCE));
+
+        //The corrupted entry is replaced
+        Chromatynk.compileSource(SOURCE, null, cache);
+        assertEquals(Optional.of(instructions), cache.load(SOURCE));
+
+        //Truncated entry
+        Files.write(entry, new byte[]{1, 2, 3});
+        assertEquals(Optional.empty(), cache.load(SOURCE));
+    }
+}
@@ -1,11 +1,17 @@
 package fr.cyu.chromatynk.test.bytecode;
 
+import fr.cyu.chromatynk.Chromatynk;
 import fr.cyu.chromatynk.ast.Expr;
 import fr.cyu.chromatynk.ast.Statement;
 import fr.cyu.chromatynk.ast.Type;
 import fr.cyu.chromatynk.bytecode.Bytecode;
 import fr.cyu.chromatynk.bytecode.Compiler;
+import fr.cyu.chromatynk.eval.EvalContext;
+import fr.cyu.chromatynk.eval.EvalException;
+import fr.cyu.chromatynk.eval.ForeverClock;
 import fr.cyu.chromatynk.eval.Value;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
 import fr.cyu.chromatynk.util.Position;
 import fr.cyu.chromatynk.util.Range;
 import org.junit.jupiter.api.Test;
@@ -235,5 +241,157 @@ public class CompilerTestCase {
         );
     }
 
-    //TODO test if/while/for
+    @Test
+    public void forLoop() {
+
+        Range wholeRange = new Range(new Position(0, 0), new Position(1, 2));
+        Range bodyRange = new Range(new Position(18, 0), new Position(1, 2));
+
+        /*
+        FOR i FROM 0 TO 10 {
+          FWD 5
+        }
+         */
+        assertCompileStatement(
+                List.of(
+                        new Bytecode.NewScope(wholeRange),
+                        new Bytecode.Push(Range.sameLine(11, 12), new Value.Int(0)),
+                        new Bytecode.Push(Range.sameLine(16, 18), new Value.Int(10)),
+                        new Bytecode.Push(wholeRange, new Value.Int(1)),
+                        new Bytecode.ForInit(wholeRange, "i", 8),
+                        new Bytecode.Push(Range.sameLine(6, 7, 1), new Value.Int(5)),
+                        new Bytecode.Forward(Range.sameLine(2, 7, 1)),
+                        new Bytecode.ForNext(wholeRange, 5),
+                        new Bytecode.ExitScope(wholeRange)
+                ),
+                new Statement.For(
+                        wholeRange,
+                        "i",
+                        Optional.of(new Expr.LiteralInt(Range.sameLine(11, 12), 0)),
+                        new Expr.LiteralInt(Range.sameLine(16, 18), 10),
+                        Optional.empty(),
+                        new Statement.Body(
+                                bodyRange,
+                                List.of(new Statement.Forward(
+                                        Range.sameLine(2, 7, 1),
+                                        new Expr.LiteralInt(Range.sameLine(6, 7, 1), 5)
+                                ))
+                        )
+                )
+        );
+    }
+
+    @Test
+    public void whileLoop() {
+
+        Range wholeRange = new Range(new Position(0, 0), new Position(1, 2));
+        Range bodyRange = new Range(new Position(16, 0), new Position(1, 2));
+
+        /*
+        WHILE condition {
+          INT x
+        }
+         */
+        assertCompileStatement(
+                List.of(
+                        new Bytecode.Load(Range.sameLine(6, 15), "condition"),
+                        new Bytecode.GoToIfFalse(wholeRange, 7),
+                        new Bytecode.NewScope(bodyRange),
+                        new Bytecode.Push(Range.sameLine(2, 7, 1), new Value.Int(0)),
+                        new Bytecode.Declare(Range.sameLine(2, 7, 1), Type.INT, "x"),
+                        new Bytecode.ExitScope(bodyRange),
+                        new Bytecode.GoTo(wholeRange, 0)
+                ),
+                new Statement.While(
+                        wholeRange,
+                        new Expr.VarCall(Range.sameLine(6, 15), "condition"),
+                        new Statement.Body(
+                                bodyRange,
+                                List.of(new Statement.DeclareVariable(Range.sameLine(2, 7, 1), Type.INT, "x", Optional.empty()))
+                        )
+                )
+        );
+
+        /*
+        WHILE condition {
+          FWD 5
+        }
+         */
+        assertCompileStatement(
+                List.of(
+                        new Bytecode.Load(Range.sameLine(6, 15), "condition"),
+                        new Bytecode.GoToIfFalse(wholeRange, 5),
+                        new Bytecode.Push(Range.sameLine(6, 7, 1), new Value.Int(5)),
+                        new Bytecode.Forward(Range.sameLine(2, 7, 1)),
+                        new Bytecode.GoTo(wholeRange, 0)
+                ),
+                new Statement.While(
+                        wholeRange,
+                        new Expr.VarCall(Range.sameLine(6, 15), "condition"),
+                        new Statement.Body(
+                                bodyRange,
+                                List.of(new Statement.Forward(
+                                        Range.sameLine(2, 7, 1),
+                                        new Expr.LiteralInt(Range.sameLine(6, 7, 1), 5)
+                                ))
+                        )
+                )
+        );
+    }
+
+    @Test
+    public void forLoopExecution() throws ParsingException, TypingException, EvalException {
+        assertEquals(new Value.Int(0 + 1 + 2 + 3 + 4), executeAndGet("""
+                INT sum = 0
+                FOR i FROM 0 TO 5 {
+                  sum = sum + i
+                }""", "sum"));
+
+        assertEquals(new Value.Int(10 + 8 + 6 + 4 + 2), executeAndGet("""
+                INT sum = 0
+                FOR i FROM 10 TO 0 STEP -2 {
+                  sum = sum + i
+                }""", "sum"));
+
+        assertEquals(new Value.Int(0), executeAndGet("""
+                INT sum = 0
+                FOR i FROM 5 TO 0 {
+                  sum = sum + 1
+                }""", "sum"));
+
+        //The bound is evaluated once
+        assertEquals(new Value.Int(3), executeAndGet("""
+                INT bound = 3
+                INT count = 0
+                FOR i FROM 0 TO bound {
+                  bound = bound + 1
+                  count = count + 1
+                }""", "count"));
+
+        //Variables declared in the body are dropped at each iteration
+        assertEquals(new Value.Int(3), executeAndGet("""
+                INT count = 0
+                FOR i FROM 0 TO 3 {
+                  INT local = 1
+                  count = count + local
+                }""", "count"));
+    }
+
+    @Test
+    public void longExpressionChain() throws ParsingException, TypingException, EvalException {
+        //Left-deep chains are typechecked, folded and compiled without recursing on each operand. The default stack
+        //overflowed at 1000 terms when they were handled recursively
+        int terms = 10_000;
+        String variables = "INT x = 1\nINT sum = x" + " + x".repeat(terms - 1);
+        String constants = "INT sum = 1" + " + 1".repeat(terms - 1);
+
+        assertEquals(new Value.Int(terms), executeAndGet(variables, "sum"));
+        assertEquals(new Value.Int(terms), executeAndGet(constants, "sum"));
+        assertEquals(3, Chromatynk.compileInstructions(constants).size());
+    }
+
+    private Value executeAndGet(String source, String variable) throws ParsingException, TypingException, EvalException {
+        EvalContext context = Chromatynk.execute(Chromatynk.compileSource(source, null), new ForeverClock());
+        return context.getValue(variable).orElseThrow();
+    }
 }
@@ -0,0 +1,138 @@
+package fr.cyu.chromatynk.test.bytecode;
+
+import fr.cyu.chromatynk.ast.Expr;
+import fr.cyu.chromatynk.ast.Statement;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.Compiler;
+import fr.cyu.chromatynk.bytecode.ConstantFolder;
+import fr.cyu.chromatynk.eval.Value;
+import fr.cyu.chromatynk.util.Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConstantFolderTestCase {
+
+    private void assertFold(Expr expected, Expr expr) {
+        assertEquals(expected, ConstantFolder.foldExpression(expr));
+    }
+
+    @Test
+    public void arithmetic() {
+        //1 + 2 * 3
+        assertFold(
+                new Expr.LiteralInt(Range.sameLine(0, 9), 7),
+                new Expr.Add(
+                        Range.sameLine(0, 9),
+                        new Expr.LiteralInt(Range.sameLine(0, 1), 1),
+                        new Expr.Mul(
+                                Range.sameLine(4, 9),
+                                new Expr.LiteralInt(Range.sameLine(4, 5), 2),
+                                new Expr.LiteralInt(Range.sameLine(8, 9), 3)
+                        )
+                )
+        );
+
+        //1 + 0.5
+        assertFold(
+                new Expr.LiteralFloat(Range.sameLine(0, 7), 1.5),
+                new Expr.Add(
+                        Range.sameLine(0, 7),
+                        new Expr.LiteralInt(Range.sameLine(0, 1), 1),
+                        new Expr.LiteralFloat(Range.sameLine(4, 7), 0.5)
+                )
+        );
+    }
+
+    @Test
+    public void percentage() {
+        //50% + 10%
+        assertFold(
+                new Expr.LiteralPercent(Range.sameLine(0, 9), 60),
+                new Expr.Add(
+                        Range.sameLine(0, 9),
+                        new Expr.Percent(Range.sameLine(0, 3), new Expr.LiteralInt(Range.sameLine(0, 2), 50)),
+                        new Expr.Percent(Range.sameLine(6, 9), new Expr.LiteralInt(Range.sameLine(6, 8), 10))
+                )
+        );
+    }
+
+    @Test
+    public void color() {
+        //#FF0000 + #00FF00
+        assertFold(
+                new Expr.LiteralColor(Range.sameLine(0, 17), 1, 1, 0, 1),
+                new Expr.Add(
+                        Range.sameLine(0, 17),
+                        new Expr.LiteralColor(Range.sameLine(0, 7), 1, 0, 0, 1),
+                        new Expr.LiteralColor(Range.sameLine(10, 17), 0, 1, 0, 1)
+                )
+        );
+    }
+
+    @Test
+    public void partial() {
+        //x + (1 + 2)
+        assertFold(
+                new Expr.Add(
+                        Range.sameLine(0, 10),
+                        new Expr.VarCall(Range.sameLine(0, 1), "x"),
+                        new Expr.LiteralInt(Range.sameLine(5, 10), 3)
+                ),
+                new Expr.Add(
+                        Range.sameLine(0, 10),
+                        new Expr.VarCall(Range.sameLine(0, 1), "x"),
+                        new Expr.Add(
+                                Range.sameLine(5, 10),
+                                new Expr.LiteralInt(Range.sameLine(5, 6), 1),
+                                new Expr.LiteralInt(Range.sameLine(9, 10), 2)
+                        )
+                )
+        );
+    }
+
+    @Test
+    public void failingExpressionIsKept() {
+        //1 / 0 must fail at runtime with its own range
+        Expr division = new Expr.Div(
+                Range.sameLine(0, 5),
+                new Expr.LiteralInt(Range.sameLine(0, 1), 1),
+                new Expr.LiteralInt(Range.sameLine(4, 5), 0)
+        );
+
+        assertFold(division, division);
+    }
+
+    @Test
+    public void deadBranch() {
+        Range bodyRange = Range.sameLine(8, 17);
+
+        //IF false {FWD 5} ELSE {FWD 10}
+        Statement statement = ConstantFolder.foldStatement(new Statement.If(
+                Range.sameLine(0, 34),
+                new Expr.Not(Range.sameLine(3, 8), new Expr.LiteralBool(Range.sameLine(4, 8), true)),
+                new Statement.Body(bodyRange, List.of(new Statement.Forward(Range.sameLine(9, 14), new Expr.LiteralInt(Range.sameLine(13, 14), 5)))),
+                Optional.of(new Statement.Body(
+                        Range.sameLine(23, 34),
+                        List.of(new Statement.Forward(Range.sameLine(24, 30), new Expr.LiteralInt(Range.sameLine(28, 30), 10)))
+                ))
+        ));
+
+        List<Bytecode> result = new LinkedList<>();
+        Compiler.compileStatement(statement, result, 0);
+
+        assertEquals(
+                List.of(
+                        new Bytecode.NewScope(Range.sameLine(23, 34)),
+                        new Bytecode.Push(Range.sameLine(28, 30), new Value.Int(10)),
+                        new Bytecode.Forward(Range.sameLine(24, 30)),
+                        new Bytecode.ExitScope(Range.sameLine(23, 34))
+                ),
+                result
+        );
+    }
+}
@@ -0,0 +1,95 @@
+package fr.cyu.chromatynk.test.bytecode;
+
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.PeepholeOptimizer;
+import fr.cyu.chromatynk.eval.Value;
+import fr.cyu.chromatynk.util.Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PeepholeOptimizerTestCase {
+
+    private void assertOptimize(List<Bytecode> expected, List<Bytecode> instructions) {
+        assertEquals(expected, PeepholeOptimizer.optimize(instructions));
+    }
+
+    @Test
+    public void constantStatement() {
+        assertOptimize(
+                List.of(
+                        new Bytecode.ForwardConst(Range.sameLine(0, 5), new Value.Int(5)),
+                        new Bytecode.TurnConst(Range.sameLine(0, 7, 1), new Value.Int(90))
+                ),
+                List.of(
+                        new Bytecode.Push(Range.sameLine(4, 5), new Value.Int(5)),
+                        new Bytecode.Forward(Range.sameLine(0, 5)),
+                        new Bytecode.Push(Range.sameLine(5, 7, 1), new Value.Int(90)),
+                        new Bytecode.Turn(Range.sameLine(0, 7, 1))
+                )
+        );
+    }
+
+    @Test
+    public void increment() {
+        assertOptimize(
+                List.of(new Bytecode.Increment(Range.sameLine(0, 9), "x", new Value.Int(1), Range.sameLine(4, 5), Range.sameLine(4, 9))),
+                List.of(
+                        new Bytecode.Load(Range.sameLine(4, 5), "x"),
+                        new Bytecode.Push(Range.sameLine(8, 9), new Value.Int(1)),
+                        new Bytecode.Add(Range.sameLine(4, 9)),
+                        new Bytecode.Store(Range.sameLine(0, 9), "x")
+                )
+        );
+
+        //Different variables
+        List<Bytecode> instructions = List.of(
+                new Bytecode.Load(Range.sameLine(4, 5), "y"),
+                new Bytecode.Push(Range.sameLine(8, 9), new Value.Int(1)),
+                new Bytecode.Add(Range.sameLine(4, 9)),
+                new Bytecode.Store(Range.sameLine(0, 9), "x")
+        );
+
+        assertOptimize(instructions, instructions);
+    }
+
+    @Test
+    public void relocation() {
+        Range whileRange = Range.sameLine(0, 20);
+
+        //WHILE i < n {FWD 5}
+        assertOptimize(
+                List.of(
+                        new Bytecode.GoToIfNotLess(whileRange, "i", "n", 3, Range.sameLine(6, 7), Range.sameLine(10, 11), Range.sameLine(6, 11)),
+                        new Bytecode.ForwardConst(Range.sameLine(13, 18), new Value.Int(5)),
+                        new Bytecode.GoTo(whileRange, 0),
+                        new Bytecode.End(Range.sameLine(20, 20))
+                ),
+                List.of(
+                        new Bytecode.Load(Range.sameLine(6, 7), "i"),
+                        new Bytecode.Load(Range.sameLine(10, 11), "n"),
+                        new Bytecode.Less(Range.sameLine(6, 11)),
+                        new Bytecode.GoToIfFalse(whileRange, 7),
+                        new Bytecode.Push(Range.sameLine(17, 18), new Value.Int(5)),
+                        new Bytecode.Forward(Range.sameLine(13, 18)),
+                        new Bytecode.GoTo(whileRange, 0),
+                        new Bytecode.End(Range.sameLine(20, 20))
+                )
+        );
+    }
+
+    @Test
+    public void jumpTargetIsNotFused() {
+        //The Forward is the target of a jump, the stack can have been filled elsewhere
+        List<Bytecode> instructions = List.of(
+                new Bytecode.GoTo(Range.sameLine(0, 1), 2),
+                new Bytecode.Push(Range.sameLine(1, 2), new Value.Int(5)),
+                new Bytecode.Forward(Range.sameLine(2, 3)),
+                new Bytecode.End(Range.sameLine(3, 3))
+        );
+
+        assertOptimize(instructions, instructions);
+    }
+}
@@ -0,0 +1,101 @@
+package fr.cyu.chromatynk.test.bytecode;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.ast.Type;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.bytecode.VerificationException;
+import fr.cyu.chromatynk.bytecode.Verifier;
+import fr.cyu.chromatynk.eval.EvalContext;
+import fr.cyu.chromatynk.eval.Value;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
+import fr.cyu.chromatynk.util.Range;
+import javafx.scene.canvas.GraphicsContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerifierTestCase {
+
+    private static final Range RANGE = Range.sameLine(0, 1);
+
+    @Test
+    public void maxStackDepth() throws VerificationException {
+        //POS 1 + 2, 3
+        Verifier.Result result = Verifier.verify(List.of(
+                new Bytecode.Push(RANGE, new Value.Int(1)),
+                new Bytecode.Push(RANGE, new Value.Int(2)),
+                new Bytecode.Add(RANGE),
+                new Bytecode.Push(RANGE, new Value.Float(3)),
+                new Bytecode.Pos(RANGE),
+                new Bytecode.End(RANGE)
+        ));
+
+        assertEquals(2, result.maxStackDepth());
+        assertArrayEquals(new Type[]{Type.INT, Type.FLOAT}, result.stackTypes().get(4));
+        assertArrayEquals(new Type[0], result.stackTypes().get(5));
+    }
+
+    @Test
+    public void mergedTypes() throws VerificationException {
+        //Two paths pushing a different type before the same instruction
+        Verifier.Result result = Verifier.verify(List.of(
+                new Bytecode.Push(RANGE, new Value.Bool(true)),
+                new Bytecode.GoToIfFalse(RANGE, 4),
+                new Bytecode.Push(RANGE, new Value.Int(1)),
+                new Bytecode.GoTo(RANGE, 5),
+                new Bytecode.Push(RANGE, new Value.Float(1)),
+                new Bytecode.Forward(RANGE),
+                new Bytecode.End(RANGE)
+        ));
+
+        assertEquals(1, result.maxStackDepth());
+        assertArrayEquals(new Type[]{null}, result.stackTypes().get(5));
+    }
+
+    @Test
+    public void invalidPrograms() {
+        //Underflow
+        assertThrows(VerificationException.class, () -> Verifier.verify(List.of(new Bytecode.Forward(RANGE))));
+
+        //Jump outside the program
+        assertThrows(VerificationException.class, () -> Verifier.verify(List.of(new Bytecode.GoTo(RANGE, 2), new Bytecode.End(RANGE))));
+
+        //Inconsistent stack depth
+        assertThrows(VerificationException.class, () -> Verifier.verify(List.of(
+                new Bytecode.Push(RANGE, new Value.Bool(true)),
+                new Bytecode.GoToIfFalse(RANGE, 3),
+                new Bytecode.Push(RANGE, new Value.Int(1)),
+                new Bytecode.End(RANGE)
+        )));
+
+        //Condition of the wrong type
+        assertThrows(VerificationException.class, () -> Verifier.verify(List.of(
+                new Bytecode.Push(RANGE, new Value.Int(1)),
+                new Bytecode.GoToIfFalse(RANGE, 2),
+                new Bytecode.End(RANGE)
+        )));
+    }
+
+    @Test
+    public void compiledProgram() throws ParsingException, TypingException {
+        EvalContext context = Chromatynk.compileSource("""
+                INT count = 0
+                FOR i FROM 0 TO 10 {
+                  IF i > 4 {
+                    count = count + 1
+                  }
+                  MIMIC 0 {
+                    FWD 5 * i
+                  }
+                }
+                WHILE count < 10 {
+                  count = count + 1
+                }""", (GraphicsContext) null);
+
+        assertTrue(context.isVerified());
+        assertFalse(EvalContext.create(List.of(new Bytecode.Forward(RANGE)), (GraphicsContext) null).isVerified());
+    }
+}
@@ -0,0 +1,176 @@
+package fr.cyu.chromatynk.test.draw;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.draw.*;
+import fr.cyu.chromatynk.eval.*;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorTableTestCase {
+
+    private static final double EPSILON = 1e-9;
+
+    private static final String SOURCE = """
+            POS 50%, 50%
+            FOR i FROM 0 TO 40 {
+              CURSOR i + 1
+              SELECT i + 1
+              COLOR i * 6, 100, 200
+              TURN i * 9
+              MIMIC 0 {
+                FWD i
+              }
+              MIRROR 50%, 50% {
+                FOR j FROM 0 TO 3 {
+                  FWD 5
+                  TURN 20
+                }
+              }
+              HIDE
+              IF i MOD 2 == 0 {
+                REMOVE i + 1
+                FWD 2
+              }
+            }
+            FOR i FROM 0 TO 10 {
+              CURSOR "tmp"
+              SELECT "tmp"
+              THICK i
+              FWD i
+              REMOVE "tmp"
+            }""";
+
+    @Test
+    public void allocation() {
+        CursorTable table = new CursorTable(1);
+        CursorTable.Row first = table.allocate(1, 2);
+        CursorTable.Row second = table.allocate(3, 4);
+        assertEquals(2, table.size());
+        assertEquals(1, second.getIndex());
+
+        second.setColor(new Color(0.5, 0.25, 1));
+        assertEquals(new Color(0.5, 0.25, 1), second.getColor());
+        assertEquals(1, first.getX());
+
+        table.release(first);
+        assertFalse(table.isLive(0));
+        assertEquals(1, table.size());
+
+        //Released rows are reused with default values
+        first.setX(42);
+        CursorTable.Row reused = table.allocate(5, 6);
+        assertEquals(0, reused.getIndex());
+        assertEquals(5, reused.getX());
+        assertEquals(new Color(0, 0, 0), reused.getColor());
+        assertEquals(2, table.getRowCount());
+    }
+
+    @Test
+    public void bulkOperations() {
+        CursorTable table = new CursorTable();
+        Cursor[] expected = new Cursor[5];
+        for(int i = 0; i < expected.length; i++) {
+            expected[i] = new TangibleCursor(i, 2 * i);
+            expected[i].turn(i * 30);
+            CursorTable.Row row = table.allocate(i, 2 * i);
+            row.turn(i * 30);
+        }
+
+        table.release(new TangibleCursor(0, 0));
+        table.translate(1, 4, 10, -5);
+        table.turn(0, 5, 45);
+        double[] matrix = AffineTransforms.axialReflection(0, 0, 3, 7);
+        table.transform(2, 5, matrix);
+
+        DisplayList lines = new DisplayList(new NullSurface(100, 100));
+        table.forward(lines, 0, 5, 10);
+
+        DisplayList expectedLines = new DisplayList(new NullSurface(100, 100));
+        for(int i = 0; i < expected.length; i++) {
+            Cursor cursor = expected[i];
+            if(i >= 1 && i < 4) {
+                cursor.setX(cursor.getX() + 10);
+                cursor.setY(cursor.getY() - 5);
+            }
+            cursor.turn(45);
+            if(i >= 2) {
+                double x = cursor.getX(), y = cursor.getY(), dirX = cursor.getDirX(), dirY = cursor.getDirY();
+                cursor.setX(AffineTransforms.transformX(matrix, 0, x, y));
+                cursor.setY(AffineTransforms.transformY(matrix, 0, x, y));
+                cursor.setDirX(matrix[0] * dirX + matrix[1] * dirY);
+                cursor.setDirY(matrix[3] * dirX + matrix[4] * dirY);
+            }
+            cursor.move(expectedLines, 10);
+        }
+
+        assertEquals(expectedLines.getLines().size(), lines.getLines().size());
+        for(int i = 0; i < expected.length; i++) {
+            DisplayList.Line expectedLine = expectedLines.getLines().get(i);
+            DisplayList.Line line = lines.getLines().get(i);
+            assertEquals(expectedLine.fromX(), line.fromX(), EPSILON);
+            assertEquals(expectedLine.fromY(), line.fromY(), EPSILON);
+            assertEquals(expectedLine.toX(), line.toX(), EPSILON);
+            assertEquals(expectedLine.toY(), line.toY(), EPSILON);
+        }
+    }
+
+    @Test
+    public void saveRestore() {
+        CursorTable table = new CursorTable(2);
+        CursorTable.Row first = table.allocate(1, 1);
+        CursorTable.Row second = table.allocate(2, 2);
+        CursorTable.State state = table.save();
+
+        first.setX(10);
+        table.release(second);
+        table.allocate(3, 3);
+        table.allocate(4, 4);
+        assertEquals(3, table.getRowCount());
+
+        table.restore(state);
+        assertEquals(2, table.getRowCount());
+        assertEquals(2, table.size());
+        assertEquals(1, first.getX());
+        assertTrue(table.isLive(1));
+        assertEquals(2, second.getX());
+        assertFalse(table.isLive(2));
+    }
+
+    private static List<DisplayList.Line> run(List<Bytecode> instructions, CursorTable table) throws EvalException {
+        DisplayList displayList = new DisplayList(new NullSurface(400, 300));
+        Interpreter.evaluateAll(EvalContext.create(instructions, displayList, table), new ForeverClock());
+        return displayList.getLines();
+    }
+
+    @Test
+    public void sameDrawings() throws ParsingException, TypingException, EvalException {
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        CursorTable table = new CursorTable(4);
+
+        assertEquals(run(instructions, null), run(instructions, table));
+        //Only cursor 0 is left and the rows of the other ones were reused
+        assertEquals(1, table.size());
+        assertEquals(2, table.getRowCount());
+    }
+
+    @Test
+    public void timeline() throws ParsingException, TypingException, EvalException {
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        DisplayList displayList = new DisplayList(new NullSurface(400, 300));
+        Timeline timeline = new Timeline(EvalContext.create(instructions, displayList, new CursorTable()), displayList, 16);
+        timeline.evaluateAll(new ForeverClock());
+
+        List<DisplayList.Line> expected = List.copyOf(displayList.getLines());
+        long end = timeline.getContext().getStep();
+
+        timeline.seek(end / 3);
+        timeline.seek(end);
+        assertEquals(expected, displayList.getLines());
+    }
+}
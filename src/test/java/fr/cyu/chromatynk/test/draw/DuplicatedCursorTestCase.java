@@ -0,0 +1,94 @@
+package fr.cyu.chromatynk.test.draw;
+
+import fr.cyu.chromatynk.draw.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DuplicatedCursorTestCase {
+
+    private static final double EPSILON = 1e-9;
+
+    private static List<DisplayList.Line> drawLine(Cursor cursor, double x, double y, double dx, double dy) {
+        DisplayList displayList = new DisplayList(new NullSurface(100, 100));
+        cursor.drawLineAt(displayList, x, y, dx, dy);
+        return displayList.getLines();
+    }
+
+    private static void assertLine(double fromX, double fromY, double toX, double toY, DisplayList.Line actual) {
+        assertEquals(fromX, actual.fromX(), EPSILON);
+        assertEquals(fromY, actual.fromY(), EPSILON);
+        assertEquals(toX, actual.toX(), EPSILON);
+        assertEquals(toY, actual.toY(), EPSILON);
+    }
+
+    @Test
+    public void singleDuplication() {
+        TangibleCursor cursor = new TangibleCursor(0, 0);
+
+        List<DisplayList.Line> mimicked = drawLine(new MimickedCursor(cursor, 10, 20), 1, 2, 3, 4);
+        assertEquals(2, mimicked.size());
+        assertLine(1, 2, 3, 4, mimicked.get(0));
+        assertLine(11, 22, 13, 24, mimicked.get(1));
+
+        List<DisplayList.Line> central = drawLine(new CentralMirroredCursor(cursor, 5, 5), 1, 2, 3, 4);
+        assertLine(9, 8, 7, 6, central.get(1));
+
+        //Axis y = x
+        List<DisplayList.Line> diagonal = drawLine(new AxialMirroredCursor(cursor, 0, 0, 10, 10), 1, 2, 3, 4);
+        assertLine(2, 1, 4, 3, diagonal.get(1));
+
+        //Vertical axis x = 5
+        List<DisplayList.Line> vertical = drawLine(new AxialMirroredCursor(cursor, 5, 0, 5, 10), 1, 2, 3, 4);
+        assertLine(9, 2, 7, 4, vertical.get(1));
+    }
+
+    /**
+     * Draw a line through nested duplications the way the decorators used to, one level at a time.
+     */
+    private static void drawNested(List<double[]> levels, int depth, double[] line, List<double[]> result) {
+        if(depth < 0) {
+            result.add(line);
+            return;
+        }
+
+        double[] transform = levels.get(depth);
+        drawNested(levels, depth - 1, line, result);
+        drawNested(levels, depth - 1, new double[]{
+                AffineTransforms.transformX(transform, 0, line[0], line[1]),
+                AffineTransforms.transformY(transform, 0, line[0], line[1]),
+                AffineTransforms.transformX(transform, 0, line[2], line[3]),
+                AffineTransforms.transformY(transform, 0, line[2], line[3])
+        }, result);
+    }
+
+    @Test
+    public void nestedDuplications() {
+        Cursor cursor = new TangibleCursor(0, 0);
+        List<double[]> levels = new ArrayList<>();
+
+        cursor = new MimickedCursor(cursor, 30, -10);
+        levels.add(AffineTransforms.translation(30, -10));
+        cursor = new AxialMirroredCursor(cursor, 0, 0, 3, 7);
+        levels.add(AffineTransforms.axialReflection(0, 0, 3, 7));
+        cursor = new CentralMirroredCursor(cursor, 50, 40);
+        levels.add(AffineTransforms.pointReflection(50, 40));
+        cursor = new AxialMirroredCursor(cursor, 20, 20, 20, 80);
+        levels.add(AffineTransforms.axialReflection(20, 20, 20, 80));
+        cursor = new MimickedCursor(cursor, -5, 15);
+        levels.add(AffineTransforms.translation(-5, 15));
+
+        List<double[]> expected = new ArrayList<>();
+        drawNested(levels, levels.size() - 1, new double[]{1, 2, 8, 13}, expected);
+
+        List<DisplayList.Line> actual = drawLine(cursor, 1, 2, 8, 13);
+        assertEquals(32, actual.size());
+        for(int i = 0; i < expected.size(); i++) {
+            double[] line = expected.get(i);
+            assertLine(line[0], line[1], line[2], line[3], actual.get(i));
+        }
+    }
+}
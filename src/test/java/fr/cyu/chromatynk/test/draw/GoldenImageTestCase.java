@@ -0,0 +1,158 @@
+package fr.cyu.chromatynk.test.draw;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.draw.*;
+import fr.cyu.chromatynk.eval.EvalContext;
+import fr.cyu.chromatynk.eval.ForeverClock;
+import fr.cyu.chromatynk.util.WorkloadGenerator;
+import fr.cyu.chromatynk.util.WorkloadGenerator.Shape;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Render the examples and generated scripts headlessly and compare them against the golden images stored in
+ * {@code src/test/resources/golden}.
+ * <p>
+ * Scripts are rendered and compared in parallel. A mismatch writes the rendered image and a diff image to
+ * {@code target/golden-diff}. Run the tests with {@code -Dgolden.update=true} to write the golden images of the
+ * current renderer instead, then review them before committing.
+ */
+public class GoldenImageTestCase {
+
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+
+    /**
+     * The perceptual distance above which two pixels differ.
+     */
+    private static final double THRESHOLD = 0.1;
+
+    /**
+     * The maximum ratio of differing pixels of a matching image.
+     */
+    private static final double TOLERANCE = 0.001;
+
+    private static final Path GOLDEN = Path.of("src/test/resources/golden");
+    private static final Path DIFFS = Path.of("target/golden-diff");
+    private static final boolean UPDATE = Boolean.getBoolean("golden.update");
+
+    private static final Map<Shape, Integer> GENERATED_SIZES = Map.of(
+            Shape.NESTED, 50,
+            Shape.EXPRESSIONS, 50,
+            Shape.CURSORS, 100,
+            Shape.MIRRORS, 50,
+            Shape.MIXED, 20
+    );
+
+    private static Map<String, String> scripts() throws IOException {
+        Map<String, String> scripts = new TreeMap<>();
+
+        try(var examples = Files.list(Path.of("examples"))) {
+            for(Path example : examples.toList()) {
+                scripts.put(example.getFileName().toString().replace(".cty", ""), Files.readString(example));
+            }
+        }
+
+        GENERATED_SIZES.forEach((shape, size) ->
+                scripts.put("generated-" + shape.name().toLowerCase() + "-" + size, WorkloadGenerator.generate(shape, size))
+        );
+
+        return scripts;
+    }
+
+    private static Raster render(String source) throws Exception {
+        DisplayList displayList = new DisplayList(new NullSurface(WIDTH, HEIGHT));
+        Chromatynk.execute(EvalContext.create(Chromatynk.compileInstructions(source), displayList), new ForeverClock());
+        return new TileRasterizer().rasterize(displayList.getLines(), WIDTH, HEIGHT);
+    }
+
+    private static Raster readPng(Path path) throws IOException {
+        BufferedImage image = ImageIO.read(path.toFile());
+        Raster raster = new Raster(image.getWidth(), image.getHeight());
+        image.getRGB(0, 0, image.getWidth(), image.getHeight(), raster.getPixels(), 0, image.getWidth());
+        return raster;
+    }
+
+    private static void writePng(Raster raster, Path path) throws IOException {
+        BufferedImage image = new BufferedImage(raster.getWidth(), raster.getHeight(), BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, raster.getWidth(), raster.getHeight(), raster.getPixels(), 0, raster.getWidth());
+        Files.createDirectories(path.getParent());
+        ImageIO.write(image, "png", path.toFile());
+    }
+
+    /**
+     * Render a script and compare it against its golden image.
+     *
+     * @return the reason of the mismatch or an empty optional if the script matches its golden image
+     */
+    private static Optional<String> check(String name, String source) throws Exception {
+        Raster actual = render(source);
+        Path golden = GOLDEN.resolve(name + ".png");
+
+        if(UPDATE) {
+            writePng(actual, golden);
+            return Optional.empty();
+        }
+
+        if(!Files.exists(golden)) return Optional.of(name + ": missing golden image, run with -Dgolden.update=true");
+
+        Raster expected = readPng(golden);
+        if(expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            return Optional.of(name + ": golden image is " + expected.getWidth() + "x" + expected.getHeight());
+        }
+
+        ImageDiff.Result result = ImageDiff.compare(expected, actual, THRESHOLD);
+        if(result.getDifferentRatio() <= TOLERANCE) return Optional.empty();
+
+        writePng(actual, DIFFS.resolve(name + ".actual.png"));
+        writePng(result.image(), DIFFS.resolve(name + ".diff.png"));
+        return Optional.of(String.format(
+                Locale.ROOT,
+                "%s: %d pixels differ (%.3f%%), see %s",
+                name, result.differentPixels(), result.getDifferentRatio() * 100, DIFFS.resolve(name + ".diff.png")
+        ));
+    }
+
+    @Test
+    public void goldenImages() throws Exception {
+        Map<String, String> scripts = scripts();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<String> failures = new ArrayList<>();
+
+        try {
+            Map<String, Future<Optional<String>>> results = new TreeMap<>();
+            scripts.forEach((name, source) -> results.put(name, executor.submit(() -> check(name, source))));
+
+            for(Future<Optional<String>> result : results.values()) result.get().ifPresent(failures::add);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(failures.isEmpty(), "Rendering differs from the golden images:\n" + String.join("\n", failures));
+    }
+
+    @Test
+    public void diffTolerance() {
+        DisplayList.Line line = new DisplayList.Line(10, 50, 90, 50, new Color(0, 0, 0), 1, 4);
+        Raster expected = new TileRasterizer().rasterize(List.of(line), 100, 100);
+
+        //An edge shifted by a fraction of pixel is within the threshold, a whole line is not
+        Raster shifted = new TileRasterizer().rasterize(List.of(new DisplayList.Line(10, 50.05, 90, 50.05, new Color(0, 0, 0), 1, 4)), 100, 100);
+        Raster missing = new TileRasterizer().rasterize(List.of(), 100, 100);
+
+        assertEquals(0, ImageDiff.compare(expected, expected, THRESHOLD).differentPixels());
+        assertEquals(0, ImageDiff.compare(expected, shifted, THRESHOLD).differentPixels());
+        assertTrue(ImageDiff.compare(expected, missing, THRESHOLD).getDifferentRatio() > TOLERANCE);
+    }
+}
@@ -0,0 +1,109 @@
+package fr.cyu.chromatynk.test.draw;
+
+import fr.cyu.chromatynk.draw.Raster;
+
+/**
+ * A tolerant perceptual comparison of two images.
+ * <p>
+ * Pixels are compared in the YIQ color space, weighting luminance more than chrominance like the human eye does. A pixel
+ * only differs when its distance exceeds a threshold, so small variations of anti-aliased edges are ignored, and two
+ * images only mismatch when the ratio of differing pixels exceeds a tolerance.
+ */
+public final class ImageDiff {
+
+    /**
+     * The largest possible distance between two colors.
+     */
+    private static final double MAX_DELTA = 35215;
+
+    private static final int DIFFERENT = 0xFFFF0000;
+
+    /**
+     * The result of a comparison.
+     *
+     * @param differentPixels the number of pixels whose perceptual distance exceeds the threshold
+     * @param totalPixels the number of compared pixels
+     * @param image the expected image faded to gray with the differing pixels in red
+     */
+    public record Result(long differentPixels, long totalPixels, Raster image) {
+
+        /**
+         * Get the ratio of differing pixels between 0 and 1.
+         */
+        public double getDifferentRatio() {
+            return (double) differentPixels / totalPixels;
+        }
+    }
+
+    private ImageDiff() {}
+
+    private static double luminance(int red, int green, int blue) {
+        return red * 0.29889531 + green * 0.58662247 + blue * 0.11448223;
+    }
+
+    private static double inPhase(int red, int green, int blue) {
+        return red * 0.59597799 - green * 0.27417610 - blue * 0.32180189;
+    }
+
+    private static double quadrature(int red, int green, int blue) {
+        return red * 0.21147017 - green * 0.52261711 + blue * 0.31114694;
+    }
+
+    /**
+     * Get the perceptual distance between two opaque pixels, between 0 and {@link #MAX_DELTA}.
+     */
+    private static double delta(int expected, int actual) {
+        int red1 = (expected >> 16) & 0xFF, green1 = (expected >> 8) & 0xFF, blue1 = expected & 0xFF;
+        int red2 = (actual >> 16) & 0xFF, green2 = (actual >> 8) & 0xFF, blue2 = actual & 0xFF;
+
+        double y = luminance(red1, green1, blue1) - luminance(red2, green2, blue2);
+        double i = inPhase(red1, green1, blue1) - inPhase(red2, green2, blue2);
+        double q = quadrature(red1, green1, blue1) - quadrature(red2, green2, blue2);
+
+        return 0.5053 * y * y + 0.299 * i * i + 0.1957 * q * q;
+    }
+
+    /**
+     * Fade a pixel toward white, keeping its luminance as a gray level.
+     */
+    private static int fade(int pixel) {
+        int gray = (int) luminance((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF);
+        int faded = 255 - (255 - gray) / 10;
+        return 0xFF000000 | faded << 16 | faded << 8 | faded;
+    }
+
+    /**
+     * Compare two images of the same size.
+     *
+     * @param expected the reference image
+     * @param actual the compared image
+     * @param threshold the distance between 0 and 1 above which two pixels differ
+     * @return the number of differing pixels and the diff image
+     */
+    public static Result compare(Raster expected, Raster actual, double threshold) {
+        if(expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            throw new IllegalArgumentException(
+                    "Images have different sizes: " + expected.getWidth() + "x" + expected.getHeight()
+                            + " and " + actual.getWidth() + "x" + actual.getHeight()
+            );
+        }
+
+        double maxDelta = MAX_DELTA * threshold * threshold;
+        int[] expectedPixels = expected.getPixels();
+        int[] actualPixels = actual.getPixels();
+        Raster image = new Raster(expected.getWidth(), expected.getHeight());
+        int[] imagePixels = image.getPixels();
+        long different = 0;
+
+        for(int i = 0; i < expectedPixels.length; i++) {
+            if(expectedPixels[i] != actualPixels[i] && delta(expectedPixels[i], actualPixels[i]) > maxDelta) {
+                imagePixels[i] = DIFFERENT;
+                different++;
+            } else {
+                imagePixels[i] = fade(expectedPixels[i]);
+            }
+        }
+
+        return new Result(different, expectedPixels.length, image);
+    }
+}
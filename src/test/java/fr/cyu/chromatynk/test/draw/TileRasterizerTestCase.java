@@ -0,0 +1,90 @@
+package fr.cyu.chromatynk.test.draw;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.draw.*;
+import fr.cyu.chromatynk.eval.EvalContext;
+import fr.cyu.chromatynk.eval.EvalException;
+import fr.cyu.chromatynk.eval.ForeverClock;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileRasterizerTestCase {
+
+    private static final Color RED = new Color(1, 0, 0);
+    private static final Color BLUE = new Color(0, 0, 1);
+
+    @Test
+    public void singleLine() {
+        Raster raster = new TileRasterizer(ForkJoinPool.commonPool(), 8).rasterize(List.of(
+                new DisplayList.Line(2, 10, 24, 10, RED, 1, 4)
+        ), 32, 20);
+
+        assertEquals(0xFFFF0000, raster.getPixel(15, 10));
+        assertEquals(0xFFFF0000, raster.getPixel(15, 9));
+        assertEquals(Raster.WHITE, raster.getPixel(15, 2));
+        assertEquals(Raster.WHITE, raster.getPixel(31, 10));
+    }
+
+    @Test
+    public void drawOrder() {
+        TileRasterizer rasterizer = new TileRasterizer(ForkJoinPool.commonPool(), 4);
+        DisplayList.Line red = new DisplayList.Line(0, 5, 16, 5, RED, 1, 2);
+        DisplayList.Line blue = new DisplayList.Line(8, 0, 8, 16, BLUE, 0.5, 2);
+
+        //Blue blended over red and red over blue
+        assertEquals(0xFF800080, rasterizer.rasterize(List.of(red, blue), 16, 16).getPixel(8, 5));
+        assertEquals(0xFFFF0000, rasterizer.rasterize(List.of(blue, red), 16, 16).getPixel(8, 5));
+    }
+
+    @Test
+    public void sameAsSequential() throws IOException, ParsingException, TypingException, EvalException {
+        int width = 1280;
+        int height = 720;
+
+        DisplayList displayList = new DisplayList(new NullSurface(width, height));
+        EvalContext context = EvalContext.create(Chromatynk.compileInstructions(Files.readString(Path.of("examples/virus.cty"))), displayList);
+        Chromatynk.execute(context, new ForeverClock());
+        assertTrue(displayList.size() > 0);
+
+        //A single tile on a single thread
+        Raster sequential = new TileRasterizer(new ForkJoinPool(1), Math.max(width, height)).rasterize(displayList.getLines(), width, height);
+        Raster parallel = new TileRasterizer(new ForkJoinPool(4), 32).rasterize(displayList.getLines(), width, height);
+
+        assertArrayEquals(sequential.getPixels(), parallel.getPixels());
+    }
+
+    @Test
+    public void flattenedDisplayList() throws IOException, ParsingException, TypingException, EvalException {
+        int width = 640;
+        int height = 360;
+        List<Bytecode> instructions = Chromatynk.compileInstructions(Files.readString(Path.of("examples/virus.cty")));
+
+        DisplayList full = new DisplayList(new NullSurface(width, height));
+        Chromatynk.execute(EvalContext.create(instructions, full), new ForeverClock());
+        DisplayList bounded = new DisplayList(new NullSurface(width, height), 100);
+        Chromatynk.execute(EvalContext.create(instructions, bounded), new ForeverClock());
+
+        assertEquals(full.size(), bounded.size());
+        assertTrue(bounded.getFlattened() > 0);
+        assertTrue(bounded.getLines().size() <= 100);
+        assertThrows(IllegalArgumentException.class, () -> bounded.rewind(0));
+
+        //The background then the retained lines give the same image as every line
+        Raster raster = new Raster(width, height);
+        System.arraycopy(bounded.getBackground().orElseThrow().getPixels(), 0, raster.getPixels(), 0, width * height);
+        TileRasterizer rasterizer = new TileRasterizer();
+        rasterizer.draw(bounded.getLines(), raster);
+
+        assertArrayEquals(rasterizer.rasterize(full.getLines(), width, height).getPixels(), raster.getPixels());
+    }
+}
@@ -0,0 +1,177 @@
+package fr.cyu.chromatynk.test.eval;
+
+import com.sun.management.ThreadMXBean;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.draw.NullSurface;
+import fr.cyu.chromatynk.eval.EvalContext;
+import fr.cyu.chromatynk.eval.EvalException;
+import fr.cyu.chromatynk.eval.ForeverClock;
+import fr.cyu.chromatynk.eval.Interpreter;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measure the memory allocated by the interpreter, using the allocation counter of the current thread.
+ * <p>
+ * Programs draw on a {@link NullSurface} so only the interpreter is measured. The total is the lowest of a few regular
+ * {@link Interpreter#evaluateAll(EvalContext, fr.cyu.chromatynk.eval.Clock)} runs, after warming up the interpreter so
+ * the hot path is compiled. Small programs are warmed up for more runs since the JIT needs a number of executed
+ * instructions, not of runs, to compile and optimize the hot path. The allocations of each kind of instruction are
+ * measured on a separate run reading the counter around every instruction, which can prevent some optimizations of the
+ * JIT: they tell where the allocations come from but only the total is checked against a budget.
+ */
+public final class AllocationHarness {
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int WARMUP_RUNS = 10;
+    private static final long WARMUP_INSTRUCTIONS = 2_000_000;
+    private static final int MEASURED_RUNS = 3;
+
+    /**
+     * The allocations of a kind of instruction.
+     *
+     * @param kind the name of the instruction kind
+     * @param count the number of executions of the instructions of this kind
+     * @param bytes the number of bytes allocated by these executions
+     */
+    public record KindAllocation(String kind, long count, long bytes) {
+
+        /**
+         * Get the mean number of bytes allocated per execution.
+         */
+        public double getBytesPerInstruction() {
+            return count == 0 ? 0 : (double) bytes / count;
+        }
+    }
+
+    /**
+     * The allocations of a program.
+     *
+     * @param program the name of the program
+     * @param instructions the number of executed instructions
+     * @param bytes the number of bytes allocated by the interpreter
+     * @param kinds the allocations of each executed kind of instruction, largest first
+     */
+    public record Report(String program, long instructions, long bytes, List<KindAllocation> kinds) {
+
+        /**
+         * Get the mean number of bytes allocated per executed instruction.
+         */
+        public double getBytesPerInstruction() {
+            return instructions == 0 ? 0 : (double) bytes / instructions;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder(String.format(
+                    Locale.ROOT,
+                    "%s: %d bytes for %d instructions (%.2f B/instruction)%n",
+                    program, bytes, instructions, getBytesPerInstruction()
+            ));
+
+            for(KindAllocation kind : kinds) {
+                result.append(String.format(
+                        Locale.ROOT,
+                        "  %-20s %10d executions %12d bytes %8.2f B/instruction%n",
+                        kind.kind(), kind.count(), kind.bytes(), kind.getBytesPerInstruction()
+                ));
+            }
+
+            return result.toString();
+        }
+    }
+
+    private AllocationHarness() {}
+
+    /**
+     * Check if the JVM can count the allocations of a thread.
+     */
+    public static boolean isSupported() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    private static EvalContext newContext(List<Bytecode> instructions) {
+        return EvalContext.create(instructions, new NullSurface(800, 600));
+    }
+
+    /**
+     * Measure the allocations of a program.
+     *
+     * @param program the name of the program
+     * @param instructions the compiled program
+     * @return the allocations of the program, in total and per kind of instruction
+     * @throws EvalException if the program fails
+     */
+    public static Report measure(String program, List<Bytecode> instructions) throws EvalException {
+        long warmedUp = 0;
+        for(int i = 0; i < WARMUP_RUNS || warmedUp < WARMUP_INSTRUCTIONS; i++) {
+            warmedUp += Interpreter.evaluateAll(newContext(instructions), new ForeverClock()).getStep() + 1;
+        }
+
+        long bytes = Long.MAX_VALUE;
+        long steps = 0;
+        for(int i = 0; i < MEASURED_RUNS; i++) {
+            EvalContext context = newContext(instructions);
+            ForeverClock clock = new ForeverClock();
+            long start = THREADS.getCurrentThreadAllocatedBytes();
+            Interpreter.evaluateAll(context, clock);
+            bytes = Math.min(bytes, THREADS.getCurrentThreadAllocatedBytes() - start);
+            steps = context.getStep();
+        }
+
+        return new Report(program, steps, bytes, measureKinds(instructions));
+    }
+
+    private static List<KindAllocation> measureKinds(List<Bytecode> instructions) throws EvalException {
+        long[] counts = new long[instructions.size()];
+        long[] bytes = new long[instructions.size()];
+
+        //Reading the counter twice in a row gives the cost of the measure itself
+        long overhead = Long.MAX_VALUE;
+        for(int i = 0; i < 16; i++) {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            overhead = Math.min(overhead, THREADS.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        EvalContext context = newContext(instructions);
+        while (context.hasNext()) {
+            int address = context.getNextAddress();
+            Bytecode bytecode = context.next();
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            Interpreter.evaluate(context, bytecode);
+            bytes[address] += Math.max(0, THREADS.getCurrentThreadAllocatedBytes() - before - overhead);
+            counts[address]++;
+        }
+
+        Map<String, long[]> kinds = new HashMap<>();
+        for(int address = 0; address < counts.length; address++) {
+            if(counts[address] == 0) continue;
+
+            long[] kind = kinds.computeIfAbsent(instructions.get(address).getClass().getSimpleName(), k -> new long[2]);
+            kind[0] += counts[address];
+            kind[1] += bytes[address];
+        }
+
+        List<KindAllocation> result = new ArrayList<>(kinds.size());
+        kinds.forEach((kind, totals) -> result.add(new KindAllocation(kind, totals[0], totals[1])));
+        result.sort(Comparator.comparingLong(KindAllocation::bytes).reversed().thenComparing(KindAllocation::kind));
+
+        return result;
+    }
+
+    /**
+     * Check that a program stays within its allocation budget.
+     *
+     * @param report the allocations of the program
+     * @param budget the maximum mean number of bytes allocated per executed instruction
+     */
+    public static void assertWithinBudget(Report report, double budget) {
+        assertTrue(
+                report.getBytesPerInstruction() <= budget,
+                "Allocation budget of " + budget + " B/instruction exceeded\n" + report
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package fr.cyu.chromatynk.test.eval;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.util.WorkloadGenerator;
+import fr.cyu.chromatynk.util.WorkloadGenerator.Shape;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static fr.cyu.chromatynk.test.eval.AllocationHarness.assertWithinBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets of representative programs, in bytes allocated per executed instruction.
+ * <p>
+ * A budget leaves about 25% of headroom over the current allocations of its program so regressions of the interpreter
+ * hot path fail the build. It should be lowered whenever the hot path allocates less.
+ * <p>
+ * Allocations depend on the JIT compiler and the measure takes a while, so these tests are excluded from the default
+ * test run. Run them with {@code -Pperformance}.
+ */
+@Tag("performance")
+public class AllocationTestCase {
+
+    private static final Map<String, Double> EXAMPLE_BUDGETS = Map.of(
+            "RGB lines", 27.0,
+            "code_romu", 35.0,
+            "folie", 27.0,
+            "spin_spiral", 23.0,
+            "spiral", 23.0,
+            "square", 18.0,
+            "star", 38.0,
+            "virus", 37.0
+    );
+
+    private static final Map<Shape, Double> GENERATED_BUDGETS = Map.of(
+            Shape.NESTED, 43.0,
+            Shape.EXPRESSIONS, 36.0,
+            Shape.CURSORS, 44.0,
+            Shape.MIRRORS, 60.0,
+            Shape.MIXED, 28.0
+    );
+
+    private static final int GENERATED_SIZE = 50;
+
+    private static void check(String program, String source, double budget) throws Exception {
+        assertWithinBudget(AllocationHarness.measure(program, Chromatynk.compileInstructions(source)), budget);
+    }
+
+    @Test
+    public void examples() throws Exception {
+        assumeTrue(AllocationHarness.isSupported());
+
+        try(var examples = Files.list(Path.of("examples"))) {
+            assertEquals(EXAMPLE_BUDGETS.size(), examples.count(), "Every example has a budget");
+        }
+
+        for(Map.Entry<String, Double> budget : EXAMPLE_BUDGETS.entrySet()) {
+            String source = Files.readString(Path.of("examples", budget.getKey() + ".cty"));
+            check(budget.getKey(), source, budget.getValue());
+        }
+    }
+
+    @Test
+    public void generated() throws Exception {
+        assumeTrue(AllocationHarness.isSupported());
+
+        for(Map.Entry<Shape, Double> budget : GENERATED_BUDGETS.entrySet()) {
+            Shape shape = budget.getKey();
+            check(shape.name().toLowerCase() + "-" + GENERATED_SIZE, WorkloadGenerator.generate(shape, GENERATED_SIZE), budget.getValue());
+        }
+    }
+}
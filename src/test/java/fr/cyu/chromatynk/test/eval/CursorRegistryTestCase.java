@@ -0,0 +1,136 @@
+package fr.cyu.chromatynk.test.eval;
+
+import fr.cyu.chromatynk.draw.Cursor;
+import fr.cyu.chromatynk.draw.CursorId;
+import fr.cyu.chromatynk.draw.TangibleCursor;
+import fr.cyu.chromatynk.eval.CursorRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorRegistryTestCase {
+
+    private static final CursorId A = new CursorId.Int(0);
+    private static final CursorId B = new CursorId.Int(1);
+    private static final CursorId C = new CursorId.Str("c");
+
+    @Test
+    public void shadowing() {
+        CursorRegistry registry = new CursorRegistry();
+        Cursor outer = new TangibleCursor(0, 0);
+        Cursor inner = new TangibleCursor(1, 1);
+
+        registry.declare(A, outer);
+        assertThrows(IllegalStateException.class, () -> registry.declare(A, inner));
+
+        registry.enterScope();
+        assertFalse(registry.containsInCurrentScope(A));
+        registry.declare(A, inner);
+        assertSame(inner, registry.get(A));
+        assertEquals(2, registry.size());
+
+        registry.exitScope();
+        assertSame(outer, registry.get(A));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void scopeExit() {
+        CursorRegistry registry = new CursorRegistry();
+        registry.declare(A, new TangibleCursor(0, 0));
+        registry.select(A);
+
+        registry.enterScope();
+        registry.declare(B, new TangibleCursor(0, 0));
+        registry.declare(C, new TangibleCursor(0, 0));
+        registry.select(B);
+        registry.select(C);
+        assertTrue(registry.delete(C));
+        assertFalse(registry.delete(C));
+        assertEquals(B, registry.getSelectedId());
+
+        registry.exitScope();
+        assertFalse(registry.contains(B));
+        assertEquals(A, registry.getSelectedId());
+        assertEquals(List.of(A), registry.getSelectionHistory());
+        assertFalse(registry.select(B));
+    }
+
+    @Test
+    public void selectionHistory() {
+        CursorRegistry registry = new CursorRegistry();
+        registry.declare(A, new TangibleCursor(0, 0));
+        registry.declare(B, new TangibleCursor(0, 0));
+        registry.declare(C, new TangibleCursor(0, 0));
+
+        registry.select(A);
+        registry.select(B);
+        registry.select(C);
+        registry.select(A);
+        assertEquals(List.of(A, C, B), registry.getSelectionHistory());
+
+        registry.delete(A);
+        assertEquals(C, registry.getSelectedId());
+        assertEquals(List.of(C, B), registry.getSelectionHistory());
+    }
+
+    @Test
+    public void staleHandles() {
+        CursorRegistry registry = new CursorRegistry();
+        Cursor first = new TangibleCursor(0, 0);
+        Cursor second = new TangibleCursor(1, 1);
+
+        long handle = registry.declare(A, first);
+        assertEquals(handle, registry.getHandle(A));
+        assertSame(first, registry.get(handle));
+
+        registry.delete(A);
+        assertEquals(-1, registry.getHandle(A));
+        assertNull(registry.get(handle));
+
+        //The freed slot is reused but the old handle must stay stale
+        long reused = registry.declare(B, second);
+        assertNotEquals(handle, reused);
+        assertNull(registry.get(handle));
+        assertSame(second, registry.get(reused));
+    }
+
+    @Test
+    public void snapshot() {
+        CursorRegistry registry = new CursorRegistry();
+        Cursor outer = new TangibleCursor(0, 0);
+        Cursor inner = new TangibleCursor(1, 1);
+
+        registry.declare(A, outer);
+        registry.select(A);
+        registry.enterScope();
+        registry.declare(A, inner);
+        registry.declare(B, new TangibleCursor(2, 2));
+        registry.select(B);
+        long handle = registry.getHandle(B);
+
+        CursorRegistry.Snapshot snapshot = registry.snapshot();
+
+        registry.exitScope();
+        registry.delete(A);
+        assertEquals(0, registry.size());
+
+        registry.restore(snapshot);
+        assertEquals(1, registry.getDepth());
+        assertEquals(3, registry.size());
+        assertSame(inner, registry.get(A));
+        assertEquals(List.of(B, A), registry.getSelectionHistory());
+        assertNull(registry.get(handle));
+
+        List<CursorId> order = new ArrayList<>();
+        registry.forEach((id, cursor) -> order.add(id));
+        assertEquals(List.of(A, A, B), order);
+
+        registry.exitScope();
+        assertSame(outer, registry.get(A));
+        assertEquals(A, registry.getSelectedId());
+    }
+}
@@ -0,0 +1,109 @@
+package fr.cyu.chromatynk.test.eval;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.draw.DisplayList;
+import fr.cyu.chromatynk.draw.NullSurface;
+import fr.cyu.chromatynk.eval.*;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionManagerTestCase {
+
+    private static final String INFINITE_LOOP = """
+            WHILE true {
+              FWD 0
+            }""";
+
+    private static ExecutionManager.Execution submit(ExecutionManager manager, String source, Quota quota) throws ParsingException, TypingException {
+        return manager.submit(Chromatynk.compileInstructions(source), new NullSurface(100, 100), quota);
+    }
+
+    private static QuotaExceededException getQuotaError(ExecutionManager.Execution execution) {
+        CompletionException exception = assertThrows(CompletionException.class, execution.getCompletion()::join);
+        return assertInstanceOf(QuotaExceededException.class, exception.getCause());
+    }
+
+    @Test
+    public void completion() throws ParsingException, TypingException {
+        try(ExecutionManager manager = new ExecutionManager()) {
+            ExecutionManager.Execution execution = submit(manager, """
+                    INT total = 0
+                    FOR i FROM 1 TO 10 {
+                      total = total + i
+                    }""", Quota.UNLIMITED);
+
+            EvalContext context = execution.getCompletion().join();
+            assertEquals(new Value.Int(45), context.getValue("total").orElseThrow());
+        }
+    }
+
+    @Test
+    public void quotas() throws ParsingException, TypingException {
+        try(ExecutionManager manager = new ExecutionManager()) {
+            assertEquals("instructions", getQuotaError(submit(manager, INFINITE_LOOP, Quota.UNLIMITED.withMaxInstructions(10_000))).getResource());
+            assertEquals("milliseconds of wall time", getQuotaError(submit(manager, INFINITE_LOOP, Quota.UNLIMITED.withMaxDuration(Duration.ofMillis(50)))).getResource());
+            assertEquals("segments", getQuotaError(submit(manager, INFINITE_LOOP, Quota.UNLIMITED.withMaxSegments(100))).getResource());
+
+            assertEquals("cursors", getQuotaError(submit(manager, """
+                    CURSOR 1
+                    CURSOR 2
+                    CURSOR 3""", Quota.UNLIMITED.withMaxCursors(3))).getResource());
+
+            assertEquals("variables", getQuotaError(submit(manager, """
+                    INT a = 1
+                    INT b = 2
+                    INT c = 3""", Quota.UNLIMITED.withMaxVariables(2))).getResource());
+        }
+    }
+
+    @Test
+    public void nestedMirrors() throws ParsingException, TypingException {
+        //Each nested mirror doubles the segments drawn by a single FWD
+        int depth = 22;
+        String source = "MIRROR 50%, 50% {\n".repeat(depth) + "FWD 10\n" + "}\n".repeat(depth);
+
+        try(ExecutionManager manager = new ExecutionManager()) {
+            DisplayList displayList = new DisplayList(new NullSurface(100, 100));
+            ExecutionManager.Execution execution = manager.submit(Chromatynk.compileInstructions(source), displayList, Quota.UNLIMITED.withMaxSegments(1000));
+            assertEquals("segments", getQuotaError(execution).getResource());
+            assertEquals(0, displayList.size());
+
+            QuotaExceededException copies = getQuotaError(submit(manager, source, Quota.UNLIMITED.withMaxCopies(1024)));
+            assertEquals("copies of a cursor", copies.getResource());
+            //The 11th mirror would draw 2048 copies
+            assertEquals(10, copies.getRange().from().row());
+        }
+    }
+
+    @Test
+    public void cancellation() throws ParsingException, TypingException {
+        try(ExecutionManager manager = new ExecutionManager()) {
+            List<ExecutionManager.Execution> executions = new ArrayList<>();
+            for(int i = 0; i < 32; i++) executions.add(submit(manager, INFINITE_LOOP, Quota.UNLIMITED));
+
+            //Busy runs must not starve a new one
+            ExecutionManager.Execution finite = submit(manager, "FWD 10", Quota.UNLIMITED);
+            assertNotNull(finite.getCompletion().join());
+
+            executions.getFirst().cancel();
+            assertThrows(CancellationException.class, executions.getFirst().getCompletion()::join);
+
+            manager.cancelAll();
+            for(ExecutionManager.Execution execution : executions) {
+                assertThrows(CancellationException.class, execution.getCompletion()::join);
+                assertTrue(execution.getInstructionCount() >= 0);
+            }
+
+            assertEquals(0, manager.getRunningCount());
+        }
+    }
+}
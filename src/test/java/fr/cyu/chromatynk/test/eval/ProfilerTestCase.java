@@ -0,0 +1,136 @@
+package fr.cyu.chromatynk.test.eval;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.draw.DisplayList;
+import fr.cyu.chromatynk.draw.NullSurface;
+import fr.cyu.chromatynk.eval.*;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfilerTestCase {
+
+    private static final String SOURCE = """
+            INT total = 0
+            FOR i FROM 0 TO 2000 {
+              total = total + i
+              FWD 1
+            }
+            TURN 90""";
+
+    private static Profiler.Report profile(Profiler profiler, List<Bytecode> instructions) throws EvalException {
+        EvalContext context = EvalContext.create(instructions, new DisplayList(new NullSurface(100, 100)));
+        Interpreter.evaluateAll(context, new ForeverClock(), profiler);
+        assertFalse(context.hasNext());
+        return profiler.report();
+    }
+
+    private static Profiler.LineProfile getLine(Profiler.Report report, int line) {
+        return report.lines().stream().filter(profile -> profile.line() == line).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void exact() throws ParsingException, TypingException, EvalException {
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        EvalContext plain = Interpreter.evaluateAll(EvalContext.create(instructions, new DisplayList(new NullSurface(100, 100))), new ForeverClock());
+        Profiler.Report report = profile(Profiler.exact(instructions), instructions);
+
+        assertEquals(plain.getStep(), report.count());
+        assertEquals(report.count(), report.lines().stream().mapToLong(Profiler.LineProfile::count).sum());
+        assertEquals(report.count(), report.kinds().stream().mapToLong(Profiler.KindProfile::count).sum());
+        assertEquals(report.nanos(), report.lines().stream().mapToLong(Profiler.LineProfile::nanos).sum());
+
+        //Loop body lines run 2000 times, the last line once
+        assertTrue(getLine(report, 2).count() >= 2000);
+        assertTrue(getLine(report, 3).count() >= 2000);
+        assertTrue(getLine(report, 5).count() < 10);
+        assertTrue(getLine(report, 3).nanos() > getLine(report, 5).nanos());
+
+        double[] heat = report.getHeat(6);
+        assertEquals(1, heat[report.lines().getFirst().line()]);
+        for(double value : heat) assertTrue(value >= 0 && value <= 1);
+    }
+
+    @Test
+    public void sampling() throws ParsingException, TypingException, EvalException {
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        Profiler profiler = Profiler.sampling(instructions);
+        assertTrue(profiler.isSampling());
+        Profiler.Report report = profile(profiler, instructions);
+
+        Profiler exactProfiler = Profiler.exact(instructions);
+        Profiler.Report exact = profile(exactProfiler, instructions);
+
+        //Every execution is counted even if only some are timed
+        assertEquals(exact.count(), report.count());
+        for(int address = 0; address < instructions.size(); address++) {
+            assertEquals(exactProfiler.getCount(address), profiler.getCount(address));
+        }
+
+        assertTrue(getLine(report, 3).nanos() > 0);
+
+        profiler.reset();
+        assertEquals(0, profiler.report().count());
+        assertTrue(profiler.report().lines().isEmpty());
+    }
+
+    @Test
+    public void timeline() throws ParsingException, TypingException, EvalException {
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        DisplayList displayList = new DisplayList(new NullSurface(100, 100));
+        Timeline timeline = new Timeline(EvalContext.create(instructions, displayList), displayList, 100);
+        Profiler profiler = Profiler.exact(instructions);
+        timeline.setProfiler(profiler);
+        timeline.evaluateAll(new ForeverClock());
+
+        long end = timeline.getContext().getStep();
+        assertEquals(end, profiler.report().count());
+        assertTrue(timeline.getCheckpoints().size() > 1);
+
+        //Checkpoints taken after the profiler was set keep its counters
+        assertNull(timeline.getCheckpoints().getFirst().getProfile());
+        assertNotNull(timeline.getCheckpoints().get(1).getProfile());
+
+        //The profile follows the current step
+        timeline.seek(end / 2);
+        assertEquals(end / 2, profiler.report().count());
+        timeline.seek(end);
+        assertEquals(end, profiler.report().count());
+    }
+
+    @Test
+    public void stepBack() throws ParsingException, TypingException, EvalException {
+        List<Bytecode> instructions = Chromatynk.compileInstructions(SOURCE);
+        DisplayList displayList = new DisplayList(new NullSurface(100, 100));
+        Timeline timeline = new Timeline(EvalContext.create(instructions, displayList), displayList, 100);
+        Profiler profiler = Profiler.exact(instructions);
+        timeline.setProfiler(profiler);
+        timeline.evaluateAll(new ForeverClock());
+
+        //Going back restores the counters of a checkpoint, executing the undone instructions again records them once
+        assertTrue(timeline.stepBack());
+        long step = timeline.getContext().getStep();
+        assertEquals(step, profiler.report().count());
+
+        Profiler reference = Profiler.exact(instructions);
+        DisplayList referenceList = new DisplayList(new NullSurface(100, 100));
+        Timeline referenceTimeline = new Timeline(EvalContext.create(instructions, referenceList), referenceList, 100);
+        referenceTimeline.setProfiler(reference);
+        referenceTimeline.seek(step);
+        for(int address = 0; address < instructions.size(); address++) {
+            assertEquals(reference.getCount(address), profiler.getCount(address));
+        }
+
+        timeline.seek(step / 3);
+        assertEquals(step / 3, profiler.report().count());
+
+        timeline.evaluateAll(new ForeverClock());
+        assertEquals(timeline.getContext().getStep(), profiler.report().count());
+        for(double value : profiler.report().getHeat(6)) assertTrue(value >= 0 && value <= 1);
+    }
+}
@@ -0,0 +1,178 @@
+package fr.cyu.chromatynk.test.eval;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.draw.Color;
+import fr.cyu.chromatynk.draw.Cursor;
+import fr.cyu.chromatynk.draw.CursorId;
+import fr.cyu.chromatynk.draw.DisplayList;
+import fr.cyu.chromatynk.draw.DrawingSurface;
+import fr.cyu.chromatynk.draw.Raster;
+import fr.cyu.chromatynk.eval.*;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.typing.TypingException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimelineTestCase {
+
+    private static final String SOURCE = """
+            INT total = 0
+            CURSOR 1
+            SELECT 1
+            POS 50%, 50%
+            FOR i FROM 0 TO 6 {
+              total = total + i
+              MIMIC 0 {
+                FWD 10
+                TURN 45
+              }
+            }
+            REMOVE 1
+            FOR j FROM 0 TO 3 {
+              CURSOR "tmp"
+              SELECT "tmp"
+              FWD j
+              REMOVE "tmp"
+            }
+            WHILE total < 30 {
+              total = total + 1
+              BWD 2
+            }""";
+
+    private static class EmptySurface implements DrawingSurface {
+
+        @Override
+        public double getWidth() {
+            return 200;
+        }
+
+        @Override
+        public double getHeight() {
+            return 100;
+        }
+
+        @Override
+        public void drawLine(double fromX, double fromY, double toX, double toY, Color color, double opacity, double thickness) {}
+
+        @Override
+        public void drawRaster(Raster raster) {}
+
+        @Override
+        public void clear() {}
+    }
+
+    private record State(long step, int nextAddress, Value total, double x, double y, List<DisplayList.Line> lines) {}
+
+    private static State getState(Timeline timeline) {
+        EvalContext context = timeline.getContext();
+        Cursor cursor = context.getCursor(new CursorId.Int(0)).orElseThrow();
+
+        return new State(
+                context.getStep(),
+                context.getNextAddress(),
+                context.getValue("total").orElse(null),
+                cursor.getX(),
+                cursor.getY(),
+                List.copyOf(timeline.getDisplayList().getLines())
+        );
+    }
+
+    private static Timeline createTimeline(int interval) throws ParsingException, TypingException {
+        DisplayList displayList = new DisplayList(new EmptySurface());
+        EvalContext context = EvalContext.create(Chromatynk.compileInstructions(SOURCE), displayList);
+        return new Timeline(context, displayList, interval);
+    }
+
+    private static State runTo(long step) throws ParsingException, TypingException, EvalException {
+        Timeline timeline = createTimeline(Integer.MAX_VALUE);
+        timeline.seek(step);
+        return getState(timeline);
+    }
+
+    @Test
+    public void seek() throws ParsingException, TypingException, EvalException {
+        Timeline timeline = createTimeline(7);
+        timeline.evaluateAll(new ForeverClock());
+
+        long end = timeline.getContext().getStep();
+        assertFalse(timeline.getContext().hasNext());
+        assertTrue(timeline.getCheckpoints().size() > 1);
+
+        for(long step : new long[]{0, 1, 5, 7, 8, end / 2, end - 3, 15, end}) {
+            timeline.seek(step);
+            assertEquals(runTo(step), getState(timeline), "Seek to " + step);
+        }
+    }
+
+    @Test
+    public void stepBack() throws ParsingException, TypingException, EvalException {
+        Timeline timeline = createTimeline(5);
+        StepByStepClock clock = new StepByStepClock(false);
+
+        //Pause on the first effectful instructions
+        timeline.evaluateAll(clock);
+        State first = getState(timeline);
+        clock.resume();
+        timeline.evaluateAll(clock);
+        State second = getState(timeline);
+        for(int i = 0; i < 20; i++) {
+            clock.resume();
+            timeline.evaluateAll(clock);
+        }
+
+        State last = getState(timeline);
+
+        assertTrue(timeline.stepBack());
+        clock.resume();
+        timeline.evaluateAll(clock);
+        assertEquals(last, getState(timeline));
+
+        for(int i = 0; i < 20; i++) assertTrue(timeline.stepBack());
+        assertEquals(second, getState(timeline));
+        assertTrue(timeline.stepBack());
+        assertEquals(first, getState(timeline));
+        assertFalse(timeline.stepBack());
+    }
+
+    @Test
+    public void bounded() throws ParsingException, TypingException, EvalException {
+        DisplayList displayList = new DisplayList(new EmptySurface());
+        Timeline timeline = new Timeline(EvalContext.create(Chromatynk.compileInstructions(SOURCE), displayList), displayList, 1, 8);
+        timeline.evaluateAll(new ForeverClock());
+
+        //Every other checkpoint is dropped when full, the interval doubling each time
+        long end = timeline.getContext().getStep();
+        assertTrue(timeline.getCheckpoints().size() <= 8);
+        assertTrue(timeline.getInterval() > 1);
+        assertEquals(0, timeline.getCheckpoints().getFirst().getStep());
+
+        for(long step : new long[]{0, 1, end / 3, end / 2, end}) {
+            timeline.seek(step);
+            assertEquals(runTo(step), getState(timeline), "Seek to " + step);
+        }
+    }
+
+    @Test
+    public void flattened() throws ParsingException, TypingException, EvalException {
+        DisplayList displayList = new DisplayList(new EmptySurface(), 4);
+        Timeline timeline = new Timeline(EvalContext.create(Chromatynk.compileInstructions(SOURCE), displayList), displayList, 1);
+        StepByStepClock clock = new StepByStepClock(false);
+        while(timeline.getContext().hasNext()) {
+            clock.resume();
+            timeline.evaluateAll(clock);
+        }
+
+        //The checkpoints before the flattened lines are dropped
+        assertTrue(displayList.getFlattened() > 0);
+        for(Checkpoint checkpoint : timeline.getCheckpoints()) assertTrue(checkpoint.getDisplayOffset() >= displayList.getFlattened());
+
+        int backSteps = 0;
+        while(timeline.stepBack()) backSteps++;
+        assertTrue(backSteps > 0);
+        assertTrue(timeline.getContext().getStep() > 0);
+        assertTrue(displayList.size() >= displayList.getFlattened());
+    }
+}
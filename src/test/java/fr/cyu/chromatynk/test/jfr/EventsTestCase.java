@@ -0,0 +1,101 @@
+package fr.cyu.chromatynk.test.jfr;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.bytecode.Bytecode;
+import fr.cyu.chromatynk.eval.Quota;
+import fr.cyu.chromatynk.jfr.CompileStageEvent;
+import fr.cyu.chromatynk.server.RenderServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventsTestCase {
+
+    private static final String SOURCE = """
+            INT total = 0
+            FOR i FROM 0 TO 10 {
+              FWD i
+            }
+            TURN 90""";
+
+    private static List<RecordedEvent> record(String enabled, String disabled, ThrowingRunnable action) throws Exception {
+        Path file = Files.createTempFile("chromatynk", ".jfr");
+        try(Recording recording = new Recording()) {
+            recording.enable(enabled);
+            recording.disable(disabled);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file)
+                    .stream()
+                    .filter(event -> event.getEventType().getName().startsWith("fr.cyu.chromatynk."))
+                    .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    private static RecordedEvent getStage(List<RecordedEvent> events, String stage) {
+        return events.stream().filter(event -> event.getString("stage").equals(stage)).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void compileStages() throws Exception {
+        AtomicReference<List<Bytecode>> instructions = new AtomicReference<>();
+        List<RecordedEvent> events = record("fr.cyu.chromatynk.CompileStage", "fr.cyu.chromatynk.CanvasExport", () -> instructions.set(Chromatynk.compileInstructions(SOURCE)));
+
+        assertEquals(4, events.size());
+        assertEquals(Chromatynk.lexSource(SOURCE).size(), getStage(events, CompileStageEvent.LEX).getInt("tokens"));
+        assertEquals(3, getStage(events, CompileStageEvent.PARSE).getInt("statements"));
+        assertEquals(3, getStage(events, CompileStageEvent.TYPECHECK).getInt("statements"));
+        assertEquals(instructions.get().size(), getStage(events, CompileStageEvent.COMPILE).getInt("instructions"));
+        assertEquals(SOURCE.length(), getStage(events, CompileStageEvent.COMPILE).getInt("sourceLength"));
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        assertTrue(record("fr.cyu.chromatynk.CanvasExport", "fr.cyu.chromatynk.CompileStage", () -> Chromatynk.compileInstructions(SOURCE)).isEmpty());
+    }
+
+    @Test
+    public void export() throws Exception {
+        List<RecordedEvent> events = record("fr.cyu.chromatynk.CanvasExport", "fr.cyu.chromatynk.CompileStage", () -> {
+            try(RenderServer server = new RenderServer(0, Quota.UNLIMITED)) {
+                server.start();
+                HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:" + server.getPort() + "/render?format=svg&width=120&height=80").toURL().openConnection();
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                try(OutputStream out = connection.getOutputStream()) {
+                    out.write(SOURCE.getBytes(StandardCharsets.UTF_8));
+                }
+                assertEquals(200, connection.getResponseCode());
+                connection.getInputStream().readAllBytes();
+            }
+        });
+
+        assertEquals(1, events.size());
+        RecordedEvent event = events.getFirst();
+        assertEquals("svg", event.getString("format"));
+        assertEquals(120, event.getInt("width"));
+        assertEquals(80, event.getInt("height"));
+        assertTrue(event.getLong("size") > 0);
+    }
+}
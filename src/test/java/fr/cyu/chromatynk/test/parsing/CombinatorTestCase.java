@@ -4,10 +4,13 @@ import fr.cyu.chromatynk.parsing.*;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import static fr.cyu.chromatynk.parsing.Parser.*;
 import static fr.cyu.chromatynk.test.parsing.ParserTest.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CombinatorTestCase {
 
@@ -126,4 +129,47 @@ public class CombinatorTestCase {
         assertParseFailure(UnexpectedInputException.class, parser, ParsingIterator.fromString("abcEND"));
         assertParseFailure(UnexpectedInputException.class, parser, ParsingIterator.fromString(""));
     }
+
+    private static ParsingIterator<Character> memoizedIterator(String input, MemoTable table) {
+        ParsingIterator<Character> iterator = ParsingIterator.fromString(input);
+        iterator.setMemoTable(table);
+        return iterator;
+    }
+
+    @Test
+    public void memoized() {
+        AtomicInteger calls = new AtomicInteger();
+        Parser<Character, String> abc = keyword("abc").map(value -> {
+            calls.incrementAndGet();
+            return value;
+        }).memoized();
+        Parser<Character, String> parser = firstSucceeding(abc.suffixed(keyword("X")), abc.suffixed(keyword("Y")), abc);
+
+        //Without table, each alternative parses "abc" again
+        assertParseString("abc", parser, "abc Y");
+        assertEquals(2, calls.getAndSet(0));
+
+        MemoTable table = new MemoTable();
+        assertParse("abc", parser, memoizedIterator("abc Y", table));
+        assertEquals(1, calls.getAndSet(0));
+        assertEquals(1, table.getHits());
+
+        //The memoized result restores the position after "abc"
+        assertParse("abc", parser.suffixed(keyword("Z")), memoizedIterator("abc Z", new MemoTable()));
+        assertEquals(1, calls.getAndSet(0));
+
+        //Failures are memoized too
+        MemoTable failures = new MemoTable();
+        assertParseFailure(ParsingException.class, parser, memoizedIterator("abd", failures));
+        assertEquals(2, failures.getHits());
+    }
+
+    @Test
+    public void memoTableCapacity() {
+        Parser<Character, String> letter = matching("[a-z]").memoized();
+        MemoTable table = new MemoTable(4);
+
+        assertParse(List.of("a", "b", "c", "d", "e", "f"), letter.repeat(), memoizedIterator("abcdef", table));
+        assertTrue(table.size() <= 4);
+    }
 }
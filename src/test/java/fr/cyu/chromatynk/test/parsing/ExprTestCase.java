@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import static fr.cyu.chromatynk.test.parsing.ParserTest.assertParse;
 import static fr.cyu.chromatynk.test.parsing.ParserTest.assertParseFailure;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class ExprTestCase {
 
@@ -415,4 +416,29 @@ public class ExprTestCase {
                 )
         );
     }
+
+    @Test
+    public void danglingOperator() {
+        //3 * 2 + ,
+        ParsingIterator<Token> iterator = RangedParsingIterator.ofRanged(
+                new Token.LiteralInt(Range.sameLine(0, 1), 3),
+                new Token.Mul(Range.sameLine(2, 3)),
+                new Token.LiteralInt(Range.sameLine(4, 5), 2),
+                new Token.Plus(Range.sameLine(6, 7)),
+                new Token.Comma(Range.sameLine(8, 9))
+        );
+
+        assertParse(
+                new Expr.Mul(
+                        Range.sameLine(0, 5),
+                        new Expr.LiteralInt(Range.sameLine(0, 1), 3),
+                        new Expr.LiteralInt(Range.sameLine(4, 5), 2)
+                ),
+                ExprParser.anyExpr(),
+                iterator
+        );
+
+        //The operator without right operand is left for the next parser
+        assertEquals(3, iterator.getCursor());
+    }
 }
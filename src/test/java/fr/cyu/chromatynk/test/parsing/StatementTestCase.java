@@ -1,20 +1,33 @@
 package fr.cyu.chromatynk.test.parsing;
 
+import fr.cyu.chromatynk.Chromatynk;
 import fr.cyu.chromatynk.ast.Expr;
 import fr.cyu.chromatynk.ast.Program;
 import fr.cyu.chromatynk.ast.Statement;
 import fr.cyu.chromatynk.ast.Type;
+import fr.cyu.chromatynk.parsing.MemoTable;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.parsing.ParsingIterator;
 import fr.cyu.chromatynk.parsing.RangedParsingIterator;
 import fr.cyu.chromatynk.parsing.StatementParser;
 import fr.cyu.chromatynk.parsing.Token;
 import fr.cyu.chromatynk.util.Position;
 import fr.cyu.chromatynk.util.Range;
+import fr.cyu.chromatynk.util.WorkloadGenerator;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static fr.cyu.chromatynk.test.parsing.ParserTest.assertParse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class StatementTestCase {
 
@@ -555,4 +568,46 @@ public class StatementTestCase {
                 )
         );
     }
+
+    @Test
+    public void memoizedProgram() throws ParsingException {
+        String nested = "FWD " + "(".repeat(8) + "1 + 2" + ")".repeat(8) + "\nPOS 10, (20)\nCOLOR 1, 2, (3 * 4)";
+        for(String source : List.of(nested, WorkloadGenerator.generate(WorkloadGenerator.Shape.MIXED, 3))) {
+            List<Token> tokens = Chromatynk.lexSource(source);
+            ParsingIterator<Token> memoized = new RangedParsingIterator<>(tokens);
+            memoized.setMemoTable(new MemoTable());
+
+            assertEquals(
+                    StatementParser.program().parse(new RangedParsingIterator<>(tokens)).value(),
+                    StatementParser.program().parse(memoized).value()
+            );
+        }
+    }
+
+    @Test
+    public void sharedGrammar() throws Exception {
+        assertSame(StatementParser.program(), StatementParser.program());
+
+        List<String> sources = new ArrayList<>();
+        try(var examples = Files.list(Path.of("examples"))) {
+            for(Path example : examples.toList()) sources.add(Files.readString(example));
+        }
+        for(WorkloadGenerator.Shape shape : WorkloadGenerator.Shape.values()) sources.add(WorkloadGenerator.generate(shape, 20));
+
+        List<Program> expected = new ArrayList<>();
+        for(String source : sources) expected.add(Chromatynk.parseSource(source));
+
+        //Parse every source from several threads at once, sharing the same parsers
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Program>> programs = new ArrayList<>();
+            for(int i = 0; i < 4; i++) {
+                for(String source : sources) programs.add(executor.submit(() -> Chromatynk.parseSource(source)));
+            }
+
+            for(int i = 0; i < programs.size(); i++) assertEquals(expected.get(i % sources.size()), programs.get(i).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,149 @@
+package fr.cyu.chromatynk.test.parsing;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.ChromatynkException;
+import fr.cyu.chromatynk.ast.Statement;
+import fr.cyu.chromatynk.parsing.ParsingException;
+import fr.cyu.chromatynk.parsing.StreamingLexer;
+import fr.cyu.chromatynk.parsing.StreamingParser;
+import fr.cyu.chromatynk.parsing.Token;
+import fr.cyu.chromatynk.util.WorkloadGenerator;
+import fr.cyu.chromatynk.util.WorkloadGenerator.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingTestCase {
+
+    /**
+     * Create a reader returning at most a few characters per read, like a slow stream.
+     */
+    private static Reader slowReader(String source) {
+        return new FilterReader(new StringReader(source)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 7));
+            }
+        };
+    }
+
+    private static Map<String, String> sources() throws IOException {
+        Map<String, String> sources = new TreeMap<>();
+
+        try(var examples = Files.list(Path.of("examples"))) {
+            for(Path example : examples.toList()) sources.put(example.getFileName().toString(), Files.readString(example));
+        }
+
+        //Large enough to span many windows, with statements longer than the token lookahead
+        for(Shape shape : Shape.values()) sources.put(shape.name(), WorkloadGenerator.generate(shape, 100));
+
+        sources.put("empty", "");
+        sources.put("whitespaces", "  \n FWD 5\n\n" + " ".repeat(50_000) + "FWD 5   ");
+        sources.put("invalid token", "FWD 5 $ FWD 3");
+        sources.put("long string", "STR s = \"" + "a".repeat(50_000) + "\"\nFWD 5");
+        sources.put("long identifier", "INT " + "i".repeat(200) + " = 5");
+
+        return sources;
+    }
+
+    private static List<Token> lexStream(String source) throws ParsingException, IOException {
+        StreamingLexer lexer = new StreamingLexer(slowReader(source));
+        List<Token> tokens = new ArrayList<>();
+        while(lexer.hasNext()) tokens.add(lexer.next());
+
+        assertEquals(tokens.size(), lexer.getTokens());
+        assertEquals(source.length(), lexer.getCharactersRead());
+        return tokens;
+    }
+
+    private static List<Statement> parseStream(String source) throws ParsingException, IOException {
+        StreamingParser parser = new StreamingParser(new StreamingLexer(slowReader(source)));
+        List<Statement> statements = new ArrayList<>();
+        for(Optional<Statement> next = parser.next(); next.isPresent(); next = parser.next()) statements.add(next.get());
+
+        assertEquals(statements.size(), parser.getStatements());
+        return statements;
+    }
+
+    @Test
+    public void tokens() throws Exception {
+        for(Map.Entry<String, String> source : sources().entrySet()) {
+            assertEquals(Chromatynk.lexSource(source.getValue()), lexStream(source.getValue()), source.getKey());
+        }
+    }
+
+    @Test
+    public void statements() throws Exception {
+        for(Map.Entry<String, String> source : sources().entrySet()) {
+            assertEquals(Chromatynk.parseSource(source.getValue()).statements(), parseStream(source.getValue()), source.getKey());
+        }
+    }
+
+    @Test
+    public void instructions() throws Exception {
+        for(Map.Entry<String, String> source : sources().entrySet()) {
+            assertEquals(
+                    Chromatynk.compileInstructions(source.getValue()),
+                    Chromatynk.compileStream(slowReader(source.getValue())),
+                    source.getKey()
+            );
+        }
+    }
+
+    @Test
+    public void errors() {
+        List<String> sources = List.of(
+                "FWD 5\nIF true {\n  FWD 5\n",
+                "FWD 5\nFWD \"a\"",
+                "FWD 5\nFWD 5 +",
+                WorkloadGenerator.generate(Shape.MIXED, 100) + "\nMOV 5"
+        );
+
+        for(String source : sources) {
+            ChromatynkException expected = assertThrows(ChromatynkException.class, () -> Chromatynk.compileInstructions(source));
+            ChromatynkException actual = assertThrows(ChromatynkException.class, () -> Chromatynk.compileStream(slowReader(source)));
+
+            assertEquals(expected.getClass(), actual.getClass(), source);
+            assertEquals(expected.getMessage(), actual.getMessage(), source);
+            assertEquals(expected.getRange(), actual.getRange(), source);
+        }
+    }
+
+    @Test
+    public void generatedSource() throws Exception {
+        int statements = 100_000;
+
+        //Generate the source while it is read, it is never held in memory
+        Reader reader = new Reader() {
+            private int generated;
+            private final StringBuilder pending = new StringBuilder();
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                while(pending.length() < length && generated < statements) {
+                    pending.append("FWD ").append(generated++ % 10).append('\n');
+                }
+                if(pending.isEmpty()) return -1;
+
+                int read = Math.min(length, pending.length());
+                pending.getChars(0, read, buffer, offset);
+                pending.delete(0, read);
+                return read;
+            }
+
+            @Override
+            public void close() {}
+        };
+
+        String source = "FWD 0\nFWD 1\nFWD 2\nFWD 3\nFWD 4\nFWD 5\nFWD 6\nFWD 7\nFWD 8\nFWD 9\n".repeat(statements / 10);
+        assertEquals(Chromatynk.compileInstructions(source), Chromatynk.compileStream(reader));
+    }
+}
@@ -0,0 +1,48 @@
+package fr.cyu.chromatynk.test.server;
+
+import fr.cyu.chromatynk.draw.Raster;
+import fr.cyu.chromatynk.server.RasterPool;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RasterPoolTestCase {
+
+    @Test
+    public void reuse() {
+        RasterPool pool = new RasterPool(2, 1000);
+        Raster raster = pool.acquire(10, 10);
+        pool.release(raster);
+        assertEquals(100, pool.getPooledPixels());
+
+        assertSame(raster, pool.acquire(10, 10));
+        assertEquals(0, pool.getPooledPixels());
+        assertNotSame(raster, pool.acquire(10, 10));
+    }
+
+    @Test
+    public void bounded() {
+        RasterPool pool = new RasterPool(2, 1000);
+
+        //At most maxPerSize rasters of a size
+        for(int i = 0; i < 3; i++) pool.release(new Raster(10, 10));
+        assertEquals(200, pool.getPooledPixels());
+
+        //Rasters larger than the whole pool are not kept
+        pool.release(new Raster(40, 40));
+        assertEquals(200, pool.getPooledPixels());
+
+        //The least recently used sizes are dropped first
+        Raster latest = new Raster(20, 20);
+        pool.release(new Raster(30, 10));
+        pool.release(new Raster(20, 20));
+        pool.release(latest);
+        assertEquals(800, pool.getPooledPixels());
+        assertSame(latest, pool.acquire(20, 20));
+        assertNotSame(latest, pool.acquire(30, 10));
+
+        //Distinct sizes never exceed the limit
+        for(int width = 1; width <= 100; width++) pool.release(new Raster(width, 9));
+        assertTrue(pool.getPooledPixels() <= 1000);
+    }
+}
@@ -0,0 +1,130 @@
+package fr.cyu.chromatynk.test.server;
+
+import fr.cyu.chromatynk.eval.Quota;
+import fr.cyu.chromatynk.server.RenderServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderServerTestCase {
+
+    private static final String SOURCE = """
+            POS 50%, 50%
+            FOR i FROM 0 TO 50 {
+              COLOR i MOD 255, 100, 200
+              FWD i
+              TURN 30
+            }""";
+
+    private record Response(int status, String contentType, byte[] body) {
+
+        private String text() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Response request(RenderServer server, String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:" + server.getPort() + path).toURL().openConnection();
+        connection.setRequestMethod(method);
+
+        if(body != null) {
+            connection.setDoOutput(true);
+            try(OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        try(InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new Response(status, connection.getContentType(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void render() throws IOException {
+        try(RenderServer server = new RenderServer(0, Quota.UNLIMITED)) {
+            server.start();
+
+            Response png = request(server, "POST", "/render?format=png&width=320&height=200", SOURCE);
+            assertEquals(200, png.status());
+            assertEquals("image/png", png.contentType());
+            assertArrayEquals(new byte[]{(byte) 0x89, 'P', 'N', 'G'}, Arrays.copyOf(png.body(), 4));
+
+            Response svg = request(server, "POST", "/render?format=svg&width=320&height=200", SOURCE);
+            assertEquals(200, svg.status());
+            assertTrue(svg.text().startsWith("<svg"));
+            assertEquals(50, svg.text().split("<line ").length - 1);
+
+            assertEquals(1, server.getProgramCache().getMisses());
+            assertEquals(1, server.getProgramCache().getHits());
+        }
+    }
+
+    @Test
+    public void errors() throws IOException {
+        try(RenderServer server = new RenderServer(0, Quota.UNLIMITED.withMaxInstructions(1000))) {
+            server.start();
+
+            assertEquals(400, request(server, "POST", "/render", "FWD \"text\"").status());
+            assertEquals(400, request(server, "POST", "/render?format=gif", SOURCE).status());
+            assertEquals(400, request(server, "POST", "/render?width=-1", SOURCE).status());
+            assertEquals(400, request(server, "POST", "/render?width=" + (RenderServer.MAX_DIMENSION + 1), SOURCE).status());
+            assertEquals(400, request(server, "POST", "/render?width=4096&height=4096", SOURCE).status());
+            assertEquals(413, request(server, "POST", "/render", "FWD 1\n".repeat(RenderServer.MAX_BODY_SIZE / 6 + 1)).status());
+            assertEquals(405, request(server, "GET", "/render", null).status());
+            assertEquals(405, request(server, "POST", "/metrics", SOURCE).status());
+
+            Response quota = request(server, "POST", "/render", "WHILE true {\n  FWD 1\n}");
+            assertEquals(422, quota.status());
+            assertTrue(quota.text().contains("Quota exceeded"));
+        }
+    }
+
+    @Test
+    public void concurrentRenders() throws Exception {
+        Quota quota = Quota.UNLIMITED.withMaxDuration(Duration.ofSeconds(30));
+        try(RenderServer server = new RenderServer(0, quota, 1)) {
+            server.start();
+
+            //Busy until the server is closed
+            Thread busy = Thread.ofVirtual().start(() -> {
+                try {
+                    request(server, "POST", "/render", "WHILE true {}");
+                } catch (IOException ignored) {}
+            });
+
+            while(server.getActiveRenders() == 0) Thread.sleep(1);
+
+            Response rejected = request(server, "POST", "/render", SOURCE);
+            assertEquals(503, rejected.status());
+            assertEquals(1, server.getActiveRenders());
+
+            server.close();
+            busy.join();
+            assertEquals(0, server.getActiveRenders());
+        }
+    }
+
+    @Test
+    public void metrics() throws IOException {
+        try(RenderServer server = new RenderServer(0, Quota.UNLIMITED)) {
+            server.start();
+            for(int i = 0; i < 3; i++) request(server, "POST", "/render?format=svg", SOURCE);
+
+            String metrics = request(server, "GET", "/metrics", null).text();
+            assertTrue(metrics.contains("requests_total 3\n"), metrics);
+            assertTrue(metrics.contains("program_cache_hit_rate 0.6666666666666666\n"), metrics);
+            assertTrue(metrics.contains("latency_p99_ms "), metrics);
+            assertTrue(server.getMetrics().getInstructionsPerSecond() > 0);
+        }
+    }
+}
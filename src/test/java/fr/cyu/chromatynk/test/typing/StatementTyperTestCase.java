@@ -0,0 +1,23 @@
+package fr.cyu.chromatynk.test.typing;
+
+import fr.cyu.chromatynk.Chromatynk;
+import fr.cyu.chromatynk.typing.MissingVariableException;
+import fr.cyu.chromatynk.typing.TypeMismatchException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StatementTyperTestCase {
+
+    @Test
+    public void forBoundsBeforeIterator() {
+        //The bounds and the step are evaluated before the iterator is declared
+        assertThrows(MissingVariableException.class, () -> Chromatynk.compileInstructions("FOR i FROM 1 TO 100 STEP i {\n  FWD i\n}"));
+        assertThrows(MissingVariableException.class, () -> Chromatynk.compileInstructions("FOR i FROM 1 TO i {\n  FWD i\n}"));
+
+        //They can still refer to an outer variable of the same name
+        assertDoesNotThrow(() -> Chromatynk.compileInstructions("INT i = 2\nFOR i FROM 1 TO 100 STEP i {\n  FWD i\n}"));
+        assertThrows(TypeMismatchException.class, () -> Chromatynk.compileInstructions("FOR i FROM 1 TO 100 STEP true {}"));
+    }
+}